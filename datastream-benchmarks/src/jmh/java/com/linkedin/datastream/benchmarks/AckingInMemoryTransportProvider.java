@@ -0,0 +1,32 @@
+/**
+ *  Copyright 2019 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.benchmarks;
+
+import com.linkedin.datastream.server.DatastreamProducerRecord;
+import com.linkedin.datastream.server.InMemoryTransportProvider;
+import com.linkedin.datastream.server.api.transport.SendCallback;
+
+
+/**
+ * An {@link InMemoryTransportProvider} that acknowledges every record as soon as it is sent, so that the send
+ * callbacks of the event producers run as they would with a real transport. The records received are dropped
+ * periodically to keep the heap of long benchmark runs flat.
+ */
+class AckingInMemoryTransportProvider extends InMemoryTransportProvider {
+  private static final int MAX_RECORDS_RETAINED = 1024;
+
+  private int _numRecordsRetained;
+
+  @Override
+  public synchronized void send(String connectionString, DatastreamProducerRecord record, SendCallback onComplete) {
+    super.send(connectionString, record, onComplete);
+    if (++_numRecordsRetained >= MAX_RECORDS_RETAINED) {
+      getRecordsReceived().clear();
+      _numRecordsRetained = 0;
+    }
+    onComplete.onCompletion(BenchmarkUtils.createMetadata(getTopicName(connectionString), record), null);
+  }
+}
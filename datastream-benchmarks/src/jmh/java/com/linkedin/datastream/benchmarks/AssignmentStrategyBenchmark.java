@@ -0,0 +1,116 @@
+/**
+ *  Copyright 2021 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.linkedin.datastream.common.zk.ZkClient;
+import com.linkedin.datastream.metrics.MetricsBackend;
+import com.linkedin.datastream.testutil.EmbeddedZookeeper;
+import com.linkedin.datastream.testutil.assignment.AssignmentSimulator;
+import com.linkedin.datastream.testutil.assignment.SimulatedCluster;
+import com.linkedin.datastream.testutil.assignment.SimulatedEvent;
+import com.linkedin.datastream.testutil.assignment.SimulatedStrategy;
+import com.linkedin.datastream.testutil.assignment.SimulationReport;
+import com.linkedin.datastream.testutil.assignment.ThroughputDistribution;
+
+
+/**
+ * Benchmarks the reassignment which follows a {@link SimulatedEvent} on a {@link SimulatedCluster}, through each of
+ * the {@link SimulatedStrategy}s (see {@link AssignmentSimulator}).
+ *
+ * A reassignment changes the cluster and the assignment, so each iteration runs a single one, on a cluster of its own
+ * which is assigned beforehand. The number of tasks and partitions moved and the balance of the assignment are not
+ * part of the results, but are in the {@link SimulationReport}s of the simulator.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AssignmentStrategyBenchmark {
+  private static final int MEAN_PARTITION_THROUGHPUT_KBPS = 100;
+
+  @Param({"STICKY_PARTITION", "LOAD_BASED", "STICKY_MULTICAST", "BROADCAST"})
+  public SimulatedStrategy strategy;
+
+  @Param({"ASSIGNMENT", "INSTANCE_DEATH", "SCALE_OUT", "PARTITION_GROWTH", "PARTITION_REBALANCE"})
+  public SimulatedEvent event;
+
+  @Param({"10", "100"})
+  public int numInstances;
+
+  @Param({"20"})
+  public int numDatastreamGroups;
+
+  @Param({"256"})
+  public int numPartitionsPerGroup;
+
+  @Param({"PARETO"})
+  public ThroughputDistribution throughputDistribution;
+
+  private EmbeddedZookeeper _zookeeper;
+  private ZkClient _zkClient;
+  private int _numClusters;
+  private AssignmentSimulator _simulator;
+
+  /**
+   * Start the ZooKeeper server the partition strategies keep the number of tasks in
+   */
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    BenchmarkUtils.resetMetrics(AssignmentStrategyBenchmark.class.getSimpleName(), MetricsBackend.CODAHALE);
+    _zookeeper = new EmbeddedZookeeper();
+    _zookeeper.startup();
+    _zkClient = new ZkClient(_zookeeper.getConnection());
+  }
+
+  /**
+   * Create and assign the cluster of the iteration, under a name of its own so that the number of tasks the partition
+   * strategies kept for the previous clusters is not reused
+   */
+  @Setup(Level.Iteration)
+  public void assignCluster() {
+    SimulatedCluster cluster = new SimulatedCluster("benchmark" + _numClusters, numInstances, numDatastreamGroups,
+        numPartitionsPerGroup, throughputDistribution, MEAN_PARTITION_THROUGHPUT_KBPS, _numClusters);
+    _numClusters++;
+    _simulator = new AssignmentSimulator(cluster, strategy, _zkClient);
+    _simulator.apply(SimulatedEvent.ASSIGNMENT);
+  }
+
+  /**
+   * Stop the ZooKeeper server
+   */
+  @TearDown(Level.Trial)
+  public void teardown() {
+    _zkClient.close();
+    _zookeeper.shutdown();
+  }
+
+  /**
+   * Apply the event and reassign the cluster
+   */
+  @Benchmark
+  public SimulationReport reassign() {
+    return _simulator.apply(event);
+  }
+}
@@ -0,0 +1,100 @@
+/**
+ *  Copyright 2019 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import com.codahale.metrics.MetricRegistry;
+
+import com.linkedin.data.template.StringMap;
+import com.linkedin.datastream.common.BrooklinEnvelope;
+import com.linkedin.datastream.common.Datastream;
+import com.linkedin.datastream.common.DatastreamDestination;
+import com.linkedin.datastream.common.DatastreamMetadataConstants;
+import com.linkedin.datastream.common.DatastreamSource;
+import com.linkedin.datastream.common.DatastreamStatus;
+import com.linkedin.datastream.metrics.DynamicMetricsManager;
+import com.linkedin.datastream.metrics.MetricsBackend;
+import com.linkedin.datastream.server.DatastreamProducerRecord;
+import com.linkedin.datastream.server.DatastreamProducerRecordBuilder;
+import com.linkedin.datastream.server.DatastreamTaskImpl;
+import com.linkedin.datastream.server.api.transport.DatastreamRecordMetadata;
+
+
+/**
+ * Helpers shared by the benchmarks
+ */
+final class BenchmarkUtils {
+  static final String CONNECTOR_TYPE = "benchmark";
+  static final int NUM_PARTITIONS = 64;
+
+  private BenchmarkUtils() {
+  }
+
+  /**
+   * Give the benchmark a fresh {@link DynamicMetricsManager}, so that the metrics created by the previous benchmarks
+   * run in the same JVM do not skew the results.
+   * @param benchmarkName the name of the benchmark
+   * @param metricsBackend the backend of the meters and histograms
+   */
+  static DynamicMetricsManager resetMetrics(String benchmarkName, MetricsBackend metricsBackend) {
+    DynamicMetricsManager dynamicMetricsManager =
+        DynamicMetricsManager.createInstance(new MetricRegistry(), benchmarkName);
+    dynamicMetricsManager.setMetricsBackend(metricsBackend);
+    return dynamicMetricsManager;
+  }
+
+  /**
+   * Create tasks of distinct datastreams
+   * @param numTasks the number of tasks
+   * @param destinationFormat the format of the destination connection strings, taking the index of the datastream
+   */
+  static List<DatastreamTaskImpl> createTasks(int numTasks, String destinationFormat) {
+    List<DatastreamTaskImpl> tasks = new ArrayList<>(numTasks);
+    for (int i = 0; i < numTasks; i++) {
+      Datastream datastream = new Datastream();
+      datastream.setName("benchmark-" + i);
+      datastream.setConnectorName(CONNECTOR_TYPE);
+      datastream.setTransportProviderName(CONNECTOR_TYPE);
+      datastream.setSource(new DatastreamSource());
+      datastream.getSource().setConnectionString("source-" + i);
+      datastream.setDestination(new DatastreamDestination());
+      datastream.getDestination().setConnectionString(String.format(destinationFormat, i));
+      datastream.getDestination().setPartitions(NUM_PARTITIONS);
+      datastream.setStatus(DatastreamStatus.READY);
+      datastream.setMetadata(new StringMap());
+      datastream.getMetadata().put(DatastreamMetadataConstants.OWNER_KEY, CONNECTOR_TYPE);
+      tasks.add(new DatastreamTaskImpl(Collections.singletonList(datastream)));
+    }
+    return tasks;
+  }
+
+  /**
+   * Create a record of a single event
+   * @param partition the destination partition
+   * @param checkpoint the source checkpoint
+   * @param payloadSize the size of the value of the event
+   */
+  static DatastreamProducerRecord createRecord(int partition, String checkpoint, int payloadSize) {
+    DatastreamProducerRecordBuilder builder = new DatastreamProducerRecordBuilder();
+    builder.setPartition(partition);
+    builder.setSourceCheckpoint(checkpoint);
+    builder.setEventsSourceTimestamp(System.currentTimeMillis());
+    builder.addEvent(new BrooklinEnvelope(("key-" + checkpoint).getBytes(), new byte[payloadSize], null,
+        new HashMap<>()));
+    return builder.build();
+  }
+
+  /**
+   * Get the metadata a transport provider acknowledges a record with
+   */
+  static DatastreamRecordMetadata createMetadata(String topic, DatastreamProducerRecord record) {
+    return new DatastreamRecordMetadata(record.getCheckpoint(), topic, record.getPartition().orElse(0));
+  }
+}
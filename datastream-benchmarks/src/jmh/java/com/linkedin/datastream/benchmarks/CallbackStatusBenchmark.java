@@ -0,0 +1,88 @@
+/**
+ *  Copyright 2019 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.linkedin.datastream.server.callbackstatus.CallbackStatus;
+
+
+/**
+ * Benchmarks the {@link CallbackStatus} implementations: each operation registers the next offset of a source
+ * partition and acks the offset registered {@code inFlight} operations earlier, so that {@code inFlight} offsets
+ * are always pending. With {@code outOfOrderAcks}, the offsets are acked by pairs in reverse order.
+ *
+ * Each benchmark thread has a {@link CallbackStatus} of its own, like the source partitions of a task.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CallbackStatusBenchmark {
+  @Param({"COMPARABLE", "NON_COMPARABLE", "MONOTONIC_LONG"})
+  public CallbackStatusType callbackStatusType;
+
+  @Param({"2", "1024"})
+  public int inFlight;
+
+  @Param({"false", "true"})
+  public boolean outOfOrderAcks;
+
+  private CallbackStatus<Long> _callbackStatus;
+  private long _nextOffset;
+
+  /**
+   * Register the offsets initially in flight
+   */
+  @Setup
+  public void setup() {
+    _callbackStatus = callbackStatusType.createFactory().createCallbackStatusStrategy();
+    for (_nextOffset = 0; _nextOffset < inFlight; _nextOffset++) {
+      _callbackStatus.register(_nextOffset);
+    }
+  }
+
+  private Long registerNextAndAck() {
+    _callbackStatus.register(_nextOffset);
+    long ackedOffset = _nextOffset - inFlight;
+    _callbackStatus.ack(outOfOrderAcks ? ackedOffset ^ 1 : ackedOffset);
+    _nextOffset++;
+    return _callbackStatus.getAckCheckpoint();
+  }
+
+  /**
+   * Register and ack from a single thread
+   */
+  @Benchmark
+  @Threads(1)
+  public Long registerAndAck() {
+    return registerNextAndAck();
+  }
+
+  /**
+   * Register and ack from as many threads as there are processors, each with its own callback status
+   */
+  @Benchmark
+  @Threads(Threads.MAX)
+  public Long registerAndAckContended() {
+    return registerNextAndAck();
+  }
+}
@@ -0,0 +1,40 @@
+/**
+ *  Copyright 2019 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.benchmarks;
+
+import com.linkedin.datastream.server.callbackstatus.CallbackStatusFactory;
+import com.linkedin.datastream.server.callbackstatus.CallbackStatusWithComparableOffsetsFactory;
+import com.linkedin.datastream.server.callbackstatus.CallbackStatusWithMonotonicLongOffsetsFactory;
+import com.linkedin.datastream.server.callbackstatus.CallbackStatusWithNonComparableOffsetsFactory;
+
+
+/**
+ * The {@link com.linkedin.datastream.server.callbackstatus.CallbackStatus} implementations benchmarked
+ */
+public enum CallbackStatusType {
+  COMPARABLE {
+    @Override
+    CallbackStatusFactory<Long> createFactory() {
+      return new CallbackStatusWithComparableOffsetsFactory<>();
+    }
+  },
+
+  NON_COMPARABLE {
+    @Override
+    CallbackStatusFactory<Long> createFactory() {
+      return new CallbackStatusWithNonComparableOffsetsFactory<>();
+    }
+  },
+
+  MONOTONIC_LONG {
+    @Override
+    CallbackStatusFactory<Long> createFactory() {
+      return new CallbackStatusWithMonotonicLongOffsetsFactory();
+    }
+  };
+
+  abstract CallbackStatusFactory<Long> createFactory();
+}
@@ -0,0 +1,140 @@
+/**
+ *  Copyright 2019 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.linkedin.datastream.metrics.DynamicMetricsManager;
+import com.linkedin.datastream.metrics.MetricsBackend;
+
+
+/**
+ * Benchmarks the {@code createOrUpdate*} methods of {@link DynamicMetricsManager} once the metrics exist, which is
+ * how they are called on the send path. Each operation updates the metric of the next of {@code numKeys} keys
+ * (e.g. topics), so all the threads update the same metrics.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DynamicMetricsManagerBenchmark {
+  private static final String CLASS_NAME = DynamicMetricsManagerBenchmark.class.getSimpleName();
+  private static final String COUNTER = "counter";
+  private static final String METER = "meter";
+  private static final String HISTOGRAM = "histogram";
+
+  /**
+   * The metrics manager and the keys of the metrics
+   */
+  @State(Scope.Benchmark)
+  public static class Metrics {
+    @Param({"CODAHALE", "STRIPED"})
+    public MetricsBackend metricsBackend;
+
+    @Param({"1", "128"})
+    public int numKeys;
+
+    DynamicMetricsManager _dynamicMetricsManager;
+    String[] _keys;
+
+    /**
+     * Create the metrics of all the keys
+     */
+    @Setup
+    public void setup() {
+      _dynamicMetricsManager = BenchmarkUtils.resetMetrics(CLASS_NAME, metricsBackend);
+      _keys = new String[numKeys];
+      for (int i = 0; i < numKeys; i++) {
+        _keys[i] = "topic-" + i;
+        _dynamicMetricsManager.createOrUpdateCounter(CLASS_NAME, _keys[i], COUNTER, 0);
+        _dynamicMetricsManager.createOrUpdateMeter(CLASS_NAME, _keys[i], METER, 0);
+        _dynamicMetricsManager.createOrUpdateHistogram(CLASS_NAME, _keys[i], HISTOGRAM, 0);
+      }
+    }
+  }
+
+  /**
+   * The position of a benchmark thread in the keys
+   */
+  @State(Scope.Thread)
+  public static class ThreadKeys {
+    int _nextKey;
+
+    String nextKey(Metrics metrics) {
+      String key = metrics._keys[_nextKey];
+      _nextKey = (_nextKey + 1) % metrics._keys.length;
+      return key;
+    }
+  }
+
+  /**
+   * Update a counter from a single thread
+   */
+  @Benchmark
+  @Threads(1)
+  public void createOrUpdateCounter(Metrics metrics, ThreadKeys threadKeys) {
+    metrics._dynamicMetricsManager.createOrUpdateCounter(CLASS_NAME, threadKeys.nextKey(metrics), COUNTER, 1);
+  }
+
+  /**
+   * Update a counter from as many threads as there are processors
+   */
+  @Benchmark
+  @Threads(Threads.MAX)
+  public void createOrUpdateCounterContended(Metrics metrics, ThreadKeys threadKeys) {
+    metrics._dynamicMetricsManager.createOrUpdateCounter(CLASS_NAME, threadKeys.nextKey(metrics), COUNTER, 1);
+  }
+
+  /**
+   * Update a meter from a single thread
+   */
+  @Benchmark
+  @Threads(1)
+  public void createOrUpdateMeter(Metrics metrics, ThreadKeys threadKeys) {
+    metrics._dynamicMetricsManager.createOrUpdateMeter(CLASS_NAME, threadKeys.nextKey(metrics), METER, 1);
+  }
+
+  /**
+   * Update a meter from as many threads as there are processors
+   */
+  @Benchmark
+  @Threads(Threads.MAX)
+  public void createOrUpdateMeterContended(Metrics metrics, ThreadKeys threadKeys) {
+    metrics._dynamicMetricsManager.createOrUpdateMeter(CLASS_NAME, threadKeys.nextKey(metrics), METER, 1);
+  }
+
+  /**
+   * Update a histogram from a single thread
+   */
+  @Benchmark
+  @Threads(1)
+  public void createOrUpdateHistogram(Metrics metrics, ThreadKeys threadKeys) {
+    metrics._dynamicMetricsManager.createOrUpdateHistogram(CLASS_NAME, threadKeys.nextKey(metrics), HISTOGRAM, 42);
+  }
+
+  /**
+   * Update a histogram from as many threads as there are processors
+   */
+  @Benchmark
+  @Threads(Threads.MAX)
+  public void createOrUpdateHistogramContended(Metrics metrics, ThreadKeys threadKeys) {
+    metrics._dynamicMetricsManager.createOrUpdateHistogram(CLASS_NAME, threadKeys.nextKey(metrics), HISTOGRAM, 42);
+  }
+}
@@ -0,0 +1,147 @@
+/**
+ *  Copyright 2019 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.linkedin.datastream.metrics.MetricsBackend;
+import com.linkedin.datastream.server.DatastreamProducerRecord;
+import com.linkedin.datastream.server.DatastreamTaskImpl;
+import com.linkedin.datastream.server.EventProducer;
+import com.linkedin.datastream.server.api.transport.BatchSendCallback;
+import com.linkedin.datastream.server.api.transport.SendCallback;
+import com.linkedin.datastream.server.providers.NoOpCheckpointProvider;
+
+
+/**
+ * Benchmarks {@link EventProducer#send} and {@link EventProducer#sendBatch} over an
+ * {@link AckingInMemoryTransportProvider}, which covers the validation of the records, the send callbacks and the
+ * metrics reported on each acknowledgement.
+ *
+ * Each benchmark thread sends through the event producer of one of the tasks, so the tasks are shared by the threads
+ * when there are fewer tasks than threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventProducerBenchmark {
+  private static final int BATCH_SIZE = 16;
+  private static final SendCallback NO_OP_CALLBACK = (metadata, exception) -> { };
+  private static final BatchSendCallback NO_OP_BATCH_CALLBACK = (recordIndex, metadata, exception) -> { };
+
+  /**
+   * The event producers of the tasks, sharing a transport provider
+   */
+  @State(Scope.Benchmark)
+  public static class Producers {
+    @Param({"1", "16"})
+    public int numTasks;
+
+    @Param({"CODAHALE", "STRIPED"})
+    public MetricsBackend metricsBackend;
+
+    @Param({"100"})
+    public int payloadSize;
+
+    final List<EventProducer> _eventProducers = new ArrayList<>();
+    final AtomicInteger _nextThreadIndex = new AtomicInteger();
+
+    /**
+     * Create an event producer for each task
+     */
+    @Setup
+    public void setup() {
+      BenchmarkUtils.resetMetrics(EventProducerBenchmark.class.getSimpleName(), metricsBackend);
+      AckingInMemoryTransportProvider transportProvider = new AckingInMemoryTransportProvider();
+      for (DatastreamTaskImpl task : BenchmarkUtils.createTasks(numTasks, "destination-%d")) {
+        transportProvider.addTopic(task.getDatastreamDestination().getConnectionString(),
+            BenchmarkUtils.NUM_PARTITIONS);
+        _eventProducers.add(new EventProducer(task, transportProvider, new NoOpCheckpointProvider(), new Properties(),
+            false));
+      }
+    }
+  }
+
+  /**
+   * The event producer and the records of a benchmark thread
+   */
+  @State(Scope.Thread)
+  public static class ThreadRecords {
+    EventProducer _eventProducer;
+    List<DatastreamProducerRecord> _records = new ArrayList<>();
+    int _nextRecord;
+
+    /**
+     * Pick the event producer of the thread and create its records
+     */
+    @Setup
+    public void setup(Producers producers) {
+      int threadIndex = producers._nextThreadIndex.getAndIncrement();
+      _eventProducer = producers._eventProducers.get(threadIndex % producers._eventProducers.size());
+      for (int i = 0; i < BenchmarkUtils.NUM_PARTITIONS; i++) {
+        _records.add(BenchmarkUtils.createRecord(i, String.valueOf(i), producers.payloadSize));
+      }
+    }
+
+    DatastreamProducerRecord nextRecord() {
+      DatastreamProducerRecord record = _records.get(_nextRecord);
+      _nextRecord = (_nextRecord + 1) % _records.size();
+      return record;
+    }
+
+    List<DatastreamProducerRecord> nextBatch() {
+      List<DatastreamProducerRecord> batch = _records.subList(_nextRecord, _nextRecord + BATCH_SIZE);
+      _nextRecord = (_nextRecord + BATCH_SIZE) % _records.size();
+      return batch;
+    }
+  }
+
+  /**
+   * Send a record from a single thread
+   */
+  @Benchmark
+  @Threads(1)
+  public void send(ThreadRecords threadRecords) {
+    threadRecords._eventProducer.send(threadRecords.nextRecord(), NO_OP_CALLBACK);
+  }
+
+  /**
+   * Send a record from as many threads as there are processors
+   */
+  @Benchmark
+  @Threads(Threads.MAX)
+  public void sendContended(ThreadRecords threadRecords) {
+    threadRecords._eventProducer.send(threadRecords.nextRecord(), NO_OP_CALLBACK);
+  }
+
+  /**
+   * Send a batch of {@value #BATCH_SIZE} records from a single thread
+   */
+  @Benchmark
+  @Threads(1)
+  public void sendBatch(ThreadRecords threadRecords) {
+    threadRecords._eventProducer.sendBatch(threadRecords.nextBatch(), NO_OP_BATCH_CALLBACK);
+  }
+}
@@ -0,0 +1,134 @@
+/**
+ *  Copyright 2019 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.linkedin.datastream.metrics.MetricsBackend;
+import com.linkedin.datastream.server.DatastreamProducerRecord;
+import com.linkedin.datastream.server.DatastreamTaskImpl;
+import com.linkedin.datastream.server.EventProducer;
+import com.linkedin.datastream.server.FlushlessEventProducerHandler;
+import com.linkedin.datastream.server.providers.NoOpCheckpointProvider;
+
+
+/**
+ * Benchmarks {@link FlushlessEventProducerHandler#send} over an {@link EventProducer} and an
+ * {@link AckingInMemoryTransportProvider}, with each of the {@link CallbackStatusType}s tracking the checkpoints.
+ *
+ * Each benchmark thread sends through the handler of one of the tasks, to the source partitions of its own.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlushlessEventProducerHandlerBenchmark {
+  private static final String SOURCE = "source";
+  private static final int PARTITIONS_PER_THREAD = 8;
+
+  /**
+   * The flushless handlers of the tasks
+   */
+  @State(Scope.Benchmark)
+  public static class Handlers {
+    @Param({"1", "16"})
+    public int numTasks;
+
+    @Param({"COMPARABLE", "NON_COMPARABLE", "MONOTONIC_LONG"})
+    public CallbackStatusType callbackStatusType;
+
+    @Param({"100"})
+    public int payloadSize;
+
+    final List<FlushlessEventProducerHandler<Long>> _handlers = new ArrayList<>();
+    final AtomicInteger _nextThreadIndex = new AtomicInteger();
+
+    /**
+     * Create a flushless handler for each task
+     */
+    @Setup
+    public void setup() {
+      BenchmarkUtils.resetMetrics(FlushlessEventProducerHandlerBenchmark.class.getSimpleName(),
+          MetricsBackend.CODAHALE);
+      AckingInMemoryTransportProvider transportProvider = new AckingInMemoryTransportProvider();
+      for (DatastreamTaskImpl task : BenchmarkUtils.createTasks(numTasks, "destination-%d")) {
+        transportProvider.addTopic(task.getDatastreamDestination().getConnectionString(),
+            BenchmarkUtils.NUM_PARTITIONS);
+        EventProducer eventProducer =
+            new EventProducer(task, transportProvider, new NoOpCheckpointProvider(), new Properties(), true);
+        _handlers.add(new FlushlessEventProducerHandler<>(eventProducer, callbackStatusType.createFactory()));
+      }
+    }
+  }
+
+  /**
+   * The handler, the records and the source position of a benchmark thread
+   */
+  @State(Scope.Thread)
+  public static class ThreadRecords {
+    FlushlessEventProducerHandler<Long> _handler;
+    List<DatastreamProducerRecord> _records = new ArrayList<>();
+    int _firstPartition;
+    int _nextRecord;
+    long _nextOffset;
+
+    /**
+     * Pick the handler of the thread and create its records
+     */
+    @Setup
+    public void setup(Handlers handlers) {
+      int threadIndex = handlers._nextThreadIndex.getAndIncrement();
+      _handler = handlers._handlers.get(threadIndex % handlers._handlers.size());
+      _firstPartition = threadIndex * PARTITIONS_PER_THREAD;
+      for (int i = 0; i < PARTITIONS_PER_THREAD; i++) {
+        _records.add(BenchmarkUtils.createRecord(i, String.valueOf(i), handlers.payloadSize));
+      }
+    }
+  }
+
+  private static void sendNext(ThreadRecords threadRecords) {
+    int index = threadRecords._nextRecord;
+    threadRecords._nextRecord = (index + 1) % PARTITIONS_PER_THREAD;
+    threadRecords._handler.send(threadRecords._records.get(index), SOURCE, threadRecords._firstPartition + index,
+        threadRecords._nextOffset++, null);
+  }
+
+  /**
+   * Send a record from a single thread
+   */
+  @Benchmark
+  @Threads(1)
+  public void send(ThreadRecords threadRecords) {
+    sendNext(threadRecords);
+  }
+
+  /**
+   * Send a record from as many threads as there are processors
+   */
+  @Benchmark
+  @Threads(Threads.MAX)
+  public void sendContended(ThreadRecords threadRecords) {
+    sendNext(threadRecords);
+  }
+}
@@ -0,0 +1,156 @@
+/**
+ *  Copyright 2019 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.linkedin.datastream.kafka.KafkaDestination;
+import com.linkedin.datastream.kafka.KafkaTransportProviderAdmin;
+import com.linkedin.datastream.metrics.MetricsBackend;
+import com.linkedin.datastream.server.DatastreamProducerRecord;
+import com.linkedin.datastream.server.DatastreamTaskImpl;
+import com.linkedin.datastream.server.api.transport.SendCallback;
+import com.linkedin.datastream.server.api.transport.TransportProvider;
+
+
+/**
+ * Benchmarks {@link com.linkedin.datastream.kafka.KafkaTransportProvider#send}, from the conversion of the events to
+ * Kafka producer records to the callbacks of the Kafka producers, which are mock producers completing every send
+ * right away (see {@link MockKafkaProducerFactory}).
+ *
+ * The transport providers are assigned to the tasks by a {@link KafkaTransportProviderAdmin}, so the tasks share the
+ * Kafka producers as they do in a server. Each benchmark thread sends through the transport provider of one of the
+ * tasks.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KafkaTransportProviderBenchmark {
+  private static final String BROKERS = "localhost:9092";
+  private static final SendCallback NO_OP_CALLBACK = (metadata, exception) -> { };
+
+  /**
+   * The transport providers of the tasks
+   */
+  @State(Scope.Benchmark)
+  public static class TransportProviders {
+    @Param({"1", "16"})
+    public int numTasks;
+
+    @Param({"1", "4"})
+    public int producersPerTask;
+
+    @Param({"com.linkedin.datastream.kafka.HashProducerSelectorFactory",
+        "com.linkedin.datastream.kafka.LeastLoadedProducerSelectorFactory"})
+    public String producerSelectorFactory;
+
+    @Param({"100"})
+    public int payloadSize;
+
+    final List<DatastreamTaskImpl> _tasks = new ArrayList<>();
+    final List<TransportProvider> _transportProviders = new ArrayList<>();
+    final AtomicInteger _nextThreadIndex = new AtomicInteger();
+    KafkaTransportProviderAdmin _admin;
+
+    /**
+     * Assign a transport provider to each task
+     */
+    @Setup
+    public void setup() {
+      BenchmarkUtils.resetMetrics(KafkaTransportProviderBenchmark.class.getSimpleName(), MetricsBackend.CODAHALE);
+      Properties props = new Properties();
+      props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, BROKERS);
+      props.put(ProducerConfig.CLIENT_ID_CONFIG, BenchmarkUtils.CONNECTOR_TYPE);
+      props.put(KafkaTransportProviderAdmin.CONFIG_NUM_PRODUCERS_PER_CONNECTOR, String.valueOf(producersPerTask));
+      props.put(KafkaTransportProviderAdmin.CONFIG_PRODUCERS_PER_TASK, String.valueOf(producersPerTask));
+      props.put(KafkaTransportProviderAdmin.CONFIG_PRODUCER_SELECTOR_FACTORY, producerSelectorFactory);
+      // See KafkaProducerWrapper
+      props.put("kafkaProducerFactory", MockKafkaProducerFactory.class.getName());
+      _admin = new KafkaTransportProviderAdmin(BenchmarkUtils.CONNECTOR_TYPE, props);
+
+      _tasks.addAll(BenchmarkUtils.createTasks(numTasks,
+          String.format(KafkaDestination.DESTINATION_URI_FORMAT, BROKERS, "topic-%d")));
+      _tasks.forEach(task -> _transportProviders.add(_admin.assignTransportProvider(task)));
+    }
+
+    /**
+     * Release the producers
+     */
+    @TearDown
+    public void teardown() {
+      _admin.unassignTransportProvider(new ArrayList<>(_tasks));
+    }
+  }
+
+  /**
+   * The transport provider and the records of a benchmark thread
+   */
+  @State(Scope.Thread)
+  public static class ThreadRecords {
+    TransportProvider _transportProvider;
+    String _destination;
+    List<DatastreamProducerRecord> _records = new ArrayList<>();
+    int _nextRecord;
+
+    /**
+     * Pick the transport provider of the thread and create its records
+     */
+    @Setup
+    public void setup(TransportProviders transportProviders) {
+      int taskIndex = transportProviders._nextThreadIndex.getAndIncrement() % transportProviders._tasks.size();
+      _transportProvider = transportProviders._transportProviders.get(taskIndex);
+      _destination = transportProviders._tasks.get(taskIndex).getDatastreamDestination().getConnectionString();
+      for (int i = 0; i < BenchmarkUtils.NUM_PARTITIONS; i++) {
+        _records.add(BenchmarkUtils.createRecord(i, String.valueOf(i), transportProviders.payloadSize));
+      }
+    }
+
+    DatastreamProducerRecord nextRecord() {
+      DatastreamProducerRecord record = _records.get(_nextRecord);
+      _nextRecord = (_nextRecord + 1) % _records.size();
+      return record;
+    }
+  }
+
+  /**
+   * Send a record from a single thread
+   */
+  @Benchmark
+  @Threads(1)
+  public void send(ThreadRecords threadRecords) {
+    threadRecords._transportProvider.send(threadRecords._destination, threadRecords.nextRecord(), NO_OP_CALLBACK);
+  }
+
+  /**
+   * Send a record from as many threads as there are processors
+   */
+  @Benchmark
+  @Threads(Threads.MAX)
+  public void sendContended(ThreadRecords threadRecords) {
+    threadRecords._transportProvider.send(threadRecords._destination, threadRecords.nextRecord(), NO_OP_CALLBACK);
+  }
+}
@@ -0,0 +1,62 @@
+/**
+ *  Copyright 2019 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.benchmarks;
+
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+
+import com.linkedin.datastream.kafka.factory.KafkaProducerFactory;
+
+
+/**
+ * A {@link KafkaProducerFactory} of mock producers that complete every send right away, without talking to a
+ * broker. Set as the {@code kafkaProducerFactory} of the Kafka transport provider.
+ */
+public class MockKafkaProducerFactory implements KafkaProducerFactory<byte[], byte[]> {
+
+  @Override
+  public Producer<byte[], byte[]> createProducer(Properties transportProps) {
+    return new CompletingMockProducer();
+  }
+
+  /**
+   * A {@link MockProducer} that invokes the callback of each record in the calling thread, like a producer whose
+   * batches are acknowledged immediately. Unlike {@link MockProducer}, it does not keep the history of the records
+   * sent.
+   */
+  private static final class CompletingMockProducer extends MockProducer<byte[], byte[]> {
+    private long _offset;
+
+    CompletingMockProducer() {
+      super(true, new ByteArraySerializer(), new ByteArraySerializer());
+    }
+
+    @Override
+    public Future<RecordMetadata> send(ProducerRecord<byte[], byte[]> record, Callback callback) {
+      TopicPartition topicPartition =
+          new TopicPartition(record.topic(), record.partition() == null ? 0 : record.partition());
+      long offset;
+      synchronized (this) {
+        offset = _offset++;
+      }
+      RecordMetadata metadata = new RecordMetadata(topicPartition, offset, 0, System.currentTimeMillis(), null,
+          record.key() == null ? 0 : record.key().length, record.value() == null ? 0 : record.value().length);
+      if (callback != null) {
+        callback.onCompletion(metadata, null);
+      }
+      return CompletableFuture.completedFuture(metadata);
+    }
+  }
+}
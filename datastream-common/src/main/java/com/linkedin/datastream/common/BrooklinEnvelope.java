@@ -30,6 +30,9 @@ public class BrooklinEnvelope {
 
   private Map<String, String> _metadata;
 
+  // Typed metadata which is only rendered into _metadata on demand
+  private KafkaOriginMetadata _originMetadata;
+
   private Headers _headers;
 
   /**
@@ -72,6 +75,25 @@ public class BrooklinEnvelope {
     setMetadata(metadata);
   }
 
+  /**
+   * Construct a {@link BrooklinEnvelope} using record key, value, headers and typed Kafka origin metadata. The string
+   * metadata map is only materialized from {@code originMetadata} if {@link #getMetadata()} is called.
+   * @param key The record key (e.g. primary key)
+   * @param value The new record value
+   * @param previousValue The old record value
+   * @param headers Kafka headers to associate with the change event
+   * @param originMetadata Metadata describing where the change event was read from
+   */
+  public BrooklinEnvelope(@Nullable Object key, @Nullable Object value, @Nullable Object previousValue,
+      @Nullable Headers headers, KafkaOriginMetadata originMetadata) {
+    Validate.notNull(originMetadata, "originMetadata cannot be null");
+    setKey(key);
+    setValue(value);
+    setPreviousValue(previousValue);
+    setHeaders(headers);
+    _originMetadata = originMetadata;
+  }
+
   /**
    * Note: be careful about the return type of this API. It's Optional<Object>
    * instead of Object, which is inconsistent with the rest of the APIs in the
@@ -150,14 +172,38 @@ public class BrooklinEnvelope {
    * Get the metadata associated with this change event
    */
   public Map<String, String> getMetadata() {
+    if (_metadata == null && _originMetadata != null) {
+      _metadata = _originMetadata.toMetadataMap();
+    }
     return _metadata;
   }
 
   /**
-   * Set the metadata associated with this change event
+   * Set the metadata associated with this change event. This discards the typed origin metadata, if any.
    */
   public void setMetadata(Map<String, String> metadata) {
     _metadata = metadata;
+    _originMetadata = null;
+  }
+
+  /**
+   * Get the typed Kafka origin metadata associated with this change event, if it was constructed with one
+   */
+  public Optional<KafkaOriginMetadata> originMetadata() {
+    return Optional.ofNullable(_originMetadata);
+  }
+
+  /**
+   * Get the source partition of this change event without materializing the metadata map when possible
+   * @return the source partition, or -1 if it is unknown
+   */
+  public int getSourcePartition() {
+    if (_originMetadata != null) {
+      return _originMetadata.getOriginPartition();
+    }
+    String sourcePartition = _metadata == null ? null
+        : _metadata.get(BrooklinEnvelopeMetadataConstants.SOURCE_PARTITION);
+    return sourcePartition == null ? -1 : Integer.parseInt(sourcePartition);
   }
 
   @Override
@@ -170,17 +216,17 @@ public class BrooklinEnvelope {
     }
     BrooklinEnvelope task = (BrooklinEnvelope) o;
     return Objects.equals(_previousValue, task._previousValue) && Objects.equals(_key, task._key) && Objects.equals(
-        _value, task._value) && Objects.equals(_metadata, task._metadata);
+        _value, task._value) && Objects.equals(getMetadata(), task.getMetadata());
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(_key, _value, _previousValue, _metadata);
+    return Objects.hash(_key, _value, _previousValue, getMetadata());
   }
 
   @Override
   public String toString() {
     return String.format("Key:(%s), Value:(%s), PreviousValue:(%s), Metadata=(%s)", _key, _value, _previousValue,
-        _metadata);
+        getMetadata());
   }
 }
@@ -39,4 +39,16 @@ public class BrooklinEnvelopeMetadataConstants {
 
   // Source partition number from where the event was generated
   public static final String SOURCE_PARTITION = "SourcePartition";
+
+  // Broker list of the Kafka cluster from which the event was read
+  public static final String KAFKA_ORIGIN_CLUSTER = "kafka-origin-cluster";
+
+  // Kafka topic from which the event was read
+  public static final String KAFKA_ORIGIN_TOPIC = "kafka-origin-topic";
+
+  // Kafka partition from which the event was read
+  public static final String KAFKA_ORIGIN_PARTITION = "kafka-origin-partition";
+
+  // Offset of the event in the Kafka partition from which it was read
+  public static final String KAFKA_ORIGIN_OFFSET = "kafka-origin-offset";
 }
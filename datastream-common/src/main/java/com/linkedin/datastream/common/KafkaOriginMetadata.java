@@ -0,0 +1,107 @@
+/**
+ *  Copyright 2019 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.common;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.apache.commons.lang.Validate;
+
+
+/**
+ * Typed view of the metadata that describes where a {@link BrooklinEnvelope} read from Kafka originated.
+ *
+ * Connectors on the hot path (e.g. mirroring) can attach an instance of this class to an envelope instead of building
+ * a {@code Map<String, String>} for every record. The partition, offset and timestamp are kept as primitives and are
+ * only rendered into strings when the metadata map is requested through {@link BrooklinEnvelope#getMetadata()}.
+ */
+public final class KafkaOriginMetadata {
+
+  private final String _originCluster;
+  private final String _originTopic;
+  private final int _originPartition;
+  private final long _originOffset;
+  private final long _eventTimestamp;
+
+  /**
+   * Construct an instance of KafkaOriginMetadata
+   * @param originCluster the broker list of the origin Kafka cluster
+   * @param originTopic the origin topic
+   * @param originPartition the origin partition
+   * @param originOffset the offset of the record in the origin partition
+   * @param eventTimestamp the timestamp of the event
+   */
+  public KafkaOriginMetadata(String originCluster, String originTopic, int originPartition, long originOffset,
+      long eventTimestamp) {
+    Validate.notNull(originCluster, "originCluster cannot be null");
+    Validate.notNull(originTopic, "originTopic cannot be null");
+    _originCluster = originCluster;
+    _originTopic = originTopic;
+    _originPartition = originPartition;
+    _originOffset = originOffset;
+    _eventTimestamp = eventTimestamp;
+  }
+
+  public String getOriginCluster() {
+    return _originCluster;
+  }
+
+  public String getOriginTopic() {
+    return _originTopic;
+  }
+
+  public int getOriginPartition() {
+    return _originPartition;
+  }
+
+  public long getOriginOffset() {
+    return _originOffset;
+  }
+
+  public long getEventTimestamp() {
+    return _eventTimestamp;
+  }
+
+  /**
+   * Render this view into the string metadata map used by {@link BrooklinEnvelope}
+   */
+  public Map<String, String> toMetadataMap() {
+    String partitionStr = String.valueOf(_originPartition);
+    Map<String, String> metadata = new HashMap<>();
+    metadata.put(BrooklinEnvelopeMetadataConstants.KAFKA_ORIGIN_CLUSTER, _originCluster);
+    metadata.put(BrooklinEnvelopeMetadataConstants.KAFKA_ORIGIN_TOPIC, _originTopic);
+    metadata.put(BrooklinEnvelopeMetadataConstants.KAFKA_ORIGIN_PARTITION, partitionStr);
+    metadata.put(BrooklinEnvelopeMetadataConstants.KAFKA_ORIGIN_OFFSET, String.valueOf(_originOffset));
+    metadata.put(BrooklinEnvelopeMetadataConstants.EVENT_TIMESTAMP, String.valueOf(_eventTimestamp));
+    metadata.put(BrooklinEnvelopeMetadataConstants.SOURCE_PARTITION, partitionStr);
+    return metadata;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    KafkaOriginMetadata that = (KafkaOriginMetadata) o;
+    return _originPartition == that._originPartition && _originOffset == that._originOffset
+        && _eventTimestamp == that._eventTimestamp && _originCluster.equals(that._originCluster)
+        && _originTopic.equals(that._originTopic);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(_originCluster, _originTopic, _originPartition, _originOffset, _eventTimestamp);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s/%s-%d@%d", _originCluster, _originTopic, _originPartition, _originOffset);
+  }
+}
@@ -7,7 +7,7 @@ package com.linkedin.datastream.metrics;
 
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 import javax.annotation.Nullable;
 
@@ -21,7 +21,6 @@ import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.Metric;
 import com.codahale.metrics.MetricRegistry;
-import com.codahale.metrics.SlidingTimeWindowArrayReservoir;
 import com.codahale.metrics.Timer;
 
 
@@ -49,6 +48,9 @@ public class DynamicMetricsManager {
   // the metric can be deregistered.
   private final ConcurrentHashMap<String, Integer> _registeredMetricRefCount;
   private MetricRegistry _metricRegistry;
+  // Bumped whenever cached metrics may have been removed, which tells the MetricHandles to re-resolve their metric
+  private final AtomicLong _generation = new AtomicLong();
+  private volatile MetricsBackend _metricsBackend = MetricsBackend.CODAHALE;
 
   private DynamicMetricsManager(MetricRegistry metricRegistry) {
     _metricRegistry = metricRegistry;
@@ -83,6 +85,8 @@ public class DynamicMetricsManager {
         // if we swap it out behind the scene.
         _instance._metricRegistry = metricRegistry;
         _instance._indexedMetrics.clear();
+        _instance._metricsBackend = MetricsBackend.CODAHALE;
+        _instance._generation.incrementAndGet();
 
         LOG.info("Returning the instance for unit test {}.", testName);
       }
@@ -101,6 +105,21 @@ public class DynamicMetricsManager {
     return _instance;
   }
 
+  /**
+   * Set the backend used for the meters and histograms created from now on. Metrics that already exist are not
+   * affected, so this is meant to be called before any metrics are created.
+   * @param metricsBackend the metrics backend
+   */
+  public void setMetricsBackend(MetricsBackend metricsBackend) {
+    Validate.notNull(metricsBackend, "metricsBackend cannot be null");
+    LOG.info("Using {} metrics backend", metricsBackend);
+    _metricsBackend = metricsBackend;
+  }
+
+  public MetricsBackend getMetricsBackend() {
+    return _metricsBackend;
+  }
+
   Optional<Metric> checkCache(String simpleClassName, String key, String metric) {
     String keyIndex = key == null ? NO_KEY_PLACEHOLDER : key;
     return Optional.of(getClassMetrics(simpleClassName))
@@ -133,9 +152,9 @@ public class DynamicMetricsManager {
     if (clazz.equals(Counter.class)) {
       return (T) _metricRegistry.counter(name);
     } else if (clazz.equals(Meter.class)) {
-      return (T) _metricRegistry.meter(name);
+      return (T) _metricRegistry.meter(name, _metricsBackend::createMeter);
     } else if (clazz.equals(Histogram.class)) {
-      return (T) _metricRegistry.histogram(name);
+      return (T) _metricRegistry.histogram(name, _metricsBackend::createHistogram);
     } else if (clazz.equals(Gauge.class)) {
       throw new IllegalArgumentException("This method doesn't work with Gauges.");
     } else if (clazz.equals(Timer.class)) {
@@ -243,6 +262,7 @@ public class DynamicMetricsManager {
           _indexedMetrics.get(simpleName).get(keyIndex).remove(metricName);
         }
       }
+      _generation.incrementAndGet();
     }
   }
 
@@ -265,15 +285,18 @@ public class DynamicMetricsManager {
    * @param value amount to increment the counter by (use negative value to decrement)
    */
   public void createOrUpdateCounter(String classSimpleName, String key, String metricName, long value) {
+    getOrCreateCounter(classSimpleName, key, metricName).inc(value);
+  }
+
+  private Counter getOrCreateCounter(String classSimpleName, String key, String metricName) {
     validateArguments(classSimpleName, metricName);
 
     // create and register the metric if it does not exist
-    Counter counter = (Counter) checkCache(classSimpleName, key, metricName).orElseGet(() -> {
+    return (Counter) checkCache(classSimpleName, key, metricName).orElseGet(() -> {
       Counter newCounter = _metricRegistry.counter(MetricRegistry.name(classSimpleName, key, metricName));
       updateCache(classSimpleName, key, metricName, newCounter);
       return newCounter;
     });
-    counter.inc(value);
   }
 
   /**
@@ -295,15 +318,19 @@ public class DynamicMetricsManager {
    * @param value the value to mark on the meter
    */
   public void createOrUpdateMeter(String classSimpleName, String key, String metricName, long value) {
+    getOrCreateMeter(classSimpleName, key, metricName).mark(value);
+  }
+
+  private Meter getOrCreateMeter(String classSimpleName, String key, String metricName) {
     validateArguments(classSimpleName, metricName);
 
     // create and register the metric if it does not exist
-    Meter meter = (Meter) checkCache(classSimpleName, key, metricName).orElseGet(() -> {
-      Meter newMeter = _metricRegistry.meter(MetricRegistry.name(classSimpleName, key, metricName));
+    return (Meter) checkCache(classSimpleName, key, metricName).orElseGet(() -> {
+      Meter newMeter = _metricRegistry.meter(MetricRegistry.name(classSimpleName, key, metricName),
+          _metricsBackend::createMeter);
       updateCache(classSimpleName, key, metricName, newMeter);
       return newMeter;
     });
-    meter.mark(value);
   }
 
   /**
@@ -319,7 +346,7 @@ public class DynamicMetricsManager {
   // This function should only be called after "checkCache". So using "synchronized" shouldn't be a problem. The race
   // will only happen briefly after the process starts and before the cache is populated.
   private synchronized Histogram registerAndGetSlidingWindowHistogram(String fullMetricName, long windowTimeMs) {
-    Histogram histogram = new Histogram(new SlidingTimeWindowArrayReservoir(windowTimeMs, TimeUnit.MILLISECONDS));
+    Histogram histogram = _metricsBackend.createSlidingWindowHistogram(windowTimeMs);
     try {
       return _metricRegistry.register(fullMetricName, histogram);
     } catch (IllegalArgumentException e) {
@@ -331,8 +358,9 @@ public class DynamicMetricsManager {
 
   /**
    * Update the histogram (or creates it if it does not exist) for the specified key/metricName pair by the given value.
-   * If the histogram does not exist, create one using {@link SlidingTimeWindowArrayReservoir} with the specified window
-   * time in ms. This can be useful for certain metrics that don't want to use the
+   * If the histogram does not exist, create one that only reflects the values of a sliding window of the specified
+   * length in ms (e.g. using {@link com.codahale.metrics.SlidingTimeWindowArrayReservoir}, depending on the
+   * {@link MetricsBackend}). This can be useful for certain metrics that don't want to use the
    * default {@link com.codahale.metrics.ExponentiallyDecayingReservoir}
    * @param classSimpleName the simple name of the underlying class
    * @param key the key (i.e. topic or partition) for the metric
@@ -342,14 +370,18 @@ public class DynamicMetricsManager {
    */
   public void createOrUpdateSlidingWindowHistogram(String classSimpleName, String key, String metricName,
       long windowTimeMs, long value) {
+    getOrCreateSlidingWindowHistogram(classSimpleName, key, metricName, windowTimeMs).update(value);
+  }
+
+  private Histogram getOrCreateSlidingWindowHistogram(String classSimpleName, String key, String metricName,
+      long windowTimeMs) {
     validateArguments(classSimpleName, metricName);
-    Histogram histogram = (Histogram) checkCache(classSimpleName, key, metricName).orElseGet(() -> {
+    return (Histogram) checkCache(classSimpleName, key, metricName).orElseGet(() -> {
       Histogram newHistogram =
           registerAndGetSlidingWindowHistogram(MetricRegistry.name(classSimpleName, key, metricName), windowTimeMs);
       updateCache(classSimpleName, key, metricName, newHistogram);
       return newHistogram;
     });
-    histogram.update(value);
   }
 
   /**
@@ -360,14 +392,18 @@ public class DynamicMetricsManager {
    * @param value the value to update on the histogram
    */
   public void createOrUpdateHistogram(String classSimpleName, String key, String metricName, long value) {
+    getOrCreateHistogram(classSimpleName, key, metricName).update(value);
+  }
+
+  private Histogram getOrCreateHistogram(String classSimpleName, String key, String metricName) {
     validateArguments(classSimpleName, metricName);
     // create and register the metric if it does not exist
-    Histogram histogram = (Histogram) checkCache(classSimpleName, key, metricName).orElseGet(() -> {
-      Histogram newHistogram = _metricRegistry.histogram(MetricRegistry.name(classSimpleName, key, metricName));
+    return (Histogram) checkCache(classSimpleName, key, metricName).orElseGet(() -> {
+      Histogram newHistogram = _metricRegistry.histogram(MetricRegistry.name(classSimpleName, key, metricName),
+          _metricsBackend::createHistogram);
       updateCache(classSimpleName, key, metricName, newHistogram);
       return newHistogram;
     });
-    histogram.update(value);
   }
 
   /**
@@ -380,6 +416,62 @@ public class DynamicMetricsManager {
     createOrUpdateHistogram(classSimpleName, null, metricName, value);
   }
 
+  /**
+   * Get a handle to the counter for the specified key/metricName pair. The counter is created on first use of the
+   * handle, the same way as {@link #createOrUpdateCounter(String, String, String, long)} does.
+   * @param classSimpleName the simple name of the underlying class
+   * @param key the key (i.e. topic or partition) for the metric
+   * @param metricName the metric name
+   */
+  public MetricHandle<Counter> counterHandle(String classSimpleName, String key, String metricName) {
+    validateArguments(classSimpleName, metricName);
+    return new MetricHandle<>(this, () -> getOrCreateCounter(classSimpleName, key, metricName));
+  }
+
+  /**
+   * Get a handle to the meter for the specified key/metricName pair. The meter is created on first use of the
+   * handle, the same way as {@link #createOrUpdateMeter(String, String, String, long)} does.
+   * @param classSimpleName the simple name of the underlying class
+   * @param key the key (i.e. topic or partition) for the metric
+   * @param metricName the metric name
+   */
+  public MetricHandle<Meter> meterHandle(String classSimpleName, String key, String metricName) {
+    validateArguments(classSimpleName, metricName);
+    return new MetricHandle<>(this, () -> getOrCreateMeter(classSimpleName, key, metricName));
+  }
+
+  /**
+   * Get a handle to the histogram for the specified key/metricName pair. The histogram is created on first use of
+   * the handle, the same way as {@link #createOrUpdateHistogram(String, String, String, long)} does.
+   * @param classSimpleName the simple name of the underlying class
+   * @param key the key (i.e. topic or partition) for the metric
+   * @param metricName the metric name
+   */
+  public MetricHandle<Histogram> histogramHandle(String classSimpleName, String key, String metricName) {
+    validateArguments(classSimpleName, metricName);
+    return new MetricHandle<>(this, () -> getOrCreateHistogram(classSimpleName, key, metricName));
+  }
+
+  /**
+   * Get a handle to the sliding window histogram for the specified key/metricName pair. The histogram is created on
+   * first use of the handle, the same way as
+   * {@link #createOrUpdateSlidingWindowHistogram(String, String, String, long, long)} does.
+   * @param classSimpleName the simple name of the underlying class
+   * @param key the key (i.e. topic or partition) for the metric
+   * @param metricName the metric name
+   * @param windowTimeMs the length of the window time in ms
+   */
+  public MetricHandle<Histogram> slidingWindowHistogramHandle(String classSimpleName, String key, String metricName,
+      long windowTimeMs) {
+    validateArguments(classSimpleName, metricName);
+    return new MetricHandle<>(this,
+        () -> getOrCreateSlidingWindowHistogram(classSimpleName, key, metricName, windowTimeMs));
+  }
+
+  long getGeneration() {
+    return _generation.get();
+  }
+
   /**
    * Get the metric object by name of the specified type based on return value.
    * Currently only used by test cases.
@@ -0,0 +1,379 @@
+/**
+ *  Copyright 2019 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.metrics;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.commons.lang.Validate;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
+
+
+/**
+ * A {@link Reservoir} that keeps the values of a sliding time window in log-linear buckets, in the spirit of
+ * HdrHistogram, instead of keeping every sample like {@link com.codahale.metrics.SlidingTimeWindowArrayReservoir}.
+ *
+ * Values are recorded into the interval that is current at the time of the update; the window is made of a fixed
+ * number of such intervals, so the snapshot covers the window rounded up to a whole interval. Within an interval,
+ * values are first recorded into a shared base stripe; once two threads race on it, every thread switches to its
+ * own stripe (like {@link java.util.concurrent.atomic.LongAdder} does), so an update is a handful of uncontended
+ * atomic increments. Bucket storage is allocated lazily, one power of two at a time.
+ *
+ * Each bucket covers a range of values whose width is at most 1/32 of its lower bound, which bounds the relative
+ * error of the reported quantiles. The min, max, mean and count are exact. Negative values are recorded as 0.
+ */
+public class IntervalHistogramReservoir implements Reservoir {
+  static final int INTERVAL_COUNT = 4;
+
+  // Values below 2^SUB_BUCKET_BITS get a bucket each; above that, each power of two is split in SUB_BUCKET_HALF_COUNT
+  private static final int SUB_BUCKET_BITS = 6;
+  private static final int SUB_BUCKET_HALF_COUNT = 1 << (SUB_BUCKET_BITS - 1);
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKET_HALF_COUNT;
+
+  // Bucket counts are allocated in segments holding the buckets of one power of two
+  private static final int SEGMENT_SHIFT = SUB_BUCKET_BITS - 1;
+  private static final int SEGMENT_MASK = SUB_BUCKET_HALF_COUNT - 1;
+  private static final int SEGMENT_COUNT = BUCKET_COUNT / SUB_BUCKET_HALF_COUNT;
+
+  private static final int STRIPE_COUNT = Math.min(16,
+      Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1);
+
+  // The max number of values returned by the snapshot's getValues(), which matches the default reservoir size
+  private static final int MAX_SNAPSHOT_VALUES = 1028;
+
+  private final Clock _clock;
+  private final long _windowMs;
+  private final long _intervalMs;
+  private volatile Interval _current;
+  // Guarded by this; the most recent completed intervals, newest first
+  private final Deque<Interval> _completed = new ArrayDeque<>(INTERVAL_COUNT);
+
+  /**
+   * Construct an instance of IntervalHistogramReservoir using the default clock
+   * @param windowMs the length of the sliding window in ms
+   */
+  public IntervalHistogramReservoir(long windowMs) {
+    this(windowMs, Clock.defaultClock());
+  }
+
+  /**
+   * Construct an instance of IntervalHistogramReservoir
+   * @param windowMs the length of the sliding window in ms
+   * @param clock the clock used to rotate the intervals
+   */
+  public IntervalHistogramReservoir(long windowMs, Clock clock) {
+    Validate.isTrue(windowMs > 0, "windowMs must be positive");
+    Validate.notNull(clock, "clock cannot be null");
+    _clock = clock;
+    _windowMs = windowMs;
+    _intervalMs = Math.max(1, (windowMs + INTERVAL_COUNT - 1) / INTERVAL_COUNT);
+    _current = new Interval(alignedStart(clock.getTime()));
+  }
+
+  @Override
+  public int size() {
+    return getSnapshot().size();
+  }
+
+  @Override
+  public void update(long value) {
+    long now = _clock.getTime();
+    Interval current = _current;
+    if (now - current._startMs >= _intervalMs) {
+      current = rotate(now);
+    }
+    current.record(Math.max(0, value));
+  }
+
+  @Override
+  public Snapshot getSnapshot() {
+    long now = _clock.getTime();
+    long[] counts = new long[BUCKET_COUNT];
+    long[] stats = {0, Long.MAX_VALUE, Long.MIN_VALUE};
+    synchronized (this) {
+      Interval current = now - _current._startMs >= _intervalMs ? rotate(now) : _current;
+      current.mergeInto(counts, stats);
+      for (Interval interval : _completed) {
+        if (interval._startMs + _intervalMs <= now - _windowMs) {
+          break;
+        }
+        interval.mergeInto(counts, stats);
+      }
+    }
+    return new BucketSnapshot(counts, stats[0], stats[1], stats[2]);
+  }
+
+  private synchronized Interval rotate(long now) {
+    Interval current = _current;
+    if (now - current._startMs >= _intervalMs) {
+      if (_completed.size() == INTERVAL_COUNT) {
+        _completed.removeLast();
+      }
+      _completed.addFirst(current);
+      current = new Interval(alignedStart(now));
+      _current = current;
+    }
+    return current;
+  }
+
+  private long alignedStart(long timeMs) {
+    return timeMs - Math.floorMod(timeMs, _intervalMs);
+  }
+
+  static int bucketIndex(long value) {
+    if (value < SUB_BUCKET_COUNT) {
+      return (int) value;
+    }
+    int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return shift * SUB_BUCKET_HALF_COUNT + (int) (value >>> shift);
+  }
+
+  static long bucketLowerBound(int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index;
+    }
+    int shift = index / SUB_BUCKET_HALF_COUNT - 1;
+    return (long) (index - shift * SUB_BUCKET_HALF_COUNT) << shift;
+  }
+
+  static long bucketUpperBound(int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index;
+    }
+    int shift = index / SUB_BUCKET_HALF_COUNT - 1;
+    return bucketLowerBound(index) + (1L << shift) - 1;
+  }
+
+  /**
+   * The values recorded during one interval of the window
+   */
+  private static final class Interval {
+    private final long _startMs;
+    private final Stripe _base = new Stripe();
+    private final AtomicReferenceArray<Stripe> _stripes = new AtomicReferenceArray<>(STRIPE_COUNT);
+    private volatile boolean _contended = false;
+
+    Interval(long startMs) {
+      _startMs = startMs;
+    }
+
+    void record(long value) {
+      int index = bucketIndex(value);
+      if (!_contended) {
+        if (_base.tryRecord(index, value)) {
+          return;
+        }
+        _contended = true;
+      }
+      threadStripe().record(index, value);
+    }
+
+    private Stripe threadStripe() {
+      int i = (int) (Thread.currentThread().getId() * 0x9E3779B9L >>> 16) & (STRIPE_COUNT - 1);
+      Stripe stripe = _stripes.get(i);
+      if (stripe == null) {
+        _stripes.compareAndSet(i, null, new Stripe());
+        stripe = _stripes.get(i);
+      }
+      return stripe;
+    }
+
+    void mergeInto(long[] counts, long[] stats) {
+      _base.mergeInto(counts, stats);
+      for (int i = 0; i < STRIPE_COUNT; i++) {
+        Stripe stripe = _stripes.get(i);
+        if (stripe != null) {
+          stripe.mergeInto(counts, stats);
+        }
+      }
+    }
+  }
+
+  /**
+   * Bucket counts along with the exact sum/min/max of the values recorded by a subset of the threads
+   */
+  private static final class Stripe {
+    private final AtomicReferenceArray<AtomicLongArray> _segments = new AtomicReferenceArray<>(SEGMENT_COUNT);
+    private final AtomicLong _sum = new AtomicLong(0);
+    private final AtomicLong _min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong _max = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * Record the value unless another thread is concurrently recording into this stripe
+     * @return false if the value was not recorded because of contention
+     */
+    boolean tryRecord(int index, long value) {
+      long sum = _sum.get();
+      if (!_sum.compareAndSet(sum, sum + value)) {
+        return false;
+      }
+      recordBucketAndRange(index, value);
+      return true;
+    }
+
+    void record(int index, long value) {
+      _sum.addAndGet(value);
+      recordBucketAndRange(index, value);
+    }
+
+    private void recordBucketAndRange(int index, long value) {
+      segment(index >>> SEGMENT_SHIFT).incrementAndGet(index & SEGMENT_MASK);
+      if (value < _min.get()) {
+        _min.accumulateAndGet(value, Math::min);
+      }
+      if (value > _max.get()) {
+        _max.accumulateAndGet(value, Math::max);
+      }
+    }
+
+    private AtomicLongArray segment(int segmentIndex) {
+      AtomicLongArray segment = _segments.get(segmentIndex);
+      if (segment == null) {
+        _segments.compareAndSet(segmentIndex, null, new AtomicLongArray(SUB_BUCKET_HALF_COUNT));
+        segment = _segments.get(segmentIndex);
+      }
+      return segment;
+    }
+
+    void mergeInto(long[] counts, long[] stats) {
+      for (int s = 0; s < SEGMENT_COUNT; s++) {
+        AtomicLongArray segment = _segments.get(s);
+        if (segment != null) {
+          for (int i = 0; i < SUB_BUCKET_HALF_COUNT; i++) {
+            counts[(s << SEGMENT_SHIFT) + i] += segment.get(i);
+          }
+        }
+      }
+      stats[0] += _sum.get();
+      stats[1] = Math.min(stats[1], _min.get());
+      stats[2] = Math.max(stats[2], _max.get());
+    }
+  }
+
+  /**
+   * A snapshot of the bucket counts, whose quantiles are the midpoints of the buckets they fall into
+   */
+  private static final class BucketSnapshot extends Snapshot {
+    private final long[] _counts;
+    private final long _count;
+    private final long _sum;
+    private final long _min;
+    private final long _max;
+
+    BucketSnapshot(long[] counts, long sum, long min, long max) {
+      long count = 0;
+      for (long c : counts) {
+        count += c;
+      }
+      _counts = counts;
+      _count = count;
+      _sum = sum;
+      _min = count == 0 ? 0 : min;
+      _max = count == 0 ? 0 : max;
+    }
+
+    @Override
+    public double getValue(double quantile) {
+      if (quantile < 0.0 || quantile > 1.0 || Double.isNaN(quantile)) {
+        throw new IllegalArgumentException(quantile + " is not in [0..1]");
+      }
+      if (_count == 0) {
+        return 0.0;
+      }
+      long rank = Math.max(1, Math.min(_count, (long) Math.ceil(quantile * _count)));
+      long seen = 0;
+      for (int i = 0; i < _counts.length; i++) {
+        seen += _counts[i];
+        if (seen >= rank) {
+          return valueOf(i);
+        }
+      }
+      return _max;
+    }
+
+    /**
+     * The snapshot does not keep the individual values, so this returns up to 1028
+     * evenly ranked values, in order.
+     */
+    @Override
+    public long[] getValues() {
+      int size = (int) Math.min(_count, MAX_SNAPSHOT_VALUES);
+      long[] values = new long[size];
+      long seen = 0;
+      int bucket = -1;
+      for (int i = 0; i < size; i++) {
+        long rank = (i + 1) * _count / size;
+        while (seen < rank) {
+          seen += _counts[++bucket];
+        }
+        values[i] = valueOf(bucket);
+      }
+      return values;
+    }
+
+    @Override
+    public int size() {
+      return (int) Math.min(_count, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public long getMax() {
+      return _max;
+    }
+
+    @Override
+    public double getMean() {
+      return _count == 0 ? 0.0 : (double) _sum / _count;
+    }
+
+    @Override
+    public long getMin() {
+      return _min;
+    }
+
+    @Override
+    public double getStdDev() {
+      if (_count <= 1) {
+        return 0.0;
+      }
+      double mean = getMean();
+      double variance = 0;
+      for (int i = 0; i < _counts.length; i++) {
+        if (_counts[i] != 0) {
+          double diff = valueOf(i) - mean;
+          variance += _counts[i] * diff * diff;
+        }
+      }
+      return Math.sqrt(variance / (_count - 1));
+    }
+
+    @Override
+    public void dump(OutputStream output) {
+      try (PrintWriter out = new PrintWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+        for (long value : getValues()) {
+          out.printf("%d%n", value);
+        }
+      }
+    }
+
+    private long valueOf(int index) {
+      long lower = bucketLowerBound(index);
+      long mid = lower + ((bucketUpperBound(index) - lower) >>> 1);
+      return Math.max(_min, Math.min(_max, mid));
+    }
+  }
+}
@@ -0,0 +1,46 @@
+/**
+ *  Copyright 2019 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.metrics;
+
+import java.util.function.Supplier;
+
+import com.codahale.metrics.Metric;
+
+
+/**
+ * A handle bound to a single dynamic metric (i.e. a class name/key/metric name triple) of {@link DynamicMetricsManager}.
+ *
+ * The metric is resolved on first use and then cached in the handle, so that updating it through {@link #get()} does
+ * not need to build the metric name or look it up in the metrics cache. The cached metric is re-resolved whenever a
+ * metric has been unregistered from {@link DynamicMetricsManager} since it was last resolved, so a handle never keeps
+ * updating a metric that is no longer reported.
+ * @param <T> the metric type
+ */
+public final class MetricHandle<T extends Metric> {
+  private static final long UNRESOLVED = -1;
+
+  private final DynamicMetricsManager _dynamicMetricsManager;
+  private final Supplier<T> _resolver;
+  private volatile T _metric;
+  private volatile long _generation = UNRESOLVED;
+
+  MetricHandle(DynamicMetricsManager dynamicMetricsManager, Supplier<T> resolver) {
+    _dynamicMetricsManager = dynamicMetricsManager;
+    _resolver = resolver;
+  }
+
+  /**
+   * Get the metric bound to this handle, creating it if it does not exist
+   */
+  public T get() {
+    long generation = _dynamicMetricsManager.getGeneration();
+    if (_generation != generation) {
+      _metric = _resolver.get();
+      _generation = generation;
+    }
+    return _metric;
+  }
+}
@@ -0,0 +1,73 @@
+/**
+ *  Copyright 2019 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.SlidingTimeWindowArrayReservoir;
+
+
+/**
+ * The implementations used by {@link DynamicMetricsManager} for the meters and histograms it creates.
+ *
+ * All backends create codahale {@link Meter} and {@link Histogram} instances, so the metrics are registered and
+ * reported (e.g. through {@link JmxReporterFactory}) under the same names regardless of the backend.
+ */
+public enum MetricsBackend {
+  /**
+   * The stock codahale implementations
+   */
+  CODAHALE {
+    @Override
+    Meter createMeter() {
+      return new Meter();
+    }
+
+    @Override
+    Histogram createHistogram() {
+      return new Histogram(new ExponentiallyDecayingReservoir());
+    }
+
+    @Override
+    Histogram createSlidingWindowHistogram(long windowTimeMs) {
+      return new Histogram(new SlidingTimeWindowArrayReservoir(windowTimeMs, TimeUnit.MILLISECONDS));
+    }
+  },
+
+  /**
+   * Thread-striped implementations that keep updates cheap when many threads update the same metric, at the cost
+   * of bucketed (rather than sampled) histogram quantiles. See {@link StripedMeter} and
+   * {@link IntervalHistogramReservoir}.
+   */
+  STRIPED {
+    @Override
+    Meter createMeter() {
+      return new StripedMeter();
+    }
+
+    @Override
+    Histogram createHistogram() {
+      // ExponentiallyDecayingReservoir is biased towards roughly the last 5 minutes
+      return createSlidingWindowHistogram(DEFAULT_HISTOGRAM_WINDOW_MS);
+    }
+
+    @Override
+    Histogram createSlidingWindowHistogram(long windowTimeMs) {
+      return new Histogram(new IntervalHistogramReservoir(windowTimeMs));
+    }
+  };
+
+  private static final long DEFAULT_HISTOGRAM_WINDOW_MS = TimeUnit.MINUTES.toMillis(5);
+
+  abstract Meter createMeter();
+
+  abstract Histogram createHistogram();
+
+  abstract Histogram createSlidingWindowHistogram(long windowTimeMs);
+}
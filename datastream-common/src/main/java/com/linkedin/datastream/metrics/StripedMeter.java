@@ -0,0 +1,124 @@
+/**
+ *  Copyright 2019 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.EWMA;
+import com.codahale.metrics.Meter;
+
+
+/**
+ * A {@link Meter} that only touches a single thread-striped {@link LongAdder} when it is marked.
+ *
+ * The codahale {@link Meter} updates the count and the three moving averages on every {@link #mark(long)}. This
+ * implementation only adds to its count, which the moving averages are updated from when they are ticked. Like the
+ * codahale Meter, the first mark or read after a tick interval ticks them, with everything marked since the previous
+ * tick, so that the rates are the same however rarely the meter is read.
+ */
+public class StripedMeter extends Meter {
+  private static final long TICK_INTERVAL = TimeUnit.SECONDS.toNanos(5);
+
+  private final LongAdder _count = new LongAdder();
+  private final EWMA _m1Rate = EWMA.oneMinuteEWMA();
+  private final EWMA _m5Rate = EWMA.fiveMinuteEWMA();
+  private final EWMA _m15Rate = EWMA.fifteenMinuteEWMA();
+  private final Clock _clock;
+  private final long _startTime;
+
+  // Only written while holding this; read without it by mark
+  private volatile long _lastTick;
+  // Guarded by this
+  private long _lastTickCount;
+
+  /**
+   * Construct an instance of StripedMeter using the default clock
+   */
+  public StripedMeter() {
+    this(Clock.defaultClock());
+  }
+
+  /**
+   * Construct an instance of StripedMeter
+   * @param clock the clock to use for the meter ticks
+   */
+  public StripedMeter(Clock clock) {
+    super(clock);
+    _clock = clock;
+    _startTime = clock.getTick();
+    _lastTick = _startTime;
+  }
+
+  @Override
+  public void mark() {
+    mark(1);
+  }
+
+  @Override
+  public void mark(long n) {
+    if (_clock.getTick() - _lastTick > TICK_INTERVAL) {
+      tickIfNecessary();
+    }
+    _count.add(n);
+  }
+
+  @Override
+  public long getCount() {
+    return _count.sum();
+  }
+
+  @Override
+  public double getMeanRate() {
+    long count = getCount();
+    if (count == 0) {
+      return 0.0;
+    }
+    double elapsed = _clock.getTick() - _startTime;
+    return count / elapsed * TimeUnit.SECONDS.toNanos(1);
+  }
+
+  @Override
+  public double getOneMinuteRate() {
+    tickIfNecessary();
+    return _m1Rate.getRate(TimeUnit.SECONDS);
+  }
+
+  @Override
+  public double getFiveMinuteRate() {
+    tickIfNecessary();
+    return _m5Rate.getRate(TimeUnit.SECONDS);
+  }
+
+  @Override
+  public double getFifteenMinuteRate() {
+    tickIfNecessary();
+    return _m15Rate.getRate(TimeUnit.SECONDS);
+  }
+
+  private synchronized void tickIfNecessary() {
+    long age = _clock.getTick() - _lastTick;
+    if (age <= TICK_INTERVAL) {
+      return;
+    }
+    long requiredTicks = age / TICK_INTERVAL;
+    _lastTick += requiredTicks * TICK_INTERVAL;
+
+    // Like the codahale Meter, everything marked since the last tick is accounted to the first pending tick
+    long count = _count.sum();
+    long uncounted = count - _lastTickCount;
+    _lastTickCount = count;
+    _m1Rate.update(uncounted);
+    _m5Rate.update(uncounted);
+    _m15Rate.update(uncounted);
+    for (long i = 0; i < requiredTicks; i++) {
+      _m1Rate.tick();
+      _m5Rate.tick();
+      _m15Rate.tick();
+    }
+  }
+}
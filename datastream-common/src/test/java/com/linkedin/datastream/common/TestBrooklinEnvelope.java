@@ -0,0 +1,61 @@
+/**
+ *  Copyright 2019 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.common;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+/**
+ * Tests for {@link BrooklinEnvelope}.
+ */
+@Test
+public class TestBrooklinEnvelope {
+
+  @Test
+  public void testOriginMetadataIsRenderedLazily() {
+    KafkaOriginMetadata originMetadata = new KafkaOriginMetadata("localhost:9092", "topic", 3, 100L, 12345L);
+    BrooklinEnvelope envelope = new BrooklinEnvelope("key", "value", null, null, originMetadata);
+
+    Assert.assertEquals(envelope.getSourcePartition(), 3);
+    Assert.assertEquals(envelope.originMetadata().orElse(null), originMetadata);
+
+    Map<String, String> metadata = envelope.getMetadata();
+    Assert.assertEquals(metadata.get(BrooklinEnvelopeMetadataConstants.KAFKA_ORIGIN_CLUSTER), "localhost:9092");
+    Assert.assertEquals(metadata.get(BrooklinEnvelopeMetadataConstants.KAFKA_ORIGIN_TOPIC), "topic");
+    Assert.assertEquals(metadata.get(BrooklinEnvelopeMetadataConstants.KAFKA_ORIGIN_PARTITION), "3");
+    Assert.assertEquals(metadata.get(BrooklinEnvelopeMetadataConstants.KAFKA_ORIGIN_OFFSET), "100");
+    Assert.assertEquals(metadata.get(BrooklinEnvelopeMetadataConstants.EVENT_TIMESTAMP), "12345");
+    Assert.assertEquals(metadata.get(BrooklinEnvelopeMetadataConstants.SOURCE_PARTITION), "3");
+
+    // The rendered map is cached
+    Assert.assertSame(envelope.getMetadata(), metadata);
+
+    // An envelope built from the equivalent string metadata is equal
+    BrooklinEnvelope other = new BrooklinEnvelope("key", "value", null, null, new HashMap<>(metadata));
+    Assert.assertEquals(other, envelope);
+    Assert.assertEquals(other.hashCode(), envelope.hashCode());
+  }
+
+  @Test
+  public void testSourcePartitionFromMetadataMap() {
+    Map<String, String> metadata = new HashMap<>();
+    BrooklinEnvelope envelope = new BrooklinEnvelope("key", "value", metadata);
+    Assert.assertEquals(envelope.getSourcePartition(), -1);
+
+    metadata.put(BrooklinEnvelopeMetadataConstants.SOURCE_PARTITION, "7");
+    Assert.assertEquals(envelope.getSourcePartition(), 7);
+
+    envelope = new BrooklinEnvelope("key", "value", null, null,
+        new KafkaOriginMetadata("localhost:9092", "topic", 1, 0L, 0L));
+    envelope.setMetadata(metadata);
+    Assert.assertFalse(envelope.originMetadata().isPresent());
+    Assert.assertEquals(envelope.getSourcePartition(), 7);
+  }
+}
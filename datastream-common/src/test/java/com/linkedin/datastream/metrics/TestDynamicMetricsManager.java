@@ -278,4 +278,120 @@ public class TestDynamicMetricsManager {
     Assert.assertEquals(_metricsManager.getMetricRegistry().getHistograms(MetricFilter.contains("testMetric")).size(), 0);
     Assert.assertEquals(_metricsManager.getMetricRegistry().getGauges(MetricFilter.contains("testMetric")).size(), 0);
   }
+
+  @Test
+  public void testMetricHandles() {
+    String someKey = "someKey";
+    MetricHandle<Counter> counterHandle = _metricsManager.counterHandle(CLASS_NAME, someKey, "numEvents");
+    MetricHandle<Meter> meterHandle = _metricsManager.meterHandle(CLASS_NAME, someKey, "eventRate");
+    MetricHandle<Histogram> histogramHandle = _metricsManager.histogramHandle(CLASS_NAME, someKey, "eventSize");
+    MetricHandle<Histogram> slidingWindowHandle =
+        _metricsManager.slidingWindowHistogramHandle(CLASS_NAME, someKey, "latency", 1000);
+
+    // handles and the createOrUpdate APIs update the same metrics
+    counterHandle.get().inc(2);
+    _metricsManager.createOrUpdateCounter(CLASS_NAME, someKey, "numEvents", 3);
+    Counter counter = _metricsManager.getMetric(MetricRegistry.name(CLASS_NAME, someKey, "numEvents"));
+    Assert.assertSame(counterHandle.get(), counter);
+    Assert.assertEquals(counter.getCount(), 5);
+
+    meterHandle.get().mark(4);
+    _metricsManager.createOrUpdateMeter(CLASS_NAME, someKey, "eventRate", 1);
+    Meter meter = _metricsManager.getMetric(MetricRegistry.name(CLASS_NAME, someKey, "eventRate"));
+    Assert.assertSame(meterHandle.get(), meter);
+    Assert.assertEquals(meter.getCount(), 5);
+
+    histogramHandle.get().update(10);
+    _metricsManager.createOrUpdateHistogram(CLASS_NAME, someKey, "eventSize", 20);
+    Histogram histogram = _metricsManager.getMetric(MetricRegistry.name(CLASS_NAME, someKey, "eventSize"));
+    Assert.assertSame(histogramHandle.get(), histogram);
+    Assert.assertEquals(histogram.getCount(), 2);
+
+    slidingWindowHandle.get().update(10);
+    _metricsManager.createOrUpdateSlidingWindowHistogram(CLASS_NAME, someKey, "latency", 1000, 20);
+    Histogram latency = _metricsManager.getMetric(MetricRegistry.name(CLASS_NAME, someKey, "latency"));
+    Assert.assertSame(slidingWindowHandle.get(), latency);
+    Assert.assertEquals(latency.getSnapshot().getMax(), 20);
+
+    // handles re-resolve their metric once it is removed
+    _metricsManager.unregisterMetric(CLASS_NAME, someKey, "numEvents");
+    Assert.assertNull(_metricsManager.getMetric(MetricRegistry.name(CLASS_NAME, someKey, "numEvents")));
+    counterHandle.get().inc();
+    Counter newCounter = _metricsManager.getMetric(MetricRegistry.name(CLASS_NAME, someKey, "numEvents"));
+    Assert.assertNotSame(newCounter, counter);
+    Assert.assertSame(counterHandle.get(), newCounter);
+    Assert.assertEquals(newCounter.getCount(), 1);
+
+    // handles of metrics that were not removed keep updating the same metric
+    Assert.assertSame(meterHandle.get(), meter);
+  }
+
+  @Test
+  public void testStripedMetricsBackend() {
+    _metricsManager.setMetricsBackend(MetricsBackend.STRIPED);
+    _metricsManager.createOrUpdateMeter(CLASS_NAME, "someKey", "eventRate", 3);
+    _metricsManager.createOrUpdateHistogram(CLASS_NAME, "someKey", "eventSize", 100);
+    _metricsManager.createOrUpdateSlidingWindowHistogram(CLASS_NAME, "someKey", "latency", 1000, 10);
+    _metricsManager.createOrUpdateCounter(CLASS_NAME, "someKey", "numEvents", 2);
+
+    // metrics are registered under the same names, with the striped implementations
+    Meter meter = _metricsManager.getMetric(MetricRegistry.name(CLASS_NAME, "someKey", "eventRate"));
+    Assert.assertTrue(meter instanceof StripedMeter);
+    Assert.assertEquals(meter.getCount(), 3);
+    Histogram histogram = _metricsManager.getMetric(MetricRegistry.name(CLASS_NAME, "someKey", "eventSize"));
+    Assert.assertEquals(histogram.getSnapshot().getMax(), 100);
+    Histogram latency = _metricsManager.getMetric(MetricRegistry.name(CLASS_NAME, "someKey", "latency"));
+    Assert.assertEquals(latency.getSnapshot().getMax(), 10);
+    Counter counter = _metricsManager.getMetric(MetricRegistry.name(CLASS_NAME, "someKey", "numEvents"));
+    Assert.assertEquals(counter.getCount(), 2);
+    Assert.assertTrue(_metricsManager.registerMetric(CLASS_NAME, "registeredRate", Meter.class) instanceof StripedMeter);
+
+    // the test reset goes back to the default backend
+    _metricsManager = DynamicMetricsManager.createInstance(new MetricRegistry(), "testStripedMetricsBackend");
+    Assert.assertEquals(_metricsManager.getMetricsBackend(), MetricsBackend.CODAHALE);
+    _metricsManager.createOrUpdateMeter(CLASS_NAME, "someKey", "eventRate", 3);
+    meter = _metricsManager.getMetric(MetricRegistry.name(CLASS_NAME, "someKey", "eventRate"));
+    Assert.assertFalse(meter instanceof StripedMeter);
+  }
+
+  @Test
+  public void testStripedMeterRates() {
+    TestIntervalHistogramReservoir.ManualClock clock = new TestIntervalHistogramReservoir.ManualClock();
+    StripedMeter meter = new StripedMeter(clock);
+    Meter reference = new Meter(clock);
+    Assert.assertEquals(meter.getOneMinuteRate(), 0.0);
+    Assert.assertEquals(meter.getMeanRate(), 0.0);
+
+    for (int i = 0; i < 20; i++) {
+      meter.mark(10);
+      reference.mark(10);
+      clock.advance(6000);
+      Assert.assertEquals(meter.getOneMinuteRate(), reference.getOneMinuteRate(), 1e-9);
+      Assert.assertEquals(meter.getFiveMinuteRate(), reference.getFiveMinuteRate(), 1e-9);
+      Assert.assertEquals(meter.getFifteenMinuteRate(), reference.getFifteenMinuteRate(), 1e-9);
+    }
+    Assert.assertEquals(meter.getCount(), 200);
+    Assert.assertEquals(meter.getMeanRate(), reference.getMeanRate(), 1e-9);
+  }
+
+  @Test
+  public void testStripedMeterRatesReadEveryMinute() {
+    TestIntervalHistogramReservoir.ManualClock clock = new TestIntervalHistogramReservoir.ManualClock();
+    StripedMeter meter = new StripedMeter(clock);
+    Meter reference = new Meter(clock);
+
+    // 1000 events per second, marked every 100 ms, and read once per minute
+    for (int minute = 1; minute <= 15; minute++) {
+      for (int i = 0; i < 600; i++) {
+        clock.advance(100);
+        meter.mark(100);
+        reference.mark(100);
+      }
+      Assert.assertEquals(meter.getOneMinuteRate(), reference.getOneMinuteRate(), 1e-9);
+      Assert.assertEquals(meter.getFiveMinuteRate(), reference.getFiveMinuteRate(), 1e-9);
+      Assert.assertEquals(meter.getFifteenMinuteRate(), reference.getFifteenMinuteRate(), 1e-9);
+    }
+    Assert.assertEquals(meter.getOneMinuteRate(), 1000, 10);
+    Assert.assertEquals(meter.getCount(), reference.getCount());
+  }
 }
@@ -0,0 +1,148 @@
+/**
+ *  Copyright 2019 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Snapshot;
+
+
+/**
+ * Tests for {@link IntervalHistogramReservoir}.
+ */
+@Test
+public class TestIntervalHistogramReservoir {
+
+  @Test
+  public void testBuckets() {
+    int previous = -1;
+    for (long value : new long[]{0, 1, 63, 64, 65, 127, 128, 1000, 123456789, Long.MAX_VALUE / 3, Long.MAX_VALUE}) {
+      int index = IntervalHistogramReservoir.bucketIndex(value);
+      Assert.assertTrue(index >= previous);
+      Assert.assertTrue(index < IntervalHistogramReservoir.BUCKET_COUNT);
+      long lower = IntervalHistogramReservoir.bucketLowerBound(index);
+      long upper = IntervalHistogramReservoir.bucketUpperBound(index);
+      Assert.assertTrue(lower <= value && value <= upper, value + " not in [" + lower + ", " + upper + "]");
+      Assert.assertTrue(upper - lower <= lower / 32);
+      previous = index;
+    }
+    Assert.assertEquals(IntervalHistogramReservoir.bucketIndex(Long.MAX_VALUE), IntervalHistogramReservoir.BUCKET_COUNT - 1);
+
+    // buckets are contiguous
+    for (int i = 1; i < IntervalHistogramReservoir.BUCKET_COUNT; i++) {
+      Assert.assertEquals(IntervalHistogramReservoir.bucketLowerBound(i),
+          IntervalHistogramReservoir.bucketUpperBound(i - 1) + 1);
+    }
+  }
+
+  @Test
+  public void testSnapshot() {
+    IntervalHistogramReservoir reservoir = new IntervalHistogramReservoir(TimeUnit.MINUTES.toMillis(1), new ManualClock());
+    Snapshot snapshot = reservoir.getSnapshot();
+    Assert.assertEquals(snapshot.size(), 0);
+    Assert.assertEquals(snapshot.getMax(), 0);
+    Assert.assertEquals(snapshot.getMedian(), 0.0);
+
+    for (int i = 1; i <= 10000; i++) {
+      reservoir.update(i);
+    }
+    snapshot = reservoir.getSnapshot();
+    Assert.assertEquals(snapshot.size(), 10000);
+    Assert.assertEquals(snapshot.getMin(), 1);
+    Assert.assertEquals(snapshot.getMax(), 10000);
+    Assert.assertEquals(snapshot.getMean(), 5000.5, 0.001);
+    Assert.assertEquals(snapshot.getMedian(), 5000, 5000 / 32.0);
+    Assert.assertEquals(snapshot.get99thPercentile(), 9900, 9900 / 32.0);
+    Assert.assertEquals(snapshot.getValue(1.0), 10000.0);
+    Assert.assertEquals(snapshot.getStdDev(), 2886.9, 2886.9 / 32);
+
+    long[] values = snapshot.getValues();
+    Assert.assertEquals(values.length, 1028);
+    for (int i = 1; i < values.length; i++) {
+      Assert.assertTrue(values[i - 1] <= values[i]);
+    }
+    Assert.assertEquals(values[values.length - 1], 10000);
+  }
+
+  @Test
+  public void testSlidingWindow() {
+    ManualClock clock = new ManualClock();
+    long windowMs = TimeUnit.MINUTES.toMillis(1);
+    IntervalHistogramReservoir reservoir = new IntervalHistogramReservoir(windowMs, clock);
+
+    reservoir.update(1000);
+    clock.advance(windowMs / 2);
+    reservoir.update(10);
+    Assert.assertEquals(reservoir.getSnapshot().getMax(), 1000);
+    Assert.assertEquals(reservoir.size(), 2);
+
+    // the first value falls out of the window, the second does not
+    clock.advance(windowMs / 2 + windowMs / IntervalHistogramReservoir.INTERVAL_COUNT);
+    Snapshot snapshot = reservoir.getSnapshot();
+    Assert.assertEquals(snapshot.size(), 1);
+    Assert.assertEquals(snapshot.getMax(), 10);
+
+    // an idle reservoir eventually reports nothing
+    clock.advance(2 * windowMs);
+    Assert.assertEquals(reservoir.size(), 0);
+    reservoir.update(5);
+    Assert.assertEquals(reservoir.getSnapshot().getMax(), 5);
+  }
+
+  @Test
+  public void testConcurrentUpdates() throws Exception {
+    IntervalHistogramReservoir reservoir = new IntervalHistogramReservoir(TimeUnit.MINUTES.toMillis(1), new ManualClock());
+    int numThreads = 8;
+    int numUpdates = 100000;
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < numThreads; t++) {
+      long value = t;
+      threads.add(new Thread(() -> {
+        for (int i = 0; i < numUpdates; i++) {
+          reservoir.update(value);
+        }
+      }));
+    }
+    threads.forEach(Thread::start);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    Snapshot snapshot = reservoir.getSnapshot();
+    Assert.assertEquals(snapshot.size(), numThreads * numUpdates);
+    Assert.assertEquals(snapshot.getMin(), 0);
+    Assert.assertEquals(snapshot.getMax(), numThreads - 1);
+    Assert.assertEquals(snapshot.getMean(), (numThreads - 1) / 2.0, 0.001);
+  }
+
+  /**
+   * A clock that only moves when told to
+   */
+  static class ManualClock extends Clock {
+    private final AtomicLong _timeMs = new AtomicLong(1000000);
+
+    void advance(long ms) {
+      _timeMs.addAndGet(ms);
+    }
+
+    @Override
+    public long getTick() {
+      return TimeUnit.MILLISECONDS.toNanos(_timeMs.get());
+    }
+
+    @Override
+    public long getTime() {
+      return _timeMs.get();
+    }
+  }
+}
@@ -58,6 +58,7 @@ import com.linkedin.datastream.server.DatastreamEventProducer;
 import com.linkedin.datastream.server.DatastreamProducerRecord;
 import com.linkedin.datastream.server.DatastreamTask;
 import com.linkedin.datastream.server.DatastreamTaskStatus;
+import com.linkedin.datastream.server.TaskThroughputStats;
 import com.linkedin.datastream.server.api.transport.SendCallback;
 
 
@@ -78,6 +79,7 @@ abstract public class AbstractKafkaBasedConnectorTask implements Runnable, Consu
   public static final String CONSUMER_AUTO_OFFSET_RESET_CONFIG_NONE = "none";
 
   protected long _lastCommittedTime = System.currentTimeMillis();
+  private long _lastThroughputStatsPublishTime = System.currentTimeMillis();
   protected int _eventsProcessedCount = 0;
   protected static final Duration LOG_EVENTS_PROCESSED_PROGRESS_DURATION = Duration.ofMinutes(1);
   protected Instant _eventsProcessedCountLoggedTime;
@@ -109,6 +111,9 @@ abstract public class AbstractKafkaBasedConnectorTask implements Runnable, Consu
   protected final long _processingDelayLogThresholdMillis;
   protected final boolean _enableAdditionalMetrics;
   protected final Map<Integer, Long> _startOffsets;
+  protected final int _sendPipelineWorkers;
+  protected final int _sendPipelineQueueCapacity;
+  protected final long _throughputStatsPublishIntervalMillis;
 
   protected volatile String _taskName;
   protected final DatastreamEventProducer _producer;
@@ -137,6 +142,9 @@ abstract public class AbstractKafkaBasedConnectorTask implements Runnable, Consu
 
   protected final KafkaTopicPartitionTracker _kafkaTopicPartitionTracker;
 
+  // Translates and sends the polled records on worker threads, if enabled. Only set while the task is running.
+  private volatile PartitionedSendPipeline _sendPipeline;
+
   protected AbstractKafkaBasedConnectorTask(KafkaBasedConnectorConfig config, DatastreamTask task, Logger logger,
       String metricsPrefix, GroupIdConstructor groupIdConstructor) {
     _logger = logger;
@@ -164,6 +172,9 @@ abstract public class AbstractKafkaBasedConnectorTask implements Runnable, Consu
     _pausePartitionOnError = config.getPausePartitionOnError();
     _pauseErrorPartitionDuration = config.getPauseErrorPartitionDuration();
     _enableAdditionalMetrics = config.getEnableAdditionalMetrics();
+    _sendPipelineWorkers = config.getSendPipelineWorkers();
+    _sendPipelineQueueCapacity = config.getSendPipelineQueueCapacity();
+    _throughputStatsPublishIntervalMillis = config.getThroughputStatsPublishIntervalMillis();
 
     _startOffsets = new HashMap<>();
     String json = _datastream.getMetadata().get(DatastreamMetadataConstants.START_POSITION);
@@ -206,7 +217,8 @@ abstract public class AbstractKafkaBasedConnectorTask implements Runnable, Consu
     _pollAttempts = new AtomicInteger();
     _groupIdConstructor = groupIdConstructor;
     _kafkaTopicPartitionTracker = new KafkaTopicPartitionTracker(
-        getKafkaGroupId(_datastreamTask, _groupIdConstructor, _consumerMetrics, logger), _datastreamName);
+        getKafkaGroupId(_datastreamTask, _groupIdConstructor, _consumerMetrics, logger), _datastreamName,
+        _throughputStatsPublishIntervalMillis > 0);
   }
 
   protected static String generateMetricsPrefix(String connectorName, String simpleClassName) {
@@ -263,6 +275,15 @@ abstract public class AbstractKafkaBasedConnectorTask implements Runnable, Consu
     return _skipOnPartitionsRevoked;
   }
 
+  /**
+   * Whether the records can be translated and sent by a {@link PartitionedSendPipeline} when
+   * {@link KafkaBasedConnectorConfig#CONFIG_SEND_PIPELINE_WORKERS} is set. Tasks which use the consumer while sending
+   * must not allow it, since the consumer can only be used by the task thread.
+   */
+  protected boolean isSendPipelineSupported() {
+    return true;
+  }
+
   /**
    * Translate the Kafka consumer records if necessary and send the batch of records to destination.
    * @param records the Kafka consumer records
@@ -271,37 +292,137 @@ abstract public class AbstractKafkaBasedConnectorTask implements Runnable, Consu
   protected void translateAndSendBatch(ConsumerRecords<?, ?> records, Instant readTime) throws Exception {
     // iterate through each topic partition one at a time, for better isolation
     for (TopicPartition topicPartition : records.partitions()) {
-      for (ConsumerRecord<?, ?> record : records.records(topicPartition)) {
-        try {
-          boolean partitionPaused;
-          boolean sendFailure;
-          synchronized (_sendFailureTopicPartitionExceptionMap) {
-            partitionPaused = _autoPausedSourcePartitions.containsKey(topicPartition);
-            sendFailure = _sendFailureTopicPartitionExceptionMap.containsKey(topicPartition);
-          }
-          if (partitionPaused || sendFailure) {
-            _logger.warn("Abort sending for {}, auto-paused: {}, send failure: {}, rewind offset", topicPartition,
-                partitionPaused, sendFailure);
-            seekToLastCheckpoint(Collections.singleton(topicPartition));
-            break;
-          } else {
-            DatastreamProducerRecord datastreamProducerRecord = translate(record, readTime);
-            int numBytes = record.serializedKeySize() + record.serializedValueSize();
-            sendDatastreamProducerRecord(datastreamProducerRecord, topicPartition, numBytes, null);
-          }
-        } catch (Exception e) {
-          _logger.warn(String.format("Got exception while sending record %s, exception: ", record), e);
-          if (_shutdown && !(e instanceof WakeupException)) {
-            throw e;
-          }
-          rewindAndPausePartitionOnException(topicPartition, e);
-          // skip other messages for this partition, but can continue processing other partitions
-          break;
+      if (abortSendingIfPausedOrFailed(topicPartition)) {
+        continue;
+      }
+
+      if (_sendPipeline != null) {
+        _sendPipeline.submit(topicPartition, records.records(topicPartition), readTime);
+        continue;
+      }
+
+      try {
+        translateAndSendPartition(topicPartition, records.records(topicPartition), readTime);
+      } catch (Exception e) {
+        if (_shutdown && !(e instanceof WakeupException)) {
+          throw e;
         }
+        // skip other messages for this partition, but can continue processing other partitions
+        rewindAndPausePartitionOnException(topicPartition, e);
+      }
+    }
+  }
+
+  /**
+   * Translate the records polled from a source topic partition and send them to destination.
+   * @param topicPartition the source topic partition
+   * @param partitionRecords the records polled from the partition
+   * @param readTime the instant the records were successfully polled from the Kafka source
+   * @throws Exception the translate or send failure, which has been logged
+   */
+  private void translateAndSendPartition(TopicPartition topicPartition,
+      List<? extends ConsumerRecord<?, ?>> partitionRecords, Instant readTime) throws Exception {
+    // translate the whole partition batch first, so that it can be handed to the producer in a single call
+    List<DatastreamProducerRecord> datastreamProducerRecords = new ArrayList<>(partitionRecords.size());
+    int[] numBytes = new int[partitionRecords.size()];
+    ConsumerRecord<?, ?> record = null;
+    try {
+      long translateStartNanos = System.nanoTime();
+      for (int i = 0; i < partitionRecords.size(); i++) {
+        record = partitionRecords.get(i);
+        datastreamProducerRecords.add(translate(record, readTime));
+        numBytes[i] = record.serializedKeySize() + record.serializedValueSize();
       }
+      record = null;
+      long sendStartNanos = System.nanoTime();
+      sendDatastreamProducerRecordBatch(datastreamProducerRecords, topicPartition, numBytes);
+      // no-ops unless the send pipeline is enabled
+      _consumerMetrics.updateSendPipelineTranslateTimeNanos(sendStartNanos - translateStartNanos);
+      _consumerMetrics.updateSendPipelineSendTimeNanos(System.nanoTime() - sendStartNanos);
+    } catch (Exception e) {
+      if (record != null) {
+        _logger.warn(String.format("Got exception while translating record %s, exception: ", record), e);
+      } else {
+        _logger.warn(String.format("Got exception while sending %d records for %s, exception: ",
+            datastreamProducerRecords.size(), topicPartition), e);
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Translate and send the records polled from a source topic partition on a send pipeline worker. Since the consumer
+   * cannot be used here, failures are handled by the task thread like the send failures reported by the producer.
+   */
+  private void translateAndSendPipelinedPartition(TopicPartition topicPartition,
+      List<? extends ConsumerRecord<?, ?>> partitionRecords, Instant readTime) {
+    if (abortSendingIfPausedOrFailed(topicPartition)) {
+      return;
+    }
+    try {
+      translateAndSendPartition(topicPartition, partitionRecords, readTime);
+    } catch (Exception e) {
+      // rewound (and paused if configured) by the task thread before its next poll or commit
+      updateSendFailureTopicPartitionExceptionMap(topicPartition, e);
     }
   }
 
+  /**
+   * Wait until the send pipeline, if enabled, has processed all the records handed to it, then rewind the partitions
+   * the workers stopped sending. This must be done before the consumer position is committed.
+   */
+  protected void drainSendPipeline() {
+    PartitionedSendPipeline sendPipeline = _sendPipeline;
+    if (sendPipeline == null) {
+      return;
+    }
+    try {
+      sendPipeline.awaitIdle();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new DatastreamRuntimeException("Interrupted while waiting for the send pipeline to drain", e);
+    }
+    rewindPartitionsAbortedBySendPipeline();
+  }
+
+  private void rewindPartitionsAbortedBySendPipeline() {
+    PartitionedSendPipeline sendPipeline = _sendPipeline;
+    if (sendPipeline != null) {
+      Set<TopicPartition> topicPartitions = sendPipeline.takeRewindRequests();
+      if (!topicPartitions.isEmpty()) {
+        seekToLastCheckpoint(topicPartitions);
+      }
+    }
+  }
+
+  /**
+   * Check whether the source topic partition got auto-paused or saw a send failure, in which case sending the rest of
+   * its records is aborted and the consumer is rewound to the last checkpoint of the partition.
+   * @param topicPartition the source topic partition
+   * @return true if sending was aborted for the partition
+   */
+  protected boolean abortSendingIfPausedOrFailed(TopicPartition topicPartition) {
+    boolean partitionPaused;
+    boolean sendFailure;
+    synchronized (_sendFailureTopicPartitionExceptionMap) {
+      partitionPaused = _autoPausedSourcePartitions.containsKey(topicPartition);
+      sendFailure = _sendFailureTopicPartitionExceptionMap.containsKey(topicPartition);
+    }
+    if (partitionPaused || sendFailure) {
+      _logger.warn("Abort sending for {}, auto-paused: {}, send failure: {}, rewind offset", topicPartition,
+          partitionPaused, sendFailure);
+      PartitionedSendPipeline sendPipeline = _sendPipeline;
+      if (sendPipeline != null && Thread.currentThread() != _connectorTaskThread) {
+        // only the task thread can use the consumer
+        sendPipeline.requestRewind(topicPartition);
+      } else {
+        seekToLastCheckpoint(Collections.singleton(topicPartition));
+      }
+      return true;
+    }
+    return false;
+  }
+
   protected void rewindAndPausePartitionOnException(TopicPartition srcTopicPartition, Exception ex) {
     _consumerMetrics.updateErrorRate(1);
     Instant start = Instant.now();
@@ -362,6 +483,30 @@ abstract public class AbstractKafkaBasedConnectorTask implements Runnable, Consu
     }
   }
 
+  /**
+   * Send the records translated from a single source topic partition, in order, through
+   * {@link DatastreamEventProducer#sendBatch}. A single send callback is shared by the whole batch.
+   * @param datastreamProducerRecords the records to send
+   * @param srcTopicPartition the source topic partition the records were consumed from
+   * @param numBytes the serialized size of each of the source records
+   */
+  protected void sendDatastreamProducerRecordBatch(List<DatastreamProducerRecord> datastreamProducerRecords,
+      TopicPartition srcTopicPartition, int[] numBytes) {
+    if (datastreamProducerRecords.isEmpty()) {
+      return;
+    }
+    _producer.sendBatch(datastreamProducerRecords, ((recordIndex, metadata, exception) -> {
+      if (exception != null) {
+        String msg = String.format("Detected exception being thrown from send callback for source topic-partition: %s "
+            + "with metadata: %s, exception: ", srcTopicPartition, metadata);
+        _logger.warn(msg, exception);
+        updateSendFailureTopicPartitionExceptionMap(srcTopicPartition, exception);
+      } else {
+        _consumerMetrics.updateBytesProcessedRate(numBytes[recordIndex]);
+      }
+    }));
+  }
+
   protected void sendDatastreamProducerRecord(DatastreamProducerRecord datastreamProducerRecord,
       TopicPartition srcTopicPartition, int numBytes, SendCallback sendCallback) {
     _producer.send(datastreamProducerRecord, ((metadata, exception) -> {
@@ -394,6 +539,7 @@ abstract public class AbstractKafkaBasedConnectorTask implements Runnable, Consu
       _consumerMetrics.registerKafkaConsumerMetrics(_consumer,
           _consumerProps.getProperty(ConsumerConfig.CLIENT_ID_CONFIG));
       consumerSubscribe();
+      maybeStartSendPipeline();
 
       ConsumerRecords<?, ?> records;
       while (!_shutdown) {
@@ -419,6 +565,7 @@ abstract public class AbstractKafkaBasedConnectorTask implements Runnable, Consu
           recordsPolled = records.count();
         }
         maybeCommitOffsets(_consumer, false);
+        maybePublishThroughputStats();
         trackEventsProcessedProgress(recordsPolled);
       } // end while loop
 
@@ -438,6 +585,10 @@ abstract public class AbstractKafkaBasedConnectorTask implements Runnable, Consu
       _datastreamTask.setStatus(DatastreamTaskStatus.error(e.toString() + ExceptionUtils.getFullStackTrace(e)));
       throw new DatastreamRuntimeException(e);
     } finally {
+      if (_sendPipeline != null) {
+        _sendPipeline.shutdown();
+        _sendPipeline = null;
+      }
       if (null != _consumer) {
         try {
           _skipOnPartitionsRevoked = true;
@@ -452,6 +603,21 @@ abstract public class AbstractKafkaBasedConnectorTask implements Runnable, Consu
     }
   }
 
+  private void maybeStartSendPipeline() {
+    if (_sendPipelineWorkers <= 0) {
+      return;
+    }
+    if (!isSendPipelineSupported()) {
+      _logger.warn("Task {} does not support the send pipeline, translating and sending on the task thread", _taskName);
+      return;
+    }
+    _logger.info("Starting the send pipeline of task {} with {} workers", _taskName, _sendPipelineWorkers);
+    PartitionedSendPipeline sendPipeline = new PartitionedSendPipeline(_taskName, _sendPipelineWorkers,
+        _sendPipelineQueueCapacity, this::translateAndSendPipelinedPartition, _consumerMetrics, _logger);
+    _consumerMetrics.registerSendPipelineMetrics(sendPipeline::getQueueDepth);
+    _sendPipeline = sendPipeline;
+  }
+
   protected void countDownStoppedLatch() {
     _stoppedLatch.countDown();
   }
@@ -636,6 +802,8 @@ abstract public class AbstractKafkaBasedConnectorTask implements Runnable, Consu
     long now = System.currentTimeMillis();
     long timeSinceLastCommit = now - _lastCommittedTime;
     if (force || timeSinceLastCommit > _offsetCommitInterval) {
+      // the records handed to the send pipeline must be sent before flushing, as their offsets are committed
+      drainSendPipeline();
       _logger.info("Trying to flush the producer and commit offsets.");
       _producer.flush();
       // Flush may succeed even though some of the records received send failures. Flush only guarantees that all
@@ -657,6 +825,27 @@ abstract public class AbstractKafkaBasedConnectorTask implements Runnable, Consu
     }
   }
 
+  /**
+   * Publish the throughput of the assigned partitions into the ZooKeeper state of the datastream task, if the publish
+   * interval has elapsed, for the load-based partition assignment strategies to read
+   */
+  private void maybePublishThroughputStats() {
+    if (_throughputStatsPublishIntervalMillis <= 0) {
+      return;
+    }
+    long now = System.currentTimeMillis();
+    if (now - _lastThroughputStatsPublishTime < _throughputStatsPublishIntervalMillis) {
+      return;
+    }
+    _lastThroughputStatsPublishTime = now;
+    TaskThroughputStats throughputStats = _kafkaTopicPartitionTracker.sampleThroughputStats(now);
+    try {
+      _datastreamTask.saveState(TaskThroughputStats.STATE_KEY, JsonUtils.toJson(throughputStats));
+    } catch (Exception e) {
+      _logger.warn(String.format("Failed to publish the throughput stats of task %s.", _taskName), e);
+    }
+  }
+
   protected void commitWithRetries(Consumer<?, ?> consumer, Optional<Map<TopicPartition, OffsetAndMetadata>> offsets)
       throws DatastreamRuntimeException {
     preCommitHook();
@@ -710,6 +899,11 @@ abstract public class AbstractKafkaBasedConnectorTask implements Runnable, Consu
   @VisibleForTesting
   protected void seekToLastCheckpoint(Set<TopicPartition> topicPartitions) {
     _logger.info("Trying to seek to previous checkpoint for partitions: {}", topicPartitions);
+    PartitionedSendPipeline sendPipeline = _sendPipeline;
+    if (sendPipeline != null) {
+      // the records of these partitions handed to the send pipeline so far will be polled again
+      sendPipeline.invalidate(topicPartitions);
+    }
     Map<TopicPartition, OffsetAndMetadata> lastCheckpoint = new HashMap<>();
     Set<TopicPartition> tpWithNoCommits = new HashSet<>();
     // construct last checkpoint
@@ -822,6 +1016,9 @@ abstract public class AbstractKafkaBasedConnectorTask implements Runnable, Consu
    * new update type when there is any update to datastream task (in method checkForUpdateTask())
    */
   protected void preConsumerPollHook() {
+    // rewind the partitions the send pipeline workers stopped sending, if any
+    rewindPartitionsAbortedBySendPipeline();
+
     // check if any send failures were seen on the last poll and rewind them before the next poll
     rewindAndPausePartitionsOnSendException();
 
@@ -888,16 +1085,31 @@ abstract public class AbstractKafkaBasedConnectorTask implements Runnable, Consu
   /**
    * Checks for partitions to auto-resume by checking if any of the auto-paused partitions meets criteria to resume. If
    * such partition is found, add the PAUSE_RESUME_PARTITIONS task to the taskUpdates set.
+   *
+   * The resume criteria are not evaluated if the PAUSE_RESUME_PARTITIONS task is already queued (e.g. because flow
+   * control just auto-paused a partition), since {@link #pausePartitions()} evaluates all of them anyway.
    */
   private void checkForPartitionsToAutoResume() {
-    if (_autoPausedSourcePartitions.values().stream().anyMatch(PausedSourcePartitionMetadata::shouldResume)) {
-      _logger.info("Found partition to resume, adding PAUSE_RESUME_PARTITIONS to task updates set");
-      _taskUpdates.add(DatastreamConstants.UpdateType.PAUSE_RESUME_PARTITIONS);
+    if (_autoPausedSourcePartitions.isEmpty()
+        || _taskUpdates.contains(DatastreamConstants.UpdateType.PAUSE_RESUME_PARTITIONS)) {
+      return;
+    }
+    for (PausedSourcePartitionMetadata metadata : _autoPausedSourcePartitions.values()) {
+      if (metadata.shouldResume()) {
+        _logger.debug("Found partition to resume, adding PAUSE_RESUME_PARTITIONS to task updates set");
+        _taskUpdates.add(DatastreamConstants.UpdateType.PAUSE_RESUME_PARTITIONS);
+        return;
+      }
     }
   }
 
+  /**
+   * Pause and resume the partitions on the consumer according to the pause configuration and the auto-paused
+   * partitions. Only the partitions whose state changes are paused or resumed, so that the fetch positions and the
+   * prefetched data of the other partitions are kept.
+   */
   private void pausePartitions() {
-    _logger.info("Checking for partitions to pause or resume.");
+    _logger.debug("Checking for partitions to pause or resume.");
     Validate.isTrue(_consumer != null, "Consumer cannot be null when pausing partitions.");
 
     _pausedPartitionsConfigUpdateCount++; // increment counter for testing purposes only
@@ -907,9 +1119,9 @@ abstract public class AbstractKafkaBasedConnectorTask implements Runnable, Consu
     Set<TopicPartition> currentAssignedPartitions = _consumer.assignment();
 
     // print state
-    _logger.info("Current partition assignment for task {} is: {}, and paused partitions are: {}", _taskName,
+    _logger.debug("Current partition assignment for task {} is: {}, and paused partitions are: {}", _taskName,
         currentAssignedPartitions, currentPausedPartitions);
-    _logger.info("Current auto-pause partition set is: {}", _autoPausedSourcePartitions);
+    _logger.debug("Current auto-pause partition set is: {}", _autoPausedSourcePartitions);
 
     // Get the set of partitions to pause
     Set<TopicPartition> partitionsToPause =
@@ -919,16 +1131,24 @@ abstract public class AbstractKafkaBasedConnectorTask implements Runnable, Consu
     // keep the auto-paused set up to date with only assigned partitions
     _autoPausedSourcePartitions.keySet().retainAll(currentAssignedPartitions);
 
-    // need to pause the entire new set of partitions to pause, since they were resumed at the beginning
-    _logger.info("Full pause list is: {}", partitionsToPause);
+    _logger.debug("Full pause list is: {}", partitionsToPause);
 
-    if (!partitionsToPause.equals(currentPausedPartitions)) {
-      // resume all paused partitions
-      _consumer.resume(currentPausedPartitions);
+    // only resume the partitions which are no longer to pause, and only pause the ones which are not paused yet
+    Set<TopicPartition> partitionsToResume = new HashSet<>(currentPausedPartitions);
+    partitionsToResume.removeAll(partitionsToPause);
+    Set<TopicPartition> newPartitionsToPause = new HashSet<>(partitionsToPause);
+    newPartitionsToPause.removeAll(currentPausedPartitions);
 
-      // only log the new list if there was a change
-      _logger.info("There were new partitions to pause. New partitions pause list is: {}", partitionsToPause);
-      _consumer.pause(partitionsToPause);
+    if (!partitionsToResume.isEmpty()) {
+      _logger.info("Resuming {} partitions for task {}: {}", partitionsToResume.size(), _taskName, partitionsToResume);
+      _consumer.resume(partitionsToResume);
+      _consumerMetrics.updatePartitionsResumedRate(partitionsToResume.size());
+    }
+    if (!newPartitionsToPause.isEmpty()) {
+      _logger.info("Pausing {} partitions for task {}: {}", newPartitionsToPause.size(), _taskName,
+          newPartitionsToPause);
+      _consumer.pause(newPartitionsToPause);
+      _consumerMetrics.updatePartitionsPausedRate(newPartitionsToPause.size());
     }
 
     // update paused partition metrics
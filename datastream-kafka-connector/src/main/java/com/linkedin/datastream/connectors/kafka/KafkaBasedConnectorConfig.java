@@ -37,7 +37,14 @@ public class KafkaBasedConnectorConfig {
   public static final String DAEMON_THREAD_INTERVAL_SECONDS = "daemonThreadIntervalInSeconds";
   public static final String NON_GOOD_STATE_THRESHOLD_MILLIS = "nonGoodStateThresholdMs";
   public static final String PROCESSING_DELAY_LOG_THRESHOLD_MILLIS = "processingDelayLogThreshold";
-  private static final String CONFIG_CALLBACK_STATUS_STRATEGY_FACTORY_CLASS = "callbackStatusStrategyFactoryClass";
+  // Flushless mode can opt into the lock-free CallbackStatusWithMonotonicLongOffsetsFactory through this config
+  public static final String CONFIG_CALLBACK_STATUS_STRATEGY_FACTORY_CLASS = "callbackStatusStrategyFactoryClass";
+  // Number of worker threads translating and sending the polled records, 0 to do it on the consumer thread
+  public static final String CONFIG_SEND_PIPELINE_WORKERS = "sendPipelineWorkers";
+  // Number of polled partition batches each send pipeline worker can queue before the consumer thread blocks
+  public static final String CONFIG_SEND_PIPELINE_QUEUE_CAPACITY = "sendPipelineQueueCapacity";
+  // Interval at which the tasks publish the throughput of their partitions into their ZooKeeper state, 0 to disable
+  public static final String CONFIG_THROUGHPUT_STATS_PUBLISH_INTERVAL_MILLIS = "throughputStatsPublishIntervalMs";
 
   // config value to enable Kafka partition management for KafkaMirrorConnector
   public static final String ENABLE_PARTITION_ASSIGNMENT = "enablePartitionAssignment";
@@ -53,6 +60,9 @@ public class KafkaBasedConnectorConfig {
   private static final long DEFAULT_COMMIT_TIMEOUT_MILLIS = Duration.ofSeconds(30).toMillis();
   private static final boolean DEFAULT_ENABLE_ADDITIONAL_METRICS = Boolean.TRUE;
   private static final boolean DEFAULT_INCLUDE_DATASTREAM_NAME_IN_CONSUMER_CLIENT_ID = Boolean.FALSE;
+  private static final int DEFAULT_SEND_PIPELINE_WORKERS = 0;
+  private static final int DEFAULT_SEND_PIPELINE_QUEUE_CAPACITY = 16;
+  private static final long DEFAULT_THROUGHPUT_STATS_PUBLISH_INTERVAL_MILLIS = 0;
 
   private final Properties _consumerProps;
   private final VerifiableProperties _connectorProps;
@@ -74,6 +84,9 @@ public class KafkaBasedConnectorConfig {
   private final int _daemonThreadIntervalSeconds;
   private final long _nonGoodStateThresholdMillis;
   private final boolean _enablePartitionAssignment;
+  private final int _sendPipelineWorkers;
+  private final int _sendPipelineQueueCapacity;
+  private final long _throughputStatsPublishIntervalMillis;
 
   // Kafka based pub sub framework uses Long as their offset type, hence instantiating a Long parameterized factory
   private final CallbackStatusFactory<Long> _callbackStatusStrategyFactory;
@@ -115,6 +128,13 @@ public class KafkaBasedConnectorConfig {
     _includeDatastreamNameInConsumerClientId = verifiableProperties.getBoolean(
         INCLUDE_DATASTREAM_NAME_IN_CONSUMER_CLIENT_ID, DEFAULT_INCLUDE_DATASTREAM_NAME_IN_CONSUMER_CLIENT_ID);
     _enablePartitionAssignment = verifiableProperties.getBoolean(ENABLE_PARTITION_ASSIGNMENT, Boolean.FALSE);
+    _sendPipelineWorkers = verifiableProperties.getIntInRange(CONFIG_SEND_PIPELINE_WORKERS,
+        DEFAULT_SEND_PIPELINE_WORKERS, 0, Integer.MAX_VALUE);
+    _sendPipelineQueueCapacity = verifiableProperties.getIntInRange(CONFIG_SEND_PIPELINE_QUEUE_CAPACITY,
+        DEFAULT_SEND_PIPELINE_QUEUE_CAPACITY, 1, Integer.MAX_VALUE);
+    _throughputStatsPublishIntervalMillis = verifiableProperties.getLongInRange(
+        CONFIG_THROUGHPUT_STATS_PUBLISH_INTERVAL_MILLIS, DEFAULT_THROUGHPUT_STATS_PUBLISH_INTERVAL_MILLIS, 0,
+        Long.MAX_VALUE);
 
     String callbackStatusStrategyFactoryClass = verifiableProperties.getString(CONFIG_CALLBACK_STATUS_STRATEGY_FACTORY_CLASS,
         CallbackStatusWithComparableOffsetsFactory.class.getName());
@@ -211,6 +231,18 @@ public class KafkaBasedConnectorConfig {
     return _enablePartitionAssignment;
   }
 
+  public int getSendPipelineWorkers() {
+    return _sendPipelineWorkers;
+  }
+
+  public int getSendPipelineQueueCapacity() {
+    return _sendPipelineQueueCapacity;
+  }
+
+  public long getThroughputStatsPublishIntervalMillis() {
+    return _throughputStatsPublishIntervalMillis;
+  }
+
   public CallbackStatusFactory<Long> getCallbackStatusStrategyFactory() {
     return _callbackStatusStrategyFactory;
   }
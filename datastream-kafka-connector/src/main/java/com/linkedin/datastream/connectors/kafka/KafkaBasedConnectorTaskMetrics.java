@@ -21,12 +21,14 @@ import org.apache.kafka.common.MetricName;
 import org.slf4j.Logger;
 
 import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
 import com.google.common.base.Strings;
 
 import com.linkedin.datastream.connectors.CommonConnectorMetrics;
 import com.linkedin.datastream.metrics.BrooklinGaugeInfo;
 import com.linkedin.datastream.metrics.BrooklinHistogramInfo;
+import com.linkedin.datastream.metrics.BrooklinMeterInfo;
 import com.linkedin.datastream.metrics.BrooklinMetricInfo;
 
 /**
@@ -45,6 +47,10 @@ public class KafkaBasedConnectorTaskMetrics extends CommonConnectorMetrics {
       "numAutoPausedPartitionsAwaitingDestTopic";
   // keeps track of number of topics that are assigned to the task
   public static final String NUM_TOPICS = "numTopics";
+  // keeps track of the rate at which partitions are paused on the consumer
+  public static final String PARTITIONS_PAUSED_RATE = "partitionsPausedRate";
+  // keeps track of the rate at which paused partitions are resumed on the consumer
+  public static final String PARTITIONS_RESUMED_RATE = "partitionsResumedRate";
   // keeps track of how long it takes to return from poll()
   public static final String POLL_DURATION_MS = "pollDurationMs";
   // keeps track of how long processing takes between polls
@@ -55,6 +61,14 @@ public class KafkaBasedConnectorTaskMetrics extends CommonConnectorMetrics {
   public static final String CONSUMER_OFFSET_WATERMARK_SPAN = "consumerOffsetWatermarkSpan";
   // keeps track of how many times the consumer had OffsetOutOfRangeException or NoOffsetForPartitionException
   public static final String CONSUMER_LICLOSEST_DATA_LOSS_ESTIMATION = "consumerLiclosestDataLossEstimation";
+  // keeps track of the number of partition batches waiting in the send pipeline queues
+  public static final String SEND_PIPELINE_QUEUE_DEPTH = "sendPipelineQueueDepth";
+  // keeps track of how long a partition batch waits in the send pipeline queue, in nanoseconds
+  public static final String SEND_PIPELINE_HAND_OFF_TIME_NANOS = "sendPipelineHandOffTimeNs";
+  // keeps track of how long translating a partition batch takes in the send pipeline, in nanoseconds
+  public static final String SEND_PIPELINE_TRANSLATE_TIME_NANOS = "sendPipelineTranslateTimeNs";
+  // keeps track of how long handing a partition batch to the producer takes in the send pipeline, in nanoseconds
+  public static final String SEND_PIPELINE_SEND_TIME_NANOS = "sendPipelineSendTimeNs";
 
   private static final Map<String, AtomicLong> AGGREGATED_NUM_TOPICS = new ConcurrentHashMap<>();
   private static final Map<String, AtomicLong> AGGREGATED_NUM_CONFIG_PAUSED_PARTITIONS = new ConcurrentHashMap<>();
@@ -80,9 +94,30 @@ public class KafkaBasedConnectorTaskMetrics extends CommonConnectorMetrics {
   private final AtomicLong _numAutoPausedPartitionsAwaitingDestTopic;
   private final AtomicLong _numTopics;
 
+  // Per metrics key and aggregated gauge values, resolved once so that updates don't need to look them up
+  private final AtomicLong _keyNumConfigPausedPartitions;
+  private final AtomicLong _keyNumAutoPausedPartitionsOnError;
+  private final AtomicLong _keyNumAutoPausedPartitionsOnInFlightMessages;
+  private final AtomicLong _keyNumAutoPausedPartitionsAwaitingDestTopic;
+  private final AtomicLong _keyNumTopics;
+  private final AtomicLong _aggNumConfigPausedPartitions;
+  private final AtomicLong _aggNumAutoPausedPartitionsOnError;
+  private final AtomicLong _aggNumAutoPausedPartitionsOnInFlightMessages;
+  private final AtomicLong _aggNumAutoPausedPartitionsAwaitingDestTopic;
+  private final AtomicLong _aggNumTopics;
+
+  private final Meter _partitionsPausedRate;
+  private final Meter _partitionsResumedRate;
+  private final Meter _aggPartitionsPausedRate;
+  private final Meter _aggPartitionsResumedRate;
+
   private final Histogram _pollDurationMsMetric;
   private final Histogram _timeSpentBetweenPollsMsMetric;
   private final Histogram _perEventProcessingTimeNanosMetric;
+  // Only registered by the tasks that use a send pipeline
+  private volatile Histogram _sendPipelineHandOffTimeNanosMetric;
+  private volatile Histogram _sendPipelineTranslateTimeNanosMetric;
+  private volatile Histogram _sendPipelineSendTimeNanosMetric;
   private final String _fullMetricsKey;
 
   KafkaBasedConnectorTaskMetrics(String className, String metricsKey, Logger errorLogger,
@@ -112,6 +147,9 @@ public class KafkaBasedConnectorTaskMetrics extends CommonConnectorMetrics {
         numAutoPausedPartitionsAwaitingDestTopic::get);
     AtomicLong numTopics = NUM_TOPICS_PER_METRIC_KEY.computeIfAbsent(_fullMetricsKey, k -> new AtomicLong(0));
     DYNAMIC_METRICS_MANAGER.registerGauge(_className, _key, NUM_TOPICS, numTopics::get);
+    _partitionsPausedRate = DYNAMIC_METRICS_MANAGER.registerMetric(_className, _key, PARTITIONS_PAUSED_RATE, Meter.class);
+    _partitionsResumedRate =
+        DYNAMIC_METRICS_MANAGER.registerMetric(_className, _key, PARTITIONS_RESUMED_RATE, Meter.class);
 
     _pollDurationMsMetric = enableAdditionalMetrics ?
         DYNAMIC_METRICS_MANAGER.registerMetric(_className, _key, POLL_DURATION_MS, Histogram.class) : null;
@@ -138,6 +176,21 @@ public class KafkaBasedConnectorTaskMetrics extends CommonConnectorMetrics {
         aggNumAutoPausedPartitionsAwaitingDestTopic::get);
     AtomicLong aggNumTopics = AGGREGATED_NUM_TOPICS.computeIfAbsent(className, k -> new AtomicLong(0));
     DYNAMIC_METRICS_MANAGER.registerGauge(_className, AGGREGATE, NUM_TOPICS, aggNumTopics::get);
+    _aggPartitionsPausedRate =
+        DYNAMIC_METRICS_MANAGER.registerMetric(_className, AGGREGATE, PARTITIONS_PAUSED_RATE, Meter.class);
+    _aggPartitionsResumedRate =
+        DYNAMIC_METRICS_MANAGER.registerMetric(_className, AGGREGATE, PARTITIONS_RESUMED_RATE, Meter.class);
+
+    _keyNumConfigPausedPartitions = numConfigPausedPartitions;
+    _keyNumAutoPausedPartitionsOnError = numAutoPausedPartitionsOnError;
+    _keyNumAutoPausedPartitionsOnInFlightMessages = numAutoPausedPartitionsOnInFlightMessages;
+    _keyNumAutoPausedPartitionsAwaitingDestTopic = numAutoPausedPartitionsAwaitingDestTopic;
+    _keyNumTopics = numTopics;
+    _aggNumConfigPausedPartitions = aggNumConfigPausedPartitions;
+    _aggNumAutoPausedPartitionsOnError = aggNumAutoPausedPartitionsOnError;
+    _aggNumAutoPausedPartitionsOnInFlightMessages = aggNumAutoPausedPartitionsOnInFlightMessages;
+    _aggNumAutoPausedPartitionsAwaitingDestTopic = aggNumAutoPausedPartitionsAwaitingDestTopic;
+    _aggNumTopics = aggNumTopics;
   }
 
   /**
@@ -159,6 +212,20 @@ public class KafkaBasedConnectorTaskMetrics extends CommonConnectorMetrics {
     DYNAMIC_METRICS_MANAGER.registerGauge(_className, _key, CONSUMER_LICLOSEST_DATA_LOSS_ESTIMATION, offsetResetSupplier);
   }
 
+  /**
+   * Register the metrics of the send pipeline translating and sending the polled records.
+   * @param queueDepthSupplier the supplier of the number of partition batches waiting in the pipeline queues
+   */
+  public void registerSendPipelineMetrics(Supplier<Integer> queueDepthSupplier) {
+    DYNAMIC_METRICS_MANAGER.registerGauge(_className, _key, SEND_PIPELINE_QUEUE_DEPTH, queueDepthSupplier);
+    _sendPipelineHandOffTimeNanosMetric =
+        DYNAMIC_METRICS_MANAGER.registerMetric(_className, _key, SEND_PIPELINE_HAND_OFF_TIME_NANOS, Histogram.class);
+    _sendPipelineTranslateTimeNanosMetric =
+        DYNAMIC_METRICS_MANAGER.registerMetric(_className, _key, SEND_PIPELINE_TRANSLATE_TIME_NANOS, Histogram.class);
+    _sendPipelineSendTimeNanosMetric =
+        DYNAMIC_METRICS_MANAGER.registerMetric(_className, _key, SEND_PIPELINE_SEND_TIME_NANOS, Histogram.class);
+  }
+
   private double getConsumerOffsetWatermarkSpanMetric(Consumer<?, ?> consumer, String clientId) {
     return getConsumerMetricValue(consumer, clientId, "consumer-offset-watermark-span");
   }
@@ -190,6 +257,8 @@ public class KafkaBasedConnectorTaskMetrics extends CommonConnectorMetrics {
     DYNAMIC_METRICS_MANAGER.unregisterMetric(_className, _key, NUM_AUTO_PAUSED_PARTITIONS_ON_INFLIGHT_MESSAGES);
     DYNAMIC_METRICS_MANAGER.unregisterMetric(_className, _key, NUM_AUTO_PAUSED_PARTITIONS_WAITING_FOR_DEST_TOPIC);
     DYNAMIC_METRICS_MANAGER.unregisterMetric(_className, _key, NUM_TOPICS);
+    DYNAMIC_METRICS_MANAGER.unregisterMetric(_className, _key, PARTITIONS_PAUSED_RATE);
+    DYNAMIC_METRICS_MANAGER.unregisterMetric(_className, _key, PARTITIONS_RESUMED_RATE);
     DYNAMIC_METRICS_MANAGER.unregisterMetric(_className, _key, CONSUMER_OFFSET_WATERMARK_SPAN);
     DYNAMIC_METRICS_MANAGER.unregisterMetric(_className, _key, CONSUMER_LICLOSEST_DATA_LOSS_ESTIMATION);
 
@@ -198,6 +267,13 @@ public class KafkaBasedConnectorTaskMetrics extends CommonConnectorMetrics {
       DYNAMIC_METRICS_MANAGER.unregisterMetric(_className, _key, TIME_SPENT_BETWEEN_POLLS_MS);
       DYNAMIC_METRICS_MANAGER.unregisterMetric(_className, _key, PER_EVENT_PROCESSING_TIME_NANOS);
     }
+
+    if (_sendPipelineHandOffTimeNanosMetric != null) {
+      DYNAMIC_METRICS_MANAGER.unregisterMetric(_className, _key, SEND_PIPELINE_QUEUE_DEPTH);
+      DYNAMIC_METRICS_MANAGER.unregisterMetric(_className, _key, SEND_PIPELINE_HAND_OFF_TIME_NANOS);
+      DYNAMIC_METRICS_MANAGER.unregisterMetric(_className, _key, SEND_PIPELINE_TRANSLATE_TIME_NANOS);
+      DYNAMIC_METRICS_MANAGER.unregisterMetric(_className, _key, SEND_PIPELINE_SEND_TIME_NANOS);
+    }
   }
 
   /**
@@ -206,7 +282,7 @@ public class KafkaBasedConnectorTaskMetrics extends CommonConnectorMetrics {
    */
   public void updateNumConfigPausedPartitions(long val) {
     long delta = val - _numConfigPausedPartitions.getAndSet(val);
-    updateMetrics(delta, NUM_CONFIG_PAUSED_PARTITIONS_PER_METRIC_KEY, AGGREGATED_NUM_CONFIG_PAUSED_PARTITIONS);
+    updateMetrics(delta, _keyNumConfigPausedPartitions, _aggNumConfigPausedPartitions);
   }
 
   /**
@@ -215,8 +291,7 @@ public class KafkaBasedConnectorTaskMetrics extends CommonConnectorMetrics {
    */
   public void updateNumAutoPausedPartitionsOnError(long val) {
     long delta = val - _numAutoPausedPartitionsOnError.getAndSet(val);
-    updateMetrics(delta, NUM_AUTO_PAUSED_PARTITIONS_ON_ERROR_PER_METRIC_KEY,
-        AGGREGATED_NUM_AUTO_PAUSED_PARTITIONS_ON_ERROR);
+    updateMetrics(delta, _keyNumAutoPausedPartitionsOnError, _aggNumAutoPausedPartitionsOnError);
   }
 
   /**
@@ -225,8 +300,8 @@ public class KafkaBasedConnectorTaskMetrics extends CommonConnectorMetrics {
    */
   public void updateNumAutoPausedPartitionsOnInFlightMessages(long val) {
     long delta = val - _numAutoPausedPartitionsOnInFlightMessages.getAndSet(val);
-    updateMetrics(delta, NUM_AUTO_PAUSED_PARTITIONS_ON_INFLIGHT_MESSAGES_PER_METRIC_KEY,
-        AGGREGATED_NUM_AUTO_PAUSED_PARTITIONS_ON_INFLIGHT_MESSAGES);
+    updateMetrics(delta, _keyNumAutoPausedPartitionsOnInFlightMessages,
+        _aggNumAutoPausedPartitionsOnInFlightMessages);
   }
 
   /**
@@ -235,8 +310,7 @@ public class KafkaBasedConnectorTaskMetrics extends CommonConnectorMetrics {
    */
   public void updateNumAutoPausedPartitionsAwaitingDestTopic(long val) {
     long delta = val - _numAutoPausedPartitionsAwaitingDestTopic.getAndSet(val);
-    updateMetrics(delta, NUM_AUTO_PAUSED_PARTITIONS_WAITING_FOR_DEST_TOPIC_PER_METRIC_KEY,
-        AGGREGATED_NUM_AUTO_PAUSED_PARTITIONS_WAITING_FOR_DEST_TOPIC);
+    updateMetrics(delta, _keyNumAutoPausedPartitionsAwaitingDestTopic, _aggNumAutoPausedPartitionsAwaitingDestTopic);
   }
 
   /**
@@ -245,20 +319,30 @@ public class KafkaBasedConnectorTaskMetrics extends CommonConnectorMetrics {
    */
   public void updateNumTopics(long val) {
     long delta = val - _numTopics.getAndSet(val);
-    updateMetrics(delta, NUM_TOPICS_PER_METRIC_KEY, AGGREGATED_NUM_TOPICS);
+    updateMetrics(delta, _keyNumTopics, _aggNumTopics);
+  }
+
+  /**
+   * Increment the number of partitions paused on the consumer and adjust aggregate accordingly
+   * @param val Value to increment the metric by
+   */
+  public void updatePartitionsPausedRate(long val) {
+    _partitionsPausedRate.mark(val);
+    _aggPartitionsPausedRate.mark(val);
   }
 
-  private void updateMetrics(long val, Map<String, AtomicLong> metricsMap,
-      Map<String, AtomicLong> aggregatedMetricsMap) {
+  /**
+   * Increment the number of paused partitions resumed on the consumer and adjust aggregate accordingly
+   * @param val Value to increment the metric by
+   */
+  public void updatePartitionsResumedRate(long val) {
+    _partitionsResumedRate.mark(val);
+    _aggPartitionsResumedRate.mark(val);
+  }
 
-    AtomicLong metric = metricsMap.get(_fullMetricsKey);
-    if (metric != null) {
-      metric.getAndAdd(val);
-    }
-    AtomicLong aggregatedMetric = aggregatedMetricsMap.get(_className);
-    if (aggregatedMetric != null) {
-      aggregatedMetric.getAndAdd(val);
-    }
+  private static void updateMetrics(long val, AtomicLong metric, AtomicLong aggregatedMetric) {
+    metric.getAndAdd(val);
+    aggregatedMetric.getAndAdd(val);
   }
 
   /**
@@ -291,6 +375,39 @@ public class KafkaBasedConnectorTaskMetrics extends CommonConnectorMetrics {
     }
   }
 
+  /**
+   * Update the time a partition batch waited in the send pipeline queue in nanos
+   * @param val Value to update
+   */
+  public void updateSendPipelineHandOffTimeNanos(long val) {
+    Histogram metric = _sendPipelineHandOffTimeNanosMetric;
+    if (metric != null) {
+      metric.update(val);
+    }
+  }
+
+  /**
+   * Update the time translating a partition batch took in the send pipeline in nanos
+   * @param val Value to update
+   */
+  public void updateSendPipelineTranslateTimeNanos(long val) {
+    Histogram metric = _sendPipelineTranslateTimeNanosMetric;
+    if (metric != null) {
+      metric.update(val);
+    }
+  }
+
+  /**
+   * Update the time handing a partition batch to the producer took in the send pipeline in nanos
+   * @param val Value to update
+   */
+  public void updateSendPipelineSendTimeNanos(long val) {
+    Histogram metric = _sendPipelineSendTimeNanosMetric;
+    if (metric != null) {
+      metric.update(val);
+    }
+  }
+
   /**
    * Utility method for creating task-specific metrics of a Kafka-based connector
    * @param prefix string to prepend to every metric
@@ -304,11 +421,17 @@ public class KafkaBasedConnectorTaskMetrics extends CommonConnectorMetrics {
     metrics.add(new BrooklinGaugeInfo(prefix + NUM_AUTO_PAUSED_PARTITIONS_ON_INFLIGHT_MESSAGES));
     metrics.add(new BrooklinGaugeInfo(prefix + NUM_AUTO_PAUSED_PARTITIONS_WAITING_FOR_DEST_TOPIC));
     metrics.add(new BrooklinGaugeInfo(prefix + NUM_TOPICS));
+    metrics.add(new BrooklinMeterInfo(prefix + PARTITIONS_PAUSED_RATE));
+    metrics.add(new BrooklinMeterInfo(prefix + PARTITIONS_RESUMED_RATE));
     metrics.add(new BrooklinGaugeInfo(prefix + CONSUMER_OFFSET_WATERMARK_SPAN));
     metrics.add(new BrooklinGaugeInfo(prefix + CONSUMER_LICLOSEST_DATA_LOSS_ESTIMATION));
     metrics.add(new BrooklinHistogramInfo(prefix + POLL_DURATION_MS));
     metrics.add(new BrooklinHistogramInfo(prefix + TIME_SPENT_BETWEEN_POLLS_MS));
     metrics.add(new BrooklinHistogramInfo(prefix + PER_EVENT_PROCESSING_TIME_NANOS));
+    metrics.add(new BrooklinGaugeInfo(prefix + SEND_PIPELINE_QUEUE_DEPTH));
+    metrics.add(new BrooklinHistogramInfo(prefix + SEND_PIPELINE_HAND_OFF_TIME_NANOS));
+    metrics.add(new BrooklinHistogramInfo(prefix + SEND_PIPELINE_TRANSLATE_TIME_NANOS));
+    metrics.add(new BrooklinHistogramInfo(prefix + SEND_PIPELINE_SEND_TIME_NANOS));
     return Collections.unmodifiableList(metrics);
   }
 }
@@ -9,6 +9,7 @@ package com.linkedin.datastream.connectors.kafka;
 import java.time.Instant;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -22,12 +23,17 @@ import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.record.TimestampType;
 import org.jetbrains.annotations.NotNull;
 
+import com.linkedin.datastream.server.TaskThroughputStats;
+
 
 /**
  * KafkaTopicPartitionTracker contains information about consumer groups, topic partitions and
  * their consumer offsets.
  *
  * The information stored can then be queried via the /diag endpoint for diagnostic and analytic purposes.
+ *
+ * If throughput tracking is enabled, it also counts the bytes and records polled from each topic partition, which
+ * are turned into rates by {@link #sampleThroughputStats(long)}.
  */
 
 public class KafkaTopicPartitionTracker {
@@ -40,6 +46,12 @@ public class KafkaTopicPartitionTracker {
   private final Map<String, Map<Integer, Long>> _committedOffsets = new ConcurrentHashMap<>();
   private final Map<String, Map<Integer, Long>> _consumptionLag = new ConcurrentHashMap<>();
 
+  private final boolean _trackThroughput;
+  // bytes and records polled from each topic partition since the throughput stats were last sampled. Only accessed
+  // by the connector task thread.
+  private final Map<TopicPartition, long[]> _polledSinceLastSample = new HashMap<>();
+  private long _lastSampleTimeMs = System.currentTimeMillis();
+
   /**
    *  Constructor for KafkaTopicPartitionTracker
    *
@@ -47,8 +59,20 @@ public class KafkaTopicPartitionTracker {
    * @param datastreamName Name of the datastream
    */
   public KafkaTopicPartitionTracker(String consumerGroupId, String datastreamName) {
+    this(consumerGroupId, datastreamName, false);
+  }
+
+  /**
+   *  Constructor for KafkaTopicPartitionTracker
+   *
+   * @param consumerGroupId Identifier of the consumer group
+   * @param datastreamName Name of the datastream
+   * @param trackThroughput Whether to count the bytes and records polled from each topic partition
+   */
+  public KafkaTopicPartitionTracker(String consumerGroupId, String datastreamName, boolean trackThroughput) {
     _consumerGroupId = consumerGroupId;
     _datastreamName = datastreamName;
+    _trackThroughput = trackThroughput;
   }
 
   /**
@@ -92,6 +116,10 @@ public class KafkaTopicPartitionTracker {
 
     // Remove consumption lag data for partitions that have been revoked.
     cleanupTopicPartitionsFromMap(topicPartitions, _consumptionLag);
+
+    if (_trackThroughput) {
+      topicPartitions.forEach(_polledSinceLastSample::remove);
+    }
   }
 
   private void cleanupTopicPartitionsFromMap(@NotNull Collection<TopicPartition> topicPartitions,
@@ -125,9 +153,42 @@ public class KafkaTopicPartitionTracker {
       Map<Integer, Long> partitionConsumptionLagMap = _consumptionLag.computeIfAbsent(topicPartition.topic(),
           k -> new ConcurrentHashMap<>());
       partitionConsumptionLagMap.put(topicPartition.partition(), calculateLag(lastRecord));
+
+      if (_trackThroughput) {
+        long[] polled = _polledSinceLastSample.computeIfAbsent(topicPartition, k -> new long[2]);
+        for (ConsumerRecord<?, ?> record : partitionRecords) {
+          // the serialized sizes are -1 for null keys and values
+          polled[0] += Math.max(record.serializedKeySize(), 0) + Math.max(record.serializedValueSize(), 0);
+        }
+        polled[1] += partitionRecords.size();
+      }
     });
   }
 
+  /**
+   * Computes the rates at which the assigned topic partitions were polled since the throughput stats were last
+   * sampled (or since the tracker was created), and starts a new sampling window. The partitions which were not
+   * polled have rates of 0. This method should be called by the connector task thread, and only if throughput
+   * tracking is enabled.
+   *
+   * @param nowMs the current time in milliseconds, which ends the sampling window
+   * @return the throughput stats of the assigned topic partitions, which are named "topic-partition"
+   */
+  public TaskThroughputStats sampleThroughputStats(long nowMs) {
+    double windowSeconds = Math.max(nowMs - _lastSampleTimeMs, 1) / 1000.0;
+    Map<String, Double> bytesInKBRates = new HashMap<>();
+    Map<String, Double> messagesInRates = new HashMap<>();
+    _topicPartitions.forEach((topic, partitions) -> partitions.forEach(partition -> {
+      long[] polled = _polledSinceLastSample.get(new TopicPartition(topic, partition));
+      String partitionName = topic + "-" + partition;
+      bytesInKBRates.put(partitionName, polled == null ? 0 : polled[0] / 1024.0 / windowSeconds);
+      messagesInRates.put(partitionName, polled == null ? 0 : polled[1] / windowSeconds);
+    }));
+    _polledSinceLastSample.clear();
+    _lastSampleTimeMs = nowMs;
+    return new TaskThroughputStats(nowMs, bytesInKBRates, messagesInRates);
+  }
+
   private Long calculateLag(ConsumerRecord<?, ?> record) {
     if (record.timestampType().equals(TimestampType.LOG_APPEND_TIME)) {
       return Instant.now().toEpochMilli() - record.timestamp();
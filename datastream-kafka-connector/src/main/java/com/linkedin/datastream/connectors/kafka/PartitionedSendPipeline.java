@@ -0,0 +1,247 @@
+/**
+ *  Copyright 2019 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.connectors.kafka;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang.Validate;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+
+import com.linkedin.datastream.common.DatastreamRuntimeException;
+
+
+/**
+ * Hands the records polled by the consumer thread of a connector task over to worker threads that translate and
+ * send them, so that a slow translation or a producer blocked on a full buffer does not hold up polling.
+ *
+ * <ul>
+ *  <li>The records of a source topic partition always go to the same worker, which processes its batches in the
+ *  order they were polled.</li>
+ *  <li>Each worker has a bounded queue; the consumer thread blocks in {@link #submit} when the queue is full.</li>
+ *  <li>The workers never use the consumer, which is not thread-safe. A worker that has to abort sending a partition
+ *  calls {@link #requestRewind} and the consumer thread rewinds the partition. Once a partition has been rewound
+ *  (see {@link #invalidate}), the batches of the partition that were polled before are dropped by the workers.</li>
+ *  <li>{@link #awaitIdle()} waits until all the submitted batches have been processed, which the consumer thread
+ *  must do before committing the consumer position.</li>
+ * </ul>
+ */
+final class PartitionedSendPipeline {
+
+  /**
+   * Translates and sends a batch of records polled from a source topic partition
+   */
+  @FunctionalInterface
+  interface PartitionBatchProcessor {
+    /**
+     * Process a batch of records. Failures must be handled by the processor.
+     * @param topicPartition the source topic partition
+     * @param records the records polled from the partition
+     * @param readTime the instant the records were polled
+     */
+    void process(TopicPartition topicPartition, List<? extends ConsumerRecord<?, ?>> records, Instant readTime);
+  }
+
+  private final Logger _logger;
+  private final PartitionBatchProcessor _processor;
+  private final KafkaBasedConnectorTaskMetrics _metrics;
+  private final List<BlockingQueue<PartitionBatch>> _queues = new ArrayList<>();
+  private final List<Thread> _workers = new ArrayList<>();
+
+  // Incremented every time the consumer is rewound for a partition, to tell the batches polled before apart
+  private final Map<TopicPartition, Integer> _partitionEpochs = new ConcurrentHashMap<>();
+  private final Set<TopicPartition> _rewindRequests = ConcurrentHashMap.newKeySet();
+
+  // Number of submitted batches not processed yet. Waiters are notified on _pendingBatches when it drops to 0.
+  private final AtomicInteger _pendingBatches = new AtomicInteger();
+  private volatile Throwable _workerFailure;
+
+  /**
+   * Constructor for PartitionedSendPipeline. The workers are started right away.
+   * @param name the name of the pipeline, used to name the worker threads
+   * @param numWorkers the number of worker threads
+   * @param queueCapacity the number of batches each worker can queue
+   * @param processor the processor of the batches
+   * @param metrics the metrics of the task owning the pipeline
+   * @param logger the logger of the task owning the pipeline
+   */
+  PartitionedSendPipeline(String name, int numWorkers, int queueCapacity, PartitionBatchProcessor processor,
+      KafkaBasedConnectorTaskMetrics metrics, Logger logger) {
+    Validate.isTrue(numWorkers > 0, "numWorkers must be positive");
+    Validate.isTrue(queueCapacity > 0, "queueCapacity must be positive");
+    _processor = processor;
+    _metrics = metrics;
+    _logger = logger;
+    for (int i = 0; i < numWorkers; i++) {
+      BlockingQueue<PartitionBatch> queue = new ArrayBlockingQueue<>(queueCapacity);
+      Thread worker = new Thread(() -> runWorker(queue), name + "-sendPipeline-" + i);
+      worker.setDaemon(true);
+      _queues.add(queue);
+      _workers.add(worker);
+    }
+    _workers.forEach(Thread::start);
+  }
+
+  /**
+   * Queue a batch of records polled from a source topic partition, blocking while the queue of the worker of the
+   * partition is full.
+   * @param topicPartition the source topic partition
+   * @param records the records polled from the partition
+   * @param readTime the instant the records were polled
+   */
+  void submit(TopicPartition topicPartition, List<? extends ConsumerRecord<?, ?>> records, Instant readTime)
+      throws InterruptedException {
+    throwIfWorkerFailed();
+    PartitionBatch batch = new PartitionBatch(topicPartition, records, readTime,
+        _partitionEpochs.getOrDefault(topicPartition, 0));
+    _pendingBatches.incrementAndGet();
+    try {
+      _queues.get((topicPartition.hashCode() & Integer.MAX_VALUE) % _queues.size()).put(batch);
+    } catch (InterruptedException e) {
+      batchDone();
+      throw e;
+    }
+  }
+
+  /**
+   * Mark the partitions as rewound by the consumer: the batches of the partitions submitted so far are dropped.
+   * @param topicPartitions the source topic partitions
+   */
+  void invalidate(Collection<TopicPartition> topicPartitions) {
+    topicPartitions.forEach(tp -> _partitionEpochs.merge(tp, 1, Integer::sum));
+  }
+
+  /**
+   * Ask the consumer thread to rewind a partition, whose batches are not sent by the workers anymore.
+   * @param topicPartition the source topic partition
+   */
+  void requestRewind(TopicPartition topicPartition) {
+    _rewindRequests.add(topicPartition);
+  }
+
+  /**
+   * Get and clear the partitions to rewind
+   */
+  Set<TopicPartition> takeRewindRequests() {
+    Set<TopicPartition> rewindRequests = new HashSet<>();
+    for (TopicPartition topicPartition : _rewindRequests) {
+      if (_rewindRequests.remove(topicPartition)) {
+        rewindRequests.add(topicPartition);
+      }
+    }
+    return rewindRequests;
+  }
+
+  /**
+   * Wait until all the submitted batches have been processed
+   */
+  void awaitIdle() throws InterruptedException {
+    synchronized (_pendingBatches) {
+      while (_pendingBatches.get() > 0 && _workerFailure == null) {
+        _pendingBatches.wait();
+      }
+    }
+    throwIfWorkerFailed();
+  }
+
+  /**
+   * Get the number of batches waiting in the worker queues
+   */
+  int getQueueDepth() {
+    int depth = 0;
+    for (BlockingQueue<PartitionBatch> queue : _queues) {
+      depth += queue.size();
+    }
+    return depth;
+  }
+
+  /**
+   * Stop the workers. The batches still queued are dropped.
+   */
+  void shutdown() {
+    _workers.forEach(Thread::interrupt);
+    for (Thread worker : _workers) {
+      try {
+        worker.join();
+      } catch (InterruptedException e) {
+        _logger.warn("Interrupted while waiting for send pipeline worker {} to stop", worker.getName());
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  private void runWorker(BlockingQueue<PartitionBatch> queue) {
+    while (true) {
+      PartitionBatch batch;
+      try {
+        batch = queue.take();
+      } catch (InterruptedException e) {
+        return;
+      }
+      _metrics.updateSendPipelineHandOffTimeNanos(System.nanoTime() - batch._submitTimeNanos);
+      try {
+        if (batch._epoch == _partitionEpochs.getOrDefault(batch._topicPartition, 0)) {
+          _processor.process(batch._topicPartition, batch._records, batch._readTime);
+        } else {
+          _logger.debug("Dropping {} records of {} polled before the partition was rewound", batch._records.size(),
+              batch._topicPartition);
+        }
+      } catch (Throwable t) {
+        _logger.error(String.format("Send pipeline worker failed to process %d records of %s", batch._records.size(),
+            batch._topicPartition), t);
+        _workerFailure = t;
+      } finally {
+        batchDone();
+      }
+    }
+  }
+
+  private void batchDone() {
+    if (_pendingBatches.decrementAndGet() == 0 || _workerFailure != null) {
+      synchronized (_pendingBatches) {
+        _pendingBatches.notifyAll();
+      }
+    }
+  }
+
+  private void throwIfWorkerFailed() {
+    Throwable failure = _workerFailure;
+    if (failure != null) {
+      throw new DatastreamRuntimeException("Send pipeline worker failed", failure);
+    }
+  }
+
+  /**
+   * Records polled from a source topic partition
+   */
+  private static final class PartitionBatch {
+    private final TopicPartition _topicPartition;
+    private final List<? extends ConsumerRecord<?, ?>> _records;
+    private final Instant _readTime;
+    private final int _epoch;
+    private final long _submitTimeNanos = System.nanoTime();
+
+    PartitionBatch(TopicPartition topicPartition, List<? extends ConsumerRecord<?, ?>> records, Instant readTime,
+        int epoch) {
+      _topicPartition = topicPartition;
+      _records = records;
+      _readTime = readTime;
+      _epoch = epoch;
+    }
+  }
+}
@@ -5,17 +5,25 @@
  */
 package com.linkedin.datastream.connectors.kafka.mirrormaker;
 
+import java.util.Comparator;
+import java.util.Objects;
+
 import org.apache.commons.lang.Validate;
 
 
 /**
  * Represents a KafkaMirrorMaker source checkpoint in format: topic/partition/offset
  */
-public class KafkaMirrorMakerCheckpoint {
+public class KafkaMirrorMakerCheckpoint implements Comparable<KafkaMirrorMakerCheckpoint> {
   private static final String DELIMITER = "/";
-  private String _topic;
-  private int _partition;
-  private long _offset;
+  private static final Comparator<KafkaMirrorMakerCheckpoint> COMPARATOR =
+      Comparator.comparing(KafkaMirrorMakerCheckpoint::getTopic)
+          .thenComparingInt(KafkaMirrorMakerCheckpoint::getPartition)
+          .thenComparingLong(KafkaMirrorMakerCheckpoint::getOffset);
+
+  private final String _topic;
+  private final int _partition;
+  private final long _offset;
 
   /**
    * Construct an instance of KafkaMirrorMakerCheckpoint
@@ -46,6 +54,28 @@ public class KafkaMirrorMakerCheckpoint {
     _offset = Long.parseLong(parts[2]);
   }
 
+  @Override
+  public int compareTo(KafkaMirrorMakerCheckpoint other) {
+    return COMPARATOR.compare(this, other);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    KafkaMirrorMakerCheckpoint that = (KafkaMirrorMakerCheckpoint) o;
+    return _partition == that._partition && _offset == that._offset && Objects.equals(_topic, that._topic);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(_topic, _partition, _offset);
+  }
+
   @Override
   public String toString() {
     return _topic + DELIMITER + _partition + DELIMITER + _offset;
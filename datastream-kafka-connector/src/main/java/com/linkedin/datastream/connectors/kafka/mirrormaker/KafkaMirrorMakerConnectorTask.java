@@ -16,6 +16,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -34,10 +35,10 @@ import org.slf4j.LoggerFactory;
 import com.google.common.annotations.VisibleForTesting;
 
 import com.linkedin.datastream.common.BrooklinEnvelope;
-import com.linkedin.datastream.common.BrooklinEnvelopeMetadataConstants;
 import com.linkedin.datastream.common.DatastreamConstants;
 import com.linkedin.datastream.common.DatastreamMetadataConstants;
 import com.linkedin.datastream.common.DatastreamRuntimeException;
+import com.linkedin.datastream.common.KafkaOriginMetadata;
 import com.linkedin.datastream.common.ReflectionUtils;
 import com.linkedin.datastream.common.TopicPartitionUtil;
 import com.linkedin.datastream.common.VerifiableProperties;
@@ -80,10 +81,6 @@ public class KafkaMirrorMakerConnectorTask extends AbstractKafkaBasedConnectorTa
   private static final Logger LOG = LoggerFactory.getLogger(KafkaMirrorMakerConnectorTask.class.getName());
   private static final String CLASS_NAME = KafkaMirrorMakerConnectorTask.class.getSimpleName();
 
-  private static final String KAFKA_ORIGIN_CLUSTER = "kafka-origin-cluster";
-  private static final String KAFKA_ORIGIN_TOPIC = "kafka-origin-topic";
-  private static final String KAFKA_ORIGIN_PARTITION = "kafka-origin-partition";
-  private static final String KAFKA_ORIGIN_OFFSET = "kafka-origin-offset";
   private static final Duration LOCK_ACQUIRE_TIMEOUT = Duration.ofMinutes(3);
   private static final String TASK_LOCK_ACQUIRE_ERROR_RATE = "taskLockAcquireErrorRate";
 
@@ -110,6 +107,7 @@ public class KafkaMirrorMakerConnectorTask extends AbstractKafkaBasedConnectorTa
 
   private final KafkaConsumerFactory<?, ?> _consumerFactory;
   private final KafkaConnectionString _mirrorMakerSource;
+  private final String _originCluster;
 
   // Topic manager can be used to handle topic related tasks that mirror maker connector needs to do.
   // Topic manager is invoked every time there is a new partition assignment (for both partitions assigned and revoked),
@@ -124,6 +122,8 @@ public class KafkaMirrorMakerConnectorTask extends AbstractKafkaBasedConnectorTa
   // among Kafka consumer client metrics for different datastreams.
   private final boolean _includeDatastreamNameInConsumerClientId;
   private final String _destinationTopicPrefix;
+  // Destination URIs resolved per source topic, so they aren't rebuilt for every record
+  private final Map<String, String> _destinationUriCache = new ConcurrentHashMap<>();
   private FlushlessEventProducerHandler<Long> _flushlessProducer = null;
   private boolean _flowControlEnabled = false;
   private long _maxInFlightMessagesThreshold;
@@ -145,6 +145,7 @@ public class KafkaMirrorMakerConnectorTask extends AbstractKafkaBasedConnectorTa
     super(config, task, LOG, generateMetricsPrefix(connectorName, CLASS_NAME), groupIdConstructor);
     _consumerFactory = config.getConsumerFactory();
     _mirrorMakerSource = KafkaConnectionString.valueOf(_datastreamTask.getDatastreamSource().getConnectionString());
+    _originCluster = _mirrorMakerSource.getBrokerListString();
 
     _isFlushlessModeEnabled = isFlushlessModeEnabled;
     _connectorName = connectorName;
@@ -243,41 +244,63 @@ public class KafkaMirrorMakerConnectorTask extends AbstractKafkaBasedConnectorTa
   protected DatastreamProducerRecord translate(ConsumerRecord<?, ?> fromKafka, Instant readTime) {
     long eventsSourceTimestamp =
         fromKafka.timestampType() == TimestampType.LOG_APPEND_TIME ? fromKafka.timestamp() : readTime.toEpochMilli();
-    HashMap<String, String> metadata = new HashMap<>();
-    metadata.put(KAFKA_ORIGIN_CLUSTER, _mirrorMakerSource.getBrokerListString());
     String topic = fromKafka.topic();
-    metadata.put(KAFKA_ORIGIN_TOPIC, topic);
     int partition = fromKafka.partition();
-    String partitionStr = String.valueOf(partition);
-    metadata.put(KAFKA_ORIGIN_PARTITION, partitionStr);
     long offset = fromKafka.offset();
-    String offsetStr = String.valueOf(offset);
-    metadata.put(KAFKA_ORIGIN_OFFSET, offsetStr);
-    metadata.put(BrooklinEnvelopeMetadataConstants.EVENT_TIMESTAMP, String.valueOf(eventsSourceTimestamp));
-    metadata.put(BrooklinEnvelopeMetadataConstants.SOURCE_PARTITION, partitionStr);
+    // The metadata map is rendered lazily from the typed origin metadata, only if someone asks for it.
+    KafkaOriginMetadata originMetadata =
+        new KafkaOriginMetadata(_originCluster, topic, partition, offset, eventsSourceTimestamp);
     BrooklinEnvelope envelope = new BrooklinEnvelope(fromKafka.key(), fromKafka.value(), null,
-        fromKafka.headers(), metadata);
+        fromKafka.headers(), originMetadata);
     DatastreamProducerRecordBuilder builder = new DatastreamProducerRecordBuilder();
     builder.addEvent(envelope);
     builder.setEventsSourceTimestamp(eventsSourceTimestamp);
-    builder.setSourceCheckpoint(new KafkaMirrorMakerCheckpoint(topic, partition, offset).toString());
-    builder.setDestination(_datastreamTask.getDatastreamDestination()
-        .getConnectionString()
-        .replace(KafkaMirrorMakerConnector.MM_TOPIC_PLACEHOLDER,
-            StringUtils.isBlank(_destinationTopicPrefix) ? topic : _destinationTopicPrefix + topic));
+    builder.setTypedSourceCheckpoint(new KafkaMirrorMakerCheckpoint(topic, partition, offset));
+    builder.setDestination(getDestinationUri(topic));
     if (_isIdentityMirroringEnabled) {
       builder.setPartition(partition);
     }
     return builder.build();
   }
 
+  private String getDestinationUri(String topic) {
+    return _destinationUriCache.computeIfAbsent(topic, t -> _datastreamTask.getDatastreamDestination()
+        .getConnectionString()
+        .replace(KafkaMirrorMakerConnector.MM_TOPIC_PLACEHOLDER,
+            StringUtils.isBlank(_destinationTopicPrefix) ? t : _destinationTopicPrefix + t));
+  }
+
+  @Override
+  protected boolean isSendPipelineSupported() {
+    // The flushless producer commits the safe offsets through the consumer when a send throws
+    return !_isFlushlessModeEnabled;
+  }
+
+  @Override
+  protected void sendDatastreamProducerRecordBatch(List<DatastreamProducerRecord> datastreamProducerRecords,
+      TopicPartition srcTopicPartition, int[] numBytes) {
+    if (_isFlushlessModeEnabled) {
+      // The flushless producer tracks the in-flight checkpoints and applies flow control one record at a time, so
+      // stop sending as soon as the partition gets paused or sees a send failure
+      for (int i = 0; i < datastreamProducerRecords.size(); i++) {
+        if (i > 0 && abortSendingIfPausedOrFailed(srcTopicPartition)) {
+          break;
+        }
+        sendDatastreamProducerRecord(datastreamProducerRecords.get(i), srcTopicPartition, numBytes[i], null);
+      }
+    } else {
+      super.sendDatastreamProducerRecordBatch(datastreamProducerRecords, srcTopicPartition, numBytes);
+    }
+  }
+
   @Override
   protected void sendDatastreamProducerRecord(DatastreamProducerRecord datastreamProducerRecord,
       TopicPartition srcTopicPartition, int numBytes, SendCallback sendCallback) {
     if (_isFlushlessModeEnabled) {
       // The topic/partition from checkpoint is the same as srcTopicPartition
       KafkaMirrorMakerCheckpoint sourceCheckpoint =
-          new KafkaMirrorMakerCheckpoint(datastreamProducerRecord.getCheckpoint());
+          datastreamProducerRecord.getTypedCheckpoint(KafkaMirrorMakerCheckpoint.class)
+              .orElseGet(() -> new KafkaMirrorMakerCheckpoint(datastreamProducerRecord.getCheckpoint()));
       String topic = sourceCheckpoint.getTopic();
       int partition = sourceCheckpoint.getPartition();
       try {
@@ -149,6 +149,14 @@ public class KafkaBasedConnectorConfigBuilder {
     return this;
   }
 
+  /**
+   * Set the number of send pipeline workers
+   */
+  public KafkaBasedConnectorConfigBuilder setSendPipelineWorkers(int sendPipelineWorkers) {
+    _properties.put(KafkaBasedConnectorConfig.CONFIG_SEND_PIPELINE_WORKERS, Integer.toString(sendPipelineWorkers));
+    return this;
+  }
+
   /**
    * Set enable partition managed
    */
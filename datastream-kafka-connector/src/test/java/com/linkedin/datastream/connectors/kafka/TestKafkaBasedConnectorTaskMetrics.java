@@ -32,6 +32,10 @@ public class TestKafkaBasedConnectorTaskMetrics {
   private static final String DELIMITED_CONSUMER1_NAME = "." + CONSUMER1_NAME + ".";
   private static final String CONSUMER2_NAME = "CONNECTOR_CONSUMER2";
   private static final String DELIMITED_CONSUMER2_NAME = "." + CONSUMER2_NAME + ".";
+  private static final String CONSUMER3_NAME = "CONNECTOR_CONSUMER3";
+  private static final String DELIMITED_CONSUMER3_NAME = "." + CONSUMER3_NAME + ".";
+  private static final String CONSUMER4_NAME = "CONNECTOR_CONSUMER4";
+  private static final String DELIMITED_CONSUMER4_NAME = "." + CONSUMER4_NAME + ".";
   private static final String DELIMITED_AGGREGATE_NAME = ".aggregate.";
   private static final String CLASS_NAME = TestKafkaBasedConnectorTaskMetrics.class.getName();
 
@@ -145,6 +149,38 @@ public class TestKafkaBasedConnectorTaskMetrics {
         numAutoPausedPartitionsOnInflightMessages);
   }
 
+  @Test
+  public void testPauseChurnMetrics() {
+    // The other tests do not deregister all of their metrics, so this test uses consumers of its own
+    KafkaBasedConnectorTaskMetrics connectorConsumer3 =
+        new KafkaBasedConnectorTaskMetrics(CLASS_NAME, CONSUMER3_NAME, LOG, false);
+    KafkaBasedConnectorTaskMetrics connectorConsumer4 =
+        new KafkaBasedConnectorTaskMetrics(CLASS_NAME, CONSUMER4_NAME, LOG, false);
+
+    connectorConsumer3.updatePartitionsPausedRate(10);
+    connectorConsumer3.updatePartitionsResumedRate(4);
+    connectorConsumer4.updatePartitionsPausedRate(5);
+    connectorConsumer4.updatePartitionsResumedRate(5);
+    validatePauseChurnMetrics(CLASS_NAME + DELIMITED_CONSUMER3_NAME, 10, 4);
+    validatePauseChurnMetrics(CLASS_NAME + DELIMITED_CONSUMER4_NAME, 5, 5);
+    validatePauseChurnMetrics(CLASS_NAME + DELIMITED_AGGREGATE_NAME, 15, 9);
+
+    connectorConsumer3.deregisterMetrics();
+    Assert.assertNull(_metricsManager.getMetric(
+        CLASS_NAME + DELIMITED_CONSUMER3_NAME + KafkaBasedConnectorTaskMetrics.PARTITIONS_PAUSED_RATE));
+    Assert.assertNull(_metricsManager.getMetric(
+        CLASS_NAME + DELIMITED_CONSUMER3_NAME + KafkaBasedConnectorTaskMetrics.PARTITIONS_RESUMED_RATE));
+    validatePauseChurnMetrics(CLASS_NAME + DELIMITED_AGGREGATE_NAME, 15, 9);
+    connectorConsumer4.deregisterMetrics();
+  }
+
+  private void validatePauseChurnMetrics(String metricsPrefix, long numPartitionsPaused, long numPartitionsResumed) {
+    Assert.assertEquals(((Meter) _metricsManager.getMetric(
+        metricsPrefix + KafkaBasedConnectorTaskMetrics.PARTITIONS_PAUSED_RATE)).getCount(), numPartitionsPaused);
+    Assert.assertEquals(((Meter) _metricsManager.getMetric(
+        metricsPrefix + KafkaBasedConnectorTaskMetrics.PARTITIONS_RESUMED_RATE)).getCount(), numPartitionsResumed);
+  }
+
   @Test
   public void testConnectorPartitionMetrics() {
     KafkaBasedConnectorTaskMetrics connectorConsumer1 =
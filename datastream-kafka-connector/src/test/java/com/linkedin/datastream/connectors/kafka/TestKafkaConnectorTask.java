@@ -303,6 +303,35 @@ public class TestKafkaConnectorTask extends BaseKafkaZkTest {
         "did not shut down on time");
   }
 
+  @Test
+  public void testConsumerWithSendPipeline() throws Exception {
+    String topic = "Pizza2Pipelined";
+    createTopic(_adminClient, topic, 4);
+
+    LOG.info("Sending first event, to avoid an empty topic.");
+    produceEvents(_kafkaCluster, _adminClient, topic, 0, 1);
+
+    LOG.info("Creating and Starting KafkaConnectorTask with a send pipeline");
+    Datastream datastream = getDatastream(_broker, topic);
+    DatastreamTaskImpl task = new DatastreamTaskImpl(Collections.singletonList(datastream));
+    MockDatastreamEventProducer datastreamProducer = new MockDatastreamEventProducer();
+    task.setEventProducer(datastreamProducer);
+
+    KafkaConnectorTask connectorTask = createKafkaConnectorTask(task,
+        new KafkaBasedConnectorConfigBuilder().setSendPipelineWorkers(2).build());
+
+    LOG.info("Producing 100 msgs to topic: " + topic);
+    produceEvents(_kafkaCluster, _adminClient, topic, 1000, 100);
+
+    if (!PollUtils.poll(() -> datastreamProducer.getEvents().size() == 100, 100, POLL_TIMEOUT_MS)) {
+      Assert.fail("did not transfer 100 msgs within timeout. transferred " + datastreamProducer.getEvents().size());
+    }
+
+    connectorTask.stop();
+    Assert.assertTrue(connectorTask.awaitStop(CONNECTOR_AWAIT_STOP_TIMEOUT_MS, TimeUnit.MILLISECONDS),
+        "did not shut down on time");
+  }
+
   @Test
   public void testConsumerPositionTracking() throws Exception {
     final KafkaBasedConnectorConfig config = new KafkaBasedConnectorConfigBuilder().build();
@@ -440,6 +469,14 @@ public class TestKafkaConnectorTask extends BaseKafkaZkTest {
       state.messagesProcessed++;
       return null;
     }).when(datastreamProducer).send(any(), any());
+    doAnswer(invocation -> {
+      if (state.pendingErrors > 0) {
+        state.pendingErrors--;
+        throw new RuntimeException("Flaky Exception");
+      }
+      state.messagesProcessed += ((List<?>) invocation.getArguments()[0]).size();
+      return null;
+    }).when(datastreamProducer).sendBatch(any(), any());
 
     LOG.info("Creating and Starting KafkaConnectorTask");
     Datastream datastream = getDatastream(_broker, topic);
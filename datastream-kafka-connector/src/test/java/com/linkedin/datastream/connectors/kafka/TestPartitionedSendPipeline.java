@@ -0,0 +1,144 @@
+/**
+ *  Copyright 2019 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.connectors.kafka;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.codahale.metrics.MetricRegistry;
+
+import com.linkedin.datastream.common.DatastreamRuntimeException;
+import com.linkedin.datastream.metrics.DynamicMetricsManager;
+
+
+/**
+ * Tests for {@link PartitionedSendPipeline}
+ */
+@Test
+public class TestPartitionedSendPipeline {
+  private static final Logger LOG = LoggerFactory.getLogger(TestPartitionedSendPipeline.class);
+  private static final String TOPIC = "topic";
+
+  private KafkaBasedConnectorTaskMetrics _metrics;
+
+  @BeforeMethod
+  public void setup() {
+    DynamicMetricsManager.createInstance(new MetricRegistry(), getClass().getSimpleName());
+    _metrics = new KafkaBasedConnectorTaskMetrics(getClass().getSimpleName(), "pipeline", LOG, false);
+  }
+
+  private static List<ConsumerRecord<byte[], byte[]>> records(int partition, long firstOffset, int count) {
+    List<ConsumerRecord<byte[], byte[]>> records = new ArrayList<>();
+    for (long offset = firstOffset; offset < firstOffset + count; offset++) {
+      records.add(new ConsumerRecord<>(TOPIC, partition, offset, null, null));
+    }
+    return records;
+  }
+
+  @Test
+  public void testPartitionOrdering() throws Exception {
+    Map<TopicPartition, List<Long>> processedOffsets = new ConcurrentHashMap<>();
+    PartitionedSendPipeline pipeline = new PartitionedSendPipeline("test", 3, 2,
+        (tp, records, readTime) -> records.forEach(
+            r -> processedOffsets.computeIfAbsent(tp, k -> Collections.synchronizedList(new ArrayList<>()))
+                .add(r.offset())), _metrics, LOG);
+
+    int numPartitions = 8;
+    int numBatches = 50;
+    for (int batch = 0; batch < numBatches; batch++) {
+      for (int partition = 0; partition < numPartitions; partition++) {
+        pipeline.submit(new TopicPartition(TOPIC, partition), records(partition, batch * 10, 10), Instant.now());
+      }
+    }
+    pipeline.awaitIdle();
+    Assert.assertEquals(pipeline.getQueueDepth(), 0);
+
+    Assert.assertEquals(processedOffsets.size(), numPartitions);
+    for (List<Long> offsets : processedOffsets.values()) {
+      Assert.assertEquals(offsets.size(), numBatches * 10);
+      for (int i = 0; i < offsets.size(); i++) {
+        Assert.assertEquals(offsets.get(i).longValue(), i);
+      }
+    }
+    pipeline.shutdown();
+  }
+
+  @Test
+  public void testInvalidatedBatchesAreDropped() throws Exception {
+    CountDownLatch blocked = new CountDownLatch(1);
+    CountDownLatch unblock = new CountDownLatch(1);
+    List<Long> processedOffsets = Collections.synchronizedList(new ArrayList<>());
+    PartitionedSendPipeline pipeline = new PartitionedSendPipeline("test", 1, 10, (tp, records, readTime) -> {
+      if (records.get(0).offset() == 0) {
+        blocked.countDown();
+        try {
+          unblock.await();
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+      }
+      records.forEach(r -> processedOffsets.add(r.offset()));
+    }, _metrics, LOG);
+
+    TopicPartition tp = new TopicPartition(TOPIC, 0);
+    pipeline.submit(tp, records(0, 0, 5), Instant.now());
+    Assert.assertTrue(blocked.await(10, TimeUnit.SECONDS));
+    pipeline.submit(tp, records(0, 5, 5), Instant.now());
+    Assert.assertEquals(pipeline.getQueueDepth(), 1);
+
+    // The partition is rewound to offset 5 while the second batch is still queued
+    pipeline.invalidate(Collections.singleton(tp));
+    pipeline.submit(tp, records(0, 5, 5), Instant.now());
+    unblock.countDown();
+    pipeline.awaitIdle();
+
+    List<Long> expected = new ArrayList<>();
+    for (long offset = 0; offset < 10; offset++) {
+      expected.add(offset);
+    }
+    Assert.assertEquals(processedOffsets, expected);
+    pipeline.shutdown();
+  }
+
+  @Test
+  public void testRewindRequests() {
+    PartitionedSendPipeline pipeline = new PartitionedSendPipeline("test", 1, 1, (tp, records, readTime) -> { },
+        _metrics, LOG);
+    Assert.assertTrue(pipeline.takeRewindRequests().isEmpty());
+    pipeline.requestRewind(new TopicPartition(TOPIC, 0));
+    pipeline.requestRewind(new TopicPartition(TOPIC, 1));
+    pipeline.requestRewind(new TopicPartition(TOPIC, 0));
+    Assert.assertEquals(pipeline.takeRewindRequests().size(), 2);
+    Assert.assertTrue(pipeline.takeRewindRequests().isEmpty());
+    pipeline.shutdown();
+  }
+
+  @Test
+  public void testWorkerFailure() throws Exception {
+    PartitionedSendPipeline pipeline = new PartitionedSendPipeline("test", 2, 1, (tp, records, readTime) -> {
+      throw new IllegalStateException("unexpected");
+    }, _metrics, LOG);
+    pipeline.submit(new TopicPartition(TOPIC, 0), records(0, 0, 1), Instant.now());
+    Assert.assertThrows(DatastreamRuntimeException.class, pipeline::awaitIdle);
+    Assert.assertThrows(DatastreamRuntimeException.class,
+        () -> pipeline.submit(new TopicPartition(TOPIC, 1), records(1, 0, 1), Instant.now()));
+    pipeline.shutdown();
+  }
+}
@@ -15,18 +15,31 @@ import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.common.TopicPartition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.collect.Sets;
 
 import com.linkedin.datastream.common.Datastream;
 import com.linkedin.datastream.common.DatastreamConstants;
+import com.linkedin.datastream.common.DatastreamMetadataConstants;
+import com.linkedin.datastream.common.JsonUtils;
 import com.linkedin.datastream.connectors.kafka.mirrormaker.KafkaMirrorMakerConnector;
 import com.linkedin.datastream.connectors.kafka.mirrormaker.TestKafkaMirrorMakerConnector;
+import com.linkedin.datastream.metrics.DynamicMetricsManager;
+import com.linkedin.datastream.server.DatastreamTaskImpl;
+
+import static org.mockito.Mockito.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 
 /**
@@ -39,6 +52,14 @@ public class TestPauseResumePartitions {
 
   private static final Logger LOG = LoggerFactory.getLogger(TestPauseResumePartitions.class.getName());
 
+  /**
+   * Create the metrics manager the connectors and their tasks register their metrics with
+   */
+  @BeforeClass
+  public void setup() {
+    DynamicMetricsManager.createInstance(new MetricRegistry(), TestPauseResumePartitions.class.getSimpleName());
+  }
+
   @Test
   public void testPausePartitions() {
     String topic = "testPausePartitions";
@@ -184,6 +205,60 @@ public class TestPauseResumePartitions {
         "Partition should have been removed from auto-pause set, since it is not in the assignment");
   }
 
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testOnlyPartitionsWhosePausedStateChangesArePausedOrResumed() {
+    String topic = "testOnlyPartitionsWhosePausedStateChangesArePausedOrResumed";
+    Datastream datastream = TestKafkaConnectorTask.getDatastream("localhost:9092", topic);
+    DatastreamTaskImpl task = new DatastreamTaskImpl(Collections.singletonList(datastream));
+    KafkaConnectorTask connectorTask = new KafkaConnectorTask(new KafkaBasedConnectorConfigBuilder().build(), task,
+        "", new KafkaGroupIdConstructor(false, "testCluster"));
+
+    // 8 partitions are assigned, partitions 0-3 are paused on the consumer
+    Set<TopicPartition> assignedPartitions = getPartitions(topic, 0, 1, 2, 3, 4, 5, 6, 7);
+    Set<TopicPartition> pausedPartitions = getPartitions(topic, 0, 1, 2, 3);
+    Consumer<byte[], byte[]> consumer = mock(Consumer.class);
+    doAnswer(invocation -> assignedPartitions).when(consumer).assignment();
+    doAnswer(invocation -> new HashSet<>(pausedPartitions)).when(consumer).paused();
+    doAnswer(invocation -> pausedPartitions.addAll(invocation.getArgumentAt(0, Set.class)))
+        .when(consumer).pause(anyCollection());
+    doAnswer(invocation -> pausedPartitions.removeAll(invocation.getArgumentAt(0, Set.class)))
+        .when(consumer).resume(anyCollection());
+    connectorTask._consumer = consumer;
+
+    // partitions 2-5 are configured for pause: the already paused partitions 2 and 3 are neither resumed nor paused
+    // again
+    updatePausedPartitionsConfig(connectorTask, task, topic, "2", "3", "4", "5");
+    verify(consumer).resume(getPartitions(topic, 0, 1));
+    verify(consumer).pause(getPartitions(topic, 4, 5));
+    Assert.assertEquals(pausedPartitions, getPartitions(topic, 2, 3, 4, 5));
+
+    // partition 6 is configured for pause too: it is the only partition paused, and none is resumed
+    updatePausedPartitionsConfig(connectorTask, task, topic, "2", "3", "4", "5", "6");
+    verify(consumer).pause(getPartitions(topic, 6));
+    verify(consumer, times(1)).resume(anyCollection());
+
+    // partitions 2 and 6 are resumed: they are the only partitions resumed, and none is paused
+    updatePausedPartitionsConfig(connectorTask, task, topic, "3", "4", "5");
+    verify(consumer).resume(getPartitions(topic, 2, 6));
+    verify(consumer, times(2)).pause(anyCollection());
+    Assert.assertEquals(pausedPartitions, getPartitions(topic, 3, 4, 5));
+  }
+
+  private static void updatePausedPartitionsConfig(KafkaConnectorTask connectorTask, DatastreamTaskImpl task,
+      String topic, String... partitions) {
+    Map<String, Set<String>> pausedSourcePartitionsConfig =
+        Collections.singletonMap(topic, new HashSet<>(Arrays.asList(partitions)));
+    task.getDatastreams().get(0).getMetadata().put(DatastreamMetadataConstants.PAUSED_SOURCE_PARTITIONS_KEY,
+        JsonUtils.toJson(pausedSourcePartitionsConfig));
+    connectorTask.checkForUpdateTask(task);
+    connectorTask.preConsumerPollHook();
+  }
+
+  private static Set<TopicPartition> getPartitions(String topic, int... partitions) {
+    return Arrays.stream(partitions).mapToObj(p -> new TopicPartition(topic, p)).collect(Collectors.toSet());
+  }
+
   /**
    * Test that the Kafka connectors support PAUSE_RESUME_PARTITIONS. The test case is intentionally in this class because
    * this class does not make any ZK/Kafka connections, and this test case does not require it. The test classes for
@@ -0,0 +1,49 @@
+/**
+ *  Copyright 2019 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.kafka;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+
+
+/**
+ * A {@link KafkaProducerSelector} that picks the producer from the hash of the destination topic and partition.
+ *
+ * All the records whose partition is picked by Kafka are sent with the producer of the topic's "null" partition.
+ */
+public class HashProducerSelector extends PartitionPinningProducerSelector {
+  private final Map<String, KafkaProducerWrapper<byte[], byte[]>> _unpartitionedProducers = new ConcurrentHashMap<>();
+
+  /**
+   * Constructor for HashProducerSelector
+   * @param producers the producers to select from
+   */
+  public HashProducerSelector(List<KafkaProducerWrapper<byte[], byte[]>> producers) {
+    super(producers);
+  }
+
+  @Override
+  protected KafkaProducerWrapper<byte[], byte[]> pin(String topic, int partition) {
+    return hash(topic, partition);
+  }
+
+  @Override
+  protected KafkaProducerWrapper<byte[], byte[]> selectUnpartitioned(ProducerRecord<byte[], byte[]> record) {
+    KafkaProducerWrapper<byte[], byte[]> producer = _unpartitionedProducers.get(record.topic());
+    if (producer == null) {
+      producer = _unpartitionedProducers.computeIfAbsent(record.topic(), topic -> hash(topic, null));
+    }
+    return producer;
+  }
+
+  private KafkaProducerWrapper<byte[], byte[]> hash(String topic, Integer partition) {
+    return _producers.get(Math.abs(Objects.hash(topic, partition)) % _producers.size());
+  }
+}
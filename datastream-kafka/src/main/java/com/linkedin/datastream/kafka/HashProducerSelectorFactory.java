@@ -0,0 +1,22 @@
+/**
+ *  Copyright 2019 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.kafka;
+
+import java.util.List;
+
+import com.linkedin.datastream.common.VerifiableProperties;
+
+
+/**
+ * Factory for {@link HashProducerSelector}
+ */
+public class HashProducerSelectorFactory implements KafkaProducerSelectorFactory {
+  @Override
+  public KafkaProducerSelector createProducerSelector(List<KafkaProducerWrapper<byte[], byte[]>> producers,
+      VerifiableProperties properties) {
+    return new HashProducerSelector(producers);
+  }
+}
@@ -0,0 +1,25 @@
+/**
+ *  Copyright 2019 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.kafka;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+
+
+/**
+ * Picks which of the Kafka producers of a {@link KafkaTransportProvider} sends each record.
+ *
+ * Records of the same destination partition, and records with the same key whose partition is picked by Kafka,
+ * must keep going through the same producer, otherwise they can be reordered.
+ */
+public interface KafkaProducerSelector {
+
+  /**
+   * Select the producer to send the record with
+   * @param record the record about to be sent
+   * @return one of the producers of the transport provider
+   */
+  KafkaProducerWrapper<byte[], byte[]> select(ProducerRecord<byte[], byte[]> record);
+}
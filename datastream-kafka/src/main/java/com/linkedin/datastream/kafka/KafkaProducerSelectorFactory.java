@@ -0,0 +1,26 @@
+/**
+ *  Copyright 2019 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.kafka;
+
+import java.util.List;
+
+import com.linkedin.datastream.common.VerifiableProperties;
+
+
+/**
+ * Factory for {@link KafkaProducerSelector}
+ */
+public interface KafkaProducerSelectorFactory {
+
+  /**
+   * Create a producer selector for a transport provider
+   * @param producers the producers of the transport provider
+   * @param properties the producer selector configuration
+   * @return the producer selector
+   */
+  KafkaProducerSelector createProducerSelector(List<KafkaProducerWrapper<byte[], byte[]>> producers,
+      VerifiableProperties properties);
+}
@@ -12,14 +12,17 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 
 import org.apache.commons.lang3.StringUtils;
@@ -55,9 +58,21 @@ import static com.linkedin.datastream.connectors.CommonConnectorMetrics.AGGREGAT
 import static com.linkedin.datastream.kafka.factory.KafkaProducerFactory.DOMAIN_PRODUCER;
 
 
-class KafkaProducerWrapper<K, V> {
+/**
+ * Wraps a lazily created Kafka producer shared by the datastream tasks assigned to it, and recreates it after failures.
+ *
+ * The current producer is held in an atomically swapped {@link ProducerGeneration}, so sends and flushes never take a
+ * lock. Every producer created gets a new generation number, and a producer is only closed on behalf of the
+ * generation it belongs to: a failure reported late by an older producer cannot close its replacement. A new producer
+ * is only created once the close of the previous one has completed.
+ * @param <K> the key type of the producer
+ * @param <V> the value type of the producer
+ */
+public class KafkaProducerWrapper<K, V> {
   private static final String CLASS_NAME = KafkaProducerWrapper.class.getSimpleName();
   private static final String PRODUCER_ERROR = "producerError";
+  private static final String BUFFER_AVAILABLE_BYTES = "buffer-available-bytes";
+  private static final String PRODUCER_METRICS_GROUP = "producer-metrics";
 
   // Default producer configuration for no data loss pipeline.
   private static final String DEFAULT_PRODUCER_ACKS_CONFIG_VALUE = "all";
@@ -78,6 +93,9 @@ class KafkaProducerWrapper<K, V> {
   private static final int FAST_CLOSE_TIMEOUT_MS = 2000;
   private static final int MAX_SEND_ATTEMPTS = 10;
 
+  @VisibleForTesting
+  static final long NO_GENERATION = 0;
+
   @VisibleForTesting
   static final String CFG_RATE_LIMITER_CFG = "producerRateLimiter";
 
@@ -101,10 +119,13 @@ class KafkaProducerWrapper<K, V> {
   // Set of datastream tasks assigned to the producer
   private final Set<DatastreamTask> _tasks = ConcurrentHashMap.newKeySet();
 
+  // Number of records handed to the Kafka producer whose callback has not been invoked yet
+  private final AtomicInteger _inFlightCount = new AtomicInteger();
+
   // Producer is lazily initialized during the first send call.
   // Also, can be nullified in case of exceptions, and recreated by subsequent send calls.
-  // Mark as volatile as it is mutable and used by different threads
-  private volatile Producer<K, V> _kafkaProducer;
+  private final AtomicReference<ProducerGeneration<K, V>> _producerGeneration = new AtomicReference<>();
+  private final AtomicLong _lastGeneration = new AtomicLong();
 
   private final KafkaProducerFactory<K, V> _producerFactory;
 
@@ -118,13 +139,6 @@ class KafkaProducerWrapper<K, V> {
   private final DynamicMetricsManager _dynamicMetricsManager;
   private final String _metricsNamesPrefix;
 
-  // A lock used to synchronize access to operations performed on the _kafkaProducer object
-  private final Lock _producerLock = new ReentrantLock();
-  // A condition to wait on before creating a new producer
-  private final Condition _waitOnProducerClose = _producerLock.newCondition();
-  // This should be accessed using _producerLock.
-  private boolean _closeInProgress = false;
-
   // An executor to spawn threads to close the producer.
   private final ExecutorService _producerCloseExecutorService = Executors.newSingleThreadExecutor(
       new ThreadFactoryBuilder().setNameFormat("KafkaProducerWrapperClose-%d").build());
@@ -179,21 +193,22 @@ class KafkaProducerWrapper<K, V> {
         DEFAULT_MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION_VALUE);
   }
 
-  private Optional<Producer<K, V>> maybeGetKafkaProducer(DatastreamTask task) {
+  private Optional<ProducerGeneration<K, V>> maybeGetProducerGeneration(DatastreamTask task) {
     if (!_tasks.contains(task)) {
       _log.warn("Task {} has been unassigned for producer, abort the send", task);
       return Optional.empty();
     }
 
-    Producer<K, V> producer = _kafkaProducer;
-    if (producer == null || _closeInProgress) {
+    ProducerGeneration<K, V> generation = _producerGeneration.get();
+    if (generation == null || generation.isClosing() || generation.getProducer() == null) {
       try {
-        producer = initializeProducer();
+        generation = initializeProducer();
       } catch (InterruptedException e) {
         _log.warn("Got interrupted while trying to initialize the producer for task {}", task);
+        generation = null;
       }
     }
-    return Optional.ofNullable(producer);
+    return Optional.ofNullable(generation);
   }
 
   void assignTask(DatastreamTask task) {
@@ -206,16 +221,12 @@ class KafkaProducerWrapper<K, V> {
 
   void unassignTasks(List<DatastreamTask> taskList) {
     boolean taskPresent = _tasks.removeAll(taskList);
-    try {
-      _producerLock.lock();
 
-      // whenever a task is unassigned the kafka producer should be shutdown to ensure that there are no
-      // pending sends. Further sends will fail until the producer is re-initialized by a valid task.
-      if (taskPresent && _kafkaProducer != null && !_closeInProgress) {
-        shutdownProducer();
-      }
-    } finally {
-      _producerLock.unlock();
+    // whenever a task is unassigned the kafka producer should be shutdown to ensure that there are no
+    // pending sends. Further sends will fail until the producer is re-initialized by a valid task.
+    ProducerGeneration<K, V> generation = _producerGeneration.get();
+    if (taskPresent && generation != null && !generation.isClosing()) {
+      shutdownProducer(generation.getGeneration(), false);
     }
   }
 
@@ -223,29 +234,46 @@ class KafkaProducerWrapper<K, V> {
     return _tasks.size();
   }
 
-  private Producer<K, V> initializeProducer() throws InterruptedException {
-    // Must be protected by a lock to avoid creating duplicate producers when multiple concurrent
-    // sends are in-flight and _kafkaProducer has been set to null as a result of previous
-    // producer exception.
-    try {
-      _producerLock.lock();
-      // make sure there is no close in progress.
-      int attemptCount = 1;
-      while (_closeInProgress) {
-        boolean closeCompleted = _waitOnProducerClose.await(_producerCloseTimeoutMs, TimeUnit.MILLISECONDS);
-        if (!closeCompleted) {
+  private ProducerGeneration<K, V> initializeProducer() throws InterruptedException {
+    // When multiple concurrent sends find no usable producer, only the one installing the new generation creates
+    // the producer; the others wait for it to be created.
+    int attemptCount = 1;
+    while (true) {
+      ProducerGeneration<K, V> generation = _producerGeneration.get();
+      if (generation == null) {
+        ProducerGeneration<K, V> newGeneration = new ProducerGeneration<>(_lastGeneration.incrementAndGet());
+        if (_producerGeneration.compareAndSet(null, newGeneration)) {
+          return createProducer(newGeneration);
+        }
+      } else if (generation.isClosing()) {
+        // make sure there is no close in progress.
+        if (!generation.awaitClose(_producerCloseTimeoutMs)) {
           _log.warn("Cannot initialize new producer because close is in progress. Retry again. Attempt: {}", attemptCount++);
         }
+      } else {
+        try {
+          generation.awaitProducer();
+          return generation;
+        } catch (ExecutionException e) {
+          // The producer could not be created by another send, try again
+          _log.debug("Producer generation {} could not be created", generation.getGeneration(), e);
+        }
       }
+    }
+  }
 
-      if (_kafkaProducer == null) {
-        _rateLimiter.acquire();
-        _kafkaProducer = createKafkaProducer();
-        NUM_PRODUCERS.incrementAndGet();
-      }
-      return _kafkaProducer;
-    } finally {
-      _producerLock.unlock();
+  private ProducerGeneration<K, V> createProducer(ProducerGeneration<K, V> generation) {
+    try {
+      _rateLimiter.acquire();
+      Producer<K, V> producer = createKafkaProducer();
+      NUM_PRODUCERS.incrementAndGet();
+      generation.setProducer(producer);
+      _log.info("Created Kafka producer generation {}", generation.getGeneration());
+      return generation;
+    } catch (RuntimeException e) {
+      _producerGeneration.compareAndSet(generation, null);
+      generation.setProducerFailure(e);
+      throw e;
     }
   }
 
@@ -262,18 +290,29 @@ class KafkaProducerWrapper<K, V> {
     // For either condition, we should retry as broker comes back healthy or producer is recreated
     boolean retry = true;
     int numberOfAttempt = 0;
+    long generation = NO_GENERATION;
     while (retry) {
       try {
         ++numberOfAttempt;
-        Optional<Producer<K, V>> producer = maybeGetKafkaProducer(task);
-        if (producer.isPresent()) {
-          producer.get().send(producerRecord, (metadata, exception) -> {
-            if (exception == null) {
-              onComplete.onCompletion(metadata, null);
-            } else {
-              onComplete.onCompletion(metadata, generateSendFailure(exception, task));
-            }
-          });
+        Optional<ProducerGeneration<K, V>> producerGeneration = maybeGetProducerGeneration(task);
+        if (producerGeneration.isPresent()) {
+          long sendGeneration = producerGeneration.get().getGeneration();
+          generation = sendGeneration;
+          _inFlightCount.incrementAndGet();
+          try {
+            producerGeneration.get().getProducer().send(producerRecord, (metadata, exception) -> {
+              _inFlightCount.decrementAndGet();
+              if (exception == null) {
+                onComplete.onCompletion(metadata, null);
+              } else {
+                onComplete.onCompletion(metadata, generateSendFailure(exception, task, sendGeneration));
+              }
+            });
+          } catch (RuntimeException e) {
+            // The callback is not invoked when the send throws
+            _inFlightCount.decrementAndGet();
+            throw e;
+          }
         } else {
           throw new DatastreamRuntimeException(String.format("kafka producer not available for the task: %s", task.getDatastreamTaskName()));
         }
@@ -296,7 +335,7 @@ class KafkaProducerWrapper<K, V> {
         if (numberOfAttempt > MAX_SEND_ATTEMPTS || ((cause instanceof Error || cause instanceof RuntimeException))) {
           _log.error(String.format("Send failed for partition %d with a non-retriable exception",
               producerRecord.partition()), e);
-          throw generateSendFailure(e, task);
+          throw generateSendFailure(e, task, generation);
         } else {
           _log.warn(String.format(
               "Send failed for partition %d with a retriable exception, retry %d out of %d in %d ms.",
@@ -304,66 +343,57 @@ class KafkaProducerWrapper<K, V> {
           Thread.sleep(_sendFailureRetryWaitTimeMs);
         }
       } catch (DatastreamRuntimeException e) {
-        throw generateSendFailure(e, task);
+        throw generateSendFailure(e, task, generation);
       } catch (Exception e) {
         _log.error(String.format("Send failed for partition %d with an exception: ", producerRecord.partition()), e);
-        throw generateSendFailure(e, task);
+        throw generateSendFailure(e, task, generation);
       }
     }
   }
 
   private void shutdownProducer() {
-    shutdownProducer(false);
+    ProducerGeneration<K, V> generation = _producerGeneration.get();
+    if (generation != null) {
+      shutdownProducer(generation.getGeneration(), false);
+    }
   }
 
-
+  // Closes the producer if it still belongs to the given generation, i.e. it has not been closed or replaced since.
   // fastClose should be set to true in the case, where the producer is already in a bad state or has returned error
   // on send callback (to ensure that the records are produce in order). Closing the producer with a shorter timeout
   // can result in records produced, but no delivery of acks from Kafka. This can result in overcounting and should be
   // done only in critical cases.
   @VisibleForTesting
-  void shutdownProducer(boolean fastClose) {
-    Producer<K, V> producer;
-    try {
-      _producerLock.lock();
-      // if there is no producer or the producer close is in progress, return.
-      if (_kafkaProducer == null || _closeInProgress) {
-        return;
-      }
-      producer = _kafkaProducer;
-      _closeInProgress = true;
-
-      // This may be called from the send callback. The callbacks are called from the sender thread, and must complete
-      // quickly to avoid delaying/blocking the sender thread. Thus schedule the actual producer.close() on a separate
-      // thread
-      _producerCloseExecutorService.submit(() -> {
-        int timeout = fastClose ? FAST_CLOSE_TIMEOUT_MS : _producerCloseTimeoutMs;
-        _log.info("KafkaProducerWrapper: Closing the Kafka Producer with timeout: {}", timeout);
-        try {
-          producer.close(timeout, TimeUnit.MILLISECONDS);
-          NUM_PRODUCERS.decrementAndGet();
-          _log.info("KafkaProducerWrapper: Kafka Producer is closed");
-        } finally {
-          markProducerCloseComplete();
-        }
-      });
-    } finally {
-      _producerLock.unlock();
+  void shutdownProducer(long generation, boolean fastClose) {
+    ProducerGeneration<K, V> producerGeneration = _producerGeneration.get();
+    // if there is no producer, the producer has been replaced or its close is already in progress, return.
+    if (producerGeneration == null || producerGeneration.getGeneration() != generation
+        || !producerGeneration.markClosing()) {
+      return;
     }
-  }
 
-  private void markProducerCloseComplete() {
-    try {
-      _producerLock.lock();
-      _closeInProgress = false;
-      _kafkaProducer = null;
-      _waitOnProducerClose.signalAll();
-    } finally {
-      _producerLock.unlock();
-    }
+    // This may be called from the send callback. The callbacks are called from the sender thread, and must complete
+    // quickly to avoid delaying/blocking the sender thread. Thus schedule the actual producer.close() on a separate
+    // thread
+    _producerCloseExecutorService.submit(() -> {
+      int timeout = fastClose ? FAST_CLOSE_TIMEOUT_MS : _producerCloseTimeoutMs;
+      try {
+        // The producer may still be being created by a concurrent send
+        Producer<K, V> producer = producerGeneration.awaitProducer();
+        _log.info("KafkaProducerWrapper: Closing the Kafka Producer generation {} with timeout: {}", generation, timeout);
+        producer.close(timeout, TimeUnit.MILLISECONDS);
+        NUM_PRODUCERS.decrementAndGet();
+        _log.info("KafkaProducerWrapper: Kafka Producer is closed");
+      } catch (InterruptedException | ExecutionException e) {
+        _log.warn("KafkaProducerWrapper: Kafka Producer generation {} was not created, nothing to close", generation);
+      } finally {
+        _producerGeneration.compareAndSet(producerGeneration, null);
+        producerGeneration.markClosed();
+      }
+    });
   }
 
-  private DatastreamRuntimeException generateSendFailure(Exception exception, DatastreamTask task) {
+  private DatastreamRuntimeException generateSendFailure(Exception exception, DatastreamTask task, long generation) {
     _dynamicMetricsManager.createOrUpdateMeter(_metricsNamesPrefix, AGGREGATE, PRODUCER_ERROR, 1);
     if (exception instanceof IllegalStateException) {
       _log.debug("Send failed transiently with exception: ", exception);
@@ -371,7 +401,7 @@ class KafkaProducerWrapper<K, V> {
     } else {
       _log.debug("Send failed with a non-transient exception. Shutting down producer, exception: ", exception);
       if (_tasks.contains(task)) {
-        shutdownProducer(true);
+        shutdownProducer(generation, true);
       }
       return new DatastreamRuntimeException(exception);
     }
@@ -386,38 +416,28 @@ class KafkaProducerWrapper<K, V> {
    * For any other exception thrown by kafka producer, shutdown the producer to avoid reusing the same producer.
    */
   void flush() {
-    Producer<K, V> producer;
-    try {
-      _producerLock.lock();
-      producer = _kafkaProducer;
-    } finally {
-      _producerLock.unlock();
-    }
+    ProducerGeneration<K, V> generation = _producerGeneration.get();
+    Producer<K, V> producer = generation == null ? null : generation.getProducer();
 
     if (producer != null) {
       try {
         producer.flush(_producerFlushTimeoutMs, TimeUnit.MILLISECONDS);
-        _log.info("Flush completed for the producer, closeInProgress: {}", _closeInProgress);
+        _log.info("Flush completed for the producer, closeInProgress: {}", generation.isClosing());
       } catch (Exception e) {
         _log.warn("Hitting Exception during kafka producer flush.", e);
         // The KafkaProducer object should not be reused on an interrupted/timed out flush. To be safe, we try to
         // close the producer on any exception.
-        try {
-          _producerLock.lock();
-          if (producer == _kafkaProducer) {
-            if (_closeInProgress) {
-              _log.warn("Kafka producer flush may be interrupted/timed out, producer {} close is in progress.", producer);
-            } else {
-              _log.warn("Kafka producer flush may be interrupted/timed out, closing producer {}.", producer);
-              shutdownProducer(true);
-            }
+        if (generation == _producerGeneration.get()) {
+          if (generation.isClosing()) {
+            _log.warn("Kafka producer flush may be interrupted/timed out, producer {} close is in progress.", producer);
           } else {
-            _log.warn("Kafka producer flush may be interrupted/timed out, producer {} already closed.", producer);
+            _log.warn("Kafka producer flush may be interrupted/timed out, closing producer {}.", producer);
+            shutdownProducer(generation.getGeneration(), true);
           }
-          throw e;
-        } finally {
-          _producerLock.unlock();
+        } else {
+          _log.warn("Kafka producer flush may be interrupted/timed out, producer {} already closed.", producer);
         }
+        throw e;
       }
     }
   }
@@ -449,17 +469,111 @@ class KafkaProducerWrapper<K, V> {
 
   @VisibleForTesting
   void setCloseInProgress(boolean closeInProgress) {
-    _closeInProgress = closeInProgress;
+    ProducerGeneration<K, V> generation = _producerGeneration.get();
+    if (generation != null) {
+      generation.setClosing(closeInProgress);
+    }
+  }
+
+  /**
+   * Get the generation of the current producer, or {@value #NO_GENERATION} if there is none
+   */
+  @VisibleForTesting
+  long getProducerGeneration() {
+    ProducerGeneration<K, V> generation = _producerGeneration.get();
+    return generation == null ? NO_GENERATION : generation.getGeneration();
+  }
+
+  private Optional<Producer<K, V>> getCurrentProducer() {
+    return Optional.ofNullable(_producerGeneration.get()).map(ProducerGeneration::getProducer);
   }
 
   public String getClientId() {
     return _clientId;
   }
 
+  /**
+   * Get the number of records sent through this producer that have not been acknowledged yet
+   */
+  public int getInFlightCount() {
+    return _inFlightCount.get();
+  }
+
+  /**
+   * Get the number of bytes available in the buffer of the Kafka producer, if the producer exists
+   */
+  public Optional<Double> getBufferAvailableBytes() {
+    return getCurrentProducer()
+        .flatMap(p -> p.metrics().entrySet().stream()
+            .filter(e -> BUFFER_AVAILABLE_BYTES.equals(e.getKey().name())
+                && PRODUCER_METRICS_GROUP.equals(e.getKey().group()))
+            .findFirst())
+        .map(e -> e.getValue().metricValue())
+        .filter(v -> v instanceof Number)
+        .map(v -> ((Number) v).doubleValue());
+  }
+
   /**
    * Get the metrics value from producer for monitoring
    */
   public Optional<Double> getProducerMetricValue(MetricName metricName) {
-    return Optional.ofNullable(_kafkaProducer).map(p -> p.metrics().get(metricName)).map(Metric::value);
+    return getCurrentProducer().map(p -> p.metrics().get(metricName)).map(Metric::value);
+  }
+
+  /**
+   * A Kafka producer along with the generation it was created for. The producer is set once it has been created by
+   * the send that installed the generation.
+   */
+  private static final class ProducerGeneration<K, V> {
+    private final long _generation;
+    private final CompletableFuture<Producer<K, V>> _producer = new CompletableFuture<>();
+    private final AtomicBoolean _closing = new AtomicBoolean();
+    private final CountDownLatch _closed = new CountDownLatch(1);
+
+    ProducerGeneration(long generation) {
+      _generation = generation;
+    }
+
+    long getGeneration() {
+      return _generation;
+    }
+
+    // Returns null if the producer is not created yet
+    Producer<K, V> getProducer() {
+      return _producer.getNow(null);
+    }
+
+    Producer<K, V> awaitProducer() throws InterruptedException, ExecutionException {
+      return _producer.get();
+    }
+
+    void setProducer(Producer<K, V> producer) {
+      _producer.complete(producer);
+    }
+
+    void setProducerFailure(Throwable failure) {
+      _producer.completeExceptionally(failure);
+    }
+
+    boolean isClosing() {
+      return _closing.get();
+    }
+
+    // Returns false if the close is already in progress
+    boolean markClosing() {
+      return _closing.compareAndSet(false, true);
+    }
+
+    void setClosing(boolean closing) {
+      _closing.set(closing);
+    }
+
+    void markClosed() {
+      _closed.countDown();
+    }
+
+    boolean awaitClose(long timeoutMs) throws InterruptedException {
+      return _closed.await(timeoutMs, TimeUnit.MILLISECONDS);
+    }
   }
 }
@@ -9,9 +9,10 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.Validate;
 import org.apache.kafka.clients.producer.ProducerConfig;
@@ -24,16 +25,17 @@ import org.slf4j.LoggerFactory;
 import com.codahale.metrics.Meter;
 
 import com.linkedin.datastream.common.BrooklinEnvelope;
-import com.linkedin.datastream.common.BrooklinEnvelopeMetadataConstants;
 import com.linkedin.datastream.common.DatastreamRuntimeException;
 import com.linkedin.datastream.common.ErrorLogger;
 import com.linkedin.datastream.metrics.BrooklinMeterInfo;
 import com.linkedin.datastream.metrics.BrooklinMetricInfo;
 import com.linkedin.datastream.metrics.DynamicMetricsManager;
+import com.linkedin.datastream.metrics.MetricHandle;
 import com.linkedin.datastream.metrics.MetricsAware;
 import com.linkedin.datastream.server.DatastreamProducerRecord;
 import com.linkedin.datastream.server.DatastreamProducerRecordBuilder;
 import com.linkedin.datastream.server.DatastreamTask;
+import com.linkedin.datastream.server.api.transport.BatchSendCallback;
 import com.linkedin.datastream.server.api.transport.DatastreamRecordMetadata;
 import com.linkedin.datastream.server.api.transport.SendCallback;
 import com.linkedin.datastream.server.api.transport.TransportProvider;
@@ -54,9 +56,13 @@ public class KafkaTransportProvider implements TransportProvider {
 
   private final DatastreamTask _datastreamTask;
   private final List<KafkaProducerWrapper<byte[], byte[]>> _producers;
+  private final KafkaProducerSelector _producerSelector;
 
   private final DynamicMetricsManager _dynamicMetricsManager;
   private final String _metricsNamesPrefix;
+  private final MetricHandle<Meter> _aggregateEventWriteRate;
+  private final MetricHandle<Meter> _aggregateEventByteWriteRate;
+  private final Map<String, TopicMetricHandles> _topicMetrics = new ConcurrentHashMap<>();
   private final Meter _eventWriteRate;
   private final Meter _eventByteWriteRate;
   private final Meter _eventTransportErrorRate;
@@ -78,9 +84,28 @@ public class KafkaTransportProvider implements TransportProvider {
    */
   public KafkaTransportProvider(DatastreamTask datastreamTask, List<KafkaProducerWrapper<byte[], byte[]>> producers,
       Properties props, String metricsNamesPrefix) {
+    this(datastreamTask, producers, props, metricsNamesPrefix, new HashProducerSelector(producers));
+  }
+
+  /**
+   * Constructor for KafkaTransportProvider.
+   * @param datastreamTask the {@link DatastreamTask} to which this transport provider is being assigned
+   * @param producers Kafka producers to use for producing data to destination Kafka cluster
+   * @param props Kafka producer configuration
+   * @param metricsNamesPrefix the prefix to use when emitting metrics
+   * @param producerSelector the selector that picks which of the producers sends each record
+   * @throws IllegalArgumentException if either datastreamTask, producers or producerSelector is null
+   * @throws com.linkedin.datastream.common.DatastreamRuntimeException if "bootstrap.servers" is not specified in the
+   * supplied config
+   * @see ProducerConfig
+   */
+  public KafkaTransportProvider(DatastreamTask datastreamTask, List<KafkaProducerWrapper<byte[], byte[]>> producers,
+      Properties props, String metricsNamesPrefix, KafkaProducerSelector producerSelector) {
     org.apache.commons.lang.Validate.notNull(datastreamTask, "null tasks");
     org.apache.commons.lang.Validate.notNull(producers, "null producer wrappers");
+    org.apache.commons.lang.Validate.notNull(producerSelector, "null producer selector");
     _producers = producers;
+    _producerSelector = producerSelector;
     _datastreamTask = datastreamTask;
     LOG.info("Creating kafka transport provider with properties: {}", props);
     if (!props.containsKey(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG)) {
@@ -93,6 +118,9 @@ public class KafkaTransportProvider implements TransportProvider {
     // initialize metrics
     _dynamicMetricsManager = DynamicMetricsManager.getInstance();
     _metricsNamesPrefix = metricsNamesPrefix == null ? CLASS_NAME : metricsNamesPrefix + CLASS_NAME;
+    _aggregateEventWriteRate = _dynamicMetricsManager.meterHandle(_metricsNamesPrefix, AGGREGATE, EVENT_WRITE_RATE);
+    _aggregateEventByteWriteRate =
+        _dynamicMetricsManager.meterHandle(_metricsNamesPrefix, AGGREGATE, EVENT_BYTE_WRITE_RATE);
     _eventWriteRate = new Meter();
     _eventByteWriteRate = new Meter();
     _eventTransportErrorRate = new Meter();
@@ -136,11 +164,6 @@ public class KafkaTransportProvider implements TransportProvider {
     }
   }
 
-  private int getSourcePartitionFromEvent(BrooklinEnvelope event) {
-    return Integer.parseInt(
-        event.getMetadata().getOrDefault(BrooklinEnvelopeMetadataConstants.SOURCE_PARTITION, "-1"));
-  }
-
   @Override
   public DatastreamRecordMetadata broadcast(String destinationUri, DatastreamProducerRecord record, SendCallback onEventComplete) {
     Validate.isTrue(record.isBroadcastRecord(), "Trying to broadcast a non-broadcast type record.");
@@ -179,68 +202,129 @@ public class KafkaTransportProvider implements TransportProvider {
 
   @Override
   public void send(String destinationUri, DatastreamProducerRecord record, SendCallback onSendComplete) {
-    String topicName = KafkaTransportProviderUtils.getTopicName(destinationUri);
-    try {
-      Validate.notNull(record, "null event record.");
-      Validate.notNull(record.getEvents(), "null datastream events.");
-
-      // if the transport provider is already unassigned, the send should fail.
-      if (_isUnassigned) {
-        _eventTransportErrorRate.mark();
-        _dynamicMetricsManager.createOrUpdateMeter(_metricsNamesPrefix, topicName, EVENT_TRANSPORT_ERROR_RATE, 1);
-        String msg = String.format(
-            "Sending DatastreamRecord (%s) to topic %s, partition %s, Kafka cluster %s failed. Transport Provider already unassigned.", record,
-            topicName, record.getPartition().orElse(-1), destinationUri);
-        ErrorLogger.logAndThrowDatastreamRuntimeException(LOG, msg);
+    sendBatch(destinationUri, Collections.singletonList(record), (recordIndex, metadata, exception) -> {
+      if (onSendComplete != null) {
+        onSendComplete.onCompletion(metadata, exception);
       }
+    });
 
-      LOG.debug("Sending Datastream event record: {}", record);
-
-      for (int i = 0; i < record.getEvents().size(); ++i) {
-        BrooklinEnvelope event = record.getEvents().get(i);
-        ProducerRecord<byte[], byte[]> outgoing = convertToProducerRecord(topicName, record, event);
+    LOG.debug("Done sending Datastream event record: {}", record);
+  }
 
-        // Update topic-specific metrics and aggregate metrics
-        int numBytes = (outgoing.key() != null ? outgoing.key().length : 0) + outgoing.value().length;
+  /**
+   * {@inheritDoc}
+   *
+   * All the records are sent to the same topic, so the destination is resolved and the write rate metrics are
+   * updated once for the whole batch rather than once per event.
+   */
+  @Override
+  public void sendBatch(String destinationUri, List<DatastreamProducerRecord> records,
+      BatchSendCallback onSendComplete) {
+    String topicName = KafkaTransportProviderUtils.getTopicName(destinationUri);
+    TopicMetricHandles topicMetrics = getTopicMetrics(topicName);
+    int numEvents = 0;
+    long numBytes = 0;
+    DatastreamProducerRecord record = null;
+    try {
+      for (int i = 0; i < records.size(); i++) {
+        record = records.get(i);
+        checkAssigned(destinationUri, topicName, topicMetrics, record);
+        final int recordIndex = i;
+        numBytes += sendEvents(topicName, record,
+            (metadata, exception) -> onSendComplete.onCompletion(recordIndex, metadata, exception));
+        numEvents += record.getEvents().size();
+      }
+    } catch (Exception e) {
+      onSendException(destinationUri, topicName, topicMetrics, record, e);
+    } finally {
+      updateWriteMetrics(topicMetrics, numEvents, numBytes);
+    }
+  }
 
-        _eventWriteRate.mark();
-        _eventByteWriteRate.mark(numBytes);
+  private void checkAssigned(String destinationUri, String topicName, TopicMetricHandles topicMetrics,
+      DatastreamProducerRecord record) {
+    Validate.notNull(record, "null event record.");
+    Validate.notNull(record.getEvents(), "null datastream events.");
 
-        KafkaProducerWrapper<byte[], byte[]> producer =
-            _producers.get(Math.abs(Objects.hash(outgoing.topic(), outgoing.partition())) % _producers.size());
+    // if the transport provider is already unassigned, the send should fail.
+    if (_isUnassigned) {
+      _eventTransportErrorRate.mark();
+      topicMetrics._eventTransportErrorRate.get().mark();
+      String msg = String.format(
+          "Sending DatastreamRecord (%s) to topic %s, partition %s, Kafka cluster %s failed. Transport Provider already unassigned.", record,
+          topicName, record.getPartition().orElse(-1), destinationUri);
+      ErrorLogger.logAndThrowDatastreamRuntimeException(LOG, msg);
+    }
+  }
 
-        final int eventIndex = i;
-        final int sourcePartition = getSourcePartitionFromEvent(event);
-        producer.send(_datastreamTask, outgoing, (metadata, exception) -> {
-          int partition = metadata != null ? metadata.partition() : -1;
-          if (exception != null) {
-            String msg = String.format("Sending a message with source checkpoint %s to topic %s partition %d for datastream task %s "
-                + "threw an exception.", record.getCheckpoint(), topicName, partition, _datastreamTask.getDatastreamTaskName());
-            if (_isUnassigned) {
-              LOG.debug(msg, exception);
-            } else {
-              LOG.error(msg, exception);
-            }
+  /**
+   * Hand all the events of the record to the Kafka producers.
+   * @return the number of bytes sent
+   */
+  private long sendEvents(String topicName, DatastreamProducerRecord record, SendCallback onSendComplete)
+      throws InterruptedException {
+    LOG.debug("Sending Datastream event record: {}", record);
+
+    long totalBytes = 0;
+    for (int i = 0; i < record.getEvents().size(); ++i) {
+      BrooklinEnvelope event = record.getEvents().get(i);
+      ProducerRecord<byte[], byte[]> outgoing = convertToProducerRecord(topicName, record, event);
+
+      int numBytes = (outgoing.key() != null ? outgoing.key().length : 0) + outgoing.value().length;
+      totalBytes += numBytes;
+
+      _eventWriteRate.mark();
+      _eventByteWriteRate.mark(numBytes);
+
+      KafkaProducerWrapper<byte[], byte[]> producer = _producerSelector.select(outgoing);
+
+      final int eventIndex = i;
+      final int sourcePartition = event.getSourcePartition();
+      producer.send(_datastreamTask, outgoing, (metadata, exception) -> {
+        int partition = metadata != null ? metadata.partition() : -1;
+        if (exception != null) {
+          String msg = String.format("Sending a message with source checkpoint %s to topic %s partition %d for datastream task %s "
+              + "threw an exception.", record.getCheckpoint(), topicName, partition, _datastreamTask.getDatastreamTaskName());
+          if (_isUnassigned) {
+            LOG.debug(msg, exception);
+          } else {
+            LOG.error(msg, exception);
           }
-          doOnSendCallback(record, onSendComplete, metadata, exception, eventIndex, sourcePartition);
-        });
+        }
+        doOnSendCallback(record, onSendComplete, metadata, exception, eventIndex, sourcePartition);
+      });
+    }
+    return totalBytes;
+  }
 
-        _dynamicMetricsManager.createOrUpdateMeter(_metricsNamesPrefix, topicName, EVENT_WRITE_RATE, 1);
-        _dynamicMetricsManager.createOrUpdateMeter(_metricsNamesPrefix, topicName, EVENT_BYTE_WRITE_RATE, numBytes);
-        _dynamicMetricsManager.createOrUpdateMeter(_metricsNamesPrefix, AGGREGATE, EVENT_WRITE_RATE, 1);
-        _dynamicMetricsManager.createOrUpdateMeter(_metricsNamesPrefix, AGGREGATE, EVENT_BYTE_WRITE_RATE, numBytes);
-      }
-    } catch (Exception e) {
-      _eventTransportErrorRate.mark();
-      _dynamicMetricsManager.createOrUpdateMeter(_metricsNamesPrefix, topicName, EVENT_TRANSPORT_ERROR_RATE, 1);
-      String errorMessage = String.format(
-          "Sending DatastreamRecord (%s) to topic %s, partition %s, Kafka cluster %s failed with exception.", record,
-          topicName, record.getPartition().orElse(-1), destinationUri);
+  // Update topic-specific metrics and aggregate metrics
+  private void updateWriteMetrics(TopicMetricHandles topicMetrics, int numEvents, long numBytes) {
+    if (numEvents == 0) {
+      return;
+    }
+    topicMetrics._eventWriteRate.get().mark(numEvents);
+    topicMetrics._eventByteWriteRate.get().mark(numBytes);
+    _aggregateEventWriteRate.get().mark(numEvents);
+    _aggregateEventByteWriteRate.get().mark(numBytes);
+  }
 
-      ErrorLogger.logAndThrowDatastreamRuntimeException(LOG, errorMessage, e);
+  private TopicMetricHandles getTopicMetrics(String topicName) {
+    TopicMetricHandles topicMetrics = _topicMetrics.get(topicName);
+    if (topicMetrics == null) {
+      topicMetrics = _topicMetrics.computeIfAbsent(topicName, TopicMetricHandles::new);
     }
+    return topicMetrics;
+  }
 
-    LOG.debug("Done sending Datastream event record: {}", record);
+  private void onSendException(String destinationUri, String topicName, TopicMetricHandles topicMetrics,
+      DatastreamProducerRecord record, Exception e) {
+    _eventTransportErrorRate.mark();
+    topicMetrics._eventTransportErrorRate.get().mark();
+    String errorMessage = String.format(
+        "Sending DatastreamRecord (%s) to topic %s, partition %s, Kafka cluster %s failed with exception.", record,
+        topicName, record != null ? record.getPartition().orElse(-1) : -1, destinationUri);
+
+    ErrorLogger.logAndThrowDatastreamRuntimeException(LOG, errorMessage, e);
   }
 
   @Override
@@ -261,8 +345,8 @@ public class KafkaTransportProvider implements TransportProvider {
       Exception exception, int eventIndex, int sourcePartition) {
     if (onComplete != null) {
       onComplete.onCompletion(
-          metadata != null ? new DatastreamRecordMetadata(record.getCheckpoint(), metadata.topic(),
-              metadata.partition(), eventIndex, sourcePartition) : null, exception);
+          metadata != null ? new DatastreamRecordMetadata(record, metadata.topic(), metadata.partition(), eventIndex,
+              sourcePartition) : null, exception);
     }
   }
 
@@ -282,4 +366,20 @@ public class KafkaTransportProvider implements TransportProvider {
 
     return Collections.unmodifiableList(metrics);
   }
+
+  /**
+   * Handles to the topic-specific metrics of the transport provider
+   */
+  private final class TopicMetricHandles {
+    private final MetricHandle<Meter> _eventWriteRate;
+    private final MetricHandle<Meter> _eventByteWriteRate;
+    private final MetricHandle<Meter> _eventTransportErrorRate;
+
+    TopicMetricHandles(String topicName) {
+      _eventWriteRate = _dynamicMetricsManager.meterHandle(_metricsNamesPrefix, topicName, EVENT_WRITE_RATE);
+      _eventByteWriteRate = _dynamicMetricsManager.meterHandle(_metricsNamesPrefix, topicName, EVENT_BYTE_WRITE_RATE);
+      _eventTransportErrorRate =
+          _dynamicMetricsManager.meterHandle(_metricsNamesPrefix, topicName, EVENT_TRANSPORT_ERROR_RATE);
+    }
+  }
 }
@@ -40,6 +40,7 @@ import com.linkedin.datastream.common.DatastreamRuntimeException;
 import com.linkedin.datastream.common.DatastreamSource;
 import com.linkedin.datastream.common.DatastreamUtils;
 import com.linkedin.datastream.common.PollUtils;
+import com.linkedin.datastream.common.ReflectionUtils;
 import com.linkedin.datastream.common.VerifiableProperties;
 import com.linkedin.datastream.metrics.BrooklinMetricInfo;
 import com.linkedin.datastream.server.DatastreamTask;
@@ -64,6 +65,8 @@ public class KafkaTransportProviderAdmin implements TransportProviderAdmin {
   public static final String CONFIG_NUM_PRODUCERS_PER_CONNECTOR = "numProducersPerConnector";
   public static final String CONFIG_PRODUCERS_PER_TASK = "producersPerTask";
   public static final String CONFIG_METRICS_NAMES_PREFIX = "metricsNamesPrefix";
+  public static final String CONFIG_PRODUCER_SELECTOR_FACTORY = "producerSelectorFactory";
+  public static final String DOMAIN_PRODUCER_SELECTOR = "producerSelector";
   public static final String DOMAIN_TOPIC = "topic";
   public static final String MIN_INSYNC_REPLICAS_CONFIG = "min.insync.replicas";
   public static final String TOPIC_RETENTION_MS = "retention.ms";
@@ -80,6 +83,8 @@ public class KafkaTransportProviderAdmin implements TransportProviderAdmin {
   private final int _defaultNumProducersPerTask;
   private final Properties _transportProviderProperties;
   private final Properties _topicProperties;
+  private final KafkaProducerSelectorFactory _producerSelectorFactory;
+  private final VerifiableProperties _producerSelectorProperties;
   // Brokers config may not exist if transport provider handles multiple destination clusters
   private final Optional<String> _brokersConfig;
   private final Optional<String> _zkAddress;
@@ -123,6 +128,15 @@ public class KafkaTransportProviderAdmin implements TransportProviderAdmin {
     }
 
     _topicProperties = transportProviderProperties.getDomainProperties(DOMAIN_TOPIC);
+
+    String producerSelectorFactory = transportProviderProperties.getString(CONFIG_PRODUCER_SELECTOR_FACTORY,
+        HashProducerSelectorFactory.class.getName());
+    _producerSelectorFactory = ReflectionUtils.createInstance(producerSelectorFactory);
+    if (_producerSelectorFactory == null) {
+      throw new DatastreamRuntimeException("Unable to instantiate factory class: " + producerSelectorFactory);
+    }
+    _producerSelectorProperties =
+        new VerifiableProperties(transportProviderProperties.getDomainProperties(DOMAIN_PRODUCER_SELECTOR));
   }
 
   @Override
@@ -140,8 +154,10 @@ public class KafkaTransportProviderAdmin implements TransportProviderAdmin {
       Properties transportProviderProperties = new Properties();
       transportProviderProperties.putAll(_transportProviderProperties);
       transportProviderProperties.putIfAbsent(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, destinationBrokers);
-      _transportProviders.put(task,
-          new KafkaTransportProvider(task, producers, transportProviderProperties, _transportProviderMetricsNamesPrefix));
+      KafkaProducerSelector producerSelector =
+          _producerSelectorFactory.createProducerSelector(producers, _producerSelectorProperties);
+      _transportProviders.put(task, new KafkaTransportProvider(task, producers, transportProviderProperties,
+          _transportProviderMetricsNamesPrefix, producerSelector));
       producers.forEach(p -> p.assignTask(task));
     } else {
       LOG.warn("Trying to assign transport provider to task {} which is already assigned.", task);
@@ -0,0 +1,116 @@
+/**
+ *  Copyright 2019 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.kafka;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.apache.commons.lang.Validate;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.utils.Utils;
+
+
+/**
+ * A {@link KafkaProducerSelector} that spreads the records over the least loaded producers.
+ *
+ * <ul>
+ *  <li>Each destination partition is pinned to the producer with the fewest in-flight records when it is first seen.
+ *  Ties go to the producer with the fewest partitions pinned by this selector, then to the one with the most buffer
+ *  space available.</li>
+ *  <li>Keyed records whose partition is picked by Kafka are spread by the hash of their key, so that the records of
+ *  a key stay in order.</li>
+ *  <li>Keyless records whose partition is picked by Kafka stick to the least loaded producer until
+ *  {@value #CONFIG_STICKY_BATCH_BYTES} bytes have been sent with it, which lets the producer build larger batches.</li>
+ * </ul>
+ */
+public class LeastLoadedProducerSelector extends PartitionPinningProducerSelector {
+  public static final String CONFIG_STICKY_BATCH_BYTES = "stickyBatchBytes";
+  // Same as the default batch.size of the Kafka producer
+  public static final int DEFAULT_STICKY_BATCH_BYTES = 16384;
+
+  private final int _stickyBatchBytes;
+  private final AtomicIntegerArray _pinnedPartitionCounts;
+  private final Map<String, StickyProducer> _stickyProducers = new ConcurrentHashMap<>();
+
+  /**
+   * Constructor for LeastLoadedProducerSelector
+   * @param producers the producers to select from
+   * @param stickyBatchBytes the number of bytes of keyless records to send with a producer before picking another one
+   */
+  public LeastLoadedProducerSelector(List<KafkaProducerWrapper<byte[], byte[]>> producers, int stickyBatchBytes) {
+    super(producers);
+    Validate.isTrue(stickyBatchBytes > 0, "stickyBatchBytes must be positive");
+    _stickyBatchBytes = stickyBatchBytes;
+    _pinnedPartitionCounts = new AtomicIntegerArray(producers.size());
+  }
+
+  @Override
+  protected KafkaProducerWrapper<byte[], byte[]> pin(String topic, int partition) {
+    int index = leastLoaded(0);
+    _pinnedPartitionCounts.incrementAndGet(index);
+    return _producers.get(index);
+  }
+
+  @Override
+  protected KafkaProducerWrapper<byte[], byte[]> selectUnpartitioned(ProducerRecord<byte[], byte[]> record) {
+    if (record.key() != null) {
+      return _producers.get(Utils.toPositive(Utils.murmur2(record.key())) % _producers.size());
+    }
+    StickyProducer stickyProducer = _stickyProducers.get(record.topic());
+    if (stickyProducer == null) {
+      stickyProducer = _stickyProducers.computeIfAbsent(record.topic(), topic -> new StickyProducer());
+    }
+    return stickyProducer.next(record.value() == null ? 0 : record.value().length);
+  }
+
+  // Ties go to the first producer starting from the given index
+  private int leastLoaded(int startIndex) {
+    int best = startIndex;
+    int bestInFlight = _producers.get(best).getInFlightCount();
+    for (int n = 1; n < _producers.size(); n++) {
+      int i = (startIndex + n) % _producers.size();
+      int inFlight = _producers.get(i).getInFlightCount();
+      if (inFlight < bestInFlight || (inFlight == bestInFlight && isLessLoaded(i, best))) {
+        best = i;
+        bestInFlight = inFlight;
+      }
+    }
+    return best;
+  }
+
+  private boolean isLessLoaded(int index, int otherIndex) {
+    int pinned = _pinnedPartitionCounts.get(index);
+    int otherPinned = _pinnedPartitionCounts.get(otherIndex);
+    if (pinned != otherPinned) {
+      return pinned < otherPinned;
+    }
+    double available = _producers.get(index).getBufferAvailableBytes().orElse(0.0);
+    double otherAvailable = _producers.get(otherIndex).getBufferAvailableBytes().orElse(0.0);
+    return available > otherAvailable;
+  }
+
+  /**
+   * The producer the keyless records of a topic currently stick to
+   */
+  private final class StickyProducer {
+    private KafkaProducerWrapper<byte[], byte[]> _producer;
+    private int _index = -1;
+    private long _numBytes;
+
+    synchronized KafkaProducerWrapper<byte[], byte[]> next(int numBytes) {
+      if (_producer == null || _numBytes >= _stickyBatchBytes) {
+        // Start after the current producer, so that equally loaded producers take turns
+        _index = leastLoaded((_index + 1) % _producers.size());
+        _producer = _producers.get(_index);
+        _numBytes = 0;
+      }
+      _numBytes += numBytes;
+      return _producer;
+    }
+  }
+}
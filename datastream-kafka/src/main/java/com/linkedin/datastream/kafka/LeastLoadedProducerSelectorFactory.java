@@ -0,0 +1,26 @@
+/**
+ *  Copyright 2019 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.kafka;
+
+import java.util.List;
+
+import com.linkedin.datastream.common.VerifiableProperties;
+
+import static com.linkedin.datastream.kafka.LeastLoadedProducerSelector.CONFIG_STICKY_BATCH_BYTES;
+import static com.linkedin.datastream.kafka.LeastLoadedProducerSelector.DEFAULT_STICKY_BATCH_BYTES;
+
+
+/**
+ * Factory for {@link LeastLoadedProducerSelector}
+ */
+public class LeastLoadedProducerSelectorFactory implements KafkaProducerSelectorFactory {
+  @Override
+  public KafkaProducerSelector createProducerSelector(List<KafkaProducerWrapper<byte[], byte[]>> producers,
+      VerifiableProperties properties) {
+    return new LeastLoadedProducerSelector(producers,
+        properties.getInt(CONFIG_STICKY_BATCH_BYTES, DEFAULT_STICKY_BATCH_BYTES));
+  }
+}
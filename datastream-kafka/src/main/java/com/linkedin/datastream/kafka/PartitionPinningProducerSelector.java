@@ -0,0 +1,109 @@
+/**
+ *  Copyright 2019 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.kafka;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.commons.lang.Validate;
+import org.apache.kafka.clients.producer.ProducerRecord;
+
+
+/**
+ * Base class for the {@link KafkaProducerSelector}s that pin each destination partition to a producer.
+ *
+ * The producer of a topic partition is picked by {@link #pin(String, int)} the first time the partition is seen and
+ * then cached in a per-topic table indexed by partition, so the selection of the following records of the partition
+ * is an array lookup. Records without a destination partition are handed to {@link #selectUnpartitioned}.
+ */
+public abstract class PartitionPinningProducerSelector implements KafkaProducerSelector {
+  protected final List<KafkaProducerWrapper<byte[], byte[]>> _producers;
+
+  private final ConcurrentHashMap<String, PinnedPartitions> _pinnedPartitions = new ConcurrentHashMap<>();
+
+  /**
+   * Constructor for PartitionPinningProducerSelector
+   * @param producers the producers to select from
+   */
+  protected PartitionPinningProducerSelector(List<KafkaProducerWrapper<byte[], byte[]>> producers) {
+    Validate.notEmpty(producers, "producers cannot be empty");
+    _producers = producers;
+  }
+
+  @Override
+  public KafkaProducerWrapper<byte[], byte[]> select(ProducerRecord<byte[], byte[]> record) {
+    if (_producers.size() == 1) {
+      return _producers.get(0);
+    }
+    Integer partition = record.partition();
+    if (partition == null) {
+      return selectUnpartitioned(record);
+    }
+    PinnedPartitions pinnedPartitions = _pinnedPartitions.get(record.topic());
+    if (pinnedPartitions == null) {
+      pinnedPartitions = _pinnedPartitions.computeIfAbsent(record.topic(), PinnedPartitions::new);
+    }
+    return pinnedPartitions.get(partition);
+  }
+
+  /**
+   * Pick the producer a topic partition is pinned to. Called once per topic partition.
+   * @param topic the destination topic
+   * @param partition the destination partition
+   * @return the producer all the records of the topic partition are sent with
+   */
+  protected abstract KafkaProducerWrapper<byte[], byte[]> pin(String topic, int partition);
+
+  /**
+   * Select the producer for a record whose destination partition is picked by Kafka
+   * @param record the record about to be sent
+   * @return the producer to send the record with
+   */
+  protected abstract KafkaProducerWrapper<byte[], byte[]> selectUnpartitioned(ProducerRecord<byte[], byte[]> record);
+
+  /**
+   * The producers of the partitions of a topic, indexed by partition
+   */
+  private final class PinnedPartitions {
+    private final String _topic;
+    private volatile AtomicReferenceArray<KafkaProducerWrapper<byte[], byte[]>> _producersByPartition =
+        new AtomicReferenceArray<>(0);
+
+    PinnedPartitions(String topic) {
+      _topic = topic;
+    }
+
+    KafkaProducerWrapper<byte[], byte[]> get(int partition) {
+      AtomicReferenceArray<KafkaProducerWrapper<byte[], byte[]>> producersByPartition = _producersByPartition;
+      if (partition < producersByPartition.length()) {
+        KafkaProducerWrapper<byte[], byte[]> producer = producersByPartition.get(partition);
+        if (producer != null) {
+          return producer;
+        }
+      }
+      return pinPartition(partition);
+    }
+
+    private synchronized KafkaProducerWrapper<byte[], byte[]> pinPartition(int partition) {
+      AtomicReferenceArray<KafkaProducerWrapper<byte[], byte[]>> producersByPartition = _producersByPartition;
+      if (partition >= producersByPartition.length()) {
+        AtomicReferenceArray<KafkaProducerWrapper<byte[], byte[]>> grown = new AtomicReferenceArray<>(partition + 1);
+        for (int i = 0; i < producersByPartition.length(); i++) {
+          grown.set(i, producersByPartition.get(i));
+        }
+        producersByPartition = grown;
+        _producersByPartition = grown;
+      }
+      KafkaProducerWrapper<byte[], byte[]> producer = producersByPartition.get(partition);
+      if (producer == null) {
+        producer = pin(_topic, partition);
+        producersByPartition.set(partition, producer);
+      }
+      return producer;
+    }
+  }
+}
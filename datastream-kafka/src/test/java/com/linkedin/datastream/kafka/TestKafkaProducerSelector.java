@@ -0,0 +1,122 @@
+/**
+ *  Copyright 2019 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.kafka;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.linkedin.datastream.common.VerifiableProperties;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+/**
+ * Tests for the {@link KafkaProducerSelector} implementations.
+ */
+@Test
+public class TestKafkaProducerSelector {
+  private static final String TOPIC = "topic";
+
+  @SuppressWarnings("unchecked")
+  private static List<KafkaProducerWrapper<byte[], byte[]>> createProducers(int count) {
+    List<KafkaProducerWrapper<byte[], byte[]>> producers = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      KafkaProducerWrapper<byte[], byte[]> producer = mock(KafkaProducerWrapper.class);
+      when(producer.getBufferAvailableBytes()).thenReturn(Optional.empty());
+      producers.add(producer);
+    }
+    return producers;
+  }
+
+  private static ProducerRecord<byte[], byte[]> record(Integer partition, byte[] key, int valueSize) {
+    return new ProducerRecord<>(TOPIC, partition, key, new byte[valueSize]);
+  }
+
+  @Test
+  public void testHashProducerSelector() {
+    List<KafkaProducerWrapper<byte[], byte[]>> producers = createProducers(5);
+    KafkaProducerSelector selector = new HashProducerSelectorFactory().createProducerSelector(producers,
+        new VerifiableProperties(new Properties()));
+
+    // Same placement as hashing the topic and partition for every record
+    for (Integer partition : new Integer[]{0, 1, 2, 7, 100, null, 3, 0}) {
+      KafkaProducerWrapper<byte[], byte[]> expected =
+          producers.get(Math.abs(Objects.hash(TOPIC, partition)) % producers.size());
+      Assert.assertSame(selector.select(record(partition, null, 10)), expected);
+      Assert.assertSame(selector.select(record(partition, new byte[]{1}, 10)), expected);
+    }
+  }
+
+  @Test
+  public void testLeastLoadedPartitionPinning() {
+    List<KafkaProducerWrapper<byte[], byte[]>> producers = createProducers(3);
+    when(producers.get(0).getInFlightCount()).thenReturn(10);
+    KafkaProducerSelector selector = new LeastLoadedProducerSelector(producers, 100);
+
+    // Partitions are spread over the idle producers
+    KafkaProducerWrapper<byte[], byte[]> producer0 = selector.select(record(0, null, 10));
+    KafkaProducerWrapper<byte[], byte[]> producer1 = selector.select(record(1, null, 10));
+    Assert.assertNotSame(producer0, producers.get(0));
+    Assert.assertNotSame(producer1, producers.get(0));
+    Assert.assertNotSame(producer0, producer1);
+
+    // and stay pinned regardless of the load
+    when(producers.get(0).getInFlightCount()).thenReturn(0);
+    when(producer0.getInFlightCount()).thenReturn(100);
+    Assert.assertSame(selector.select(record(0, null, 10)), producer0);
+    Assert.assertSame(selector.select(record(1, new byte[]{1}, 10)), producer1);
+    Assert.assertSame(selector.select(record(5, null, 10)), producers.get(0));
+    Assert.assertSame(selector.select(record(0, null, 10)), producer0);
+  }
+
+  @Test
+  public void testLeastLoadedUnpartitioned() {
+    List<KafkaProducerWrapper<byte[], byte[]>> producers = createProducers(4);
+    KafkaProducerSelector selector = new LeastLoadedProducerSelector(producers, 100);
+
+    // Keyed records always go through the same producer
+    byte[] key = "key".getBytes();
+    KafkaProducerWrapper<byte[], byte[]> keyProducer = selector.select(record(null, key, 10));
+    for (int i = 0; i < 20; i++) {
+      Assert.assertSame(selector.select(record(null, key, 10)), keyProducer);
+    }
+
+    // Keyless records stick to a producer for 100 bytes, then move on to the other (equally loaded) producers
+    List<KafkaProducerWrapper<byte[], byte[]>> selected = new ArrayList<>();
+    for (int i = 0; i < 40; i++) {
+      selected.add(selector.select(record(null, null, 10)));
+    }
+    Set<KafkaProducerWrapper<byte[], byte[]>> distinct = new HashSet<>();
+    for (int i = 0; i < 40; i += 10) {
+      for (int j = i; j < i + 10; j++) {
+        Assert.assertSame(selected.get(j), selected.get(i));
+      }
+      distinct.add(selected.get(i));
+    }
+    Assert.assertEquals(distinct.size(), 4);
+
+    // unless one of them is busier
+    when(producers.get(1).getInFlightCount()).thenReturn(1);
+    when(producers.get(2).getInFlightCount()).thenReturn(1);
+    when(producers.get(3).getInFlightCount()).thenReturn(1);
+    for (int i = 0; i < 40; i++) {
+      KafkaProducerWrapper<byte[], byte[]> producer = selector.select(record(null, null, 10));
+      if (i >= 10) {
+        Assert.assertSame(producer, producers.get(0));
+      }
+    }
+  }
+}
@@ -6,11 +6,15 @@
 package com.linkedin.datastream.kafka;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.kafka.clients.producer.Callback;
@@ -19,6 +23,7 @@ import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.common.errors.InterruptException;
 import org.apache.kafka.common.errors.TimeoutException;
+import org.mockito.ArgumentCaptor;
 import org.mockito.invocation.Invocation;
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -246,6 +251,103 @@ public class TestKafkaProducerWrapper {
     Assert.assertEquals(producerWrapper.getNumCreateKafkaProducerCalls(), 2);
   }
 
+  @Test
+  public void testSendFailureOfOlderGenerationDoesNotCloseNewProducer() throws Exception {
+    DynamicMetricsManager.createInstance(new MetricRegistry(), getClass().getSimpleName());
+    Properties transportProviderProperties = new Properties();
+    transportProviderProperties.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:1234");
+    transportProviderProperties.put(ProducerConfig.CLIENT_ID_CONFIG, "testClient");
+    transportProviderProperties.put(KafkaTransportProviderAdmin.ZK_CONNECT_STRING_CONFIG, "zk-connect-string");
+    transportProviderProperties.put(KafkaProducerWrapper.CFG_RATE_LIMITER_CFG, "10");
+    String topicName = "generation-topic";
+
+    MockKafkaProducerWrapper<byte[], byte[]> producerWrapper =
+        new MockKafkaProducerWrapper<>("log-suffix", transportProviderProperties, "metrics",
+            TimeoutException.class);
+
+    String destinationUri = "localhost:1234/" + topicName;
+    Datastream ds = DatastreamTestUtils.createDatastream("test", "ds1", "source", destinationUri, 1);
+    DatastreamTask task = new DatastreamTaskImpl(Collections.singletonList(ds));
+    ProducerRecord<byte[], byte[]> producerRecord = new ProducerRecord<>(topicName, null, null);
+    producerWrapper.assignTask(task);
+    Assert.assertEquals(producerWrapper.getProducerGeneration(), KafkaProducerWrapper.NO_GENERATION);
+
+    List<Exception> sendExceptions = new ArrayList<>();
+    producerWrapper.send(task, producerRecord, (metadata, exception) -> sendExceptions.add(exception));
+    long firstGeneration = producerWrapper.getProducerGeneration();
+    Producer<byte[], byte[]> firstProducer = producerWrapper.getMockProducer();
+    ArgumentCaptor<Callback> firstCallback = ArgumentCaptor.forClass(Callback.class);
+    verify(firstProducer).send(any(), firstCallback.capture());
+
+    // The first producer fails to flush and is replaced by the next send
+    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    executorService.submit(() -> Assert.assertThrows(TimeoutException.class, producerWrapper::flush)).get();
+    producerWrapper.send(task, producerRecord, (metadata, exception) -> sendExceptions.add(exception));
+    producerWrapper.verifyClose(0, 0, 1);
+    long secondGeneration = producerWrapper.getProducerGeneration();
+    Assert.assertTrue(secondGeneration > firstGeneration);
+    Assert.assertEquals(producerWrapper.getNumCreateKafkaProducerCalls(), 2);
+
+    // A send failure reported late by the first producer does not close the second one
+    firstCallback.getValue().onCompletion(null, new TimeoutException("late failure"));
+    Assert.assertEquals(sendExceptions.size(), 1);
+    Assert.assertTrue(sendExceptions.get(0) instanceof DatastreamRuntimeException);
+    Assert.assertEquals(producerWrapper.getProducerGeneration(), secondGeneration);
+    producerWrapper.verifyClose(0, 0, 2);
+
+    // while a send failure of the second producer does
+    ArgumentCaptor<Callback> secondCallback = ArgumentCaptor.forClass(Callback.class);
+    verify(producerWrapper.getMockProducer()).send(any(), secondCallback.capture());
+    secondCallback.getValue().onCompletion(null, new TimeoutException("failure"));
+    Assert.assertEquals(sendExceptions.size(), 2);
+    producerWrapper.verifyClose(1, 0, 3);
+    executorService.shutdown();
+  }
+
+  @Test
+  public void testConcurrentSendsCreateOneProducer() throws Exception {
+    DynamicMetricsManager.createInstance(new MetricRegistry(), getClass().getSimpleName());
+    Properties transportProviderProperties = new Properties();
+    transportProviderProperties.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:1234");
+    transportProviderProperties.put(ProducerConfig.CLIENT_ID_CONFIG, "testClient");
+    transportProviderProperties.put(KafkaTransportProviderAdmin.ZK_CONNECT_STRING_CONFIG, "zk-connect-string");
+    transportProviderProperties.put(KafkaProducerWrapper.CFG_RATE_LIMITER_CFG, "1");
+    String topicName = "concurrent-topic";
+
+    MockKafkaProducerWrapper<byte[], byte[]> producerWrapper =
+        new MockKafkaProducerWrapper<>("log-suffix", transportProviderProperties, "metrics",
+            TimeoutException.class);
+
+    String destinationUri = "localhost:1234/" + topicName;
+    Datastream ds = DatastreamTestUtils.createDatastream("test", "ds1", "source", destinationUri, 1);
+    DatastreamTask task = new DatastreamTaskImpl(Collections.singletonList(ds));
+    ProducerRecord<byte[], byte[]> producerRecord = new ProducerRecord<>(topicName, null, null);
+    producerWrapper.assignTask(task);
+
+    int numThreads = 8;
+    int numSends = 100;
+    ExecutorService executorService = Executors.newFixedThreadPool(numThreads);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < numThreads; i++) {
+      futures.add(executorService.submit(() -> {
+        start.await();
+        for (int j = 0; j < numSends; j++) {
+          producerWrapper.send(task, producerRecord, null);
+        }
+        return null;
+      }));
+    }
+    start.countDown();
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    executorService.shutdown();
+
+    Assert.assertEquals(producerWrapper.getNumCreateKafkaProducerCalls(), 1);
+    producerWrapper.verifySend(numThreads * numSends);
+  }
+
   private static class MockKafkaProducerWrapper<K, V> extends KafkaProducerWrapper<K, V> {
     private Class<? extends Throwable> _exceptionClass;
     private boolean _createKafkaProducerCalled;
@@ -276,8 +378,8 @@ public class TestKafkaProducerWrapper {
     }
 
     @Override
-    void shutdownProducer(boolean fastClose) {
-      super.shutdownProducer(fastClose);
+    void shutdownProducer(long generation, boolean fastClose) {
+      super.shutdownProducer(generation, fastClose);
       if (fastClose) {
         ++_numFastShutdownProducerCalls;
       } else {
@@ -310,5 +412,9 @@ public class TestKafkaProducerWrapper {
     public int getNumCreateKafkaProducerCalls() {
       return _numCreateKafkaProducerCalls;
     }
+
+    Producer<K, V> getMockProducer() {
+      return _mockProducer;
+    }
   }
 }
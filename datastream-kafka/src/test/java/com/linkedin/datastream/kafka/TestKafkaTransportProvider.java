@@ -280,6 +280,48 @@ public class TestKafkaTransportProvider extends BaseKafkaZkTest {
     Assert.assertNotNull(DynamicMetricsManager.getInstance().getMetric(producerCountMetricName));
   }
 
+  @Test
+  public void testSendBatch() throws Exception {
+    final int numberOfEvents = 10;
+    String topicName = getUniqueTopicName();
+
+    KafkaTransportProviderAdmin provider = new KafkaTransportProviderAdmin("test", _transportProviderProperties);
+
+    String destinationUri = provider.getDestination(null, topicName);
+
+    Datastream ds = DatastreamTestUtils.createDatastream("test", "ds1", "source", destinationUri, 1);
+
+    DatastreamTask task = new DatastreamTaskImpl(Collections.singletonList(ds));
+    TransportProvider transportProvider = provider.assignTransportProvider(task);
+    provider.createTopic(destinationUri, 1, new Properties(), ds);
+
+    List<DatastreamProducerRecord> datastreamEvents = createEvents(topicName, 0, numberOfEvents, true, true);
+
+    List<Integer> recordIndexList = Collections.synchronizedList(new ArrayList<>());
+    transportProvider.sendBatch(destinationUri, datastreamEvents, ((recordIndex, metadata, exception) -> {
+      Assert.assertNull(exception);
+      Assert.assertEquals(metadata.getCheckpoint(), datastreamEvents.get(recordIndex).getCheckpoint());
+      recordIndexList.add(recordIndex);
+    }));
+
+    // wait until all messages were acked, to ensure all events were successfully sent to the topic
+    Assert.assertTrue(PollUtils.poll(() -> recordIndexList.size() == numberOfEvents, 1000, 10000),
+        "Send callback was not called; likely topic was not created in time");
+
+    List<Integer> sortedIndexList = new ArrayList<>(recordIndexList);
+    Collections.sort(sortedIndexList);
+    for (int i = 0; i < numberOfEvents; ++i) {
+      Assert.assertEquals(sortedIndexList.get(i).intValue(), i);
+    }
+
+    Map<String, String> events = new HashMap<>();
+    KafkaTestUtils.readTopic(topicName, 0, _kafkaCluster.getBrokers(), (key, value) -> {
+      events.put(new String(key), new String(value));
+      return events.size() < numberOfEvents;
+    });
+    Assert.assertEquals(events.size(), numberOfEvents);
+  }
+
   @Test
   public void testBroadcastHappyPath() throws Exception {
     testEventSendOrBroadcast(1, 3, -1, true, true, "broadcast", true);
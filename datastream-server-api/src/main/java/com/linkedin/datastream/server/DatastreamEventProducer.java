@@ -5,6 +5,9 @@
  */
 package com.linkedin.datastream.server;
 
+import java.util.List;
+
+import com.linkedin.datastream.server.api.transport.BatchSendCallback;
 import com.linkedin.datastream.server.api.transport.DatastreamRecordMetadata;
 import com.linkedin.datastream.server.api.transport.SendCallback;
 
@@ -35,6 +38,25 @@ public interface DatastreamEventProducer {
    */
   void send(DatastreamProducerRecord event, SendCallback callback);
 
+  /**
+   * Send a batch of events onto the transport, in order. Producers can override this to amortize the per-send
+   * overhead across the batch; the default implementation sends the events one at a time.
+   *
+   * <p>
+   * The same callback is invoked for each event in the batch, along with the index of the event within the batch, and
+   * should be reasonably fast for the same reason as in send. If sending an event fails with an exception, the events
+   * preceding it in the batch may have been sent already and the remaining events are not sent.
+   *
+   * @param events events to send
+   * @param callback call back that needs to called when the send of each event completes.
+   */
+  default void sendBatch(List<DatastreamProducerRecord> events, BatchSendCallback callback) {
+    for (int i = 0; i < events.size(); i++) {
+      final int recordIndex = i;
+      send(events.get(i), (metadata, exception) -> callback.onCompletion(recordIndex, metadata, exception));
+    }
+  }
+
   /**
    * Flush the transport for the pending events. This can be a slow and heavy operation.
    * As such, it is not efficient to be invoked very frequently.
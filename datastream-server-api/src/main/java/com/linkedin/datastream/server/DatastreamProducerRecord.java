@@ -23,7 +23,9 @@ public class DatastreamProducerRecord {
   private final Optional<Integer> _partition;
   private final Optional<String> _partitionKey;
   private final Optional<String> _destination;
-  private final String _checkpoint;
+  // Typed source checkpoint, if the connector supplied one. The string form is only rendered from it on demand.
+  private final Comparable<?> _typedCheckpoint;
+  private String _checkpoint;
   private final long _eventsSourceTimestamp;
   private final boolean _isBroadcastRecord;
 
@@ -47,6 +49,12 @@ public class DatastreamProducerRecord {
 
   DatastreamProducerRecord(List<BrooklinEnvelope> events, Optional<Integer> partition, Optional<String> partitionKey,
       Optional<String> destination, String checkpoint, long eventsSourceTimestamp, boolean isBroadcastRecord) {
+    this(events, partition, partitionKey, destination, checkpoint, null, eventsSourceTimestamp, isBroadcastRecord);
+  }
+
+  DatastreamProducerRecord(List<BrooklinEnvelope> events, Optional<Integer> partition, Optional<String> partitionKey,
+      Optional<String> destination, String checkpoint, Comparable<?> typedCheckpoint, long eventsSourceTimestamp,
+      boolean isBroadcastRecord) {
     Validate.notNull(events, "null event");
     events.forEach((e) -> Validate.notNull(e, "null event"));
     Validate.isTrue(eventsSourceTimestamp > 0, "events source timestamp is invalid");
@@ -55,6 +63,7 @@ public class DatastreamProducerRecord {
     _partition = partition;
     _partitionKey = partitionKey;
     _checkpoint = checkpoint;
+    _typedCheckpoint = typedCheckpoint;
     _eventsSourceTimestamp = eventsSourceTimestamp;
     _destination = destination;
     _isBroadcastRecord = isBroadcastRecord;
@@ -144,13 +153,13 @@ public class DatastreamProducerRecord {
     }
     DatastreamProducerRecord record = (DatastreamProducerRecord) o;
     return Objects.equals(_partition, record._partition) && Objects.equals(_partitionKey, record._partitionKey)
-        && Objects.equals(_events, record._events) && Objects.equals(_checkpoint, record._checkpoint) &&
+        && Objects.equals(_events, record._events) && Objects.equals(getCheckpoint(), record.getCheckpoint()) &&
         Objects.equals(_destination, record._destination);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(_partition, _events, _checkpoint, _destination);
+    return Objects.hash(_partition, _events, getCheckpoint(), _destination);
   }
 
   /**
@@ -158,12 +167,37 @@ public class DatastreamProducerRecord {
    * This is required for checkpoint feature of the
    * event producer.
    *
+   * If the record was built with a typed checkpoint, its string representation is rendered on the first call.
+   *
    * @return string representation of source checkpoint
    */
   public String getCheckpoint() {
+    if (_checkpoint == null && _typedCheckpoint != null) {
+      _checkpoint = _typedCheckpoint.toString();
+    }
     return _checkpoint;
   }
 
+  /**
+   * Get the typed source checkpoint of the record, if one was set and it is of the given type. This lets connectors
+   * get their own checkpoint object back without a string round-trip.
+   */
+  public <T> Optional<T> getTypedCheckpoint(Class<T> checkpointClass) {
+    return checkpointClass.isInstance(_typedCheckpoint) ? Optional.of(checkpointClass.cast(_typedCheckpoint))
+        : Optional.empty();
+  }
+
+  /**
+   * Check whether the record has a source checkpoint, in either string or typed form
+   */
+  public boolean hasCheckpoint() {
+    return _checkpoint != null || _typedCheckpoint != null;
+  }
+
+  Comparable<?> getTypedCheckpoint() {
+    return _typedCheckpoint;
+  }
+
   public Optional<String> getPartitionKey() {
     return _partitionKey;
   }
@@ -26,6 +26,7 @@ public class DatastreamProducerRecordBuilder {
 
   private Optional<Integer> _partition = Optional.empty();
   private String _sourceCheckpoint = "";
+  private Comparable<?> _typedSourceCheckpoint = null;
   private final List<BrooklinEnvelope> _events = new ArrayList<>();
   private long _eventsSourceTimestamp;
   private Optional<String> _partitionKey = Optional.empty();
@@ -58,8 +59,23 @@ public class DatastreamProducerRecordBuilder {
     _destination = Optional.of(destination);
   }
 
+  /**
+   * Set the source checkpoint string. This overrides any typed source checkpoint set before.
+   */
   public void setSourceCheckpoint(String sourceCheckpoint) {
     _sourceCheckpoint = sourceCheckpoint;
+    _typedSourceCheckpoint = null;
+  }
+
+  /**
+   * Set a typed source checkpoint. The string checkpoint of the record is rendered from it with
+   * {@link Object#toString()} only when needed (e.g. when it is committed to the checkpoint provider). This overrides
+   * any source checkpoint string set before.
+   */
+  public void setTypedSourceCheckpoint(Comparable<?> sourceCheckpoint) {
+    Validate.notNull(sourceCheckpoint, "sourceCheckpoint cannot be null.");
+    _typedSourceCheckpoint = sourceCheckpoint;
+    _sourceCheckpoint = null;
   }
 
   /**
@@ -96,7 +112,7 @@ public class DatastreamProducerRecordBuilder {
    */
   public DatastreamProducerRecord build() {
     return new DatastreamProducerRecord(_events, _partition, _partitionKey, _destination, _sourceCheckpoint,
-        _eventsSourceTimestamp, _isBroadcastRecord);
+        _typedSourceCheckpoint, _eventsSourceTimestamp, _isBroadcastRecord);
   }
 
   /**
@@ -116,7 +132,11 @@ public class DatastreamProducerRecordBuilder {
     if (record.getDestination().isPresent()) {
       builder.setDestination(record.getDestination().get());
     }
-    builder.setSourceCheckpoint(record.getCheckpoint());
+    if (record.getTypedCheckpoint() != null) {
+      builder.setTypedSourceCheckpoint(record.getTypedCheckpoint());
+    } else {
+      builder.setSourceCheckpoint(record.getCheckpoint());
+    }
     builder.setEventsSourceTimestamp(record.getEventsSourceTimestamp());
     builder.setIsBroadcastRecord(record.isBroadcastRecord());
     return builder.build();
@@ -0,0 +1,52 @@
+/**
+ *  Copyright 2021 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.server;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+
+/**
+ * The throughput of the partitions of a datastream task, as measured by the task over a window ending at a given
+ * time. Tasks publish it as JSON in their ZooKeeper state, under {@link #STATE_KEY}, for the partition throughput
+ * providers to read.
+ */
+public class TaskThroughputStats {
+  public static final String STATE_KEY = "throughputStats";
+
+  private final long _timestampMs;
+  private final Map<String, Double> _bytesInKBRates;
+  private final Map<String, Double> _messagesInRates;
+
+  /**
+   * Creates an instance of {@link TaskThroughputStats}
+   * @param timestampMs Time (in milliseconds since epoch) at which the rates were measured
+   * @param bytesInKBRates A map, where the key is the partition name, and the value is its bytes in rate (in KB/sec)
+   * @param messagesInRates A map, where the key is the partition name, and the value is its messages in rate
+   */
+  @JsonCreator
+  public TaskThroughputStats(@JsonProperty("timestampMs") long timestampMs,
+      @JsonProperty("bytesInKBRates") Map<String, Double> bytesInKBRates,
+      @JsonProperty("messagesInRates") Map<String, Double> messagesInRates) {
+    _timestampMs = timestampMs;
+    _bytesInKBRates = bytesInKBRates;
+    _messagesInRates = messagesInRates;
+  }
+
+  public long getTimestampMs() {
+    return _timestampMs;
+  }
+
+  public Map<String, Double> getBytesInKBRates() {
+    return _bytesInKBRates;
+  }
+
+  public Map<String, Double> getMessagesInRates() {
+    return _messagesInRates;
+  }
+}
@@ -91,6 +91,23 @@ public interface AssignmentStrategy {
     throw new NotImplementedException("movePartitions are not implemented");
   }
 
+  /**
+   * Move already-assigned partitions of a datastream group between its tasks, to even out their load. It is called
+   * periodically by the leader Coordinator, if partition rebalancing is enabled, and should move a bounded number of
+   * partitions, as each move pauses the consumption of the partition.
+   *
+   * It returns a map from instance -> tasks map with partition info stored in the task.
+   *
+   * @param currentAssignment the old assignment, it is a mapping from instance name -> datastream task. The mapping
+   *                          should cover all datastream groups across all instances
+   * @param partitionsMetadata the subscribed partitions metadata received from connector
+   * @return new assignment, which is the current assignment if no partition is moved
+   */
+  default Map<String, Set<DatastreamTask>> rebalancePartitions(Map<String, Set<DatastreamTask>> currentAssignment,
+      DatastreamGroupPartitionsMetadata partitionsMetadata) {
+    return currentAssignment;
+  }
+
   /**
    * Validate the current assignment and return the list of DatastreamTask per instance to be cleaned up.
    *
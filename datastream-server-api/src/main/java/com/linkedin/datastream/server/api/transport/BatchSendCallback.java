@@ -0,0 +1,26 @@
+/**
+ *  Copyright 2019 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.server.api.transport;
+
+/**
+ * Callback interface to listen to the completion of the sends issued by
+ * {@link TransportProvider#sendBatch(String, java.util.List, BatchSendCallback)}. A single instance is shared by all
+ * the records of the batch, which are identified by their index within the batch.
+ */
+@FunctionalInterface
+public interface BatchSendCallback {
+
+  /**
+   * Callback method that needs to be called when the send of an event of the batch completes
+   * @param recordIndex
+   *   Index of the record within the batch that the completed event belongs to
+   * @param metadata
+   *   Metadata of the Datastream record that got sent. Could be null if an exception occurred based on the transport
+   * @param exception
+   *   null if the send succeeded, Contains the exception if the send failed.
+   */
+  void onCompletion(int recordIndex, DatastreamRecordMetadata metadata, Exception exception);
+}
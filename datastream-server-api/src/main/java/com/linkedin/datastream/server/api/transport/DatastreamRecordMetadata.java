@@ -6,6 +6,9 @@
 package com.linkedin.datastream.server.api.transport;
 
 import java.util.List;
+import java.util.Optional;
+
+import com.linkedin.datastream.server.DatastreamProducerRecord;
 
 
 /**
@@ -15,7 +18,9 @@ public class DatastreamRecordMetadata {
 
   private final String _topic;
   private final int _partition;
-  private final String _checkpoint;
+  private String _checkpoint;
+  // Typed checkpoint of the produced record the checkpoint is lazily rendered from, if it carries one
+  private final Comparable<?> _typedCheckpoint;
   private final int _eventIndex;
   private final int _sourcePartition;
 
@@ -33,6 +38,7 @@ public class DatastreamRecordMetadata {
    */
   public DatastreamRecordMetadata(String checkpoint, String topic, int partition) {
     _checkpoint = checkpoint;
+    _typedCheckpoint = null;
     _topic = topic;
     _partition = partition;
     _eventIndex = 0;
@@ -53,6 +59,31 @@ public class DatastreamRecordMetadata {
    */
   public DatastreamRecordMetadata(String checkpoint, String topic, int partition, int eventIndex, int sourcePartition) {
     _checkpoint = checkpoint;
+    _typedCheckpoint = null;
+    _topic = topic;
+    _partition = partition;
+    _eventIndex = eventIndex;
+    _sourcePartition = sourcePartition;
+    _isBroadcastRecord = false;
+    _sentToPartitions = null;
+    _partitionCount = -1;
+    _isMessageSerializationError = false;
+  }
+
+  /**
+   * Construct an instance of DatastreamRecordMetadata for a produced record. Only the source checkpoint of the record
+   * is kept, and if it is a typed checkpoint, the checkpoint string is only rendered if {@link #getCheckpoint()} is
+   * called.
+   * @param record the produced record
+   * @param topic Kafka topic name
+   * @param partition Destination Kafka topic partition
+   * @param eventIndex Index of event within {@link com.linkedin.datastream.server.DatastreamProducerRecord}
+   * @param sourcePartition Source Kafka topic partition
+   */
+  public DatastreamRecordMetadata(DatastreamProducerRecord record, String topic, int partition, int eventIndex,
+      int sourcePartition) {
+    _typedCheckpoint = record.getTypedCheckpoint(Comparable.class).orElse(null);
+    _checkpoint = _typedCheckpoint == null ? record.getCheckpoint() : null;
     _topic = topic;
     _partition = partition;
     _eventIndex = eventIndex;
@@ -75,6 +106,7 @@ public class DatastreamRecordMetadata {
   public DatastreamRecordMetadata(String checkpoint, String topic, List<Integer> sentToPartitions,
       boolean isBroadcastRecord, int partitionCount) {
     _checkpoint = checkpoint;
+    _typedCheckpoint = null;
     _topic = topic;
     _sourcePartition = -1;
     _sentToPartitions = sentToPartitions;
@@ -92,6 +124,7 @@ public class DatastreamRecordMetadata {
    */
   public DatastreamRecordMetadata(boolean isMessageSerializationError) {
     _checkpoint = null;
+    _typedCheckpoint = null;
     _topic = null;
     _sourcePartition = -1;
     _sentToPartitions = null;
@@ -106,9 +139,20 @@ public class DatastreamRecordMetadata {
    * Source checkpoint of the produced record.
    */
   public String getCheckpoint() {
+    if (_checkpoint == null && _typedCheckpoint != null) {
+      _checkpoint = _typedCheckpoint.toString();
+    }
     return _checkpoint;
   }
 
+  /**
+   * Typed source checkpoint of the produced record, if it carries one of the given type.
+   */
+  public <T> Optional<T> getTypedCheckpoint(Class<T> checkpointClass) {
+    return checkpointClass.isInstance(_typedCheckpoint) ? Optional.of(checkpointClass.cast(_typedCheckpoint))
+        : Optional.empty();
+  }
+
   /**
    * Partition number to which the record was produced to.
    */
@@ -141,7 +185,7 @@ public class DatastreamRecordMetadata {
   @Override
   public String toString() {
     return String.format("Checkpoint: %s, Topic: %s, Destination Partition: %d, Event Index: %d, Source Partition: %d",
-        _checkpoint, _topic, _partition, _eventIndex, _sourcePartition);
+        getCheckpoint(), _topic, _partition, _eventIndex, _sourcePartition);
   }
 
   public boolean isBroadcastRecord() {
@@ -5,6 +5,8 @@
  */
 package com.linkedin.datastream.server.api.transport;
 
+import java.util.List;
+
 import com.linkedin.datastream.server.DatastreamProducerRecord;
 
 
@@ -29,6 +31,29 @@ public interface TransportProvider {
    */
   void send(String destination, DatastreamProducerRecord record, SendCallback onComplete);
 
+  /**
+   * Send a batch of DatastreamEvents to the topic, in order. Transport providers can override this to amortize the
+   * per-send overhead (e.g. metrics updates) across the batch; the default implementation sends the records one at
+   * a time.
+   *
+   * <p>
+   * If sending a record fails with an exception, the records preceding it in the batch may have been sent already
+   * and the remaining records are not sent. The same threading considerations as for
+   * {@link #send(String, DatastreamProducerRecord, SendCallback)} apply to the onComplete callback.
+   *
+   * @param destination the destination topic to which the records should be sent.
+   * @param records DatastreamEvents that need to be sent to the stream.
+   * @param onComplete call back that needs to called when the send of each event completes. It is shared by all the
+   *                   records in the batch and must be called for each event in each record.
+   */
+  default void sendBatch(String destination, List<DatastreamProducerRecord> records, BatchSendCallback onComplete) {
+    for (int i = 0; i < records.size(); i++) {
+      final int recordIndex = i;
+      send(destination, records.get(i), (metadata, exception) -> onComplete.onCompletion(recordIndex, metadata,
+          exception));
+    }
+  }
+
   /**
    * Closes the transport provider and its corresponding producer.
    */
@@ -0,0 +1,324 @@
+/**
+ *  Copyright 2021 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.server.callbackstatus;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Lock-free helper class to store the callback status of the inflight events with monotonically increasing
+ * {@code long} offsets (e.g. Kafka offsets).
+ *
+ * Registered offsets are appended to fixed-size chunks, each holding the offsets in a primitive array and the ack
+ * status in a bitmap. The in-flight chunks are kept in a ring indexed by their sequence numbers, which grows with the
+ * in-flight window. Acks can arrive out of order from any thread: an ack sets its bit and then tries to advance the
+ * low watermark (the sequence number of the oldest un-acked offset) with a CAS. The ack checkpoint is the offset
+ * right below the low watermark. Neither register nor ack boxes or takes any monitor.
+ *
+ * An ack finds its offset from the distance to the oldest in-flight offset, which is exact when the offsets are
+ * contiguous, making register/ack O(1) amortized. Offsets with gaps (e.g. compacted topics) fall back to binary
+ * searches of the in-flight chunks and of the offsets of the chunk, i.e. O(log(in-flight)).
+ *
+ * Assumptions:
+ * <ul>
+ *   <li>{@link #register(Long)} is called by a single thread with strictly increasing offsets; out-of-order
+ *   registrations are rejected.</li>
+ *   <li>Each registered offset is acked at most once.</li>
+ * </ul>
+ */
+public class CallbackStatusWithMonotonicLongOffsets extends CallbackStatus<Long> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(CallbackStatusWithMonotonicLongOffsets.class);
+
+  // Small enough to keep the per-partition footprint low, since there is one instance per source partition
+  static final int CHUNK_SIZE = 128;
+  private static final int CHUNK_SHIFT = Integer.numberOfTrailingZeros(CHUNK_SIZE);
+  private static final int INITIAL_RING_SIZE = 4;
+  private static final long NO_CHECKPOINT = Long.MIN_VALUE;
+
+  // Sequence number of the oldest registered offset that has not been retired (i.e. acked and passed by the watermark)
+  private final AtomicLong _head = new AtomicLong(0);
+  private final AtomicLong _ackedCount = new AtomicLong(0);
+  private final AtomicLong _currentCheckpoint = new AtomicLong(NO_CHECKPOINT);
+
+  // Sequence number of the next offset to register. Only written by the registering thread; the volatile write
+  // publishes the offset stored in the chunk to the ack threads.
+  private volatile long _tail = 0;
+  // The in-flight chunks, the chunk of sequence number seq being at index (seq >>> CHUNK_SHIFT) modulo the length.
+  // Only replaced by the registering thread, which publishes the chunks stored in it with the volatile write of _tail.
+  private volatile Chunk[] _chunks = new Chunk[INITIAL_RING_SIZE];
+  private Chunk _tailChunk;
+  private long _lastRegistered = NO_CHECKPOINT;
+
+  /**
+   * Constructor for CallbackStatusWithMonotonicLongOffsets
+   */
+  public CallbackStatusWithMonotonicLongOffsets() {
+    _tailChunk = new Chunk(0);
+    _chunks[0] = _tailChunk;
+  }
+
+  /**
+   * Get the latest checkpoint to be acked
+   * @return the largest offset such that it and all the offsets registered before it have been acked, or null if no
+   * such offset exists yet
+   */
+  @Override
+  public Long getAckCheckpoint() {
+    long checkpoint = _currentCheckpoint.get();
+    return checkpoint == NO_CHECKPOINT ? null : checkpoint;
+  }
+
+  /**
+   * Get the count of the records which are in flight
+   */
+  @Override
+  public long getInFlightCount() {
+    return Math.max(0, _tail - _ackedCount.get());
+  }
+
+  /**
+   * Get the count of the records which are all acked from the producer but not yet reflected in the checkpoint
+   */
+  @Override
+  public long getAckMessagesPastCheckpointCount() {
+    return Math.max(0, _ackedCount.get() - _head.get());
+  }
+
+  /**
+   * Registers the given checkpoint by appending it to the in-flight window.
+   * @param checkpoint is the offset of the record about to be sent
+   */
+  @Override
+  public void register(Long checkpoint) {
+    register(checkpoint.longValue());
+  }
+
+  /**
+   * Primitive variant of {@link #register(Long)}
+   */
+  public void register(long checkpoint) {
+    if (checkpoint <= _lastRegistered) {
+      LOG.error("Internal state error; checkpoint {} registered after checkpoint {}", checkpoint, _lastRegistered);
+      return;
+    }
+    long seq = _tail;
+    int index = (int) (seq - _tailChunk._baseSeq);
+    if (index == CHUNK_SIZE) {
+      Chunk next = new Chunk(seq);
+      long chunkNumber = seq >>> CHUNK_SHIFT;
+      long headChunkNumber = _head.get() >>> CHUNK_SHIFT;
+      Chunk[] chunks = _chunks;
+      if (chunkNumber - headChunkNumber >= chunks.length) {
+        chunks = growRing(chunks, headChunkNumber, chunkNumber);
+        _chunks = chunks;
+      }
+      // the chunk previously at this index is retired, so the acks no longer look it up
+      chunks[ringIndex(chunks, chunkNumber)] = next;
+      _tailChunk = next;
+      index = 0;
+    }
+    _tailChunk._offsets[index] = checkpoint;
+    _lastRegistered = checkpoint;
+    _tail = seq + 1;
+  }
+
+  /**
+   * The checkpoint acknowledgement can be received out of order. The ack bit of the checkpoint is set, and the
+   * ackCheckpoint is only moved past checkpoints whose preceding checkpoints have all been acked.
+   */
+  @Override
+  public void ack(Long checkpoint) {
+    ack(checkpoint.longValue());
+  }
+
+  /**
+   * Primitive variant of {@link #ack(Long)}
+   */
+  public void ack(long checkpoint) {
+    // the chunks are read after the tail and before the head, so that they hold every in-flight offset
+    long tail = _tail;
+    Chunk[] chunks = _chunks;
+    long head = _head.get();
+    if (head < tail) {
+      Chunk chunk = findChunk(chunks, head >>> CHUNK_SHIFT, (tail - 1) >>> CHUNK_SHIFT, checkpoint);
+      if (chunk != null) {
+        int index = findOffset(chunk._offsets, (int) Math.min(CHUNK_SIZE, tail - chunk._baseSeq), checkpoint);
+        if (index >= 0) {
+          if (!chunk.setAcked(index)) {
+            LOG.error("Internal state error; checkpoint {} acked more than once", checkpoint);
+            return;
+          }
+          _ackedCount.incrementAndGet();
+          advanceWatermark();
+          return;
+        }
+      }
+    }
+    LOG.error("Internal state error; could not find in-flight checkpoint {}", checkpoint);
+  }
+
+  /**
+   * Retire acked offsets from the head of the in-flight window. Any ack thread may advance the watermark; an ack
+   * that loses the CAS race leaves the work to the winner, which re-checks the next sequence number.
+   */
+  private void advanceWatermark() {
+    while (true) {
+      long head = _head.get();
+      if (head >= _tail) {
+        return;
+      }
+      Chunk chunk = getChunk(_chunks, head >>> CHUNK_SHIFT);
+      if (chunk == null) {
+        // someone else moved the head past this chunk already
+        continue;
+      }
+      int index = (int) (head - chunk._baseSeq);
+      if (!chunk.isAcked(index)) {
+        // the oldest offset is in flight
+        return;
+      }
+      if (_head.compareAndSet(head, head + 1)) {
+        long offset = chunk._offsets[index];
+        _currentCheckpoint.accumulateAndGet(offset, Math::max);
+      }
+    }
+  }
+
+  /**
+   * Copy the in-flight chunks to a ring large enough to hold the given chunk
+   */
+  private static Chunk[] growRing(Chunk[] chunks, long headChunkNumber, long chunkNumber) {
+    int length = chunks.length;
+    while (chunkNumber - headChunkNumber >= length) {
+      length <<= 1;
+    }
+    Chunk[] grown = new Chunk[length];
+    for (long number = headChunkNumber; number < chunkNumber; number++) {
+      grown[ringIndex(grown, number)] = chunks[ringIndex(chunks, number)];
+    }
+    return grown;
+  }
+
+  private static int ringIndex(Chunk[] chunks, long chunkNumber) {
+    return (int) (chunkNumber & (chunks.length - 1));
+  }
+
+  /**
+   * Get the chunk of the given number from the ring
+   * @return the chunk, or null if it was retired and its index reused
+   */
+  private static Chunk getChunk(Chunk[] chunks, long chunkNumber) {
+    Chunk chunk = chunks[ringIndex(chunks, chunkNumber)];
+    return chunk != null && chunk._baseSeq >>> CHUNK_SHIFT == chunkNumber ? chunk : null;
+  }
+
+  /**
+   * Find the chunk which holds the given offset among the in-flight chunks
+   * @param chunks the ring of chunks
+   * @param firstChunkNumber the number of the chunk of the oldest in-flight offset
+   * @param lastChunkNumber the number of the chunk of the newest in-flight offset
+   * @param checkpoint the offset to look up
+   * @return the chunk, or null if the offset is not in flight
+   */
+  private static Chunk findChunk(Chunk[] chunks, long firstChunkNumber, long lastChunkNumber, long checkpoint) {
+    // The offsets strictly increase, so an offset is at most as many sequence numbers past the first offset of a
+    // chunk as their distance, which is an upper bound of its chunk number, and its exact chunk number when the
+    // offsets are contiguous.
+    long upperChunkNumber = lastChunkNumber;
+    Chunk firstChunk = getChunk(chunks, firstChunkNumber);
+    if (firstChunk != null) {
+      if (checkpoint < firstChunk._offsets[0]) {
+        return null;
+      }
+      long distance = (checkpoint - firstChunk._offsets[0]) >>> CHUNK_SHIFT;
+      if (distance < lastChunkNumber - firstChunkNumber) {
+        upperChunkNumber = firstChunkNumber + distance;
+      }
+    }
+    Chunk chunk = getChunk(chunks, upperChunkNumber);
+    if (chunk != null && chunk._offsets[0] <= checkpoint) {
+      return chunk;
+    }
+
+    // binary search of the last chunk starting at or before the offset
+    Chunk found = null;
+    long low = firstChunkNumber;
+    long high = upperChunkNumber - 1;
+    while (low <= high) {
+      long mid = (low + high) >>> 1;
+      chunk = getChunk(chunks, mid);
+      // a retired chunk only holds offsets older than the in-flight offset looked up
+      if (chunk == null || chunk._offsets[0] <= checkpoint) {
+        found = chunk != null ? chunk : found;
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Find the index of the given offset among the offsets of a chunk, directly if the offsets up to it are contiguous
+   * @return the index, or -1 if it is not registered
+   */
+  private static int findOffset(long[] offsets, int size, long key) {
+    long distance = key - offsets[0];
+    if (distance >= 0 && distance < size && offsets[(int) distance] == key) {
+      return (int) distance;
+    }
+    return binarySearch(offsets, size, key);
+  }
+
+  private static int binarySearch(long[] offsets, int size, long key) {
+    int low = 0;
+    int high = size - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      long value = offsets[mid];
+      if (value < key) {
+        low = mid + 1;
+      } else if (value > key) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * A fixed-size window of registered offsets along with their ack bitmap
+   */
+  private static final class Chunk {
+    private final long _baseSeq;
+    private final long[] _offsets = new long[CHUNK_SIZE];
+    private final AtomicLongArray _ackBits = new AtomicLongArray(CHUNK_SIZE / Long.SIZE);
+
+    Chunk(long baseSeq) {
+      _baseSeq = baseSeq;
+    }
+
+    /**
+     * Set the ack bit at the given index
+     * @return false if the bit was already set
+     */
+    boolean setAcked(int index) {
+      long mask = 1L << (index & (Long.SIZE - 1));
+      long previous = _ackBits.getAndAccumulate(index >>> 6, mask, (current, bit) -> current | bit);
+      return (previous & mask) == 0;
+    }
+
+    boolean isAcked(int index) {
+      return (_ackBits.get(index >>> 6) & (1L << (index & (Long.SIZE - 1)))) != 0;
+    }
+  }
+}
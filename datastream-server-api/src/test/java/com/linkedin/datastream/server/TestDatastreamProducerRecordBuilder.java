@@ -43,6 +43,29 @@ public class TestDatastreamProducerRecordBuilder {
     Assert.assertEquals(record.getEventsSourceTimestamp(), timestamp);
   }
 
+  @Test
+  public void testBuilderWithTypedSourceCheckpoint() {
+    DatastreamProducerRecordBuilder builder = new DatastreamProducerRecordBuilder();
+    builder.addEvent(createDatastreamEvent());
+    builder.setEventsSourceTimestamp(System.currentTimeMillis());
+    builder.setTypedSourceCheckpoint(42L);
+
+    DatastreamProducerRecord record = builder.build();
+    Assert.assertTrue(record.hasCheckpoint());
+    Assert.assertEquals(record.getTypedCheckpoint(Long.class).get(), Long.valueOf(42));
+    Assert.assertFalse(record.getTypedCheckpoint(String.class).isPresent());
+    Assert.assertEquals(record.getCheckpoint(), "42");
+
+    DatastreamProducerRecord copy = DatastreamProducerRecordBuilder.copyProducerRecord(record, 1);
+    Assert.assertEquals(copy.getTypedCheckpoint(Long.class).get(), Long.valueOf(42));
+
+    // Setting a string checkpoint afterwards overrides the typed checkpoint
+    builder.setSourceCheckpoint("checkpoint");
+    record = builder.build();
+    Assert.assertFalse(record.getTypedCheckpoint(Long.class).isPresent());
+    Assert.assertEquals(record.getCheckpoint(), "checkpoint");
+  }
+
   private BrooklinEnvelope createDatastreamEvent() {
     return new BrooklinEnvelope(new byte[0], new byte[0], null, new HashMap<>());
   }
@@ -7,12 +7,15 @@ package com.linkedin.datastream.server;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -21,8 +24,10 @@ import com.linkedin.datastream.common.BrooklinEnvelope;
 import com.linkedin.datastream.common.ReflectionUtils;
 import com.linkedin.datastream.server.api.transport.DatastreamRecordMetadata;
 import com.linkedin.datastream.server.api.transport.SendCallback;
+import com.linkedin.datastream.server.callbackstatus.CallbackStatus;
 import com.linkedin.datastream.server.callbackstatus.CallbackStatusFactory;
 import com.linkedin.datastream.server.callbackstatus.CallbackStatusWithComparableOffsetsFactory;
+import com.linkedin.datastream.server.callbackstatus.CallbackStatusWithMonotonicLongOffsetsFactory;
 import com.linkedin.datastream.server.callbackstatus.CallbackStatusWithNonComparableOffsetsFactory;
 
 import static com.linkedin.datastream.server.FlushlessEventProducerHandler.SourcePartition;
@@ -42,6 +47,9 @@ public class TestFlushlessEventProducerHandler {
   private static final CallbackStatusFactory<Long> OFFSET_CHECKPOINT_TRACKING_STRATEGY_WITH_COMPARABLE_OFFSETS =
       ReflectionUtils.createInstance(CallbackStatusWithComparableOffsetsFactory.class.getName());
 
+  private static final CallbackStatusFactory<Long> OFFSET_CHECKPOINT_TRACKING_STRATEGY_WITH_MONOTONIC_LONG_OFFSETS =
+      ReflectionUtils.createInstance(CallbackStatusWithMonotonicLongOffsetsFactory.class.getName());
+
   /**
    * Helper function to test the scenario of sending single record for both comparable and non comparable offsets
    * @param eventProducer is the interface for Connectors to send events to the designated destination
@@ -80,12 +88,38 @@ public class TestFlushlessEventProducerHandler {
     testSingleRecordWithGivenHandler(eventProducer, handler);
   }
 
+  @Test
+  public void testSingleRecordWithMonotonicLongOffsets() {
+    RandomEventProducer eventProducer = new RandomEventProducer();
+    FlushlessEventProducerHandler<Long> handler = new FlushlessEventProducerHandler<>(eventProducer,
+        OFFSET_CHECKPOINT_TRACKING_STRATEGY_WITH_MONOTONIC_LONG_OFFSETS);
+    testSingleRecordWithGivenHandler(eventProducer, handler);
+  }
+
   @Test
   public void testMultipleSendsWithComparableOffsets() {
     RandomEventProducer eventProducer = new RandomEventProducer();
     FlushlessEventProducerHandler<Long> handler =
         new FlushlessEventProducerHandler<>(eventProducer, OFFSET_CHECKPOINT_TRACKING_STRATEGY_WITH_COMPARABLE_OFFSETS);
+    testMultipleSendsWithGivenHandler(eventProducer, handler);
+  }
+
+  @Test
+  public void testMultipleSendsWithMonotonicLongOffsets() {
+    RandomEventProducer eventProducer = new RandomEventProducer();
+    FlushlessEventProducerHandler<Long> handler = new FlushlessEventProducerHandler<>(eventProducer,
+        OFFSET_CHECKPOINT_TRACKING_STRATEGY_WITH_MONOTONIC_LONG_OFFSETS);
+    testMultipleSendsWithGivenHandler(eventProducer, handler);
+  }
 
+  /**
+   * Helper function to test the scenario of sending multiple records to multiple partitions and validating that the
+   * ack checkpoint never passes the smallest pending checkpoint
+   * @param eventProducer is the interface for Connectors to send events to the designated destination
+   * @param handler is the flushless producer handler that does offset checkpoint management
+   */
+  private void testMultipleSendsWithGivenHandler(RandomEventProducer eventProducer,
+      FlushlessEventProducerHandler<Long> handler) {
     // Send 1000 messages to 10 partitions
     for (int i = 0; i < 10; i++) {
       SourcePartition tp = new SourcePartition(TOPIC, i);
@@ -223,6 +257,14 @@ public class TestFlushlessEventProducerHandler {
     testOutOfOrderAckForGivenHandler(eventProducer, handler);
   }
 
+  @Test
+  public void testOutOfOrderAckForMonotonicLongOffsets() {
+    RandomEventProducer eventProducer = new RandomEventProducer();
+    FlushlessEventProducerHandler<Long> handler = new FlushlessEventProducerHandler<>(eventProducer,
+        OFFSET_CHECKPOINT_TRACKING_STRATEGY_WITH_MONOTONIC_LONG_OFFSETS);
+    testOutOfOrderAckForGivenHandler(eventProducer, handler);
+  }
+
   @Test
   public void testOutOfOrderAckForNonComparableOffsets() {
     RandomEventProducer eventProducer = new RandomEventProducer();
@@ -276,6 +318,100 @@ public class TestFlushlessEventProducerHandler {
     testBackwardsOrderAckWithGivenHandler(eventProducer, handler);
   }
 
+  @Test
+  public void testBackwardsOrderAckWithMonotonicLongOffsets() {
+    RandomEventProducer eventProducer = new RandomEventProducer();
+    FlushlessEventProducerHandler<Long> handler = new FlushlessEventProducerHandler<>(eventProducer,
+        OFFSET_CHECKPOINT_TRACKING_STRATEGY_WITH_MONOTONIC_LONG_OFFSETS);
+    testBackwardsOrderAckWithGivenHandler(eventProducer, handler);
+  }
+
+  @Test
+  public void testConcurrentAcksWithMonotonicLongOffsets() throws Exception {
+    CallbackStatus<Long> status =
+        OFFSET_CHECKPOINT_TRACKING_STRATEGY_WITH_MONOTONIC_LONG_OFFSETS.createCallbackStatusStrategy();
+    int numThreads = 4;
+    int numOffsetsPerThread = 10000;
+    List<List<Long>> offsetsPerThread = new ArrayList<>();
+    for (int i = 0; i < numThreads; i++) {
+      offsetsPerThread.add(new ArrayList<>());
+    }
+    // Offsets with gaps, as with compacted topics
+    for (long i = 0; i < numThreads * numOffsetsPerThread; i++) {
+      status.register(i * 3);
+      offsetsPerThread.get(RANDOM.nextInt(numThreads)).add(i * 3);
+    }
+
+    List<Thread> threads = new ArrayList<>();
+    for (List<Long> offsets : offsetsPerThread) {
+      Collections.shuffle(offsets);
+      threads.add(new Thread(() -> offsets.forEach(status::ack)));
+    }
+    threads.forEach(Thread::start);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    Assert.assertEquals(status.getInFlightCount(), 0);
+    Assert.assertEquals(status.getAckMessagesPastCheckpointCount(), 0);
+    Assert.assertEquals(status.getAckCheckpoint(), Long.valueOf((numThreads * numOffsetsPerThread - 1) * 3L));
+  }
+
+  @Test
+  public void testAcksConcurrentWithRegistrationsWithMonotonicLongOffsets() throws Exception {
+    CallbackStatus<Long> status =
+        OFFSET_CHECKPOINT_TRACKING_STRATEGY_WITH_MONOTONIC_LONG_OFFSETS.createCallbackStatusStrategy();
+    int numThreads = 4;
+    int numOffsets = 100000;
+    BlockingQueue<Long> inFlight = new LinkedBlockingQueue<>();
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < numThreads; i++) {
+      threads.add(new Thread(() -> {
+        List<Long> batch = new ArrayList<>();
+        try {
+          while (true) {
+            batch.clear();
+            batch.add(inFlight.take());
+            inFlight.drainTo(batch, 1000);
+            // acks arrive out of order within a batch, while the window slides and grows with the registrations
+            Collections.shuffle(batch);
+            for (Long offset : batch) {
+              if (offset < 0) {
+                return;
+              }
+              status.ack(offset);
+            }
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }));
+    }
+    threads.forEach(Thread::start);
+
+    // Contiguous offsets with an occasional gap
+    long offset = 0;
+    for (int i = 0; i < numOffsets; i++) {
+      offset += RANDOM.nextInt(100) == 0 ? 1000 : 1;
+      status.register(offset);
+      inFlight.add(offset);
+    }
+    // stop the ack threads once they have drained the queue
+    for (int i = 0; i < numThreads; i++) {
+      while (!inFlight.isEmpty()) {
+        Thread.sleep(10);
+      }
+      inFlight.add(-1L);
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    Assert.assertEquals(status.getInFlightCount(), 0);
+    Assert.assertEquals(status.getAckMessagesPastCheckpointCount(), 0);
+    Assert.assertEquals(status.getAckCheckpoint(), Long.valueOf(offset));
+  }
+
   private void sendEvent(SourcePartition tp, FlushlessEventProducerHandler<Long> handler, long checkpoint) {
     DatastreamProducerRecord record = getDatastreamProducerRecord(checkpoint, tp.getKey(), tp.getValue());
     handler.send(record, tp.getSource(), tp.getPartition(), checkpoint, null);
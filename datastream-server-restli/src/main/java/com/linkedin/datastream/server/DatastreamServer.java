@@ -40,6 +40,7 @@ import com.linkedin.datastream.common.zk.ZkClient;
 import com.linkedin.datastream.metrics.BrooklinMetricInfo;
 import com.linkedin.datastream.metrics.DynamicMetricsManager;
 import com.linkedin.datastream.metrics.JmxReporterFactory;
+import com.linkedin.datastream.metrics.MetricsBackend;
 import com.linkedin.datastream.server.api.connector.Connector;
 import com.linkedin.datastream.server.api.connector.ConnectorFactory;
 import com.linkedin.datastream.server.api.connector.DatastreamDeduper;
@@ -69,6 +70,7 @@ import static com.linkedin.datastream.server.DatastreamServerConfigurationConsta
 import static com.linkedin.datastream.server.DatastreamServerConfigurationConstants.CONFIG_ENABLE_EMBEDDED_JETTY;
 import static com.linkedin.datastream.server.DatastreamServerConfigurationConstants.CONFIG_FACTORY_CLASS_NAME;
 import static com.linkedin.datastream.server.DatastreamServerConfigurationConstants.CONFIG_HTTP_PORT;
+import static com.linkedin.datastream.server.DatastreamServerConfigurationConstants.CONFIG_METRICS_BACKEND;
 import static com.linkedin.datastream.server.DatastreamServerConfigurationConstants.CONFIG_SERDE_NAMES;
 import static com.linkedin.datastream.server.DatastreamServerConfigurationConstants.CONFIG_SERDE_PREFIX;
 import static com.linkedin.datastream.server.DatastreamServerConfigurationConstants.CONFIG_TRANSPORT_PROVIDER_NAMES;
@@ -134,6 +136,11 @@ public class DatastreamServer {
     _properties = properties;
     VerifiableProperties verifiableProperties = new VerifiableProperties(_properties);
 
+    // Set up the metrics backend before any of the components below create their metrics
+    String metricsBackend = verifiableProperties.getString(CONFIG_METRICS_BACKEND, MetricsBackend.CODAHALE.name());
+    DynamicMetricsManager.getInstance()
+        .setMetricsBackend(MetricsBackend.valueOf(metricsBackend.toUpperCase(Locale.ROOT)));
+
     HashSet<String> connectorTypes = new HashSet<>(verifiableProperties.getStringList(CONFIG_CONNECTOR_NAMES,
         Collections.emptyList()));
     if (connectorTypes.size() == 0) {
@@ -95,6 +95,7 @@ import static org.mockito.Mockito.anyLong;
 import static org.mockito.Mockito.anyObject;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.spy;
@@ -2186,6 +2187,21 @@ public class TestCoordinator {
   //
   @Test
   public void testSimpleAssignmentStrategyIndependent() throws Exception {
+    testSimpleAssignmentStrategyIndependent(new Properties());
+  }
+
+  //
+  // Same as testSimpleAssignmentStrategyIndependent, with the assignments of the connector types
+  // computed one after the other on the event thread instead of in parallel
+  //
+  @Test
+  public void testSimpleAssignmentStrategyIndependentWithoutParallelism() throws Exception {
+    Properties override = new Properties();
+    override.put(CoordinatorConfig.CONFIG_ASSIGNMENT_PARALLELISM, "1");
+    testSimpleAssignmentStrategyIndependent(override);
+  }
+
+  private void testSimpleAssignmentStrategyIndependent(Properties override) throws Exception {
     String testCluster = "testSimpleAssignmentStrategy";
     String connectorType1 = "ConnectorType1";
     String connectorType2 = "ConnectorType2";
@@ -2199,7 +2215,7 @@ public class TestCoordinator {
     // setup a cluster with 2 live instances with simple assignment strategy,
     // each has two connectors
     //
-    Coordinator instance1 = createCoordinator(_zkConnectionString, testCluster);
+    Coordinator instance1 = createCoordinator(_zkConnectionString, testCluster, override);
     TestHookConnector connector1a = new TestHookConnector("connector1a", connectorType1);
     TestHookConnector connector1b = new TestHookConnector("connector1b", connectorType2);
     instance1.addConnector(connectorType1, connector1a, new LoadbalancingStrategy(), false, new SourceBasedDeduper(),
@@ -2208,7 +2224,7 @@ public class TestCoordinator {
         new SourceBasedDeduper(), null);
     instance1.start();
 
-    Coordinator instance2 = createCoordinator(_zkConnectionString, testCluster);
+    Coordinator instance2 = createCoordinator(_zkConnectionString, testCluster, override);
     TestHookConnector connector2a = new TestHookConnector("connector2a", connectorType1);
     TestHookConnector connector2b = new TestHookConnector("connector2b", connectorType2);
     instance2.addConnector(connectorType1, connector2a, new LoadbalancingStrategy(), false, new SourceBasedDeduper(),
@@ -2746,6 +2762,55 @@ public class TestCoordinator {
     zkClient.close();
   }
 
+  @Test
+  public void testCachedDatastreamReaderWatchesDatastreams() throws Exception {
+    String testCluster = "testCachedDatastreamReaderWatchesDatastreams";
+    ZkClient zkClient = new ZkClient(_zkConnectionString);
+    zkClient.ensurePath(KeyBuilder.datastreams(testCluster));
+    CachedDatastreamReader reader = new CachedDatastreamReader(new ZkClient(_zkConnectionString), testCluster);
+
+    // The added datastreams are cached without any flush
+    String[] streamNames = {"stream1", "stream2"};
+    Datastream[] streams =
+        DatastreamTestUtils.createAndStoreDatastreams(zkClient, testCluster, DummyConnector.CONNECTOR_TYPE,
+            streamNames);
+    Assert.assertTrue(PollUtils.poll(() -> reader.getAllDatastreams().size() == 2, 100, WAIT_TIMEOUT_MS));
+
+    // The groups are cached until the datastreams change
+    List<DatastreamGroup> datastreamGroups = reader.getDatastreamGroups();
+    Assert.assertEquals(datastreamGroups.size(), 2);
+    Assert.assertSame(reader.getDatastreamGroups(), datastreamGroups);
+
+    // The updated datastreams are read again without any invalidation
+    streams[1].getMetadata().put("owner", "foo222");
+    zkClient.writeData(KeyBuilder.datastream(testCluster, "stream2"), DatastreamUtils.toJSON(streams[1]));
+    Assert.assertTrue(PollUtils.poll(
+        () -> "foo222".equals(reader.getDatastream("stream2", false).getMetadata().get("owner")), 100,
+        WAIT_TIMEOUT_MS));
+    Assert.assertNotSame(reader.getDatastreamGroups(), datastreamGroups);
+
+    // Refreshing the cache keeps the snapshot when nothing changed
+    List<Datastream> allDatastreams = reader.getAllDatastreams();
+    reader.invalidateAllCache();
+    Assert.assertSame(reader.getAllDatastreams(), allDatastreams);
+
+    // The deleted datastreams are dropped, and are watched again once recreated
+    zkClient.deleteRecursively(KeyBuilder.datastream(testCluster, "stream1"));
+    Assert.assertTrue(PollUtils.poll(() -> reader.getAllDatastreamNames().equals(Collections.singletonList("stream2")),
+        100, WAIT_TIMEOUT_MS));
+    Assert.assertNull(reader.getDatastream("stream1", false));
+    DatastreamTestUtils.createAndStoreDatastreams(zkClient, testCluster, DummyConnector.CONNECTOR_TYPE, "stream1");
+    Assert.assertTrue(PollUtils.poll(() -> reader.getAllDatastreams().size() == 2, 100, WAIT_TIMEOUT_MS));
+    streams[0].getMetadata().put("owner", "foo111");
+    zkClient.writeData(KeyBuilder.datastream(testCluster, "stream1"), DatastreamUtils.toJSON(streams[0]));
+    Assert.assertTrue(PollUtils.poll(
+        () -> "foo111".equals(reader.getDatastream("stream1", false).getMetadata().get("owner")), 100,
+        WAIT_TIMEOUT_MS));
+
+    reader.getZkclient().close();
+    zkClient.close();
+  }
+
   @Test
   public void testPauseResumeSourcePartitions() throws Exception {
     String testCluster = "testCoordinatorHandleUpdateDatastream";
@@ -3052,6 +3117,47 @@ public class TestCoordinator {
     instance2.getDatastreamCache().getZkclient().close();
   }
 
+  @Test
+  public void testDatastreamInitializationIsRetriedAfterFailedUpdate() throws Exception {
+    String testCluster = "testDatastreamInitializationIsRetriedAfterFailedUpdate";
+    String testConnectorType = "testConnectorType";
+    String datastreamName = "datastream1";
+
+    Properties props = new Properties();
+    props.put(CoordinatorConfig.CONFIG_CLUSTER, testCluster);
+    props.put(CoordinatorConfig.CONFIG_ZK_ADDRESS, _zkConnectionString);
+    props.put(CoordinatorConfig.CONFIG_ZK_SESSION_TIMEOUT, String.valueOf(ZkClient.DEFAULT_SESSION_TIMEOUT));
+    props.put(CoordinatorConfig.CONFIG_ZK_CONNECTION_TIMEOUT, String.valueOf(ZkClient.DEFAULT_CONNECTION_TIMEOUT));
+
+    ZkClient zkClient = new ZkClient(_zkConnectionString);
+    Coordinator coordinator =
+        new TestCoordinatorWithSpyZkAdapter(new CachedDatastreamReader(new ZkClient(_zkConnectionString), testCluster),
+            props);
+    coordinator.addTransportProvider(DummyTransportProviderAdminFactory.PROVIDER_NAME,
+        new DummyTransportProviderAdminFactory().createTransportProviderAdmin(
+            DummyTransportProviderAdminFactory.PROVIDER_NAME, new Properties()));
+    TestHookConnector connector = new TestHookConnector("connector1", testConnectorType);
+    coordinator.addConnector(testConnectorType, connector, new BroadcastStrategy(Optional.empty()), false,
+        new SourceBasedDeduper(), null);
+
+    // The first write of the initialized datastream fails
+    ZkAdapter spyZkAdapter = coordinator.getZkAdapter();
+    doReturn(false).doCallRealMethod().when(spyZkAdapter).updateDatastream(anyObject());
+    coordinator.start();
+
+    DatastreamTestUtils.createAndStoreDatastreams(zkClient, testCluster, testConnectorType, datastreamName);
+
+    // The retry initializes the datastream again, rather than the copy the failed write was for
+    Assert.assertTrue(PollUtils.poll(() -> DatastreamTestUtils.getDatastream(zkClient, testCluster, datastreamName)
+        .getStatus() == DatastreamStatus.READY, 100, WAIT_TIMEOUT_MS));
+    verify(spyZkAdapter, times(2)).updateDatastream(anyObject());
+    assertConnectorAssignment(connector, WAIT_TIMEOUT_MS, datastreamName);
+
+    coordinator.stop();
+    coordinator.getDatastreamCache().getZkclient().close();
+    zkClient.close();
+  }
+
   @Test
   public void testOnSessionExpired() throws Exception {
     testOnSessionExpired(false);
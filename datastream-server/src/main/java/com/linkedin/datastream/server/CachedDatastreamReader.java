@@ -7,21 +7,24 @@ package com.linkedin.datastream.server;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
 
+import org.apache.helix.zookeeper.zkclient.IZkChildListener;
+import org.apache.helix.zookeeper.zkclient.IZkDataListener;
 import org.apache.helix.zookeeper.zkclient.exception.ZkNoNodeException;
+import org.apache.zookeeper.data.Stat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.annotations.VisibleForTesting;
 
 import com.linkedin.datastream.common.Datastream;
+import com.linkedin.datastream.common.DatastreamRuntimeException;
 import com.linkedin.datastream.common.DatastreamUtils;
 import com.linkedin.datastream.common.zk.ZkClient;
 import com.linkedin.datastream.server.zk.KeyBuilder;
@@ -30,21 +33,32 @@ import com.linkedin.datastream.server.zk.KeyBuilder;
 /**
  * Class that maintains the cache of all the datastreams in the datastream cluster.
  *
- * List of all the datastream names are always kept up-to date (barring ZK watcher delay).
- * But the complete datastream objects are lazily read from ZooKeeper when they are
- * requested.
+ * The cache is an immutable snapshot of the datastream names, the datastreams and their groups, which is replaced
+ * (copy-on-write) whenever ZooKeeper reports a change, so the readers never block and never access ZooKeeper unless
+ * they ask for it. The snapshot is kept up-to-date (barring ZK watcher delay) incrementally: the list of datastream
+ * names is watched, and the znode of each datastream is watched, so that only the datastreams which are added or
+ * updated are read from ZooKeeper.
  *
- * Note: Caller of this class is expected to call invalidateAllCache for any datastream
- * update events such that any future datastream accesses will update the cached copies.
+ * Note: since the watches of this reader may be delivered after those of another ZooKeeper client, a caller notified
+ * of a datastream update by another client can call {@link #invalidateAllCache()} to make sure the following accesses
+ * see the update.
+ *
+ * The datastreams of the snapshot are shared by all the readers and must not be modified, except for the copies
+ * returned when the cache is flushed. A caller which fails to write such a copy back to ZooKeeper should call
+ * {@link #invalidateDatastream(String)}, so that the next flush reads the datastream again.
  */
 public class CachedDatastreamReader {
   private static final Logger LOG = LoggerFactory.getLogger(CachedDatastreamReader.class);
+  // Version of the datastreams which must be read again, as no znode has it
+  private static final int INVALID_VERSION = -1;
 
   private final String _cluster;
   private final ZkClient _zkclient;
+  private final DatastreamDataListener _dataListener = new DatastreamDataListener();
 
-  private List<String> _datastreamNames;
-  private final Map<String, Datastream> _datastreams = new ConcurrentHashMap<>();
+  // Serializes the updates of the snapshot, which are all done while holding it. The readers do not take it.
+  private final Object _updateLock = new Object();
+  private volatile Snapshot _snapshot = new Snapshot(Collections.emptyList(), Collections.emptyMap());
 
   /**
    * Constructor for CachedDatastreamReader
@@ -55,59 +69,35 @@ public class CachedDatastreamReader {
     _zkclient = zkclient;
     _cluster = cluster;
 
-    // Get the initial datastream list.
-    _datastreamNames = fetchAllDatastreamNamesFromZk();
-
     String path = KeyBuilder.datastreams(_cluster);
     LOG.info("Subscribing to notification on zk path " + path);
 
-    // Be notified of changes to the children list in order to cache it. The listener creates a copy of the list
-    // because other listeners could potentially get access to it and modify its contents.
-    _zkclient.subscribeChildChanges(path, (parentPath, currentChildren) -> {
-      synchronized (CachedDatastreamReader.this) {
-        LOG.debug(
-            String.format("Received datastream add or delete notification. parentPath %s, children %s", parentPath,
-                currentChildren));
-        _datastreamNames = new ArrayList<>(currentChildren);
-        Set<String> datastreamsRemoved = new HashSet<>(_datastreams.keySet());
-        datastreamsRemoved.removeAll(_datastreamNames);
-        if (!datastreamsRemoved.isEmpty()) {
-          LOG.info("Removing the deleted datastreams {} from cache", datastreamsRemoved);
-          _datastreams.keySet().removeAll(datastreamsRemoved);
-        }
+    // Be notified of changes to the children list in order to cache it. The listener is subscribed before the initial
+    // read so that no change is missed.
+    _zkclient.subscribeChildChanges(path, new DatastreamListListener());
 
-        LOG.debug("New datastream list in the cache: {}", _datastreamNames);
-      }
-    });
+    // Get the initial datastreams.
+    refresh();
   }
 
   /**
-   * Get the current datastream groups in the cache (no calls to ZK).
+   * Get the current datastream groups in the cache (no calls to ZK). The groups are computed once per snapshot.
    */
-  public synchronized List<DatastreamGroup> getDatastreamGroups() {
-    List<Datastream> allStreams = getAllDatastreams(false);
-
-    Map<String, List<Datastream>> streamsByTaskPrefix = allStreams.stream()
-        .filter(DatastreamUtils::containsTaskPrefix)
-        .collect(Collectors.groupingBy(DatastreamUtils::getTaskPrefix, Collectors.toList()));
-
-    return streamsByTaskPrefix.keySet()
-        .stream()
-        .map(x -> new DatastreamGroup(streamsByTaskPrefix.get(x)))
-        .collect(Collectors.toList());
+  public List<DatastreamGroup> getDatastreamGroups() {
+    return _snapshot.getDatastreamGroups();
   }
 
   /**
    * Get the current list of datastream names in the cache (no calls to ZK).
    */
-  public synchronized List<String> getAllDatastreamNames() {
-    return Collections.unmodifiableList(_datastreamNames);
+  public List<String> getAllDatastreamNames() {
+    return _snapshot._datastreamNames;
   }
 
   /**
    * Get the current list of datastreams in the cache (no calls to ZK).
    */
-  public synchronized List<Datastream> getAllDatastreams() {
+  public List<Datastream> getAllDatastreams() {
     return getAllDatastreams(false);
   }
 
@@ -115,71 +105,168 @@ public class CachedDatastreamReader {
    * Get the current list of datastreams in the cache. Caveat: if flushCache
    * is false, there could be a very short window (ZK watcher latency) that
    * the returned list is out-of-sync with ZK. Caller should be aware of this.
-   * @param flushCache if true, all datastreams should be refetched from ZK
+   * @param flushCache if true, the cache is synced with ZK first: the datastream
+   *                   names are refetched, along with the datastreams whose
+   *                   znode version changed, and copies of the datastreams are
+   *                   returned, which the caller may modify
    */
-  public synchronized List<Datastream> getAllDatastreams(boolean flushCache) {
+  public List<Datastream> getAllDatastreams(boolean flushCache) {
     if (flushCache) {
-      _datastreamNames = fetchAllDatastreamNamesFromZk();
+      refresh();
+      List<Datastream> datastreams = new ArrayList<>(_snapshot._datastreams.size());
+      _snapshot._datastreams.forEach(datastream -> datastreams.add(copyDatastream(datastream)));
+      return datastreams;
     }
+    return _snapshot._datastreams;
+  }
 
-    return _datastreamNames.stream()
-        .map(x -> this.getDatastream(x, flushCache))
-        .filter(Objects::nonNull) // getDatastream can return null when the stream is just deleted in ZK
-        .collect(Collectors.toList());
+  /**
+   * Make the next flush read the datastream from ZK again, even if the version of its znode did not change. This must
+   * be called when a datastream modified by the caller could not be written back to ZK.
+   * @param datastreamName name of the datastream
+   */
+  public void invalidateDatastream(String datastreamName) {
+    synchronized (_updateLock) {
+      Snapshot snapshot = _snapshot;
+      CachedDatastream cachedDatastream = snapshot._datastreamsByName.get(datastreamName);
+      if (cachedDatastream != null && cachedDatastream._version != INVALID_VERSION) {
+        Map<String, CachedDatastream> datastreams = new HashMap<>(snapshot._datastreamsByName);
+        datastreams.put(datastreamName, new CachedDatastream(cachedDatastream._datastream, INVALID_VERSION));
+        _snapshot = new Snapshot(snapshot._datastreamNames, datastreams);
+      }
+    }
   }
 
   /**
-   * Invalidate all cache entries to force the reader to get fresh copy of the data from zk.
-   * While the list of datastreams is mostly up-to-date (zk watcher delay), there is no guarantee
-   * that the CacheDatastreamReader is keeping a fresh copy of the actual content. Calling this
-   * function would effectively make sure any following getDatastream calls get a newer copy of data.
+   * Sync the cache with ZK to make sure the following accesses see the latest copy of the datastreams. While the cache
+   * is mostly up-to-date (zk watcher delay), this makes sure it is not behind the changes another ZK client was
+   * notified of. Only the datastreams whose znode version changed are read again, and the readers keep getting the
+   * previous snapshot in the meantime.
    */
-  public synchronized void invalidateAllCache() {
-    LOG.info("About to invalidate all cache entries...");
-    _datastreams.clear();
+  public void invalidateAllCache() {
+    LOG.info("About to refresh all cache entries...");
+    refresh();
   }
 
   /**
    * Lookup the cached datastream based on its name with the option to access ZK for latest copy.
    * @param datastreamName name of the datastream
-   * @param flushCache whether zk should be accessed regardless of cache hits
+   * @param flushCache whether zk should be accessed regardless of cache hits, in which case a copy of the datastream
+   *                   is returned
    * @return the datastream object if exists; or null not exists in either cache or ZK
    */
   @VisibleForTesting
   Datastream getDatastream(String datastreamName, boolean flushCache) {
-    Datastream ds = _datastreams.get(datastreamName);
-    if (ds == null || flushCache) {
-      ds = getDatastreamFromZk(datastreamName);
-
-      if (ds == null) {
-        LOG.info("Datastream {} does not exist in cache/ZK.", datastreamName);
-      } else if (!DatastreamUtils.hasValidDestination(ds)) {
-        LOG.info("Datastream {} does not have a valid destination yet and is not ready for use.", datastreamName);
-      } else {
-        _datastreams.put(datastreamName, ds);
+    if (flushCache) {
+      synchronized (_updateLock) {
+        Map<String, CachedDatastream> datastreams = new HashMap<>(_snapshot._datastreamsByName);
+        List<String> datastreamNames = new ArrayList<>(_snapshot._datastreamNames);
+        if (updateDatastream(datastreamName, datastreams)) {
+          if (!datastreamNames.contains(datastreamName)) {
+            _zkclient.subscribeDataChanges(KeyBuilder.datastream(_cluster, datastreamName), _dataListener);
+            datastreamNames.add(datastreamName);
+          }
+          _snapshot = new Snapshot(datastreamNames, datastreams);
+        }
+      }
+    }
+
+    CachedDatastream cachedDatastream = _snapshot._datastreamsByName.get(datastreamName);
+    if (cachedDatastream == null) {
+      LOG.info("Datastream {} does not exist in cache/ZK.", datastreamName);
+      return null;
+    }
+    return flushCache ? copyDatastream(cachedDatastream._datastream) : cachedDatastream._datastream;
+  }
+
+  /**
+   * Sync the whole snapshot with ZK
+   */
+  private void refresh() {
+    synchronized (_updateLock) {
+      publish(fetchAllDatastreamNamesFromZk(), true);
+    }
+  }
+
+  /**
+   * Publish a new snapshot for the given datastream names, in which the datastreams added since the current snapshot
+   * (and all the datastreams whose znode version changed if {@code checkVersions} is true) are read from ZK, and the
+   * datastreams removed are dropped. The current snapshot is kept if nothing changed, along with its groups. Must be
+   * called with {@link #_updateLock} held.
+   */
+  private void publish(List<String> datastreamNames, boolean checkVersions) {
+    Snapshot snapshot = _snapshot;
+    Map<String, CachedDatastream> datastreams = new HashMap<>(snapshot._datastreamsByName);
+    boolean changed = !datastreamNames.equals(snapshot._datastreamNames);
+
+    Set<String> datastreamsRemoved = new HashSet<>(snapshot._datastreamNames);
+    datastreamsRemoved.removeAll(datastreamNames);
+    if (!datastreamsRemoved.isEmpty()) {
+      LOG.info("Removing the deleted datastreams {} from cache", datastreamsRemoved);
+      for (String datastreamName : datastreamsRemoved) {
+        _zkclient.unsubscribeDataChanges(KeyBuilder.datastream(_cluster, datastreamName), _dataListener);
+        datastreams.remove(datastreamName);
       }
     }
-    return ds;
+
+    for (String datastreamName : datastreamNames) {
+      if (!datastreams.containsKey(datastreamName)) {
+        // Subscribe before reading, so that no update is missed
+        _zkclient.subscribeDataChanges(KeyBuilder.datastream(_cluster, datastreamName), _dataListener);
+        changed |= updateDatastream(datastreamName, datastreams);
+      } else if (checkVersions) {
+        Stat stat = _zkclient.getStat(KeyBuilder.datastream(_cluster, datastreamName));
+        if (stat == null || stat.getVersion() != datastreams.get(datastreamName)._version) {
+          changed |= updateDatastream(datastreamName, datastreams);
+        }
+      }
+    }
+
+    if (changed) {
+      _snapshot = new Snapshot(datastreamNames, datastreams);
+      LOG.debug("New datastream list in the cache: {}", datastreamNames);
+    }
+  }
+
+  /**
+   * Read the datastream from ZK into the given datastreams
+   * @return true if the datastream changed
+   */
+  private boolean updateDatastream(String datastreamName, Map<String, CachedDatastream> datastreams) {
+    CachedDatastream previous = datastreams.get(datastreamName);
+    CachedDatastream current = getDatastreamFromZk(datastreamName);
+    if (current == null) {
+      datastreams.remove(datastreamName);
+      return previous != null;
+    }
+    if (previous != null && previous._version == current._version) {
+      return false;
+    }
+    if (!DatastreamUtils.hasValidDestination(current._datastream)) {
+      LOG.info("Datastream {} does not have a valid destination yet and is not ready for use.", datastreamName);
+    }
+    datastreams.put(datastreamName, current);
+    return true;
   }
 
   /**
    * Lookup the datastream based on its name from ZK.
    * @param datastreamName name of the datastream
-   * @return the datastream object if exists; or null not exists in ZK
+   * @return the datastream object and its znode version if exists; or null not exists in ZK
    */
-  private Datastream getDatastreamFromZk(String datastreamName) {
+  private CachedDatastream getDatastreamFromZk(String datastreamName) {
     String path = KeyBuilder.datastream(_cluster, datastreamName);
-    if (_zkclient.exists(path)) {
-      try {
-        String content = _zkclient.ensureReadData(path);
-        if (content != null) {
-          return DatastreamUtils.fromJSON(content);
-        }
-      } catch (ZkNoNodeException e) {
-        // This can happen when the path still exists but later deleted
-        // during ensureReadData
-        LOG.warn("Datastream {} is just deleted from ZK.", datastreamName);
+    try {
+      // The version is read before the content, which may be written after the znode is created: a newer content is
+      // only read again on the next version check
+      Stat stat = _zkclient.getStat(path);
+      String content = stat == null ? null : _zkclient.ensureReadData(path);
+      if (content != null) {
+        return new CachedDatastream(DatastreamUtils.fromJSON(content), stat.getVersion());
       }
+    } catch (ZkNoNodeException e) {
+      // This can happen when the datastream is deleted while the cache is updated
+      LOG.warn("Datastream {} is just deleted from ZK.", datastreamName);
     }
     return null;
   }
@@ -198,4 +285,127 @@ public class CachedDatastreamReader {
   ZkClient getZkclient() {
     return _zkclient;
   }
+
+  /**
+   * Copy a datastream of the cache, for a caller to modify
+   */
+  static Datastream copyDatastream(Datastream datastream) {
+    try {
+      return datastream.copy();
+    } catch (CloneNotSupportedException e) {
+      throw new DatastreamRuntimeException("Failed to copy datastream " + datastream.getName(), e);
+    }
+  }
+
+  /**
+   * Get the name of a datastream from the path of its znode
+   */
+  private static String getDatastreamName(String dataPath) {
+    return dataPath.substring(dataPath.lastIndexOf('/') + 1);
+  }
+
+  /**
+   * A datastream along with the version of its znode
+   */
+  private static class CachedDatastream {
+    private final Datastream _datastream;
+    private final int _version;
+
+    CachedDatastream(Datastream datastream, int version) {
+      _datastream = datastream;
+      _version = version;
+    }
+  }
+
+  /**
+   * An immutable snapshot of the cache
+   */
+  private static class Snapshot {
+    private final List<String> _datastreamNames;
+    private final Map<String, CachedDatastream> _datastreamsByName;
+    // The datastreams in the order of their names
+    private final List<Datastream> _datastreams;
+    // Computed on first use, at most once per thread racing for it
+    private volatile List<DatastreamGroup> _datastreamGroups;
+
+    Snapshot(List<String> datastreamNames, Map<String, CachedDatastream> datastreamsByName) {
+      _datastreamNames = Collections.unmodifiableList(new ArrayList<>(datastreamNames));
+      _datastreamsByName = Collections.unmodifiableMap(new HashMap<>(datastreamsByName));
+      List<Datastream> datastreams = new ArrayList<>(datastreamsByName.size());
+      for (String datastreamName : datastreamNames) {
+        CachedDatastream cachedDatastream = datastreamsByName.get(datastreamName);
+        if (cachedDatastream != null) {
+          datastreams.add(cachedDatastream._datastream);
+        }
+      }
+      _datastreams = Collections.unmodifiableList(datastreams);
+    }
+
+    List<DatastreamGroup> getDatastreamGroups() {
+      List<DatastreamGroup> datastreamGroups = _datastreamGroups;
+      if (datastreamGroups == null) {
+        Map<String, List<Datastream>> streamsByTaskPrefix = new LinkedHashMap<>();
+        _datastreams.stream()
+            .filter(DatastreamUtils::containsTaskPrefix)
+            .forEach(ds -> streamsByTaskPrefix.computeIfAbsent(DatastreamUtils.getTaskPrefix(ds), k -> new ArrayList<>())
+                .add(ds));
+
+        List<DatastreamGroup> groups = new ArrayList<>(streamsByTaskPrefix.size());
+        streamsByTaskPrefix.values().forEach(streams -> groups.add(new DatastreamGroup(Collections.unmodifiableList(streams))));
+        datastreamGroups = Collections.unmodifiableList(groups);
+        _datastreamGroups = datastreamGroups;
+      }
+      return datastreamGroups;
+    }
+  }
+
+  /**
+   * Updates the snapshot when datastreams are added or deleted
+   */
+  private class DatastreamListListener implements IZkChildListener {
+    @Override
+    public void handleChildChange(String parentPath, List<String> currentChildren) {
+      LOG.debug(String.format("Received datastream add or delete notification. parentPath %s, children %s", parentPath,
+          currentChildren));
+      synchronized (_updateLock) {
+        // The children are null when the parent is deleted
+        publish(currentChildren == null ? Collections.emptyList() : currentChildren, false);
+      }
+    }
+  }
+
+  /**
+   * Updates the snapshot when a datastream znode is updated or deleted
+   */
+  private class DatastreamDataListener implements IZkDataListener {
+    @Override
+    public void handleDataChange(String dataPath, Object data) {
+      String datastreamName = getDatastreamName(dataPath);
+      LOG.debug("Received datastream update notification for {}", datastreamName);
+      synchronized (_updateLock) {
+        Snapshot snapshot = _snapshot;
+        if (!snapshot._datastreamNames.contains(datastreamName)) {
+          // Notification delivered after the datastream was removed from the cache
+          return;
+        }
+        // The datastream is read again rather than taken from the notification, to get the version of its znode
+        Map<String, CachedDatastream> datastreams = new HashMap<>(snapshot._datastreamsByName);
+        if (updateDatastream(datastreamName, datastreams)) {
+          _snapshot = new Snapshot(snapshot._datastreamNames, datastreams);
+        }
+      }
+    }
+
+    @Override
+    public void handleDataDeleted(String dataPath) {
+      String datastreamName = getDatastreamName(dataPath);
+      LOG.debug("Received datastream delete notification for {}", datastreamName);
+      synchronized (_updateLock) {
+        List<String> datastreamNames = new ArrayList<>(_snapshot._datastreamNames);
+        if (datastreamNames.remove(datastreamName)) {
+          publish(datastreamNames, false);
+        }
+      }
+    }
+  }
 }
@@ -0,0 +1,236 @@
+/**
+ *  Copyright 2019 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.server;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.linkedin.datastream.common.ErrorLogger;
+
+
+/**
+ * Encodes a {@link DatastreamTaskImpl} into the compact format of {@link DatastreamTaskEncoding#COMPACT}, and decodes
+ * it back.
+ *
+ * The encoded task is {@link #PREFIX} followed by the Base64 encoding of the deflated binary form of the task, so that
+ * it can be stored as a string like the JSON form. The binary form holds the same fields as the JSON form:
+ * <ul>
+ *   <li>the connector type, transport provider name, id and task prefix</li>
+ *   <li>the partitions, as runs of consecutive partitions</li>
+ *   <li>the partitionsV2, as a dictionary of their prefixes (e.g. topic names followed by "-") and runs of
+ *   consecutive partitions with the same prefix</li>
+ *   <li>the dependencies</li>
+ * </ul>
+ * The order of the partitions is kept, so that the decoded task is identical to the encoded one.
+ */
+final class CompactDatastreamTaskCodec {
+  // The version of the format is part of the prefix
+  static final String PREFIX = "dst1:";
+
+  private static final Logger LOG = LoggerFactory.getLogger(CompactDatastreamTaskCodec.class.getName());
+  private static final int NO_NUMBER = -1;
+  // Longer numbers may not fit in an int
+  private static final int MAX_NUMBER_DIGITS = 9;
+
+  private CompactDatastreamTaskCodec() {
+  }
+
+  /**
+   * Encode a task into the compact format
+   */
+  static String encode(DatastreamTaskImpl task) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+      writeString(out, task.getConnectorType());
+      writeString(out, task.getTransportProviderName());
+      writeString(out, task.getId());
+      writeString(out, task.getTaskPrefix());
+      writePartitions(out, task.getPartitions());
+      writePartitionsV2(out, task.getPartitionsV2());
+      writeStrings(out, task.getDependencies());
+    }
+    return PREFIX + Base64.getEncoder().encodeToString(bytes.toByteArray());
+  }
+
+  /**
+   * Decode a task encoded by {@link #encode(DatastreamTaskImpl)}
+   */
+  static DatastreamTaskImpl decode(String content) {
+    DatastreamTaskImpl task = new DatastreamTaskImpl();
+    try {
+      byte[] bytes = Base64.getDecoder().decode(content.substring(PREFIX.length()));
+      try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(bytes)))) {
+        task.setConnectorType(readString(in));
+        task.setTransportProviderName(readString(in));
+        task.setId(readString(in));
+        task.setTaskPrefix(readString(in));
+        task.setPartitions(readPartitions(in));
+        task.setPartitionsV2(readPartitionsV2(in));
+        task.getDependencies().addAll(readStrings(in));
+      }
+    } catch (IOException | IllegalArgumentException e) {
+      String errorMessage = "Failed to decode task: " + content;
+      ErrorLogger.logAndThrowDatastreamRuntimeException(LOG, errorMessage, e);
+    }
+    return task;
+  }
+
+  private static void writePartitions(DataOutputStream out, List<Integer> partitions) throws IOException {
+    List<int[]> runs = new ArrayList<>();
+    for (int partition : partitions) {
+      int[] run = runs.isEmpty() ? null : runs.get(runs.size() - 1);
+      if (run != null && partition == run[0] + run[1]) {
+        run[1]++;
+      } else {
+        runs.add(new int[]{partition, 1});
+      }
+    }
+
+    out.writeInt(runs.size());
+    for (int[] run : runs) {
+      out.writeInt(run[0]);
+      out.writeInt(run[1]);
+    }
+  }
+
+  private static List<Integer> readPartitions(DataInputStream in) throws IOException {
+    List<Integer> partitions = new ArrayList<>();
+    int numRuns = in.readInt();
+    for (int i = 0; i < numRuns; i++) {
+      int start = in.readInt();
+      int length = in.readInt();
+      for (int partition = start; partition < start + length; partition++) {
+        partitions.add(partition);
+      }
+    }
+    return partitions;
+  }
+
+  private static void writePartitionsV2(DataOutputStream out, List<String> partitionsV2) throws IOException {
+    Map<String, Integer> prefixIndexes = new HashMap<>();
+    List<String> prefixes = new ArrayList<>();
+    // prefix index, start and length of each run
+    List<int[]> runs = new ArrayList<>();
+    for (String partition : partitionsV2) {
+      int numberStart = getNumberStart(partition);
+      String prefix = partition.substring(0, numberStart);
+      int number = numberStart < partition.length() ? Integer.parseInt(partition.substring(numberStart)) : NO_NUMBER;
+      int prefixIndex = prefixIndexes.computeIfAbsent(prefix, p -> {
+        prefixes.add(p);
+        return prefixes.size() - 1;
+      });
+
+      int[] run = runs.isEmpty() ? null : runs.get(runs.size() - 1);
+      if (run != null && number != NO_NUMBER && run[0] == prefixIndex && run[1] != NO_NUMBER
+          && number == run[1] + run[2]) {
+        run[2]++;
+      } else {
+        runs.add(new int[]{prefixIndex, number, 1});
+      }
+    }
+
+    writeStrings(out, prefixes);
+    out.writeInt(runs.size());
+    for (int[] run : runs) {
+      out.writeInt(run[0]);
+      out.writeInt(run[1]);
+      out.writeInt(run[2]);
+    }
+  }
+
+  private static List<String> readPartitionsV2(DataInputStream in) throws IOException {
+    List<String> prefixes = readStrings(in);
+    List<String> partitionsV2 = new ArrayList<>();
+    int numRuns = in.readInt();
+    for (int i = 0; i < numRuns; i++) {
+      String prefix = prefixes.get(in.readInt());
+      int start = in.readInt();
+      int length = in.readInt();
+      if (start == NO_NUMBER) {
+        partitionsV2.add(prefix);
+      } else {
+        for (int number = start; number < start + length; number++) {
+          partitionsV2.add(prefix + number);
+        }
+      }
+    }
+    return partitionsV2;
+  }
+
+  /**
+   * Get the index of the number ending a partition (e.g. "topic-12"), or the length of the partition if it does not
+   * end with a number which is rendered the same way by {@link Integer#toString(int)}
+   */
+  private static int getNumberStart(String partition) {
+    int numberStart = partition.length();
+    while (numberStart > 0 && Character.isDigit(partition.charAt(numberStart - 1))) {
+      numberStart--;
+    }
+
+    int numDigits = partition.length() - numberStart;
+    if (numDigits == 0 || numDigits > MAX_NUMBER_DIGITS
+        || (numDigits > 1 && partition.charAt(numberStart) == '0')) {
+      return partition.length();
+    }
+    // Character.isDigit() also accepts the digits of other scripts, which Integer.toString() does not render
+    for (int i = numberStart; i < partition.length(); i++) {
+      if (partition.charAt(i) < '0' || partition.charAt(i) > '9') {
+        return partition.length();
+      }
+    }
+    return numberStart;
+  }
+
+  private static void writeStrings(DataOutputStream out, List<String> strings) throws IOException {
+    out.writeInt(strings.size());
+    for (String string : strings) {
+      writeString(out, string);
+    }
+  }
+
+  private static List<String> readStrings(DataInputStream in) throws IOException {
+    int size = in.readInt();
+    List<String> strings = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      strings.add(readString(in));
+    }
+    return strings;
+  }
+
+  private static void writeString(DataOutputStream out, String string) throws IOException {
+    if (string == null) {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
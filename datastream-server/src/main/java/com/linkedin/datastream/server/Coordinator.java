@@ -5,6 +5,9 @@
  */
 package com.linkedin.datastream.server;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
@@ -13,8 +16,10 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
@@ -44,6 +49,7 @@ import org.slf4j.LoggerFactory;
 import com.codahale.metrics.MetricRegistry;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import com.linkedin.datastream.common.Datastream;
 import com.linkedin.datastream.common.DatastreamAlreadyExistsException;
@@ -57,8 +63,10 @@ import com.linkedin.datastream.common.DatastreamTransientException;
 import com.linkedin.datastream.common.DatastreamUtils;
 import com.linkedin.datastream.common.ErrorLogger;
 import com.linkedin.datastream.common.VerifiableProperties;
+import com.linkedin.datastream.common.zk.ZkClient;
 import com.linkedin.datastream.metrics.BrooklinCounterInfo;
 import com.linkedin.datastream.metrics.BrooklinGaugeInfo;
+import com.linkedin.datastream.metrics.BrooklinHistogramInfo;
 import com.linkedin.datastream.metrics.BrooklinMeterInfo;
 import com.linkedin.datastream.metrics.BrooklinMetricInfo;
 import com.linkedin.datastream.metrics.DynamicMetricsManager;
@@ -75,6 +83,7 @@ import com.linkedin.datastream.server.api.strategy.AssignmentStrategy;
 import com.linkedin.datastream.server.api.transport.TransportProvider;
 import com.linkedin.datastream.server.api.transport.TransportProviderAdmin;
 import com.linkedin.datastream.server.providers.CheckpointProvider;
+import com.linkedin.datastream.server.providers.LocalDiskCheckpointProvider;
 import com.linkedin.datastream.server.providers.ZookeeperCheckpointProvider;
 import com.linkedin.datastream.server.zk.ZkAdapter;
 
@@ -199,6 +208,9 @@ public class Coordinator implements ZkAdapter.ZkAdapterListener, MetricsAware {
   private final Logger _log = LoggerFactory.getLogger(Coordinator.class.getName());
   private final ScheduledExecutorService _executor = Executors.newSingleThreadScheduledExecutor();
 
+  // computes the assignments of the connector types in parallel, null when they are computed on the event thread
+  private final ExecutorService _assignmentExecutor;
+
   // make sure the scheduled retries are not duplicated
   private final AtomicBoolean _leaderDatastreamAddOrDeleteEventScheduled = new AtomicBoolean(false);
 
@@ -236,20 +248,43 @@ public class Coordinator implements ZkAdapter.ZkAdapterListener, MetricsAware {
 
     _adapter = createZkAdapter();
 
-    _eventQueue = new CoordinatorEventBlockingQueue();
+    int assignmentParallelism = _config.getAssignmentParallelism();
+    _assignmentExecutor = assignmentParallelism > 1 ? Executors.newFixedThreadPool(assignmentParallelism,
+        new ThreadFactoryBuilder().setDaemon(true).setNameFormat("CoordinatorAssignment-%d").build()) : null;
+
+    _eventQueue = new CoordinatorEventBlockingQueue(_config.getLeaderDoAssignmentDebounceMs(),
+        DynamicMetricsManager.getInstance());
     createEventThread();
 
     VerifiableProperties coordinatorProperties = new VerifiableProperties(_config.getConfigProperties());
     _eventProducerConfig = coordinatorProperties.getDomainProperties(EVENT_PRODUCER_CONFIG_DOMAIN);
 
-    _cpProvider = new ZookeeperCheckpointProvider(_adapter);
+    _cpProvider = createCheckpointProvider();
     _metrics = new CoordinatorMetrics(this);
   }
 
+  private CheckpointProvider createCheckpointProvider() {
+    if (StringUtils.isBlank(_config.getLocalCheckpointDir())) {
+      return new ZookeeperCheckpointProvider(_adapter);
+    }
+
+    try {
+      return new LocalDiskCheckpointProvider(_adapter, Paths.get(_config.getLocalCheckpointDir()),
+          _config.getLocalCheckpointLogSizeBytes(), _config.getLocalCheckpointForceIntervalMs(),
+          _config.getLocalCheckpointZkReplicationIntervalMs());
+    } catch (IOException e) {
+      String errorMessage = "Failed to open the local checkpoint log in " + _config.getLocalCheckpointDir();
+      _log.error(errorMessage, e);
+      throw new DatastreamRuntimeException(errorMessage, e);
+    }
+  }
+
   @VisibleForTesting
   ZkAdapter createZkAdapter() {
     return new ZkAdapter(_config.getZkAddress(), _clusterName, _config.getDefaultTransportProviderName(),
-        _config.getZkSessionTimeout(), _config.getZkConnectionTimeout(), _config.getDebounceTimerMs(), this);
+        _config.getZkSessionTimeout(), _config.getZkConnectionTimeout(), ZkClient.DEFAULT_OPERATION_RETRY_TIMEOUT,
+        _config.getDebounceTimerMs(), _config.getZkAssignmentBatchSize(), _config.getZkTaskEncoding(),
+        _config.getInstanceCapacity(), this);
   }
 
   /**
@@ -287,6 +322,19 @@ public class Coordinator implements ZkAdapter.ZkAdapterListener, MetricsAware {
     // Queue up one heartbeat per period with a initial delay of 3 periods
     _executor.scheduleAtFixedRate(() -> _eventQueue.put(CoordinatorEvent.HEARTBEAT_EVENT),
         _heartbeatPeriod.toMillis() * 3, _heartbeatPeriod.toMillis(), TimeUnit.MILLISECONDS);
+    schedulePartitionRebalance();
+  }
+
+  /**
+   * Queue up one partition rebalance per period, if partition rebalancing is enabled. The event is ignored unless this
+   * instance is the leader.
+   */
+  private void schedulePartitionRebalance() {
+    long partitionRebalanceIntervalMs = _config.getPartitionRebalanceIntervalMs();
+    if (partitionRebalanceIntervalMs > 0) {
+      _executor.scheduleAtFixedRate(() -> _eventQueue.put(CoordinatorEvent.LEADER_PARTITION_REBALANCE_EVENT),
+          partitionRebalanceIntervalMs, partitionRebalanceIntervalMs, TimeUnit.MILLISECONDS);
+    }
   }
 
   private synchronized void createEventThread() {
@@ -344,6 +392,10 @@ public class Coordinator implements ZkAdapter.ZkAdapterListener, MetricsAware {
       return;
     }
 
+    if (_assignmentExecutor != null) {
+      _assignmentExecutor.shutdownNow();
+    }
+
     // Stopping all the connectors so that they stop producing.
     for (String connectorType : _connectors.keySet()) {
       try {
@@ -361,6 +413,13 @@ public class Coordinator implements ZkAdapter.ZkAdapterListener, MetricsAware {
     for (DatastreamTask task : _assignedDatastreamTasks.values()) {
       ((EventProducer) task.getEventProducer()).shutdown(false);
     }
+    if (_cpProvider instanceof Closeable) {
+      try {
+        ((Closeable) _cpProvider).close();
+      } catch (IOException e) {
+        _log.warn("Failed to close the checkpoint provider, swallowing it and continuing shutdown.", e);
+      }
+    }
     _adapter.disconnect();
     _log.info("Coordinator stopped");
   }
@@ -551,6 +610,7 @@ public class Coordinator implements ZkAdapter.ZkAdapterListener, MetricsAware {
     // Queue up one heartbeat per period with a initial delay of 3 periods
     _executor.scheduleAtFixedRate(() -> _eventQueue.put(CoordinatorEvent.HEARTBEAT_EVENT),
         _heartbeatPeriod.toMillis() * 3, _heartbeatPeriod.toMillis(), TimeUnit.MILLISECONDS);
+    schedulePartitionRebalance();
 
     _zkSessionExpired = false;
   }
@@ -625,22 +685,25 @@ public class Coordinator implements ZkAdapter.ZkAdapterListener, MetricsAware {
     // when there is any change to the assignment for this instance. Need to find out what is the connector
     // type of the changed assignment, and then call the corresponding callback of the connector instance
     List<String> assignment = _adapter.getInstanceAssignment(_adapter.getInstanceName());
+    long fetchTasksStartAt = System.currentTimeMillis();
+    _metrics.updateHistogram(CoordinatorMetrics.Histogram.ASSIGNMENT_CHANGE_LIST_TASKS_LATENCY_MS,
+        fetchTasksStartAt - startAt);
 
     _log.info("START: Coordinator::handleAssignmentChange. Instance: " + _adapter.getInstanceName() + ", assignment: "
         + assignment + " isDatastreamUpdate: " + isDatastreamUpdate);
 
     // all datastream tasks for all connector types
     Map<String, List<DatastreamTask>> currentAssignment = new HashMap<>();
-    assignment.forEach(ds -> {
-      DatastreamTask task = getDatastreamTask(ds);
-      if (task != null) {
-        String connectorType = task.getConnectorType();
-        if (!currentAssignment.containsKey(connectorType)) {
-          currentAssignment.put(connectorType, new ArrayList<>());
-        }
-        currentAssignment.get(connectorType).add(task);
+    getDatastreamTasks(assignment).forEach(task -> {
+      String connectorType = task.getConnectorType();
+      if (!currentAssignment.containsKey(connectorType)) {
+        currentAssignment.put(connectorType, new ArrayList<>());
       }
+      currentAssignment.get(connectorType).add(task);
     });
+    long dispatchStartAt = System.currentTimeMillis();
+    _metrics.updateHistogram(CoordinatorMetrics.Histogram.ASSIGNMENT_CHANGE_FETCH_TASKS_LATENCY_MS,
+        dispatchStartAt - fetchTasksStartAt);
 
     int totalTasks = getAssignmentTaskCount(currentAssignment);
 
@@ -694,6 +757,8 @@ public class Coordinator implements ZkAdapter.ZkAdapterListener, MetricsAware {
       _log.warn("onAssignmentChange call got interrupted", e);
     } finally {
       assignmentChangeFutures.forEach(future -> future.cancel(true));
+      _metrics.updateHistogram(CoordinatorMetrics.Histogram.ASSIGNMENT_CHANGE_DISPATCH_LATENCY_MS,
+          System.currentTimeMillis() - dispatchStartAt);
     }
 
     // now save the current assignment
@@ -710,29 +775,44 @@ public class Coordinator implements ZkAdapter.ZkAdapterListener, MetricsAware {
       retryHandleAssignmentChange(isDatastreamUpdate);
     }
 
-    _log.info("END: Coordinator::handleAssignmentChange, Duration: {} milliseconds",
-        System.currentTimeMillis() - startAt);
+    long duration = System.currentTimeMillis() - startAt;
+    _log.info("END: Coordinator::handleAssignmentChange, Duration: {} milliseconds", duration);
+    _metrics.updateHistogram(CoordinatorMetrics.Histogram.ASSIGNMENT_CHANGE_LATENCY_MS, duration);
     _metrics.updateMeter(CoordinatorMetrics.Meter.NUM_ASSIGNMENT_CHANGES, 1);
   }
 
-  private DatastreamTask getDatastreamTask(String taskName) {
-    if (_assignedDatastreamTasks.containsKey(taskName)) {
-      return _assignedDatastreamTasks.get(taskName);
-    } else {
-      DatastreamTaskImpl task = _adapter.getAssignedDatastreamTask(_adapter.getInstanceName(), taskName);
+  /**
+   * Get the datastream tasks of the given names, in the same order. The tasks which are not assigned yet are
+   * fetched from ZooKeeper in bulk, and the tasks whose znode does not exist anymore are skipped.
+   */
+  private List<DatastreamTask> getDatastreamTasks(List<String> taskNames) {
+    List<String> newTaskNames = taskNames.stream()
+        .filter(taskName -> !_assignedDatastreamTasks.containsKey(taskName))
+        .collect(Collectors.toList());
 
-      if (task != null) {
-        DatastreamGroup dg = _datastreamCache.getDatastreamGroups()
-            .stream()
-            .filter(x -> x.getTaskPrefix().equals(task.getTaskPrefix()))
-            .findFirst()
-            .get();
+    Map<String, DatastreamTaskImpl> newTasks = Collections.emptyMap();
+    if (!newTaskNames.isEmpty()) {
+      newTasks = _adapter.getAssignedDatastreamTasks(_adapter.getInstanceName(), newTaskNames);
+
+      Map<String, DatastreamGroup> datastreamGroupsByTaskPrefix = _datastreamCache.getDatastreamGroups()
+          .stream()
+          .collect(Collectors.toMap(DatastreamGroup::getTaskPrefix, Function.identity(), (first, second) -> first));
+      for (DatastreamTaskImpl task : newTasks.values()) {
+        DatastreamGroup dg = datastreamGroupsByTaskPrefix.get(task.getTaskPrefix());
+        if (dg == null) {
+          throw new NoSuchElementException("No datastream group with the task prefix of task " + task);
+        }
 
         task.setDatastreams(dg.getDatastreams());
       }
-
-      return task;
     }
+
+    Map<String, DatastreamTaskImpl> fetchedTasks = newTasks;
+    return taskNames.stream()
+        .map(taskName -> _assignedDatastreamTasks.containsKey(taskName) ? _assignedDatastreamTasks.get(taskName)
+            : fetchedTasks.get(taskName))
+        .filter(Objects::nonNull)
+        .collect(Collectors.toList());
   }
 
   private Future<Boolean> dispatchAssignmentChangeIfNeeded(String connectorType, List<DatastreamTask> assignment,
@@ -921,6 +1001,10 @@ public class Coordinator implements ZkAdapter.ZkAdapterListener, MetricsAware {
           performPartitionMovement((Long) event.getEventMetadata());
           break;
 
+        case LEADER_PARTITION_REBALANCE:
+          performPartitionRebalance();
+          break;
+
         default:
           String errorMessage = String.format("Unknown event type %s.", event.getType());
           ErrorLogger.logAndThrowDatastreamRuntimeException(_log, errorMessage, null);
@@ -940,6 +1024,7 @@ public class Coordinator implements ZkAdapter.ZkAdapterListener, MetricsAware {
       case HANDLE_ADD_OR_DELETE_DATASTREAM:
       case LEADER_PARTITION_ASSIGNMENT:
       case LEADER_PARTITION_MOVEMENT:
+      case LEADER_PARTITION_REBALANCE:
         return true;
       default:
         return false;
@@ -1003,6 +1088,7 @@ public class Coordinator implements ZkAdapter.ZkAdapterListener, MetricsAware {
    */
   private void handleDatastreamAddOrDelete() {
     boolean shouldRetry = false;
+    boolean updated = false;
 
     // Get the list of all datastreams
     List<Datastream> allStreams = _datastreamCache.getAllDatastreams(true);
@@ -1030,10 +1116,14 @@ public class Coordinator implements ZkAdapter.ZkAdapterListener, MetricsAware {
           if (!_adapter.updateDatastream(ds)) {
             _log.warn("Failed to update datastream: {} after initializing. This datastream will not be scheduled for "
                 + "producing events ", ds.getName());
+            _datastreamCache.invalidateDatastream(ds.getName());
             shouldRetry = true;
+          } else {
+            updated = true;
           }
         } catch (Exception e) {
           _log.warn("Failed to update the destination of new datastream {}", ds, e);
+          _datastreamCache.invalidateDatastream(ds.getName());
           shouldRetry = true;
         }
       } else if (isDeletingOrExpired(ds)) {
@@ -1060,6 +1150,12 @@ public class Coordinator implements ZkAdapter.ZkAdapterListener, MetricsAware {
       }
     }
 
+    if (updated) {
+      // The cache only gets the updated copies of the datastreams through its watches, which may come after the
+      // assignment
+      _datastreamCache.invalidateAllCache();
+    }
+
     _eventQueue.put(CoordinatorEvent.createLeaderDoAssignmentEvent(false));
   }
 
@@ -1223,13 +1319,18 @@ public class Coordinator implements ZkAdapter.ZkAdapterListener, MetricsAware {
 
       for (DatastreamGroup datastreamGroup : stoppingDatastreamGroups) {
         for (Datastream datastream : datastreamGroup.getDatastreams()) {
-          datastream.setStatus(DatastreamStatus.STOPPED);
-          if (!_adapter.updateDatastream(datastream)) {
+          // the datastreams of the groups are shared by the cache
+          Datastream stoppedDatastream = CachedDatastreamReader.copyDatastream(datastream);
+          stoppedDatastream.setStatus(DatastreamStatus.STOPPED);
+          if (!_adapter.updateDatastream(stoppedDatastream)) {
             _log.warn("Failed to update datastream: {} to stopped state", datastream.getName());
             succeeded = false;
           }
         }
       }
+      if (!stoppingDatastreamGroups.isEmpty()) {
+        _datastreamCache.invalidateAllCache();
+      }
     } catch (RuntimeException e) {
       _log.error("handleLeaderDoAssignment: runtime exception.", e);
       succeeded = false;
@@ -1484,6 +1585,66 @@ public class Coordinator implements ZkAdapter.ZkAdapterListener, MetricsAware {
     }
   }
 
+  /**
+   * Rebalance the partitions of the active datastream groups between their tasks, for the connectors which support
+   * partition management, as proposed by their assignment strategies. The new assignment is only written if any
+   * partition is moved. Failures are not retried, as the partitions are rebalanced again on the next period.
+   */
+  private void performPartitionRebalance() {
+    Map<String, Set<DatastreamTask>> previousAssignmentByInstance = _adapter.getAllAssignedDatastreamTasks();
+    Map<String, List<DatastreamTask>> newAssignmentsByInstance = new HashMap<>();
+
+    try {
+      Map<String, Set<DatastreamTask>> assignmentByInstance = new HashMap<>(previousAssignmentByInstance);
+      boolean assignmentChanged = false;
+      List<DatastreamGroup> liveDatastreamGroups = fetchDatastreamGroups();
+
+      for (String connectorType : _connectors.keySet()) {
+        AssignmentStrategy strategy = _connectors.get(connectorType).getAssignmentStrategy();
+        Connector connectorInstance = _connectors.get(connectorType).getConnector().getConnectorInstance();
+        if (!connectorInstance.isPartitionManagementSupported()) {
+          continue;
+        }
+
+        Map<String, Optional<DatastreamGroupPartitionsMetadata>> datastreamPartitions =
+            connectorInstance.getDatastreamPartitions();
+        for (DatastreamGroup dg : liveDatastreamGroups) {
+          if (!connectorType.equals(dg.getConnectorName()) || dg.isPaused()) {
+            continue;
+          }
+          // the datastream groups whose partitions are not known yet are rebalanced on a later period
+          Optional<DatastreamGroupPartitionsMetadata> subscribedPartitions = datastreamPartitions.get(dg.getName());
+          if (subscribedPartitions == null || !subscribedPartitions.isPresent()) {
+            continue;
+          }
+          Map<String, Set<DatastreamTask>> newAssignment =
+              strategy.rebalancePartitions(assignmentByInstance, subscribedPartitions.get());
+          assignmentChanged |= newAssignment != assignmentByInstance;
+          assignmentByInstance = newAssignment;
+        }
+      }
+
+      if (!assignmentChanged) {
+        _log.info("Partition rebalance completed without moving any partition");
+        return;
+      }
+
+      for (String key : assignmentByInstance.keySet()) {
+        newAssignmentsByInstance.put(key, new ArrayList<>(assignmentByInstance.get(key)));
+      }
+      _adapter.updateAllAssignments(newAssignmentsByInstance);
+      _log.info("Partition rebalance completed: assignment {} ", assignmentByInstance);
+    } catch (Exception ex) {
+      _log.warn("Partition rebalance failed, Exception: ", ex);
+      _metrics.updateKeyedMeter(CoordinatorMetrics.KeyedMeter.HANDLE_LEADER_PARTITION_REBALANCE_NUM_ERRORS, 1);
+      return;
+    }
+
+    _adapter.cleanUpOldUnusedTasksFromConnector(previousAssignmentByInstance, newAssignmentsByInstance);
+    updateCounterForMaxPartitionInTask(newAssignmentsByInstance);
+    _metrics.updateMeter(CoordinatorMetrics.Meter.NUM_PARTITION_REBALANCES, 1);
+  }
+
   @VisibleForTesting
   void validateNewAssignment(Map<String, List<DatastreamTask>> newAssignmentsByInstance) {
     if (_config.getMaxDatastreamTasksPerInstance() > 0) {
@@ -1521,19 +1682,11 @@ public class Coordinator implements ZkAdapter.ZkAdapterListener, MetricsAware {
     }
     newAssignmentsByInstance.put(PAUSED_INSTANCE, pausedTasks);
 
-    for (String connectorType : _connectors.keySet()) {
-      AssignmentStrategy strategy = _connectors.get(connectorType).getAssignmentStrategy();
-      List<DatastreamGroup> datastreamsPerConnectorType = datastreamGroups.stream()
-          .filter(x -> x.getConnectorName().equals(connectorType))
-          .filter(g -> !(pausedDatastreamGroups.contains(g)))
-          .collect(Collectors.toList());
-
-      // Get the list of tasks per instance for the given connector type
-      // We need to call assign even if the number of datastreams are empty, This is to make sure that
-      // the assignments get cleaned up for the deleted datastreams.
-      Map<String, Set<DatastreamTask>> tasksByConnectorAndInstance =
-          strategy.assign(datastreamsPerConnectorType, liveInstances, previousAssignmentByInstance);
+    Map<String, Map<String, Set<DatastreamTask>>> tasksByConnectorType =
+        assignConnectorTypes(liveInstances, previousAssignmentByInstance, datastreamGroups, pausedDatastreamGroups);
 
+    // The results are merged in the order of the connector types, whether they were computed in parallel or not
+    for (Map<String, Set<DatastreamTask>> tasksByConnectorAndInstance : tasksByConnectorType.values()) {
       for (String instance : tasksByConnectorAndInstance.keySet()) {
         newAssignmentsByInstance.computeIfAbsent(instance, (x) -> new ArrayList<>());
 
@@ -1555,6 +1708,58 @@ public class Coordinator implements ZkAdapter.ZkAdapterListener, MetricsAware {
     return newAssignmentsByInstance;
   }
 
+  /**
+   * Compute the tasks per instance of each connector type with its assignment strategy. The connector types are
+   * independent of each other, so their assignments are computed in parallel on {@link #_assignmentExecutor}, if any.
+   * @return the tasks per instance of each connector type, in the iteration order of the connector types
+   */
+  private Map<String, Map<String, Set<DatastreamTask>>> assignConnectorTypes(List<String> liveInstances,
+      Map<String, Set<DatastreamTask>> previousAssignmentByInstance, List<DatastreamGroup> datastreamGroups,
+      Set<DatastreamGroup> pausedDatastreamGroups) {
+    Map<String, Supplier<Map<String, Set<DatastreamTask>>>> assignments = new LinkedHashMap<>();
+    for (String connectorType : _connectors.keySet()) {
+      AssignmentStrategy strategy = _connectors.get(connectorType).getAssignmentStrategy();
+      List<DatastreamGroup> datastreamsPerConnectorType = datastreamGroups.stream()
+          .filter(x -> x.getConnectorName().equals(connectorType))
+          .filter(g -> !(pausedDatastreamGroups.contains(g)))
+          .collect(Collectors.toList());
+
+      // Get the list of tasks per instance for the given connector type
+      // We need to call assign even if the number of datastreams are empty, This is to make sure that
+      // the assignments get cleaned up for the deleted datastreams.
+      assignments.put(connectorType,
+          () -> strategy.assign(datastreamsPerConnectorType, liveInstances, previousAssignmentByInstance));
+    }
+
+    Map<String, Map<String, Set<DatastreamTask>>> tasksByConnectorType = new LinkedHashMap<>();
+    if (_assignmentExecutor == null || assignments.size() <= 1) {
+      assignments.forEach((connectorType, assignment) -> tasksByConnectorType.put(connectorType, assignment.get()));
+      return tasksByConnectorType;
+    }
+
+    Map<String, Future<Map<String, Set<DatastreamTask>>>> futures = new LinkedHashMap<>();
+    assignments.forEach((connectorType, assignment) ->
+        futures.put(connectorType, _assignmentExecutor.submit(assignment::get)));
+    try {
+      for (Map.Entry<String, Future<Map<String, Set<DatastreamTask>>>> future : futures.entrySet()) {
+        tasksByConnectorType.put(future.getKey(), future.getValue().get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new DatastreamRuntimeException("Interrupted while assigning tasks", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new DatastreamRuntimeException("Failed to assign tasks", cause);
+    } finally {
+      // the assignment is abandoned if any connector type fails
+      futures.values().forEach(future -> future.cancel(true));
+    }
+    return tasksByConnectorType;
+  }
+
   void performCleanupOrphanNodes() {
     _log.info("performCleanupOrphanNodes called");
     int orphanCount = _adapter.cleanUpOrphanConnectorTasks(_config.getZkCleanUpOrphanConnectorTask());
@@ -2002,6 +2207,7 @@ public class Coordinator implements ZkAdapter.ZkAdapterListener, MetricsAware {
 
       registerMeterMetrics();
       registerKeyedMeterMetrics();
+      registerHistogramMetrics();
       registerGaugeMetrics();
       registerCounterMetrics();
     }
@@ -2048,6 +2254,10 @@ public class Coordinator implements ZkAdapter.ZkAdapterListener, MetricsAware {
       _dynamicMetricsManager.createOrUpdateCounter(MODULE, metric.getName(), value);
     }
 
+    public void updateHistogram(Histogram metric, long value) {
+      _dynamicMetricsManager.createOrUpdateHistogram(MODULE, metric.getName(), value);
+    }
+
     public static KeyedMeter getKeyedMeter(EventType eventType) {
       switch (eventType) {
         case LEADER_DO_ASSIGNMENT:
@@ -2056,6 +2266,8 @@ public class Coordinator implements ZkAdapter.ZkAdapterListener, MetricsAware {
           return KeyedMeter.LEADER_PARTITION_ASSIGNMENT_NUM_ERRORS;
         case LEADER_PARTITION_MOVEMENT:
           return KeyedMeter.LEADER_PARTITION_MOVEMENT_NUM_ERRORS;
+        case LEADER_PARTITION_REBALANCE:
+          return KeyedMeter.LEADER_PARTITION_REBALANCE_NUM_ERRORS;
         case HANDLE_ASSIGNMENT_CHANGE:
           return KeyedMeter.HANDLE_ASSIGNMENT_CHANGE_NUM_ERRORS;
         case HANDLE_DATASTREAM_CHANGE_WITH_UPDATE:
@@ -2079,6 +2291,12 @@ public class Coordinator implements ZkAdapter.ZkAdapterListener, MetricsAware {
 
       // EventProducer metrics
       _metricInfos.addAll(EventProducer.getMetricInfos());
+
+      // ZkAdapter metrics
+      _metricInfos.addAll(ZkAdapter.getMetricInfos());
+
+      // Event queue metrics
+      _metricInfos.addAll(CoordinatorEventBlockingQueue.getMetricInfos());
     }
 
     private void registerMeterMetrics() {
@@ -2112,6 +2330,11 @@ public class Coordinator implements ZkAdapter.ZkAdapterListener, MetricsAware {
       _metricInfos.add(new BrooklinMeterInfo(prefix + NUM_RETRIES));
     }
 
+    private void registerHistogramMetrics() {
+      // These metrics are eagerly created
+      Arrays.stream(Histogram.values()).forEach(this::registerHistogram);
+    }
+
     private void registerGaugeMetrics() {
       // Gauges must be eagerly created
       ImmutableMap<String, Supplier<?>> gaugeMetrics = ImmutableMap.<String, Supplier<?>>builder()
@@ -2134,6 +2357,12 @@ public class Coordinator implements ZkAdapter.ZkAdapterListener, MetricsAware {
       _metricInfos.add(new BrooklinMeterInfo(_coordinator.buildMetricName(MODULE, metricName)));
     }
 
+    private void registerHistogram(Histogram metric) {
+      String metricName = metric.getName();
+      _dynamicMetricsManager.registerMetric(MODULE, metricName, com.codahale.metrics.Histogram.class);
+      _metricInfos.add(new BrooklinHistogramInfo(_coordinator.buildMetricName(MODULE, metricName)));
+    }
+
     private void registerGauge(String metricName, Supplier<?> valueSupplier) {
       _dynamicMetricsManager.registerGauge(MODULE, metricName, valueSupplier);
       _metricInfos.add(new BrooklinGaugeInfo(_coordinator.buildMetricName(MODULE, metricName)));
@@ -2153,6 +2382,7 @@ public class Coordinator implements ZkAdapter.ZkAdapterListener, MetricsAware {
       NUM_ASSIGNMENT_CHANGES("numAssignmentChanges"),
       NUM_PARTITION_ASSIGNMENTS("numPartitionAssignments"),
       NUM_PARTITION_MOVEMENTS("numPartitionMovements"),
+      NUM_PARTITION_REBALANCES("numPartitionRebalances"),
       NUM_ORPHAN_CONNECTOR_TASKS("numOrphanConnectorTasks"),
       NUM_ORPHAN_CONNECTOR_TASK_LOCKS("numOrphanConnectorTaskLocks");
 
@@ -2176,6 +2406,7 @@ public class Coordinator implements ZkAdapter.ZkAdapterListener, MetricsAware {
       HANDLE_LEADER_PARTITION_ASSIGNMENT_NUM_RETRIES("handleLeaderPartitionAssignment", NUM_RETRIES, true),
       HANDLE_LEADER_PARTITION_MOVEMENT_NUM_ERRORS("handleLeaderPartitionMovement", NUM_ERRORS),
       HANDLE_LEADER_PARTITION_MOVEMENT_NUM_RETRIES("handleLeaderPartitionMovement", NUM_RETRIES),
+      HANDLE_LEADER_PARTITION_REBALANCE_NUM_ERRORS("handleLeaderPartitionRebalance", NUM_ERRORS),
       VALIDATE_DATASTREAMS_UPDATE_NUM_ERRORS("validateDatastreamsUpdate", NUM_ERRORS),
       IS_PARTITION_ASSIGNMENT_SUPPORTED_NUM_ERRORS("isPartitionAssignmentSupported", NUM_ERRORS),
       IS_DATASTREAM_UPDATE_TYPE_SUPPORTED_NUM_ERRORS("isDatastreamUpdateTypeSupported", NUM_ERRORS),
@@ -2185,6 +2416,7 @@ public class Coordinator implements ZkAdapter.ZkAdapterListener, MetricsAware {
       LEADER_DO_ASSIGNMENT_NUM_ERRORS(HANDLE_EVENT_PREFIX + EventType.LEADER_DO_ASSIGNMENT, NUM_ERRORS),
       LEADER_PARTITION_ASSIGNMENT_NUM_ERRORS(HANDLE_EVENT_PREFIX + EventType.LEADER_PARTITION_ASSIGNMENT, NUM_ERRORS),
       LEADER_PARTITION_MOVEMENT_NUM_ERRORS(HANDLE_EVENT_PREFIX + EventType.LEADER_PARTITION_MOVEMENT, NUM_ERRORS),
+      LEADER_PARTITION_REBALANCE_NUM_ERRORS(HANDLE_EVENT_PREFIX + EventType.LEADER_PARTITION_REBALANCE, NUM_ERRORS),
       HANDLE_ASSIGNMENT_CHANGE_NUM_ERRORS(HANDLE_EVENT_PREFIX + EventType.HANDLE_ASSIGNMENT_CHANGE, NUM_ERRORS),
       HANDLE_DATASTREAM_CHANGE_WITH_UPDATE_NUM_ERRORS(HANDLE_EVENT_PREFIX + HANDLE_DATASTREAM_CHANGE_WITH_UPDATE, NUM_ERRORS),
       HANDLE_ADD_OR_DELETE_DATASTREAM_NUM_ERRORS(HANDLE_EVENT_PREFIX + EventType.HANDLE_ADD_OR_DELETE_DATASTREAM, NUM_ERRORS),
@@ -2219,6 +2451,27 @@ public class Coordinator implements ZkAdapter.ZkAdapterListener, MetricsAware {
       }
     }
 
+    /**
+     * Coordinator metrics of type {@link com.codahale.metrics.Histogram}
+     */
+    public enum Histogram {
+      // Latency of handling an assignment change, and of each of its phases
+      ASSIGNMENT_CHANGE_LATENCY_MS("assignmentChangeLatencyMs"),
+      ASSIGNMENT_CHANGE_LIST_TASKS_LATENCY_MS("assignmentChangeListTasksLatencyMs"),
+      ASSIGNMENT_CHANGE_FETCH_TASKS_LATENCY_MS("assignmentChangeFetchTasksLatencyMs"),
+      ASSIGNMENT_CHANGE_DISPATCH_LATENCY_MS("assignmentChangeDispatchLatencyMs");
+
+      private final String _name;
+
+      Histogram(String name) {
+        _name = name;
+      }
+
+      public String getName() {
+        return _name;
+      }
+    }
+
     /**
      * Coordinator metrics of type {@link com.codahale.metrics.Counter}
      */
@@ -6,10 +6,12 @@
 package com.linkedin.datastream.server;
 
 import java.time.Duration;
+import java.util.Locale;
 import java.util.Properties;
 
 import com.linkedin.datastream.common.VerifiableProperties;
 import com.linkedin.datastream.common.zk.ZkClient;
+import com.linkedin.datastream.server.zk.ZkAdapter;
 
 /**
  * Brooklin {@link Coordinator} configuration properties
@@ -31,8 +33,35 @@ public final class CoordinatorConfig {
   public static final String CONFIG_PERFORM_PRE_ASSIGNMENT_CLEANUP = PREFIX + "performPreAssignmentCleanup";
   public static final String CONFIG_REINIT_ON_NEW_ZK_SESSION = PREFIX + "reinitOnNewZKSession";
   public static final String CONFIG_MAX_ASSIGNMENT_RETRY_COUNT = PREFIX + "maxAssignmentRetryCount";
+  public static final String CONFIG_ZK_ASSIGNMENT_BATCH_SIZE = PREFIX + "zkAssignmentBatchSize";
+  // time for which a leader assignment event is held in the event queue to coalesce the subsequent ones.
+  public static final String CONFIG_LEADER_DO_ASSIGNMENT_DEBOUNCE_MS = PREFIX + "leaderDoAssignmentDebounceMs";
+  // number of threads computing the assignments of the connector types, 1 to compute them on the event thread.
+  public static final String CONFIG_ASSIGNMENT_PARALLELISM = PREFIX + "assignmentParallelism";
+  // encoding of the tasks written to the assignment znodes, see DatastreamTaskEncoding.
+  public static final String CONFIG_ZK_TASK_ENCODING = PREFIX + "zkTaskEncoding";
+  // directory of the log of the LocalDiskCheckpointProvider, which is used instead of the ZookeeperCheckpointProvider
+  // if set.
+  public static final String CONFIG_LOCAL_CHECKPOINT_DIR = PREFIX + "localCheckpointDir";
+  // minimum size of the log of the LocalDiskCheckpointProvider.
+  public static final String CONFIG_LOCAL_CHECKPOINT_LOG_SIZE_BYTES = PREFIX + "localCheckpointLogSizeBytes";
+  // interval at which the log of the LocalDiskCheckpointProvider is forced to the disk, 0 to only force it on flush.
+  public static final String CONFIG_LOCAL_CHECKPOINT_FORCE_INTERVAL_MS = PREFIX + "localCheckpointForceIntervalMs";
+  // interval at which the LocalDiskCheckpointProvider replicates the checkpoints to ZooKeeper, 0 to disable it.
+  public static final String CONFIG_LOCAL_CHECKPOINT_ZK_REPLICATION_INTERVAL_MS =
+      PREFIX + "localCheckpointZkReplicationIntervalMs";
+  // interval at which the leader asks the assignment strategies to rebalance the partitions of the datastream groups
+  // between their tasks, 0 to disable it.
+  public static final String CONFIG_PARTITION_REBALANCE_INTERVAL_MS = PREFIX + "partitionRebalanceIntervalMs";
+  // capacity of the instance relative to the other instances of the cluster (e.g. its number of cores), which the
+  // assignment strategies with weighted task placement place the tasks against, 0 to not advertise it.
+  public static final String CONFIG_INSTANCE_CAPACITY = PREFIX + "instanceCapacity";
 
   public static final int DEFAULT_MAX_ASSIGNMENT_RETRY_COUNT = 100;
+  public static final int DEFAULT_ASSIGNMENT_PARALLELISM = 4;
+  public static final int DEFAULT_LOCAL_CHECKPOINT_LOG_SIZE_BYTES = 16 * 1024 * 1024;
+  public static final long DEFAULT_LOCAL_CHECKPOINT_FORCE_INTERVAL_MS = 1000;
+  public static final long DEFAULT_LOCAL_CHECKPOINT_ZK_REPLICATION_INTERVAL_MS = Duration.ofMinutes(1).toMillis();
 
   private final String _cluster;
   private final String _zkAddress;
@@ -50,6 +79,16 @@ public final class CoordinatorConfig {
   private final boolean _performPreAssignmentCleanup;
   private final boolean _reinitOnNewZkSession;
   private final int _maxAssignmentRetryCount;
+  private final int _zkAssignmentBatchSize;
+  private final long _leaderDoAssignmentDebounceMs;
+  private final int _assignmentParallelism;
+  private final DatastreamTaskEncoding _zkTaskEncoding;
+  private final String _localCheckpointDir;
+  private final int _localCheckpointLogSizeBytes;
+  private final long _localCheckpointForceIntervalMs;
+  private final long _localCheckpointZkReplicationIntervalMs;
+  private final long _partitionRebalanceIntervalMs;
+  private final int _instanceCapacity;
 
   /**
    * Construct an instance of CoordinatorConfig
@@ -75,6 +114,20 @@ public final class CoordinatorConfig {
     _performPreAssignmentCleanup = _properties.getBoolean(CONFIG_PERFORM_PRE_ASSIGNMENT_CLEANUP, false);
     _reinitOnNewZkSession = _properties.getBoolean(CONFIG_REINIT_ON_NEW_ZK_SESSION, false);
     _maxAssignmentRetryCount = _properties.getInt(CONFIG_MAX_ASSIGNMENT_RETRY_COUNT, DEFAULT_MAX_ASSIGNMENT_RETRY_COUNT);
+    _zkAssignmentBatchSize = _properties.getInt(CONFIG_ZK_ASSIGNMENT_BATCH_SIZE, ZkAdapter.DEFAULT_ASSIGNMENT_BATCH_SIZE);
+    _leaderDoAssignmentDebounceMs = _properties.getLong(CONFIG_LEADER_DO_ASSIGNMENT_DEBOUNCE_MS, 0);
+    _assignmentParallelism = _properties.getInt(CONFIG_ASSIGNMENT_PARALLELISM, DEFAULT_ASSIGNMENT_PARALLELISM);
+    _zkTaskEncoding = DatastreamTaskEncoding.valueOf(
+        _properties.getString(CONFIG_ZK_TASK_ENCODING, DatastreamTaskEncoding.JSON.name()).toUpperCase(Locale.ROOT));
+    _localCheckpointDir = _properties.getString(CONFIG_LOCAL_CHECKPOINT_DIR, "");
+    _localCheckpointLogSizeBytes =
+        _properties.getInt(CONFIG_LOCAL_CHECKPOINT_LOG_SIZE_BYTES, DEFAULT_LOCAL_CHECKPOINT_LOG_SIZE_BYTES);
+    _localCheckpointForceIntervalMs =
+        _properties.getLong(CONFIG_LOCAL_CHECKPOINT_FORCE_INTERVAL_MS, DEFAULT_LOCAL_CHECKPOINT_FORCE_INTERVAL_MS);
+    _localCheckpointZkReplicationIntervalMs = _properties.getLong(CONFIG_LOCAL_CHECKPOINT_ZK_REPLICATION_INTERVAL_MS,
+        DEFAULT_LOCAL_CHECKPOINT_ZK_REPLICATION_INTERVAL_MS);
+    _partitionRebalanceIntervalMs = _properties.getLong(CONFIG_PARTITION_REBALANCE_INTERVAL_MS, 0);
+    _instanceCapacity = _properties.getInt(CONFIG_INSTANCE_CAPACITY, 0);
   }
 
   public Properties getConfigProperties() {
@@ -136,4 +189,44 @@ public final class CoordinatorConfig {
   public int getMaxAssignmentRetryCount() {
     return _maxAssignmentRetryCount;
   }
+
+  public int getZkAssignmentBatchSize() {
+    return _zkAssignmentBatchSize;
+  }
+
+  public long getLeaderDoAssignmentDebounceMs() {
+    return _leaderDoAssignmentDebounceMs;
+  }
+
+  public int getAssignmentParallelism() {
+    return _assignmentParallelism;
+  }
+
+  public DatastreamTaskEncoding getZkTaskEncoding() {
+    return _zkTaskEncoding;
+  }
+
+  public String getLocalCheckpointDir() {
+    return _localCheckpointDir;
+  }
+
+  public int getLocalCheckpointLogSizeBytes() {
+    return _localCheckpointLogSizeBytes;
+  }
+
+  public long getLocalCheckpointForceIntervalMs() {
+    return _localCheckpointForceIntervalMs;
+  }
+
+  public long getLocalCheckpointZkReplicationIntervalMs() {
+    return _localCheckpointZkReplicationIntervalMs;
+  }
+
+  public long getPartitionRebalanceIntervalMs() {
+    return _partitionRebalanceIntervalMs;
+  }
+
+  public int getInstanceCapacity() {
+    return _instanceCapacity;
+  }
 }
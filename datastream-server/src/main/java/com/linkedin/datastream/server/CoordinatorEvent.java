@@ -11,7 +11,8 @@ import java.util.Objects;
  * Represents different event types inside {@link Coordinator}.
  *
  * CoordinatorEvent will be deduped in the event queue {@link CoordinatorEventBlockingQueue}
- * based on the event type. However, any event with eventMetadata will not get deduped
+ * based on the event type. However, any event with eventMetadata will not get deduped, unless
+ * the queue coalesces the events of its type (e.g. LEADER_DO_ASSIGNMENT)
  */
 public class CoordinatorEvent {
 
@@ -22,6 +23,7 @@ public class CoordinatorEvent {
     LEADER_DO_ASSIGNMENT,
     LEADER_PARTITION_ASSIGNMENT,
     LEADER_PARTITION_MOVEMENT,
+    LEADER_PARTITION_REBALANCE,
     HANDLE_ASSIGNMENT_CHANGE,
     HANDLE_DATASTREAM_CHANGE_WITH_UPDATE,
     HANDLE_ADD_OR_DELETE_DATASTREAM,
@@ -37,6 +39,8 @@ public class CoordinatorEvent {
   public static final CoordinatorEvent HANDLE_ADD_OR_DELETE_DATASTREAM_EVENT =
       new CoordinatorEvent(EventType.HANDLE_ADD_OR_DELETE_DATASTREAM);
   public static final CoordinatorEvent HEARTBEAT_EVENT = new CoordinatorEvent(EventType.HEARTBEAT);
+  public static final CoordinatorEvent LEADER_PARTITION_REBALANCE_EVENT =
+      new CoordinatorEvent(EventType.LEADER_PARTITION_REBALANCE);
 
   // This event is used during shutdown to unblock an empty queue
   public static final CoordinatorEvent NO_OP_EVENT = new CoordinatorEvent(EventType.NO_OP);
@@ -5,54 +5,125 @@
  */
 package com.linkedin.datastream.server;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.LinkedBlockingQueue;
 
+import org.apache.commons.lang.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.MetricRegistry;
+
+import com.linkedin.datastream.metrics.BrooklinHistogramInfo;
+import com.linkedin.datastream.metrics.BrooklinMeterInfo;
+import com.linkedin.datastream.metrics.BrooklinMetricInfo;
+import com.linkedin.datastream.metrics.DynamicMetricsManager;
+
+import static com.linkedin.datastream.server.CoordinatorEvent.EventType;
+
 
 /**
  * A blocking queue for {@link Coordinator} events
+ *
+ * Events are deduped: an event equal to an event already in the queue is dropped. In addition, events of the types in
+ * {@link #COALESCED_EVENT_TYPES} are coalesced regardless of their metadata: an event of such a type is merged into
+ * the event of the same type already in the queue, which keeps its position. This way a burst of
+ * {@link EventType#LEADER_DO_ASSIGNMENT} events (e.g. during a rolling restart) results in a single assignment.
+ *
+ * Events of the types in {@link #PRIORITY_EVENT_TYPES} are taken before all the other events, so that they are not
+ * delayed by a backlog of (slow) assignment events.
+ *
+ * {@link EventType#LEADER_DO_ASSIGNMENT} events can be debounced: such an event is not taken until the debounce
+ * window has elapsed since it was queued, and the events queued in the meantime are coalesced into it.
+ *
  * @see CoordinatorEvent.EventType
  */
 public class CoordinatorEventBlockingQueue {
 
   private static final Logger LOG = LoggerFactory.getLogger(CoordinatorEventBlockingQueue.class.getName());
+  private static final String MODULE = CoordinatorEventBlockingQueue.class.getSimpleName();
+
+  // Metrics
+  private static final String QUEUE_WAIT_TIME_MS = "queueWaitTimeMs";
+  private static final String NUM_COALESCED_EVENTS = "numCoalescedEvents";
+
+  private static final Set<EventType> COALESCED_EVENT_TYPES = Collections.unmodifiableSet(
+      EnumSet.of(EventType.LEADER_DO_ASSIGNMENT));
+  private static final Set<EventType> PRIORITY_EVENT_TYPES = Collections.unmodifiableSet(
+      EnumSet.of(EventType.HEARTBEAT));
+
+  private final long _leaderDoAssignmentDebounceMs;
+  private final DynamicMetricsManager _dynamicMetricsManager;
   private final Set<CoordinatorEvent> _eventSet;
-  private final Queue<CoordinatorEvent> _eventQueue;
+  private final Map<EventType, QueuedEvent> _coalescedEvents;
+  private final Queue<QueuedEvent> _priorityEventQueue;
+  private final Queue<QueuedEvent> _eventQueue;
 
   /**
-   * Construct a blocking event queue for all types of events in {@link CoordinatorEvent.EventType}
+   * Construct a blocking event queue for all types of events in {@link CoordinatorEvent.EventType}, which
+   * neither debounces events nor reports metrics
    */
   public CoordinatorEventBlockingQueue() {
+    this(0, null);
+  }
+
+  /**
+   * Construct a blocking event queue for all types of events in {@link CoordinatorEvent.EventType}
+   * @param leaderDoAssignmentDebounceMs time for which {@link EventType#LEADER_DO_ASSIGNMENT} events are held in the
+   *                                     queue to coalesce the subsequent ones, 0 to disable debouncing
+   * @param dynamicMetricsManager metrics manager to report the queue metrics to, null to disable the metrics
+   */
+  public CoordinatorEventBlockingQueue(long leaderDoAssignmentDebounceMs, DynamicMetricsManager dynamicMetricsManager) {
+    Validate.isTrue(leaderDoAssignmentDebounceMs >= 0, "leaderDoAssignmentDebounceMs must not be negative");
+    _leaderDoAssignmentDebounceMs = leaderDoAssignmentDebounceMs;
+    _dynamicMetricsManager = dynamicMetricsManager;
     _eventSet = new HashSet<>();
-    _eventQueue = new LinkedBlockingQueue<>();
+    _coalescedEvents = new EnumMap<>(EventType.class);
+    _priorityEventQueue = new ArrayDeque<>();
+    _eventQueue = new ArrayDeque<>();
   }
 
   /**
-   * Add a single event to the queue, overwriting events with the same name and same metadata.
+   * Add a single event to the queue, overwriting events with the same name and same metadata, and coalescing events
+   * of the types in {@link #COALESCED_EVENT_TYPES} with the event of the same type in the queue, if any.
    * @param event CoordinatorEvent event to add to the queue
    */
   public synchronized void put(CoordinatorEvent event) {
     LOG.info("Queuing event {} to event queue", event.getType());
-    if (!_eventSet.contains(event)) {
-      // only insert if there isn't an event present in the queue with the same name and same metadata.
-      boolean result = _eventQueue.offer(event);
-      if (!result) {
-        return;
+    EventType eventType = event.getType();
+    if (COALESCED_EVENT_TYPES.contains(eventType)) {
+      QueuedEvent queuedEvent = _coalescedEvents.get(eventType);
+      if (queuedEvent != null) {
+        queuedEvent._event = coalesce(queuedEvent._event, event);
+        updateMeter(NUM_COALESCED_EVENTS, 1);
+      } else {
+        QueuedEvent newEvent = new QueuedEvent(event, getDebounceMs(eventType));
+        _coalescedEvents.put(eventType, newEvent);
+        getQueue(eventType).offer(newEvent);
       }
-      _eventSet.add(event);
+    } else if (_eventSet.add(event)) {
+      // only insert if there isn't an event present in the queue with the same name and same metadata.
+      getQueue(eventType).offer(new QueuedEvent(event, 0));
+    } else {
+      updateMeter(NUM_COALESCED_EVENTS, 1);
     }
-    LOG.debug("Event queue size {}", _eventQueue.size());
+    LOG.debug("Event queue size {}", size());
     notify();
   }
 
   /**
    * Retrieve and remove the event at the head of this queue, if any, or wait
-   * until one is present.
+   * until one is present. Priority events are retrieved first, and a debounced
+   * event at the head of the queue is only retrieved once its debounce window
+   * has elapsed.
    *
    * @return the event at the head of this queue
    * @throws InterruptedException if any thread interrupted the
@@ -60,31 +131,51 @@ public class CoordinatorEventBlockingQueue {
    *             was waiting for a notification
    */
   public synchronized CoordinatorEvent take() throws InterruptedException {
-    while (_eventQueue.isEmpty()) {
-      wait();
-    }
+    QueuedEvent queuedEvent;
+    while (true) {
+      queuedEvent = _priorityEventQueue.poll();
+      if (queuedEvent != null) {
+        break;
+      }
 
-    CoordinatorEvent queuedEvent = _eventQueue.poll();
+      QueuedEvent head = _eventQueue.peek();
+      if (head == null) {
+        wait();
+      } else if (head._readyTimeMs > System.currentTimeMillis()) {
+        // wake up when the debounce window of the head elapses or a (priority) event is queued
+        wait(Math.max(1, head._readyTimeMs - System.currentTimeMillis()));
+      } else {
+        queuedEvent = _eventQueue.poll();
+        break;
+      }
+    }
 
-    if (CoordinatorEvent.NO_OP_EVENT == queuedEvent) {
+    CoordinatorEvent event = queuedEvent._event;
+    if (CoordinatorEvent.NO_OP_EVENT == event) {
+      _eventSet.remove(event);
       return null;
     }
 
-    if (queuedEvent != null) {
-      LOG.info("De-queuing event " + queuedEvent.getType());
-      LOG.debug("Event queue size: {}", _eventQueue.size());
-      _eventSet.remove(queuedEvent);
+    LOG.info("De-queuing event " + event.getType());
+    LOG.debug("Event queue size: {}", size());
+    if (COALESCED_EVENT_TYPES.contains(event.getType())) {
+      _coalescedEvents.remove(event.getType());
+    } else {
+      _eventSet.remove(event);
     }
+    updateHistogram(QUEUE_WAIT_TIME_MS, System.currentTimeMillis() - queuedEvent._queuedTimeMs);
 
-    return queuedEvent;
+    return event;
   }
 
   /**
-   *
+   * Remove all the events from the queue
    */
   public synchronized void clear() {
+    _priorityEventQueue.clear();
     _eventQueue.clear();
     _eventSet.clear();
+    _coalescedEvents.clear();
   }
 
   /**
@@ -94,14 +185,15 @@ public class CoordinatorEventBlockingQueue {
    * @return the head of this queue, or {@code null} if this queue is empty
    */
   public synchronized CoordinatorEvent peek() {
-    return _eventQueue.peek();
+    QueuedEvent head = _priorityEventQueue.isEmpty() ? _eventQueue.peek() : _priorityEventQueue.peek();
+    return head == null ? null : head._event;
   }
 
   /**
    * Get the number of events in this queue
    */
-  public int size() {
-    return _eventQueue.size();
+  public synchronized int size() {
+    return _priorityEventQueue.size() + _eventQueue.size();
   }
 
   /**
@@ -109,7 +201,68 @@ public class CoordinatorEventBlockingQueue {
    *
    * @return true if the queue is empty
    */
-  public boolean isEmpty() {
-    return _eventQueue.isEmpty();
+  public synchronized boolean isEmpty() {
+    return _priorityEventQueue.isEmpty() && _eventQueue.isEmpty();
+  }
+
+  /**
+   * Get the metrics reported by the queue
+   */
+  public static List<BrooklinMetricInfo> getMetricInfos() {
+    List<BrooklinMetricInfo> metrics = new ArrayList<>();
+
+    metrics.add(new BrooklinHistogramInfo(MetricRegistry.name(MODULE, QUEUE_WAIT_TIME_MS)));
+    metrics.add(new BrooklinMeterInfo(MetricRegistry.name(MODULE, NUM_COALESCED_EVENTS)));
+
+    return Collections.unmodifiableList(metrics);
+  }
+
+  private Queue<QueuedEvent> getQueue(EventType eventType) {
+    return PRIORITY_EVENT_TYPES.contains(eventType) ? _priorityEventQueue : _eventQueue;
+  }
+
+  private long getDebounceMs(EventType eventType) {
+    return eventType == EventType.LEADER_DO_ASSIGNMENT ? _leaderDoAssignmentDebounceMs : 0;
+  }
+
+  /**
+   * Merge an event into the queued event of the same type. A leader assignment cleans up the orphan nodes if any of
+   * the coalesced events asked for it.
+   */
+  private static CoordinatorEvent coalesce(CoordinatorEvent queuedEvent, CoordinatorEvent event) {
+    switch (queuedEvent.getType()) {
+      case LEADER_DO_ASSIGNMENT:
+        return CoordinatorEvent.createLeaderDoAssignmentEvent(Boolean.TRUE.equals(queuedEvent.getEventMetadata())
+            || Boolean.TRUE.equals(event.getEventMetadata()));
+      default:
+        throw new IllegalArgumentException("Events of type " + queuedEvent.getType() + " cannot be coalesced");
+    }
+  }
+
+  private void updateHistogram(String metricName, long value) {
+    if (_dynamicMetricsManager != null) {
+      _dynamicMetricsManager.createOrUpdateHistogram(MODULE, metricName, value);
+    }
+  }
+
+  private void updateMeter(String metricName, long value) {
+    if (_dynamicMetricsManager != null) {
+      _dynamicMetricsManager.createOrUpdateMeter(MODULE, metricName, value);
+    }
+  }
+
+  /**
+   * An event in the queue, along with the time it was queued at
+   */
+  private static class QueuedEvent {
+    private final long _queuedTimeMs;
+    private final long _readyTimeMs;
+    private CoordinatorEvent _event;
+
+    QueuedEvent(CoordinatorEvent event, long debounceMs) {
+      _event = event;
+      _queuedTimeMs = System.currentTimeMillis();
+      _readyTimeMs = _queuedTimeMs + debounceMs;
+    }
   }
 }
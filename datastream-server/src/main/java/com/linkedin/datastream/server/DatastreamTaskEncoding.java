@@ -0,0 +1,59 @@
+/**
+ *  Copyright 2019 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.server;
+
+import java.io.IOException;
+
+
+/**
+ * The encodings of the {@link DatastreamTaskImpl}s stored in the ZooKeeper znodes of the task assignments.
+ *
+ * {@link #decode(String)} accepts the tasks of any encoding, so the encoding written can be changed as long as all the
+ * instances of the cluster are able to decode it: {@link #COMPACT} must only be enabled once all the instances run a
+ * version which has it.
+ */
+public enum DatastreamTaskEncoding {
+  /**
+   * The JSON form of the task (see {@link DatastreamTaskImpl#toJson()})
+   */
+  JSON {
+    @Override
+    public String encode(DatastreamTaskImpl task) throws IOException {
+      return task.toJson();
+    }
+  },
+
+  /**
+   * A versioned, compressed binary form of the task, with the partitions encoded as ranges, which is much smaller
+   * and faster to decode than the JSON form for the tasks with many partitions
+   */
+  COMPACT {
+    @Override
+    public String encode(DatastreamTaskImpl task) throws IOException {
+      return CompactDatastreamTaskCodec.encode(task);
+    }
+  };
+
+  /**
+   * Encode a task
+   * @param task the task to encode
+   * @return the encoded task
+   * @throws IOException if the task cannot be encoded
+   */
+  public abstract String encode(DatastreamTaskImpl task) throws IOException;
+
+  /**
+   * Decode a task encoded with any of the encodings
+   * @param content the encoded task
+   * @return the decoded task
+   */
+  public static DatastreamTaskImpl decode(String content) {
+    if (content.startsWith(CompactDatastreamTaskCodec.PREFIX)) {
+      return CompactDatastreamTaskCodec.decode(content);
+    }
+    return DatastreamTaskImpl.fromJson(content);
+  }
+}
@@ -59,9 +59,17 @@ public class DatastreamTaskImpl implements DatastreamTask {
   private static final Logger LOG = LoggerFactory.getLogger(DatastreamTask.class.getName());
 
   private static final String STATUS = "STATUS";
+
+  /**
+   * The key of the task state the stats of the task are saved under
+   */
+  public static final String STATS_KEY = "stats";
   private volatile List<Datastream> _datastreams;
 
   private HashMap<Integer, String> _checkpoints = new HashMap<>();
+  // The typed checkpoints which are newer than the checkpoints of their partitions, which are only rendered into the
+  // checkpoints when these are read
+  private HashMap<Integer, Comparable<?>> _typedCheckpoints = new HashMap<>();
 
   // connector type. Type of the connector to be used for reading the change capture events
   // from the source, e.g. Oracle-Change, Espresso-Change, Oracle-Bootstrap, Espresso-Bootstrap,
@@ -91,7 +99,7 @@ public class DatastreamTaskImpl implements DatastreamTask {
 
   @JsonIgnore
   public String getStatsFromZK() {
-    return getState("stats");
+    return getState(STATS_KEY);
   }
 
   @JsonIgnore
@@ -200,6 +208,7 @@ public class DatastreamTaskImpl implements DatastreamTask {
     _zkAdapter = predecessor._zkAdapter;
     _eventProducer = predecessor._eventProducer;
     _checkpoints = predecessor._checkpoints;
+    _typedCheckpoints = predecessor._typedCheckpoints;
     _transportProviderName = predecessor._transportProviderName;
     _destinationSerDes = predecessor._destinationSerDes;
 
@@ -286,11 +295,19 @@ public class DatastreamTaskImpl implements DatastreamTask {
   @JsonIgnore
   @Override
   public Map<Integer, String> getCheckpoints() {
+    if (!_typedCheckpoints.isEmpty()) {
+      _typedCheckpoints.forEach((partition, checkpoint) -> _checkpoints.put(partition, checkpoint.toString()));
+      _typedCheckpoints.clear();
+    }
     return _checkpoints;
   }
 
+  /**
+   * Set the checkpoints of the task, replacing all its current checkpoints
+   */
   public void setCheckpoints(Map<Integer, String> checkpoints) {
     _checkpoints = new HashMap<>(checkpoints);
+    _typedCheckpoints = new HashMap<>();
   }
 
   /**
@@ -516,9 +533,20 @@ public class DatastreamTaskImpl implements DatastreamTask {
    */
   public void updateCheckpoint(int partition, String checkpoint) {
     LOG.debug("Update checkpoint called for partition {} and checkpoint {}", partition, checkpoint);
+    _typedCheckpoints.remove(partition);
     _checkpoints.put(partition, checkpoint);
   }
 
+  /**
+   * Update checkpoint info for given partition inside the task with a typed checkpoint, whose string representation
+   * is only rendered when the checkpoints of the task are read (see {@link #getCheckpoints()}).
+   * @param partition Partition whose checkpoint needs to be updated.
+   * @param checkpoint Typed checkpoint to update to.
+   */
+  public void updateTypedCheckpoint(int partition, Comparable<?> checkpoint) {
+    _typedCheckpoints.put(partition, checkpoint);
+  }
+
   // required for json deserialization
   public List<String> getDependencies() {
     return _dependencies;
@@ -22,6 +22,10 @@ import org.apache.kafka.common.TopicPartition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+
 import com.linkedin.datastream.common.BrooklinEnvelope;
 import com.linkedin.datastream.common.Datastream;
 import com.linkedin.datastream.common.DatastreamRuntimeException;
@@ -31,7 +35,9 @@ import com.linkedin.datastream.metrics.BrooklinHistogramInfo;
 import com.linkedin.datastream.metrics.BrooklinMeterInfo;
 import com.linkedin.datastream.metrics.BrooklinMetricInfo;
 import com.linkedin.datastream.metrics.DynamicMetricsManager;
+import com.linkedin.datastream.metrics.MetricHandle;
 import com.linkedin.datastream.metrics.MetricsAware;
+import com.linkedin.datastream.server.api.transport.BatchSendCallback;
 import com.linkedin.datastream.server.api.transport.DatastreamRecordMetadata;
 import com.linkedin.datastream.server.api.transport.SendCallback;
 import com.linkedin.datastream.server.api.transport.SendFailedException;
@@ -89,6 +95,8 @@ public class EventProducer implements DatastreamEventProducer {
   private final Logger _logger;
   private final TransportProvider _transportProvider;
   private final CheckpointProvider _checkpointProvider;
+  // Whether the checkpoints of the sent records are committed, i.e. rendered and handed to the checkpoint provider
+  private final boolean _commitCheckpoints;
   private final DynamicMetricsManager _dynamicMetricsManager;
   private final int _availabilityThresholdSlaMs;
   // Alternate SLA for comparison with the main SLA
@@ -106,6 +114,14 @@ public class EventProducer implements DatastreamEventProducer {
   private final boolean _enablePerTopicEventLatencyMetrics;
   private final Duration _flushInterval;
 
+  // Metric handles for the aggregate, connector and, if per-topic metrics are disabled, datastream level metrics
+  private final KeyedMetricHandles _aggregateMetrics;
+  private final KeyedMetricHandles _connectorMetrics;
+  private final KeyedMetricHandles _datastreamMetrics;
+  // Metric handles for the topic level metrics, by topic name
+  private final Map<String, KeyedMetricHandles> _topicMetrics = new ConcurrentHashMap<>();
+  private final KeyedMetricHandles _noTopicMetrics;
+
   private Instant _lastFlushTime = Instant.now();
   private long _lastEventsOutsideAltSlaLogTimeMs = System.currentTimeMillis();
   private Map<TopicPartition, Integer> _trackEventsOutsideAltSlaMap = new ConcurrentHashMap<>();
@@ -135,6 +151,7 @@ public class EventProducer implements DatastreamEventProducer {
     } else {
       _checkpointProvider = checkpointProvider;
     }
+    _commitCheckpoints = !(_checkpointProvider instanceof NoOpCheckpointProvider);
 
     _skipMessageOnSerializationErrors = getSkipMessageOnSerializationErrors(task, config);
 
@@ -178,6 +195,11 @@ public class EventProducer implements DatastreamEventProducer {
         EVENTS_PRODUCED_OUTSIDE_SLA, 0);
     _dynamicMetricsManager.createOrUpdateCounter(MODULE, _datastreamTask.getConnectorType(),
         DROPPED_SENT_FROM_SERIALIZATION_ERROR, 0);
+
+    _aggregateMetrics = new KeyedMetricHandles(_dynamicMetricsManager, AGGREGATE);
+    _connectorMetrics = new KeyedMetricHandles(_dynamicMetricsManager, _datastreamTask.getConnectorType());
+    _datastreamMetrics = new KeyedMetricHandles(_dynamicMetricsManager, getDatastreamName());
+    _noTopicMetrics = new KeyedMetricHandles(_dynamicMetricsManager, null);
   }
 
   /**
@@ -192,7 +214,10 @@ public class EventProducer implements DatastreamEventProducer {
   private void validateEventRecord(DatastreamProducerRecord record) {
     Validate.notNull(record, "null event record.");
     Validate.notNull(record.getEvents(), "null event payload.");
-    Validate.notNull(record.getCheckpoint(), "null event checkpoint.");
+    if (!record.hasCheckpoint()) {
+      // Checked without rendering a typed checkpoint; thrown as NPE to match the other validations
+      throw new NullPointerException("null event checkpoint.");
+    }
 
     for (Object event : record.getEvents()) {
       BrooklinEnvelope envelope = (BrooklinEnvelope) event;
@@ -211,20 +236,74 @@ public class EventProducer implements DatastreamEventProducer {
   }
 
   /**
-   * Send the event onto the underlying transport.
-   * @param record the datastream event
-   * @param sendEventCallback the callback to be invoked after the event is sent to the destination
-   *
-   * @return For broadcast return DatastreamRecordMetadata got from transport provider broadcast, null for send
+   * Send the events onto the underlying transport. Validation, serialization and the periodic flush check are
+   * performed once for the whole batch before the records are handed to the transport provider, and consecutive
+   * records with the same destination are sent in a single {@link TransportProvider#sendBatch} call.
+   * @param records the datastream events
+   * @param sendCallback the callback to be invoked after each event is sent to the destination, with the index of its
+   *                     record within the batch
    */
-  private DatastreamRecordMetadata helperSendOrBroadcast(DatastreamProducerRecord record,
-      SendCallback sendEventCallback, boolean isBroadcast) {
-    DatastreamRecordMetadata broadcastMetadata = null;
+  @Override
+  public void sendBatch(List<DatastreamProducerRecord> records, BatchSendCallback sendCallback) {
+    List<DatastreamProducerRecord> toSend = new ArrayList<>(records.size());
+    // the index within the batch of each record to send, as the records skipped on serialization errors are not sent
+    int[] recordIndices = new int[records.size()];
+    for (int i = 0; i < records.size(); i++) {
+      DatastreamProducerRecord record = records.get(i);
+      if (validateAndSerialize(record)) {
+        recordIndices[toSend.size()] = i;
+        toSend.add(record);
+      }
+    }
+
+    String defaultDestination = _datastreamTask.getDatastreamDestination().getConnectionString();
+    long sendTimestamp = System.currentTimeMillis();
+    int runStart = 0;
+    String runDestination = null;
+    for (int i = 0; i < toSend.size(); i++) {
+      DatastreamProducerRecord record = toSend.get(i);
+      String destination = record.getDestination().orElse(defaultDestination);
+      if (runDestination != null && !runDestination.equals(destination)) {
+        sendBatchToTransport(runDestination, toSend.subList(runStart, i), recordIndices, runStart, sendCallback);
+        runStart = i;
+      }
+      runDestination = destination;
+      record.setEventsSendTimestamp(sendTimestamp);
+    }
+    if (runStart < toSend.size()) {
+      sendBatchToTransport(runDestination, toSend.subList(runStart, toSend.size()), recordIndices, runStart,
+          sendCallback);
+    }
 
+    maybeFlushOnSend();
+  }
+
+  private void sendBatchToTransport(String destination, List<DatastreamProducerRecord> records, int[] recordIndices,
+      int runStart, BatchSendCallback sendCallback) {
+    try {
+      _transportProvider.sendBatch(destination, records, (recordIndex, metadata, exception) -> {
+        DatastreamProducerRecord record = records.get(recordIndex);
+        onSendCallback(metadata, exception, null, sendCallback, recordIndices[runStart + recordIndex],
+            record.getEventsSourceTimestamp(), record.getEventsSendTimestamp().orElse(0L));
+      });
+    } catch (Exception e) {
+      String errorMessage = String.format("Failed to send the batch of %d events to %s exception %s", records.size(),
+          destination, e);
+      _logger.warn(errorMessage, e);
+      throw new DatastreamRuntimeException(errorMessage, e);
+    }
+  }
+
+  /**
+   * Validate the record and serialize its events.
+   * @return false if the record should be skipped because of a serialization error, as configured
+   */
+  private boolean validateAndSerialize(DatastreamProducerRecord record) {
     try {
       validateEventRecord(record);
 
       record.serializeEvents(_datastreamTask.getDestinationSerDes());
+      return true;
     } catch (NullPointerException e) {
       String errorMessage = String.format("Validation failed for record %s exception %s", record, e);
       _logger.warn(errorMessage, e);
@@ -237,16 +316,32 @@ public class EventProducer implements DatastreamEventProducer {
         _dynamicMetricsManager.createOrUpdateCounter(MODULE, getDatastreamName(),
             DROPPED_SENT_FROM_SERIALIZATION_ERROR, 1);
         _dynamicMetricsManager.createOrUpdateCounter(MODULE, AGGREGATE, DROPPED_SENT_FROM_SERIALIZATION_ERROR, 1);
-        if (isBroadcast) {
-          return new DatastreamRecordMetadata(true);
-        }
-        return null;
+        return false;
       } else {
         String errorMessage = String.format("Failed to send event %s because of serialization exception %s", record, e);
         _logger.warn(errorMessage, e);
         throw new DatastreamRuntimeException(errorMessage, e);
       }
     }
+  }
+
+  /**
+   * Send the event onto the underlying transport.
+   * @param record the datastream event
+   * @param sendEventCallback the callback to be invoked after the event is sent to the destination
+   *
+   * @return For broadcast return DatastreamRecordMetadata got from transport provider broadcast, null for send
+   */
+  private DatastreamRecordMetadata helperSendOrBroadcast(DatastreamProducerRecord record,
+      SendCallback sendEventCallback, boolean isBroadcast) {
+    DatastreamRecordMetadata broadcastMetadata = null;
+
+    if (!validateAndSerialize(record)) {
+      if (isBroadcast) {
+        return new DatastreamRecordMetadata(true);
+      }
+      return null;
+    }
 
     try {
       // Send the event to the transport
@@ -257,8 +352,8 @@ public class EventProducer implements DatastreamEventProducer {
       long recordEventsSendTimestamp = record.getEventsSendTimestamp().orElse(0L);
       if (isBroadcast) {
         broadcastMetadata = _transportProvider.broadcast(destination, record,
-            (metadata, exception) -> onSendCallback(metadata, exception, sendEventCallback, recordEventsSourceTimestamp,
-                recordEventsSendTimestamp));
+            (metadata, exception) -> onSendCallback(metadata, exception, sendEventCallback, null, 0,
+                recordEventsSourceTimestamp, recordEventsSendTimestamp));
         _logger.debug("Broadcast completed with {}", broadcastMetadata);
         if (broadcastMetadata.isMessageSerializationError()) {
           _logger.warn("Broadcast of record {} to destination {} failed because of serialization error.",
@@ -266,8 +361,8 @@ public class EventProducer implements DatastreamEventProducer {
         }
       } else {
         _transportProvider.send(destination, record,
-            (metadata, exception) -> onSendCallback(metadata, exception, sendEventCallback, recordEventsSourceTimestamp,
-                recordEventsSendTimestamp));
+            (metadata, exception) -> onSendCallback(metadata, exception, sendEventCallback, null, 0,
+                recordEventsSourceTimestamp, recordEventsSendTimestamp));
       }
     } catch (Exception e) {
       String errorMessage = String.format("Failed to send the event %s exception %s", record, e);
@@ -275,29 +370,26 @@ public class EventProducer implements DatastreamEventProducer {
       throw new DatastreamRuntimeException(errorMessage, e);
     }
 
+    maybeFlushOnSend();
+
+    return broadcastMetadata;
+  }
+
+  private void maybeFlushOnSend() {
     // Force a periodic flush if flushless mode isn't enabled, in case the connector is not calling flush at
     // regular intervals
     if (_enableFlushOnSend && Instant.now().isAfter(_lastFlushTime.plus(_flushInterval))) {
       flush();
     }
-
-    return broadcastMetadata;
   }
 
   // Report SLA metrics for aggregate, connector and task
-  private void reportSLAMetrics(String topicOrDatastreamName, boolean isWithinSLA, String metricNameForWithinSLA,
-      String metricNameForOutsideSLA) {
-    int withinSLAValue = isWithinSLA ? 1 : 0;
-    int outsideSLAValue = isWithinSLA ? 0 : 1;
-    _dynamicMetricsManager.createOrUpdateCounter(MODULE, AGGREGATE, metricNameForWithinSLA, withinSLAValue);
-    _dynamicMetricsManager.createOrUpdateCounter(MODULE, _datastreamTask.getConnectorType(), metricNameForWithinSLA,
-        withinSLAValue);
-    _dynamicMetricsManager.createOrUpdateCounter(MODULE, topicOrDatastreamName, metricNameForWithinSLA, withinSLAValue);
-    _dynamicMetricsManager.createOrUpdateCounter(MODULE, AGGREGATE, metricNameForOutsideSLA, outsideSLAValue);
-    _dynamicMetricsManager.createOrUpdateCounter(MODULE, _datastreamTask.getConnectorType(), metricNameForOutsideSLA,
-        outsideSLAValue);
-    _dynamicMetricsManager.createOrUpdateCounter(MODULE, topicOrDatastreamName, metricNameForOutsideSLA,
-        outsideSLAValue);
+  private void reportSLAMetrics(KeyedMetricHandles topicOrDatastreamMetrics, long sourceToDestinationLatencyMs) {
+    boolean isWithinSLA = sourceToDestinationLatencyMs <= _availabilityThresholdSlaMs;
+    boolean isWithinAlternateSLA = sourceToDestinationLatencyMs <= _availabilityThresholdAlternateSlaMs;
+    _aggregateMetrics.reportSLA(isWithinSLA, isWithinAlternateSLA);
+    _connectorMetrics.reportSLA(isWithinSLA, isWithinAlternateSLA);
+    topicOrDatastreamMetrics.reportSLA(isWithinSLA, isWithinAlternateSLA);
   }
 
   private void performSlaRelatedLogging(DatastreamRecordMetadata metadata, long eventsSourceTimestamp,
@@ -341,35 +433,28 @@ public class EventProducer implements DatastreamEventProducer {
    */
   private void reportMetrics(DatastreamRecordMetadata metadata, long eventsSourceTimestamp, long eventsSendTimestamp) {
     // If per-topic metrics are enabled, use topic as key for metrics; else, use datastream name as the key
-    String datastreamName = getDatastreamName();
-    String topicOrDatastreamName = _enablePerTopicMetrics ? metadata.getTopic() : datastreamName;
+    KeyedMetricHandles topicOrDatastreamMetrics =
+        _enablePerTopicMetrics ? getTopicMetrics(metadata.getTopic()) : _datastreamMetrics;
     // Treat all events within this record equally (assume same timestamp)
     if (eventsSourceTimestamp > 0) {
       // Report availability metrics
       long sourceToDestinationLatencyMs = System.currentTimeMillis() - eventsSourceTimestamp;
       // Using a time sliding window for reporting latency specifically.
       // Otherwise we report very stuck max value for slow source
-      _dynamicMetricsManager.createOrUpdateSlidingWindowHistogram(MODULE, topicOrDatastreamName,
-          EVENTS_LATENCY_MS_STRING, LATENCY_SLIDING_WINDOW_LENGTH_MS, sourceToDestinationLatencyMs);
-      _dynamicMetricsManager.createOrUpdateSlidingWindowHistogram(MODULE, AGGREGATE, EVENTS_LATENCY_MS_STRING,
-          LATENCY_SLIDING_WINDOW_LENGTH_MS, sourceToDestinationLatencyMs);
-      _dynamicMetricsManager.createOrUpdateSlidingWindowHistogram(MODULE, _datastreamTask.getConnectorType(),
-          EVENTS_LATENCY_MS_STRING, LATENCY_SLIDING_WINDOW_LENGTH_MS, sourceToDestinationLatencyMs);
+      topicOrDatastreamMetrics._eventsLatencyMs.get().update(sourceToDestinationLatencyMs);
+      _aggregateMetrics._eventsLatencyMs.get().update(sourceToDestinationLatencyMs);
+      _connectorMetrics._eventsLatencyMs.get().update(sourceToDestinationLatencyMs);
 
       // Only update the per topic latency metric here if 'enablePerTopicMetrics' is false, otherwise this will
       // update the metric twice.
       if (_enablePerTopicEventLatencyMetrics && !_enablePerTopicMetrics) {
-        _dynamicMetricsManager.createOrUpdateSlidingWindowHistogram(MODULE, metadata.getTopic(),
-            EVENTS_LATENCY_MS_STRING, LATENCY_SLIDING_WINDOW_LENGTH_MS, sourceToDestinationLatencyMs);
+        getTopicMetrics(metadata.getTopic())._eventsLatencyMs.get().update(sourceToDestinationLatencyMs);
       }
 
-      reportSLAMetrics(topicOrDatastreamName, sourceToDestinationLatencyMs <= _availabilityThresholdSlaMs,
-          EVENTS_PRODUCED_WITHIN_SLA, EVENTS_PRODUCED_OUTSIDE_SLA);
-
-      reportSLAMetrics(topicOrDatastreamName, sourceToDestinationLatencyMs <= _availabilityThresholdAlternateSlaMs,
-          EVENTS_PRODUCED_WITHIN_ALTERNATE_SLA, EVENTS_PRODUCED_OUTSIDE_ALTERNATE_SLA);
+      reportSLAMetrics(topicOrDatastreamMetrics, sourceToDestinationLatencyMs);
 
       if (_logger.isDebugEnabled()) {
+        String datastreamName = getDatastreamName();
         if (sourceToDestinationLatencyMs > _availabilityThresholdSlaMs) {
           _logger.debug(
               "Event latency of {} for source {}, datastream {}, topic {}, partition {} exceeded SLA of {} milliseconds",
@@ -384,9 +469,8 @@ public class EventProducer implements DatastreamEventProducer {
         }
       }
 
-      _dynamicMetricsManager.createOrUpdateCounter(MODULE, AGGREGATE, TOTAL_EVENTS_PRODUCED, 1);
-      _dynamicMetricsManager.createOrUpdateCounter(MODULE, _datastreamTask.getConnectorType(), TOTAL_EVENTS_PRODUCED,
-          1);
+      _aggregateMetrics._totalEventsProduced.get().inc();
+      _connectorMetrics._totalEventsProduced.get().inc();
 
       // Log information about events if either warn logging is enabled or logging for topic partitions outside
       // alternate SLA is enabled
@@ -396,18 +480,32 @@ public class EventProducer implements DatastreamEventProducer {
     // Report the time it took to just send the events to destination
     if (eventsSendTimestamp > 0) {
       long sendLatency = System.currentTimeMillis() - eventsSendTimestamp;
-      _dynamicMetricsManager.createOrUpdateHistogram(MODULE, topicOrDatastreamName, EVENTS_SEND_LATENCY_MS_STRING,
-          sendLatency);
-      _dynamicMetricsManager.createOrUpdateHistogram(MODULE, AGGREGATE, EVENTS_SEND_LATENCY_MS_STRING, sendLatency);
-      _dynamicMetricsManager.createOrUpdateHistogram(MODULE, _datastreamTask.getConnectorType(),
-          EVENTS_SEND_LATENCY_MS_STRING, sendLatency);
+      topicOrDatastreamMetrics._eventsSendLatencyMs.get().update(sendLatency);
+      _aggregateMetrics._eventsSendLatencyMs.get().update(sendLatency);
+      _connectorMetrics._eventsSendLatencyMs.get().update(sendLatency);
     }
-    _dynamicMetricsManager.createOrUpdateMeter(MODULE, AGGREGATE, EVENT_PRODUCE_RATE, 1);
-    _dynamicMetricsManager.createOrUpdateMeter(MODULE, _datastreamTask.getConnectorType(), EVENT_PRODUCE_RATE, 1);
+    _aggregateMetrics._eventProduceRate.get().mark();
+    _connectorMetrics._eventProduceRate.get().mark();
   }
 
+  private KeyedMetricHandles getTopicMetrics(String topic) {
+    if (topic == null) {
+      // transport providers that don't report the topic get the metrics reported without a key
+      return _noTopicMetrics;
+    }
+    KeyedMetricHandles topicMetrics = _topicMetrics.get(topic);
+    if (topicMetrics == null) {
+      topicMetrics = _topicMetrics.computeIfAbsent(topic, t -> new KeyedMetricHandles(_dynamicMetricsManager, t));
+    }
+    return topicMetrics;
+  }
+
+  /**
+   * Commit the checkpoint and report the metrics of a completed send, then inform the connector through either its
+   * send callback, or its batch send callback along with the index of the record within the batch
+   */
   private void onSendCallback(DatastreamRecordMetadata metadata, Exception exception, SendCallback sendCallback,
-      long eventSourceTimestamp, long eventSendTimestamp) {
+      BatchSendCallback batchSendCallback, int recordIndex, long eventSourceTimestamp, long eventSendTimestamp) {
 
     SendFailedException sendFailedException = null;
 
@@ -415,8 +513,12 @@ public class EventProducer implements DatastreamEventProducer {
       if (exception != null) {
         sendFailedException = createSendFailedException(exception);
       } else {
+        if (_commitCheckpoints) {
+          checkpoint(metadata.getPartition(), metadata.getCheckpoint());
+        } else {
+          updateTaskCheckpoint(metadata);
+        }
         // Report metrics
-        checkpoint(metadata.getPartition(), metadata.getCheckpoint());
         reportMetrics(metadata, eventSourceTimestamp, eventSendTimestamp);
       }
     } catch (Exception e) {
@@ -428,6 +530,8 @@ public class EventProducer implements DatastreamEventProducer {
       // the connector is expected retry and go back to the last checkpoint.
       if (sendCallback != null) {
         sendCallback.onCompletion(metadata, sendFailedException);
+      } else if (batchSendCallback != null) {
+        batchSendCallback.onCompletion(recordIndex, metadata, sendFailedException);
       }
     }
   }
@@ -466,9 +570,8 @@ public class EventProducer implements DatastreamEventProducer {
     } finally {
       // Report flush latency metrics
       long flushLatencyMs = Duration.between(beforeFlush, _lastFlushTime).toMillis();
-      _dynamicMetricsManager.createOrUpdateHistogram(MODULE, AGGREGATE, FLUSH_LATENCY_MS_STRING, flushLatencyMs);
-      _dynamicMetricsManager.createOrUpdateHistogram(MODULE, _datastreamTask.getConnectorType(), FLUSH_LATENCY_MS_STRING,
-          flushLatencyMs);
+      _aggregateMetrics._flushLatencyMs.get().update(flushLatencyMs);
+      _connectorMetrics._flushLatencyMs.get().update(flushLatencyMs);
 
       if (flushLatencyMs > LONG_FLUSH_WARN_THRESHOLD_MS) {
         _logger.warn("Flush took {} ms", flushLatencyMs);
@@ -495,6 +598,20 @@ public class EventProducer implements DatastreamEventProducer {
     }
   }
 
+  /**
+   * Update the in-memory checkpoint of the task without committing it, leaving a typed checkpoint unrendered until
+   * the checkpoints of the task are read.
+   */
+  private void updateTaskCheckpoint(DatastreamRecordMetadata metadata) {
+    DatastreamTaskImpl task = (DatastreamTaskImpl) _datastreamTask;
+    Comparable<?> typedCheckpoint = metadata.getTypedCheckpoint(Comparable.class).orElse(null);
+    if (typedCheckpoint != null) {
+      task.updateTypedCheckpoint(metadata.getPartition(), typedCheckpoint);
+    } else {
+      task.updateCheckpoint(metadata.getPartition(), metadata.getCheckpoint());
+    }
+  }
+
   /**
    * Shuts down the event producer by flushing the checkpoints and closing the transport provider
    */
@@ -535,4 +652,43 @@ public class EventProducer implements DatastreamEventProducer {
 
     return Collections.unmodifiableList(metrics);
   }
+
+  /**
+   * Handles to the event producer metrics that share the same key (i.e. aggregate, connector type, topic or
+   * datastream name). The metrics are only created once they are first updated.
+   */
+  private static final class KeyedMetricHandles {
+    private final MetricHandle<Histogram> _eventsLatencyMs;
+    private final MetricHandle<Histogram> _eventsSendLatencyMs;
+    private final MetricHandle<Histogram> _flushLatencyMs;
+    private final MetricHandle<Counter> _eventsProducedWithinSla;
+    private final MetricHandle<Counter> _eventsProducedOutsideSla;
+    private final MetricHandle<Counter> _eventsProducedWithinAlternateSla;
+    private final MetricHandle<Counter> _eventsProducedOutsideAlternateSla;
+    private final MetricHandle<Counter> _totalEventsProduced;
+    private final MetricHandle<Meter> _eventProduceRate;
+
+    KeyedMetricHandles(DynamicMetricsManager dynamicMetricsManager, String key) {
+      _eventsLatencyMs = dynamicMetricsManager.slidingWindowHistogramHandle(MODULE, key, EVENTS_LATENCY_MS_STRING,
+          LATENCY_SLIDING_WINDOW_LENGTH_MS);
+      _eventsSendLatencyMs = dynamicMetricsManager.histogramHandle(MODULE, key, EVENTS_SEND_LATENCY_MS_STRING);
+      _flushLatencyMs = dynamicMetricsManager.histogramHandle(MODULE, key, FLUSH_LATENCY_MS_STRING);
+      _eventsProducedWithinSla = dynamicMetricsManager.counterHandle(MODULE, key, EVENTS_PRODUCED_WITHIN_SLA);
+      _eventsProducedOutsideSla = dynamicMetricsManager.counterHandle(MODULE, key, EVENTS_PRODUCED_OUTSIDE_SLA);
+      _eventsProducedWithinAlternateSla =
+          dynamicMetricsManager.counterHandle(MODULE, key, EVENTS_PRODUCED_WITHIN_ALTERNATE_SLA);
+      _eventsProducedOutsideAlternateSla =
+          dynamicMetricsManager.counterHandle(MODULE, key, EVENTS_PRODUCED_OUTSIDE_ALTERNATE_SLA);
+      _totalEventsProduced = dynamicMetricsManager.counterHandle(MODULE, key, TOTAL_EVENTS_PRODUCED);
+      _eventProduceRate = dynamicMetricsManager.meterHandle(MODULE, key, EVENT_PRODUCE_RATE);
+    }
+
+    // Both the within and outside SLA counters are always updated, so that they are created together
+    void reportSLA(boolean isWithinSLA, boolean isWithinAlternateSLA) {
+      _eventsProducedWithinSla.get().inc(isWithinSLA ? 1 : 0);
+      _eventsProducedOutsideSla.get().inc(isWithinSLA ? 0 : 1);
+      _eventsProducedWithinAlternateSla.get().inc(isWithinAlternateSLA ? 1 : 0);
+      _eventsProducedOutsideAlternateSla.get().inc(isWithinAlternateSLA ? 0 : 1);
+    }
+  }
 }
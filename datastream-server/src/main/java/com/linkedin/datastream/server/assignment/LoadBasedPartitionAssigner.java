@@ -7,6 +7,8 @@ package com.linkedin.datastream.server.assignment;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -49,6 +51,8 @@ public class LoadBasedPartitionAssigner implements MetricsAware {
   private static final DynamicMetricsManager DYNAMIC_METRICS_MANAGER = DynamicMetricsManager.getInstance();
   private static final String MIN_PARTITIONS_ACROSS_TASKS = "minPartitionsAcrossTasks";
   private static final String MAX_PARTITIONS_ACROSS_TASKS = "maxPartitionsAcrossTasks";
+  private static final String THROUGHPUT_IMBALANCE_PCT = "throughputImbalancePct";
+  private static final String PARTITIONS_MOVED_BY_REBALANCE = "partitionsMovedByRebalance";
 
   private final int _defaultPartitionBytesInKBRate;
   private final int _defaultPartitionMsgsInRate;
@@ -81,18 +85,20 @@ public class LoadBasedPartitionAssigner implements MetricsAware {
       ClusterThroughputInfo throughputInfo, Map<String, Set<DatastreamTask>> currentAssignment,
       List<String> unassignedPartitions, DatastreamGroupPartitionsMetadata partitionMetadata, int maxPartitionsPerTask) {
     String datastreamGroupName = partitionMetadata.getDatastreamGroup().getName();
-    Map<String, PartitionThroughputInfo> partitionInfoMap = new HashMap<>(throughputInfo.getPartitionInfoMap());
+    PartitionIndex partitionIndex = new PartitionIndex(partitionMetadata.getPartitions());
     Set<String> tasksWithChangedPartition = new HashSet<>();
 
     // filter out all the tasks for the current datastream group, and retain assignments in a map
-    Map<String, Set<String>> newPartitionAssignmentMap = new HashMap<>();
+    Map<String, BitSet> newPartitionAssignmentMap = new HashMap<>();
+    Map<String, Integer> numPartitionsPerTask = new HashMap<>();
     currentAssignment.values().forEach(tasks ->
         tasks.forEach(task -> {
           if (task.getTaskPrefix().equals(datastreamGroupName)) {
-            Set<String> retainedPartitions = new HashSet<>(task.getPartitionsV2());
-            retainedPartitions.retainAll(partitionMetadata.getPartitions());
+            BitSet retainedPartitions = partitionIndex.toBitSet(task.getPartitionsV2());
+            int numRetainedPartitions = retainedPartitions.cardinality();
             newPartitionAssignmentMap.put(task.getId(), retainedPartitions);
-            if (retainedPartitions.size() != task.getPartitionsV2().size()) {
+            numPartitionsPerTask.put(task.getId(), numRetainedPartitions);
+            if (numRetainedPartitions != task.getPartitionsV2().size()) {
               tasksWithChangedPartition.add(task.getId());
             }
           }
@@ -102,65 +108,56 @@ public class LoadBasedPartitionAssigner implements MetricsAware {
     int numTasks = newPartitionAssignmentMap.size();
     validatePartitionCountAndThrow(datastreamGroupName, numTasks, numPartitions, maxPartitionsPerTask);
 
+    // the unassigned partitions are expected to be partitions of the datastream group, but are assigned regardless
+    int[] unassignedPartitionIds = new int[unassignedPartitions.size()];
+    for (int i = 0; i < unassignedPartitionIds.length; i++) {
+      unassignedPartitionIds[i] = partitionIndex.add(unassignedPartitions.get(i));
+    }
+
+    // resolve the throughput of every partition once. If the partition level information is not found, the topic
+    // level information is used. It is always better than no information about the partition.
+    BitSet recognizedPartitionIds = new BitSet(partitionIndex.size()); // partitions with throughput info
+    int[] partitionThroughputs = getPartitionBytesInKBRates(partitionIndex, throughputInfo.getPartitionInfoMap(),
+        new PartitionThroughputInfo(_defaultPartitionBytesInKBRate, _defaultPartitionMsgsInRate, ""),
+        recognizedPartitionIds);
+
     // sort the current assignment's tasks on total throughput
     Map<String, Integer> taskThroughputMap = new HashMap<>();
-    PartitionThroughputInfo defaultPartitionInfo = new PartitionThroughputInfo(_defaultPartitionBytesInKBRate,
-        _defaultPartitionMsgsInRate, "");
-
-    newPartitionAssignmentMap.forEach((task, partitions) -> {
-      int totalThroughput = partitions.stream()
-          .mapToInt(p ->  {
-            String topic = extractTopicFromPartition(p);
-            PartitionThroughputInfo defaultValue = partitionInfoMap.getOrDefault(topic, defaultPartitionInfo);
-            return partitionInfoMap.getOrDefault(p, defaultValue).getBytesInKBRate();
-          })
-          .sum();
-      taskThroughputMap.put(task, totalThroughput);
-    });
-
-    ArrayList<String> recognizedPartitions = new ArrayList<>(); // partitions with throughput info
-    ArrayList<String> unrecognizedPartitions = new ArrayList<>(); // partitions without throughput info
-    for (String partition : unassignedPartitions) {
-      if (partitionInfoMap.containsKey(partition)) {
-        recognizedPartitions.add(partition);
+    newPartitionAssignmentMap.forEach((task, partitions) ->
+        taskThroughputMap.put(task, partitions.stream().map(id -> partitionThroughputs[id]).sum()));
+
+    // sort unassigned partitions with throughput info on throughput, keeping the order of the partitions with the
+    // same throughput, by sorting their throughput and position in a single long
+    long[] recognizedPartitions = new long[unassignedPartitionIds.length];
+    int numRecognizedPartitions = 0;
+    BitSet unrecognizedPartitionIds = new BitSet(partitionIndex.size()); // partitions without throughput info
+    for (int i = 0; i < unassignedPartitionIds.length; i++) {
+      int id = unassignedPartitionIds[i];
+      if (recognizedPartitionIds.get(id)) {
+        recognizedPartitions[numRecognizedPartitions++] = ((long) partitionThroughputs[id] << Integer.SIZE) | i;
       } else {
-        // If the partition level information is not found, try finding topic level information. It is always better
-        // than no information about the partition. Update the map with that information so that it can be used in later
-        // part of the code.
-        String topic = extractTopicFromPartition(partition);
-        if (partitionInfoMap.containsKey(topic)) {
-          partitionInfoMap.put(partition, partitionInfoMap.get(topic));
-          recognizedPartitions.add(partition);
-        } else {
-          unrecognizedPartitions.add(partition);
-        }
+        unrecognizedPartitionIds.set(id);
       }
     }
-
-    // sort unassigned partitions with throughput info on throughput
-    recognizedPartitions.sort((p1, p2) -> {
-      Integer p1KBRate = partitionInfoMap.get(p1).getBytesInKBRate();
-      Integer p2KBRate = partitionInfoMap.get(p2).getBytesInKBRate();
-      return p1KBRate.compareTo(p2KBRate);
-    });
+    Arrays.sort(recognizedPartitions, 0, numRecognizedPartitions);
 
     // build a priority queue of tasks based on throughput
     // only add tasks that can accommodate more partitions in the queue
     List<String> tasks = newPartitionAssignmentMap.keySet().stream()
-        .filter(t -> newPartitionAssignmentMap.get(t).size() < maxPartitionsPerTask)
+        .filter(t -> numPartitionsPerTask.get(t) < maxPartitionsPerTask)
         .collect(Collectors.toList());
     PriorityQueue<String> taskQueue = new PriorityQueue<>(Comparator.comparing(taskThroughputMap::get));
     taskQueue.addAll(tasks);
 
     // assign partitions with throughput info one by one, by putting the heaviest partition in the lightest task
-    while (recognizedPartitions.size() > 0 && taskQueue.size() > 0) {
-       String heaviestPartition = recognizedPartitions.remove(recognizedPartitions.size() - 1);
-       int heaviestPartitionThroughput = partitionInfoMap.get(heaviestPartition).getBytesInKBRate();
+    while (numRecognizedPartitions > 0 && taskQueue.size() > 0) {
+       int heaviestPartition = unassignedPartitionIds[(int) recognizedPartitions[--numRecognizedPartitions]];
+       int heaviestPartitionThroughput = partitionThroughputs[heaviestPartition];
        String lightestTask = taskQueue.poll();
-       newPartitionAssignmentMap.get(lightestTask).add(heaviestPartition);
+       newPartitionAssignmentMap.get(lightestTask).set(heaviestPartition);
        taskThroughputMap.put(lightestTask, taskThroughputMap.get(lightestTask) + heaviestPartitionThroughput);
        tasksWithChangedPartition.add(lightestTask);
-       int currentNumPartitions = newPartitionAssignmentMap.get(lightestTask).size();
+       int currentNumPartitions = numPartitionsPerTask.merge(lightestTask, 1, Integer::sum);
        // don't put the task back in the queue if the number of its partitions is maxed out
        if (currentNumPartitions < maxPartitionsPerTask) {
          taskQueue.add(lightestTask);
@@ -169,25 +166,27 @@ public class LoadBasedPartitionAssigner implements MetricsAware {
 
     // assign unrecognized partitions with round-robin
     Map<String, Integer> unrecognizedPartitionCountPerTask = new HashMap<>();
-    Collections.shuffle(unrecognizedPartitions);
     int index = 0;
-    for (String partition : unrecognizedPartitions) {
-      index = findTaskWithRoomForAPartition(tasks, newPartitionAssignmentMap, index, maxPartitionsPerTask);
+    for (int partition : PartitionIndex.toShuffledIds(unrecognizedPartitionIds)) {
+      index = findTaskWithRoomForAPartition(tasks, numPartitionsPerTask, index, maxPartitionsPerTask);
       String currentTask = tasks.get(index);
-      newPartitionAssignmentMap.get(currentTask).add(partition);
+      newPartitionAssignmentMap.get(currentTask).set(partition);
+      numPartitionsPerTask.merge(currentTask, 1, Integer::sum);
       tasksWithChangedPartition.add(currentTask);
       index = (index + 1) % tasks.size();
       unrecognizedPartitionCountPerTask.put(currentTask, unrecognizedPartitionCountPerTask.getOrDefault(currentTask, 0) + 1);
     }
 
     // build the new assignment using the new partitions for the affected datastream's tasks
+    boolean isThroughputInfoAvailable = !throughputInfo.getPartitionInfoMap().isEmpty();
     Map<String, Set<DatastreamTask>> newAssignments = currentAssignment.entrySet().stream()
       .collect(Collectors.toMap(x -> x.getKey(), x -> x.getValue().stream()
         .map(task -> {
           if (tasksWithChangedPartition.contains(task.getId())) {
-            Set<String> newAssignment = newPartitionAssignmentMap.get(task.getId());
+            List<String> newAssignment = partitionIndex.toPartitions(newPartitionAssignmentMap.get(task.getId()));
             DatastreamTaskImpl newTask = new DatastreamTaskImpl((DatastreamTaskImpl) task, newAssignment);
-            saveStats(partitionInfoMap, taskThroughputMap, unrecognizedPartitionCountPerTask, task, newAssignment.size(), newTask);
+            saveStats(isThroughputInfoAvailable, taskThroughputMap, unrecognizedPartitionCountPerTask, task,
+                newAssignment.size(), newTask);
             return newTask;
           } else {
             return task;
@@ -211,15 +210,182 @@ public class LoadBasedPartitionAssigner implements MetricsAware {
     return newAssignments;
   }
 
+  /**
+   * Moves already-assigned partitions between the tasks of a datastream group, to bring the throughput of the
+   * heaviest task down to at most imbalanceThresholdPct percent of the mean task throughput.
+   * <p>
+   * At most maxPartitionMoves partitions are moved, one at a time: each move takes the partition of the heaviest task
+   * whose throughput is the closest to half of the gap between the heaviest task and the lightest task (which has room
+   * for a partition), so that it reduces the throughput of the heaviest task without making the lightest task heavier
+   * than it was. The rebalancing stops early when no such partition exists. Every task which gets or loses partitions
+   * is replaced by a new task, which also depends on the tasks its new partitions are moved from.
+   * </p>
+   * @param throughputInfo Per partition throughput information
+   * @param currentAssignment Current assignment
+   * @param partitionMetadata Partition metadata
+   * @param maxPartitionsPerTask Maximum number of partitions per task
+   * @param maxPartitionMoves Maximum number of partitions to move
+   * @param imbalanceThresholdPct Maximum throughput of a task, as a percentage of the mean task throughput
+   * @return New assignment, which is the current assignment if no partition is moved
+   */
+  public Map<String, Set<DatastreamTask>> rebalancePartitions(ClusterThroughputInfo throughputInfo,
+      Map<String, Set<DatastreamTask>> currentAssignment, DatastreamGroupPartitionsMetadata partitionMetadata,
+      int maxPartitionsPerTask, int maxPartitionMoves, int imbalanceThresholdPct) {
+    String datastreamGroupName = partitionMetadata.getDatastreamGroup().getName();
+    PartitionIndex partitionIndex = new PartitionIndex(partitionMetadata.getPartitions());
+    int[] partitionThroughputs = getPartitionBytesInKBRates(partitionIndex, throughputInfo.getPartitionInfoMap(),
+        new PartitionThroughputInfo(_defaultPartitionBytesInKBRate, _defaultPartitionMsgsInRate, ""), null);
+
+    List<DatastreamTask> tasks = new ArrayList<>();
+    currentAssignment.values().forEach(instanceTasks -> instanceTasks.stream()
+        .filter(task -> task.getTaskPrefix().equals(datastreamGroupName))
+        .forEach(tasks::add));
+    int numTasks = tasks.size();
+    BitSet[] taskPartitions = new BitSet[numTasks];
+    long[] taskThroughputs = new long[numTasks];
+    int[] numPartitionsPerTask = new int[numTasks];
+    long totalThroughput = 0;
+    for (int i = 0; i < numTasks; i++) {
+      taskPartitions[i] = partitionIndex.toBitSet(tasks.get(i).getPartitionsV2());
+      taskThroughputs[i] = taskPartitions[i].stream().mapToLong(id -> partitionThroughputs[id]).sum();
+      numPartitionsPerTask[i] = taskPartitions[i].cardinality();
+      totalThroughput += taskThroughputs[i];
+    }
+
+    // the task each moved partition is moved from, at the first of its moves
+    Map<Integer, Integer> sourceTaskPerMovedPartition = new HashMap<>();
+    int numPartitionMoves = 0;
+    while (numTasks > 1 && numPartitionMoves < maxPartitionMoves) {
+      int heaviestTask = 0;
+      int lightestTask = -1;
+      for (int i = 0; i < numTasks; i++) {
+        if (taskThroughputs[i] > taskThroughputs[heaviestTask]) {
+          heaviestTask = i;
+        }
+        if (numPartitionsPerTask[i] < maxPartitionsPerTask
+            && (lightestTask < 0 || taskThroughputs[i] < taskThroughputs[lightestTask])) {
+          lightestTask = i;
+        }
+      }
+      // stop if the heaviest task is within the threshold of the mean, compared without dividing by the task count
+      if (lightestTask < 0
+          || taskThroughputs[heaviestTask] * numTasks * 100 <= totalThroughput * imbalanceThresholdPct) {
+        break;
+      }
+
+      long gap = taskThroughputs[heaviestTask] - taskThroughputs[lightestTask];
+      int partitionToMove = -1;
+      long bestReduction = 0;
+      BitSet heaviestTaskPartitions = taskPartitions[heaviestTask];
+      for (int id = heaviestTaskPartitions.nextSetBit(0); id >= 0; id = heaviestTaskPartitions.nextSetBit(id + 1)) {
+        // moving the partition reduces the gap between the two tasks by the smallest of these
+        long reduction = Math.min(partitionThroughputs[id], gap - partitionThroughputs[id]);
+        if (reduction > bestReduction) {
+          bestReduction = reduction;
+          partitionToMove = id;
+        }
+      }
+      if (partitionToMove < 0) {
+        break;
+      }
+
+      sourceTaskPerMovedPartition.putIfAbsent(partitionToMove, heaviestTask);
+      taskPartitions[heaviestTask].clear(partitionToMove);
+      taskPartitions[lightestTask].set(partitionToMove);
+      taskThroughputs[heaviestTask] -= partitionThroughputs[partitionToMove];
+      taskThroughputs[lightestTask] += partitionThroughputs[partitionToMove];
+      numPartitionsPerTask[heaviestTask]--;
+      numPartitionsPerTask[lightestTask]++;
+      numPartitionMoves++;
+    }
+
+    // a partition moved back to its task is not moved
+    sourceTaskPerMovedPartition.entrySet().removeIf(entry -> taskPartitions[entry.getValue()].get(entry.getKey()));
+
+    int imbalancePct = 0;
+    if (totalThroughput > 0) {
+      imbalancePct = (int) (Arrays.stream(taskThroughputs).max().getAsLong() * numTasks * 100 / totalThroughput);
+    }
+    DatastreamMetrics metrics = metricsForDatastream(partitionMetadata.getDatastreamGroup().getTaskPrefix());
+    metrics.throughputImbalancePct(imbalancePct);
+    metrics.partitionsMovedByRebalance(sourceTaskPerMovedPartition.size());
+    LOG.info("Rebalance stats for {}. Partitions moved: {}, max task throughput as a percentage of the mean: {}",
+        datastreamGroupName, sourceTaskPerMovedPartition.size(), imbalancePct);
+    if (sourceTaskPerMovedPartition.isEmpty()) {
+      return currentAssignment;
+    }
+
+    // replace the tasks whose partitions changed, making them depend on the tasks their new partitions come from
+    Map<DatastreamTask, DatastreamTaskImpl> newTasks = new HashMap<>();
+    Map<String, Integer> taskThroughputMap = new HashMap<>();
+    for (int i = 0; i < numTasks; i++) {
+      DatastreamTaskImpl task = (DatastreamTaskImpl) tasks.get(i);
+      if (!taskPartitions[i].equals(partitionIndex.toBitSet(task.getPartitionsV2()))) {
+        DatastreamTaskImpl newTask = new DatastreamTaskImpl(task, partitionIndex.toPartitions(taskPartitions[i]));
+        BitSet partitions = taskPartitions[i];
+        int taskIndex = i;
+        sourceTaskPerMovedPartition.forEach((partition, sourceTask) -> {
+          if (partitions.get(partition) && sourceTask != taskIndex) {
+            DatastreamTaskImpl dependency = (DatastreamTaskImpl) tasks.get(sourceTask);
+            if (!newTask.getDependencies().contains(dependency.getDatastreamTaskName())) {
+              newTask.addDependency(dependency);
+            }
+          }
+        });
+        taskThroughputMap.put(task.getId(), (int) taskThroughputs[i]);
+        saveStats(true, taskThroughputMap, Collections.emptyMap(), task, numPartitionsPerTask[i], newTask);
+        newTasks.put(task, newTask);
+      }
+    }
+
+    return currentAssignment.entrySet().stream()
+        .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().stream()
+            .map(task -> newTasks.containsKey(task) ? newTasks.get(task) : task)
+            .collect(Collectors.toSet())));
+  }
+
   private DatastreamMetrics metricsForDatastream(String taskPrefix) {
     return _metricsForDatastream.computeIfAbsent(taskPrefix, (x) -> new DatastreamMetrics(x));
   }
 
-  private void saveStats(Map<String, PartitionThroughputInfo> partitionInfoMap, Map<String, Integer> taskThroughputMap,
+  /**
+   * Get the bytesIn rate in KB of every partition of the index, which is the rate of the partition if it is known, or
+   * else the rate of its topic if it is known, or else the default rate
+   * @param partitionIndex the partitions
+   * @param partitionInfoMap the throughput information of the partitions and topics
+   * @param defaultPartitionInfo the default throughput information
+   * @param recognizedPartitionIds if not null, set to the ids of the partitions whose throughput is known
+   * @return the bytesIn rates in KB, indexed by partition id
+   */
+  static int[] getPartitionBytesInKBRates(PartitionIndex partitionIndex,
+      Map<String, PartitionThroughputInfo> partitionInfoMap, PartitionThroughputInfo defaultPartitionInfo,
+      BitSet recognizedPartitionIds) {
+    PartitionThroughputInfo[] topicInfos = new PartitionThroughputInfo[partitionIndex.getNumTopics()];
+    for (int topicId = 0; topicId < topicInfos.length; topicId++) {
+      topicInfos[topicId] = partitionInfoMap.get(partitionIndex.getTopic(topicId));
+    }
+
+    int[] bytesInKBRates = new int[partitionIndex.size()];
+    for (int id = 0; id < bytesInKBRates.length; id++) {
+      PartitionThroughputInfo info = partitionInfoMap.get(partitionIndex.getPartition(id));
+      if (info == null) {
+        info = topicInfos[partitionIndex.getTopicId(id)];
+      }
+      if (info == null) {
+        info = defaultPartitionInfo;
+      } else if (recognizedPartitionIds != null) {
+        recognizedPartitionIds.set(id);
+      }
+      bytesInKBRates[id] = info.getBytesInKBRate();
+    }
+    return bytesInKBRates;
+  }
+
+  private void saveStats(boolean isThroughputInfoAvailable, Map<String, Integer> taskThroughputMap,
       Map<String, Integer> unrecognizedPartitionCountPerTask, DatastreamTask task, int partitionCount,
       DatastreamTaskImpl newTask) {
     PartitionAssignmentStatPerTask stat = PartitionAssignmentStatPerTask.fromJson(((DatastreamTaskImpl) task).getStats());
-    if (partitionInfoMap.isEmpty()) {
+    if (!isThroughputInfoAvailable) {
       stat.isThroughputRateLatest = false;
     } else {
       stat.throughputRateInKBps = taskThroughputMap.get(task.getId());
@@ -247,12 +413,12 @@ public class LoadBasedPartitionAssigner implements MetricsAware {
   }
 
   @VisibleForTesting
-  int findTaskWithRoomForAPartition(List<String> tasks, Map<String, Set<String>> partitionMap, int startIndex,
+  int findTaskWithRoomForAPartition(List<String> tasks, Map<String, Integer> numPartitionsPerTask, int startIndex,
       int maxPartitionsPerTask) {
     for (int i = 0; i < tasks.size(); i++) {
       int currentIndex = (startIndex + i) % tasks.size();
       String currentTask = tasks.get(currentIndex);
-      if (partitionMap.get(currentTask).size() < maxPartitionsPerTask) {
+      if (numPartitionsPerTask.get(currentTask) < maxPartitionsPerTask) {
         return currentIndex;
       }
     }
@@ -269,6 +435,8 @@ public class LoadBasedPartitionAssigner implements MetricsAware {
 
     metricInfos.add(new BrooklinGaugeInfo(prefix + MIN_PARTITIONS_ACROSS_TASKS));
     metricInfos.add(new BrooklinGaugeInfo(prefix + MAX_PARTITIONS_ACROSS_TASKS));
+    metricInfos.add(new BrooklinGaugeInfo(prefix + THROUGHPUT_IMBALANCE_PCT));
+    metricInfos.add(new BrooklinGaugeInfo(prefix + PARTITIONS_MOVED_BY_REBALANCE));
 
     return Collections.unmodifiableList(metricInfos);
   }
@@ -287,20 +455,6 @@ public class LoadBasedPartitionAssigner implements MetricsAware {
     });
   }
 
-  /**
-   *
-   * @param partition partition name
-   * @return topic name
-   */
-  static String extractTopicFromPartition(String partition) {
-    String topic = partition;
-    int index = partition.lastIndexOf('-');
-    if (index > -1) {
-      topic = partition.substring(0, index);
-    }
-    return topic;
-  }
-
   static class PartitionAssignmentStatPerTask {
     private int throughputRateInKBps;
     private int totalPartitions;
@@ -365,6 +519,8 @@ public class LoadBasedPartitionAssigner implements MetricsAware {
     private final String taskPrefix;
     private final Gauge<Integer> minPartitionsAcrossTasks;
     private final Gauge<Integer> maxPartitionsAcrossTasks;
+    private final Gauge<Integer> throughputImbalancePct;
+    private final Gauge<Integer> partitionsMovedByRebalance;
 
     DatastreamMetrics(String taskPrefix) {
       this.taskPrefix = taskPrefix;
@@ -372,11 +528,17 @@ public class LoadBasedPartitionAssigner implements MetricsAware {
           MIN_PARTITIONS_ACROSS_TASKS, () -> 0);
       maxPartitionsAcrossTasks = DYNAMIC_METRICS_MANAGER.registerGauge(CLASS_NAME, taskPrefix,
           MAX_PARTITIONS_ACROSS_TASKS, () -> 0);
+      throughputImbalancePct = DYNAMIC_METRICS_MANAGER.registerGauge(CLASS_NAME, taskPrefix,
+          THROUGHPUT_IMBALANCE_PCT, () -> 0);
+      partitionsMovedByRebalance = DYNAMIC_METRICS_MANAGER.registerGauge(CLASS_NAME, taskPrefix,
+          PARTITIONS_MOVED_BY_REBALANCE, () -> 0);
     }
 
     void cleanup() {
       DYNAMIC_METRICS_MANAGER.unregisterMetric(CLASS_NAME, taskPrefix, MIN_PARTITIONS_ACROSS_TASKS);
       DYNAMIC_METRICS_MANAGER.unregisterMetric(CLASS_NAME, taskPrefix, MAX_PARTITIONS_ACROSS_TASKS);
+      DYNAMIC_METRICS_MANAGER.unregisterMetric(CLASS_NAME, taskPrefix, THROUGHPUT_IMBALANCE_PCT);
+      DYNAMIC_METRICS_MANAGER.unregisterMetric(CLASS_NAME, taskPrefix, PARTITIONS_MOVED_BY_REBALANCE);
     }
 
     void minPartitionsAcrossTasks(int min) {
@@ -386,5 +548,13 @@ public class LoadBasedPartitionAssigner implements MetricsAware {
     void maxPartitionsAcrossTasks(int max) {
       DYNAMIC_METRICS_MANAGER.setGauge(maxPartitionsAcrossTasks, () -> max);
     }
+
+    void throughputImbalancePct(int pct) {
+      DYNAMIC_METRICS_MANAGER.setGauge(throughputImbalancePct, () -> pct);
+    }
+
+    void partitionsMovedByRebalance(int count) {
+      DYNAMIC_METRICS_MANAGER.setGauge(partitionsMovedByRebalance, () -> count);
+    }
   }
 }
@@ -57,6 +57,8 @@ public class LoadBasedPartitionAssignmentStrategy extends StickyPartitionAssignm
   private final LoadBasedPartitionAssigner _assigner;
   private final int _defaultPartitionBytesInKBRate;
   private final int _defaultPartitionMsgsInRate;
+  private final int _maxPartitionMovesPerRebalance;
+  private final int _rebalanceImbalanceThresholdPct;
 
   /**
    * Creates an instance of {@link LoadBasedPartitionAssignmentStrategy}
@@ -67,8 +69,28 @@ public class LoadBasedPartitionAssignmentStrategy extends StickyPartitionAssignm
       int throughputInfoFetchTimeoutMs, int throughputInfoFetchRetryPeriodMs, ZkClient zkClient, String clusterName,
       boolean enableThroughputBasedPartitionAssignment, boolean enablePartitionNumBasedTaskCountEstimation,
       int defaultPartitionBytesInKBRate, int defaultPartitionMsgsInRate) {
+    this(throughputProvider, maxTasks, imbalanceThreshold, maxPartitionPerTask, enableElasticTaskAssignment,
+        partitionsPerTask, partitionFullnessFactorPct, taskCapacityMBps, taskCapacityUtilizationPct,
+        throughputInfoFetchTimeoutMs, throughputInfoFetchRetryPeriodMs, zkClient, clusterName,
+        enableThroughputBasedPartitionAssignment, enablePartitionNumBasedTaskCountEstimation,
+        defaultPartitionBytesInKBRate, defaultPartitionMsgsInRate, 0, Integer.MAX_VALUE, null);
+  }
+
+  /**
+   * Creates an instance of {@link LoadBasedPartitionAssignmentStrategy} which periodically rebalances the partitions
+   * of the datastream groups whose heaviest task has a throughput above rebalanceImbalanceThresholdPct percent of the
+   * mean task throughput, by moving at most maxPartitionMovesPerRebalance partitions at a time, and which places
+   * the tasks on the instances by their estimated load if a weightedTaskPlacement is given
+   */
+  public LoadBasedPartitionAssignmentStrategy(PartitionThroughputProvider throughputProvider, Optional<Integer> maxTasks,
+      int imbalanceThreshold, int maxPartitionPerTask, boolean enableElasticTaskAssignment, int partitionsPerTask,
+      int partitionFullnessFactorPct, int taskCapacityMBps, int taskCapacityUtilizationPct,
+      int throughputInfoFetchTimeoutMs, int throughputInfoFetchRetryPeriodMs, ZkClient zkClient, String clusterName,
+      boolean enableThroughputBasedPartitionAssignment, boolean enablePartitionNumBasedTaskCountEstimation,
+      int defaultPartitionBytesInKBRate, int defaultPartitionMsgsInRate, int maxPartitionMovesPerRebalance,
+      int rebalanceImbalanceThresholdPct, WeightedTaskPlacement weightedTaskPlacement) {
     super(maxTasks, imbalanceThreshold, maxPartitionPerTask, enableElasticTaskAssignment, partitionsPerTask,
-        partitionFullnessFactorPct, zkClient, clusterName);
+        partitionFullnessFactorPct, zkClient, clusterName, weightedTaskPlacement);
     _throughputProvider = throughputProvider;
     _taskCapacityMBps = taskCapacityMBps;
     _taskCapacityUtilizationPct = taskCapacityUtilizationPct;
@@ -78,6 +100,8 @@ public class LoadBasedPartitionAssignmentStrategy extends StickyPartitionAssignm
     _enablePartitionNumBasedTaskCountEstimation = enablePartitionNumBasedTaskCountEstimation;
     _defaultPartitionBytesInKBRate = defaultPartitionBytesInKBRate;
     _defaultPartitionMsgsInRate = defaultPartitionMsgsInRate;
+    _maxPartitionMovesPerRebalance = maxPartitionMovesPerRebalance;
+    _rebalanceImbalanceThresholdPct = rebalanceImbalanceThresholdPct;
 
     LOG.info("Task capacity : {}MBps, task capacity utilization : {}%, Throughput info fetch timeout : {} ms, "
         + "throughput info fetch retry period : {} ms, throughput based partition assignment : {}, "
@@ -117,8 +141,8 @@ public class LoadBasedPartitionAssignmentStrategy extends StickyPartitionAssignm
         "Zero tasks assigned. Retry leader partition assignment");
 
     // Calculating unassigned partitions
-    List<String> unassignedPartitions = new ArrayList<>(datastreamPartitions.getPartitions());
-    unassignedPartitions.removeAll(assignedPartitions);
+    PartitionIndex partitionIndex = new PartitionIndex(datastreamPartitions.getPartitions());
+    List<String> unassignedPartitions = partitionIndex.toPartitions(partitionIndex.toComplementBitSet(assignedPartitions));
 
     ClusterThroughputInfo clusterThroughputInfo = new ClusterThroughputInfo(StringUtils.EMPTY, Collections.emptyMap());
     if (assignedPartitions.isEmpty()) {
@@ -200,6 +224,42 @@ public class LoadBasedPartitionAssignmentStrategy extends StickyPartitionAssignm
     return assignment;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Map<String, Set<DatastreamTask>> rebalancePartitions(Map<String, Set<DatastreamTask>> currentAssignment,
+      DatastreamGroupPartitionsMetadata datastreamPartitions) {
+    DatastreamGroup datastreamGroup = datastreamPartitions.getDatastreamGroup();
+    if (_maxPartitionMovesPerRebalance <= 0 || !_enableThroughputBasedPartitionAssignment
+        || !isElasticTaskAssignmentEnabled(datastreamGroup)) {
+      return currentAssignment;
+    }
+
+    ClusterThroughputInfo clusterThroughputInfo;
+    try {
+      clusterThroughputInfo = fetchPartitionThroughputInfo(datastreamGroup);
+    } catch (RetriesExhaustedException ex) {
+      LOG.warn("Attempts to fetch partition throughput timed out, skipping the rebalance of {}",
+          datastreamGroup.getName());
+      return currentAssignment;
+    }
+    // without throughput information, the partitions would only be rebalanced on their count
+    if (clusterThroughputInfo.getPartitionInfoMap().isEmpty()) {
+      LOG.info("Throughput information unavailable, skipping the rebalance of {}", datastreamGroup.getName());
+      return currentAssignment;
+    }
+
+    Map<String, Set<DatastreamTask>> newAssignment = _assigner.rebalancePartitions(clusterThroughputInfo,
+        currentAssignment, datastreamPartitions, _maxPartitionPerTask, _maxPartitionMovesPerRebalance,
+        _rebalanceImbalanceThresholdPct);
+    if (newAssignment != currentAssignment) {
+      LOG.info("Rebalanced assignment info, assignment: {}", newAssignment);
+      partitionSanityChecks(newAssignment, datastreamPartitions);
+    }
+    return newAssignment;
+  }
+
   private ClusterThroughputInfo fetchPartitionThroughputInfo(DatastreamGroup datastreamGroup) {
     AtomicInteger attemptNum = new AtomicInteger(0);
     return PollUtils.poll(() -> {
@@ -23,6 +23,11 @@ public class LoadBasedPartitionAssignmentStrategyConfig extends PartitionAssignm
   public static final String CFG_ENABLE_PARTITION_NUM_BASED_TASK_COUNT_ESTIMATION = "enablePartitionNumBasedTaskCountEstimation";
   public static final String CFG_DEFAULT_PARTITION_BYTES_IN_KB_RATE = "defaultPartitionBytesInKBRate";
   public static final String CFG_DEFAULT_PARTITION_MSGS_IN_RATE = "defaultPartitionMsgsInRate";
+  public static final String CFG_ENABLE_ZOOKEEPER_THROUGHPUT_PROVIDER = "enableZookeeperThroughputProvider";
+  public static final String CFG_THROUGHPUT_SNAPSHOT_TTL_MS = "throughputSnapshotTtlMs";
+  public static final String CFG_THROUGHPUT_HALF_LIFE_MS = "throughputHalfLifeMs";
+  public static final String CFG_MAX_PARTITION_MOVES_PER_REBALANCE = "maxPartitionMovesPerRebalance";
+  public static final String CFG_REBALANCE_IMBALANCE_THRESHOLD_PCT = "rebalanceImbalanceThresholdPct";
 
   private static final int DEFAULT_THROUGHPUT_INFO_FETCH_TIMEOUT_MS = (int) Duration.ofSeconds(10).toMillis();
   private static final int DEFAULT_THROUGHPUT_INFO_FETCH_RETRY_PERIOD_MS = (int) Duration.ofSeconds(1).toMillis();
@@ -32,6 +37,11 @@ public class LoadBasedPartitionAssignmentStrategyConfig extends PartitionAssignm
   private static final boolean DEFAULT_ENABLE_PARTITION_NUM_BASED_TASK_COUNT_ESTIMATION = false;
   private static final int DEFAULT_PARTITION_BYTES_IN_KB_RATE = 5;
   private static final int DEFAULT_PARTITION_MSGS_IN_RATE = 5;
+  private static final boolean DEFAULT_ENABLE_ZOOKEEPER_THROUGHPUT_PROVIDER = false;
+  private static final long DEFAULT_THROUGHPUT_SNAPSHOT_TTL_MS = Duration.ofMinutes(1).toMillis();
+  private static final long DEFAULT_THROUGHPUT_HALF_LIFE_MS = Duration.ofMinutes(30).toMillis();
+  private static final int DEFAULT_MAX_PARTITION_MOVES_PER_REBALANCE = 0;
+  private static final int DEFAULT_REBALANCE_IMBALANCE_THRESHOLD_PCT = 125;
 
 
   private final int _taskCapacityMBps;
@@ -42,6 +52,11 @@ public class LoadBasedPartitionAssignmentStrategyConfig extends PartitionAssignm
   private final boolean _enablePartitionNumBasedTaskCountEstimation;
   private final int _defaultPartitionBytesInKBRate;
   private final int _defaultPartitionMsgsInRate;
+  private final boolean _enableZookeeperThroughputProvider;
+  private final long _throughputSnapshotTtlMs;
+  private final long _throughputHalfLifeMs;
+  private final int _maxPartitionMovesPerRebalance;
+  private final int _rebalanceImbalanceThresholdPct;
 
   /**
    * Creates an instance of {@link LoadBasedPartitionAssignmentStrategyConfig}
@@ -60,6 +75,16 @@ public class LoadBasedPartitionAssignmentStrategyConfig extends PartitionAssignm
         DEFAULT_ENABLE_PARTITION_NUM_BASED_TASK_COUNT_ESTIMATION);
     _defaultPartitionBytesInKBRate = props.getInt(CFG_DEFAULT_PARTITION_BYTES_IN_KB_RATE, DEFAULT_PARTITION_BYTES_IN_KB_RATE);
     _defaultPartitionMsgsInRate = props.getInt(CFG_DEFAULT_PARTITION_MSGS_IN_RATE, DEFAULT_PARTITION_MSGS_IN_RATE);
+    _enableZookeeperThroughputProvider = props.getBoolean(CFG_ENABLE_ZOOKEEPER_THROUGHPUT_PROVIDER,
+        DEFAULT_ENABLE_ZOOKEEPER_THROUGHPUT_PROVIDER);
+    _throughputSnapshotTtlMs = props.getLongInRange(CFG_THROUGHPUT_SNAPSHOT_TTL_MS, DEFAULT_THROUGHPUT_SNAPSHOT_TTL_MS,
+        0, Long.MAX_VALUE);
+    _throughputHalfLifeMs = props.getLongInRange(CFG_THROUGHPUT_HALF_LIFE_MS, DEFAULT_THROUGHPUT_HALF_LIFE_MS, 1,
+        Long.MAX_VALUE);
+    _maxPartitionMovesPerRebalance = props.getIntInRange(CFG_MAX_PARTITION_MOVES_PER_REBALANCE,
+        DEFAULT_MAX_PARTITION_MOVES_PER_REBALANCE, 0, Integer.MAX_VALUE);
+    _rebalanceImbalanceThresholdPct = props.getIntInRange(CFG_REBALANCE_IMBALANCE_THRESHOLD_PCT,
+        DEFAULT_REBALANCE_IMBALANCE_THRESHOLD_PCT, 100, Integer.MAX_VALUE);
   }
 
   /**
@@ -117,4 +142,45 @@ public class LoadBasedPartitionAssignmentStrategyConfig extends PartitionAssignm
   public int getDefaultPartitionMsgsInRate() {
     return _defaultPartitionMsgsInRate;
   }
+
+  /**
+   * Check if the partition throughput is read from the stats the tasks publish into ZooKeeper
+   * @return True if the ZooKeeper-based partition throughput provider is enabled else false
+   */
+  public boolean isEnableZookeeperThroughputProvider() {
+    return _enableZookeeperThroughputProvider;
+  }
+
+  /**
+   * Gets the time for which the throughput info of a datastream group is cached, in milliseconds
+   * @return Throughput snapshot TTL in milliseconds
+   */
+  public long getThroughputSnapshotTtlMs() {
+    return _throughputSnapshotTtlMs;
+  }
+
+  /**
+   * Gets the half-life of the decayed moving average of the partition throughput, in milliseconds
+   * @return Throughput half-life in milliseconds
+   */
+  public long getThroughputHalfLifeMs() {
+    return _throughputHalfLifeMs;
+  }
+
+  /**
+   * Gets the maximum number of partitions moved by each periodic rebalance of a datastream group
+   * @return Maximum number of partition moves per rebalance, 0 if rebalancing is disabled
+   */
+  public int getMaxPartitionMovesPerRebalance() {
+    return _maxPartitionMovesPerRebalance;
+  }
+
+  /**
+   * Gets the throughput of the heaviest task of a datastream group, as a percentage of the mean task throughput,
+   * above which its partitions are rebalanced
+   * @return Rebalance imbalance threshold percentage
+   */
+  public int getRebalanceImbalanceThresholdPct() {
+    return _rebalanceImbalanceThresholdPct;
+  }
 }
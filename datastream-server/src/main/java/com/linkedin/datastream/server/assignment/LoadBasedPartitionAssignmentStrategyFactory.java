@@ -14,6 +14,7 @@ import com.linkedin.datastream.common.zk.ZkClient;
 import com.linkedin.datastream.server.api.strategy.AssignmentStrategy;
 import com.linkedin.datastream.server.providers.NoOpPartitionThroughputProvider;
 import com.linkedin.datastream.server.providers.PartitionThroughputProvider;
+import com.linkedin.datastream.server.providers.ZookeeperPartitionThroughputProvider;
 
 
 /**
@@ -36,7 +37,16 @@ public class LoadBasedPartitionAssignmentStrategyFactory extends StickyPartition
       enableElasticTaskAssignment = false;
     }
 
-    PartitionThroughputProvider provider = constructPartitionThroughputProvider();
+    PartitionThroughputProvider provider;
+    if (config.isEnableZookeeperThroughputProvider() && zkClient != null) {
+      provider = new ZookeeperPartitionThroughputProvider(zkClient, _config.getCluster(),
+          config.getThroughputSnapshotTtlMs(), config.getThroughputHalfLifeMs());
+    } else {
+      if (config.isEnableZookeeperThroughputProvider()) {
+        LOG.warn("Not reading the partition throughput from ZooKeeper as elastic task assignment is disabled");
+      }
+      provider = constructPartitionThroughputProvider();
+    }
 
     //TODO: Directly pass the config object.
     return new LoadBasedPartitionAssignmentStrategy(provider, _config.getMaxTasks(),
@@ -45,7 +55,9 @@ public class LoadBasedPartitionAssignmentStrategyFactory extends StickyPartition
         config.getTaskCapacityUtilizationPct(), config.getThroughputInfoFetchTimeoutMs(),
         config.getThroughputInfoFetchRetryPeriodMs(), zkClient, _config.getCluster(),
         config.isEnableThroughputBasedPartitionAssignment(), config.isEnablePartitionNumBasedTaskCountEstimation(),
-        config.getDefaultPartitionBytesInKBRate(), config.getDefaultPartitionMsgsInRate());
+        config.getDefaultPartitionBytesInKBRate(), config.getDefaultPartitionMsgsInRate(),
+        config.getMaxPartitionMovesPerRebalance(), config.getRebalanceImbalanceThresholdPct(),
+        constructWeightedTaskPlacement(zkClient));
   }
 
   protected PartitionThroughputProvider constructPartitionThroughputProvider() {
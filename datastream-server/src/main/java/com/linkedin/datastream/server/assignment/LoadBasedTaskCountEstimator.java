@@ -5,10 +5,8 @@
  */
 package com.linkedin.datastream.server.assignment;
 
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
 import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
@@ -64,21 +62,15 @@ public class LoadBasedTaskCountEstimator {
     LOG.info("Assigned partitions: {}", assignedPartitions);
     LOG.info("Unassigned partitions: {}", unassignedPartitions);
 
-    Map<String, PartitionThroughputInfo> throughputMap = throughputInfo.getPartitionInfoMap();
-    Set<String> allPartitions = new HashSet<>(assignedPartitions);
-    allPartitions.addAll(unassignedPartitions);
+    PartitionIndex allPartitions = new PartitionIndex(assignedPartitions);
+    unassignedPartitions.forEach(allPartitions::add);
 
     PartitionThroughputInfo defaultThroughputInfo = new PartitionThroughputInfo(_defaultPartitionBytesInKBRate,
         _defaultPartitionMsgsInRate, "");
 
     // total throughput in KB/sec
-    int totalThroughput = allPartitions.stream()
-        .mapToInt(p ->  {
-          String topic = LoadBasedPartitionAssigner.extractTopicFromPartition(p);
-          PartitionThroughputInfo defaultValue = throughputMap.getOrDefault(topic, defaultThroughputInfo);
-          return throughputMap.getOrDefault(p, defaultValue).getBytesInKBRate();
-        })
-        .sum();
+    int totalThroughput = Arrays.stream(LoadBasedPartitionAssigner.getPartitionBytesInKBRates(allPartitions,
+        throughputInfo.getPartitionInfoMap(), defaultThroughputInfo, null)).sum();
     LOG.info("Total throughput in all {} partitions for datastream {}: {}KB/sec, assigned partitions: {} "
             + "unassigned partitions: {}", allPartitions.size(), datastreamName, totalThroughput,
         assignedPartitions.size(), unassignedPartitions.size());
@@ -12,8 +12,11 @@ import com.linkedin.datastream.common.VerifiableProperties;
 import com.linkedin.datastream.common.zk.ZkClient;
 
 import static com.linkedin.datastream.server.assignment.BroadcastStrategyFactory.CFG_MAX_TASKS;
+import static com.linkedin.datastream.server.assignment.StickyMulticastStrategyFactory.CFG_ENABLE_WEIGHTED_TASK_PLACEMENT;
 import static com.linkedin.datastream.server.assignment.StickyMulticastStrategyFactory.CFG_IMBALANCE_THRESHOLD;
+import static com.linkedin.datastream.server.assignment.StickyMulticastStrategyFactory.CFG_WEIGHTED_IMBALANCE_THRESHOLD_PCT;
 import static com.linkedin.datastream.server.assignment.StickyMulticastStrategyFactory.DEFAULT_IMBALANCE_THRESHOLD;
+import static com.linkedin.datastream.server.assignment.StickyMulticastStrategyFactory.DEFAULT_WEIGHTED_IMBALANCE_THRESHOLD_PCT;
 
 
 /**
@@ -44,6 +47,8 @@ public class PartitionAssignmentStrategyConfig {
   private final int _zkSessionTimeout;
   private final int _zkConnectionTimeout;
   private final boolean _enableElasticTaskAssignment;
+  private final boolean _enableWeightedTaskPlacement;
+  private final int _weightedImbalanceThresholdPct;
 
   /**
    * Creates an instance of {@link PartitionAssignmentStrategyConfig}
@@ -69,6 +74,9 @@ public class PartitionAssignmentStrategyConfig {
     _zkAddress = props.getString(CFG_ZK_ADDRESS, null);
     _zkSessionTimeout = props.getInt(CFG_ZK_SESSION_TIMEOUT, ZkClient.DEFAULT_SESSION_TIMEOUT);
     _zkConnectionTimeout = props.getInt(CFG_ZK_CONNECTION_TIMEOUT, ZkClient.DEFAULT_CONNECTION_TIMEOUT);
+    _enableWeightedTaskPlacement = props.getBoolean(CFG_ENABLE_WEIGHTED_TASK_PLACEMENT, false);
+    _weightedImbalanceThresholdPct = props.getIntInRange(CFG_WEIGHTED_IMBALANCE_THRESHOLD_PCT,
+        DEFAULT_WEIGHTED_IMBALANCE_THRESHOLD_PCT, 100, Integer.MAX_VALUE);
   }
 
   /**
@@ -129,6 +137,23 @@ public class PartitionAssignmentStrategyConfig {
     return _enableElasticTaskAssignment;
   }
 
+  /**
+   * Indicates whether the tasks are placed on the instances by their estimated load rather than by their count
+   * @return A boolean value, that, if set to true, indicates that weighted task placement is enabled
+   */
+  public boolean isWeightedTaskPlacementEnabled() {
+    return _enableWeightedTaskPlacement;
+  }
+
+  /**
+   * Gets the maximum utilization of an instance, as a percentage of the utilization of the cluster, above which the
+   * weighted task placement moves tasks
+   * @return Weighted imbalance threshold percentage
+   */
+  public int getWeightedImbalanceThresholdPct() {
+    return _weightedImbalanceThresholdPct;
+  }
+
   /**
    * Returns configuration properties
    * @return Configuration properties
@@ -0,0 +1,169 @@
+/**
+ *  Copyright 2019 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.server.assignment;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+
+/**
+ * An index of the partitions of a datastream group, which lets the partition assignment strategies manipulate the
+ * partitions as int ids, and the sets of partitions as {@link BitSet}s of ids, rather than as "topic-N" strings.
+ *
+ * The id of a partition is the order in which it was added to the index, and the topic of each partition is extracted
+ * once, into a dictionary of the topics. The partitions are converted back to strings only to build the tasks
+ * (see {@link #toPartitions(BitSet)}).
+ *
+ * This class is not thread-safe.
+ */
+final class PartitionIndex {
+  private final Map<String, Integer> _ids;
+  private final List<String> _partitions;
+  private final Map<String, Integer> _topicIds = new HashMap<>();
+  private final List<String> _topics = new ArrayList<>();
+  private int[] _partitionTopicIds;
+
+  /**
+   * Create an index of the given partitions, in their order. The duplicate partitions are only indexed once.
+   */
+  PartitionIndex(Collection<String> partitions) {
+    _ids = new HashMap<>(partitions.size() * 4 / 3 + 1);
+    _partitions = new ArrayList<>(partitions.size());
+    _partitionTopicIds = new int[Math.max(partitions.size(), 1)];
+    partitions.forEach(this::add);
+  }
+
+  /**
+   * Add a partition to the index, if it is not already in it
+   * @return the id of the partition
+   */
+  int add(String partition) {
+    Integer id = _ids.get(partition);
+    if (id != null) {
+      return id;
+    }
+
+    int newId = _partitions.size();
+    _ids.put(partition, newId);
+    _partitions.add(partition);
+    if (newId == _partitionTopicIds.length) {
+      int[] partitionTopicIds = new int[newId * 2];
+      System.arraycopy(_partitionTopicIds, 0, partitionTopicIds, 0, newId);
+      _partitionTopicIds = partitionTopicIds;
+    }
+    String topic = extractTopicFromPartition(partition);
+    _partitionTopicIds[newId] = _topicIds.computeIfAbsent(topic, t -> {
+      _topics.add(t);
+      return _topics.size() - 1;
+    });
+    return newId;
+  }
+
+  /**
+   * Get the number of partitions in the index, which is also the upper bound (exclusive) of their ids
+   */
+  int size() {
+    return _partitions.size();
+  }
+
+  /**
+   * Get the id of a partition, or -1 if it is not in the index
+   */
+  int getId(String partition) {
+    Integer id = _ids.get(partition);
+    return id != null ? id : -1;
+  }
+
+  String getPartition(int id) {
+    return _partitions.get(id);
+  }
+
+  /**
+   * Get the number of topics of the partitions in the index, which is also the upper bound (exclusive) of their ids
+   */
+  int getNumTopics() {
+    return _topics.size();
+  }
+
+  /**
+   * Get the id of the topic of a partition
+   */
+  int getTopicId(int id) {
+    return _partitionTopicIds[id];
+  }
+
+  String getTopic(int topicId) {
+    return _topics.get(topicId);
+  }
+
+  /**
+   * Get the ids of the given partitions which are in the index. The other partitions are ignored.
+   */
+  BitSet toBitSet(Collection<String> partitions) {
+    BitSet ids = new BitSet(size());
+    for (String partition : partitions) {
+      Integer id = _ids.get(partition);
+      if (id != null) {
+        ids.set(id);
+      }
+    }
+    return ids;
+  }
+
+  /**
+   * Get the ids of the partitions of the index which are not among the given partitions
+   */
+  BitSet toComplementBitSet(Collection<String> partitions) {
+    BitSet ids = toBitSet(partitions);
+    ids.flip(0, size());
+    return ids;
+  }
+
+  /**
+   * Get the partitions of the given ids, in the order of the ids
+   */
+  List<String> toPartitions(BitSet ids) {
+    List<String> partitions = new ArrayList<>(ids.cardinality());
+    for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+      partitions.add(_partitions.get(id));
+    }
+    return partitions;
+  }
+
+  /**
+   * Extract the topic of a partition, which is what precedes the last "-" of the partition name
+   * @param partition partition name
+   * @return topic name
+   */
+  private static String extractTopicFromPartition(String partition) {
+    String topic = partition;
+    int index = partition.lastIndexOf('-');
+    if (index > -1) {
+      topic = partition.substring(0, index);
+    }
+    return topic;
+  }
+
+  /**
+   * Get the given ids in a random order
+   */
+  static int[] toShuffledIds(BitSet ids) {
+    int[] shuffledIds = ids.stream().toArray();
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    for (int i = shuffledIds.length - 1; i > 0; i--) {
+      int j = random.nextInt(i + 1);
+      int id = shuffledIds[i];
+      shuffledIds[i] = shuffledIds[j];
+      shuffledIds[j] = id;
+    }
+    return shuffledIds;
+  }
+}
@@ -61,12 +61,16 @@ import static com.linkedin.datastream.server.assignment.StickyMulticastStrategyF
  *  Step 3: Move tasks from the instances with high tasks counts, to instances with low task count, in order
  *          to re-balance the cluster.</li>
  * </ul>
+ *
+ * With a {@link WeightedTaskPlacement}, the steps 2 and 3 place and move the tasks by their estimated load relative
+ * to the capacity of the instances instead, and the imbalance threshold of the task counts does not apply.
  */
 public class StickyMulticastStrategy implements AssignmentStrategy {
   private static final Logger LOG = LoggerFactory.getLogger(StickyMulticastStrategy.class.getName());
 
   private final Optional<Integer> _maxTasks;
   private final Integer _imbalanceThreshold;
+  private final WeightedTaskPlacement _weightedTaskPlacement;
 
   // In-memory cache for the expected number of task for each DatastreamGroup (keyed by the datastream task prefix)
   private final Map<String, Integer> _taskCountPerDatastreamGroup = new ConcurrentHashMap<>();
@@ -83,8 +87,27 @@ public class StickyMulticastStrategy implements AssignmentStrategy {
    *                           {@value DEFAULT_IMBALANCE_THRESHOLD}.
    */
   public StickyMulticastStrategy(Optional<Integer> maxTasks, int imbalanceThreshold) {
+    this(maxTasks, imbalanceThreshold, null);
+  }
+
+  /**
+   * Constructor for StickyMulticastStrategy
+   * @param maxTasks Maximum number of {@link DatastreamTask}s to create out
+   *                 of any {@link com.linkedin.datastream.common.Datastream}
+   *                 if no value is specified for the "maxTasks" config property
+   *                 at an individual datastream level.
+   * @param imbalanceThreshold The maximum allowable difference in the number of tasks assigned
+   *                           between any two {@link com.linkedin.datastream.server.Coordinator}
+   *                           instances, before triggering a rebalance. The default is
+   *                           {@value DEFAULT_IMBALANCE_THRESHOLD}.
+   * @param weightedTaskPlacement The placement of the tasks by their estimated load, or null to place the tasks by
+   *                              their count.
+   */
+  public StickyMulticastStrategy(Optional<Integer> maxTasks, int imbalanceThreshold,
+      WeightedTaskPlacement weightedTaskPlacement) {
     _maxTasks = maxTasks;
     _imbalanceThreshold = imbalanceThreshold;
+    _weightedTaskPlacement = weightedTaskPlacement;
 
     if (_imbalanceThreshold < 1) {
       throw new IllegalArgumentException("Imbalance threshold must be larger or equal than 1");
@@ -169,6 +192,24 @@ public class StickyMulticastStrategy implements AssignmentStrategy {
       }
     }
 
+    if (_weightedTaskPlacement != null) {
+      // STEP 2 and 3: Place the unallocated tasks and re-balance the cluster by the estimated load of the tasks.
+      List<DatastreamTask> pendingTasks = new ArrayList<>();
+      unallocated.forEach((dg, pendingTaskCount) -> {
+        List<DatastreamTask> unallocatedTasks = tasksNeedToRelocate.get(dg);
+        for (int i = 0; i < pendingTaskCount; i++) {
+          pendingTasks.add(unallocatedTasks.size() > 0 ? unallocatedTasks.remove(unallocatedTasks.size() - 1) :
+              new DatastreamTaskImpl(dg.getDatastreams()));
+        }
+      });
+      _weightedTaskPlacement.placeTasks(newAssignment, pendingTasks);
+
+      LOG.info("Assignment completed");
+      LOG.debug("New assignment is {}", newAssignment);
+      sanityChecks(datastreams, instances, newAssignment);
+      return newAssignment;
+    }
+
     // Create a helper structure to keep all instances sorted by size.
     List<String> instancesBySize = new ArrayList<>(instances);
 
@@ -8,11 +8,20 @@ package com.linkedin.datastream.server.assignment;
 import java.util.Optional;
 import java.util.Properties;
 
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.linkedin.datastream.common.VerifiableProperties;
+import com.linkedin.datastream.common.zk.ZkClient;
 import com.linkedin.datastream.server.api.strategy.AssignmentStrategy;
 import com.linkedin.datastream.server.api.strategy.AssignmentStrategyFactory;
 
 import static com.linkedin.datastream.server.assignment.BroadcastStrategyFactory.CFG_MAX_TASKS;
+import static com.linkedin.datastream.server.assignment.PartitionAssignmentStrategyConfig.CFG_CLUSTER_NAME;
+import static com.linkedin.datastream.server.assignment.PartitionAssignmentStrategyConfig.CFG_ZK_ADDRESS;
+import static com.linkedin.datastream.server.assignment.PartitionAssignmentStrategyConfig.CFG_ZK_CONNECTION_TIMEOUT;
+import static com.linkedin.datastream.server.assignment.PartitionAssignmentStrategyConfig.CFG_ZK_SESSION_TIMEOUT;
 
 
 /**
@@ -20,7 +29,12 @@ import static com.linkedin.datastream.server.assignment.BroadcastStrategyFactory
  */
 public class StickyMulticastStrategyFactory implements AssignmentStrategyFactory {
   public static final String CFG_IMBALANCE_THRESHOLD = "imbalanceThreshold";
+  public static final String CFG_ENABLE_WEIGHTED_TASK_PLACEMENT = "enableWeightedTaskPlacement";
+  public static final String CFG_WEIGHTED_IMBALANCE_THRESHOLD_PCT = "weightedImbalanceThresholdPct";
   public static final int DEFAULT_IMBALANCE_THRESHOLD = 1;
+  public static final int DEFAULT_WEIGHTED_IMBALANCE_THRESHOLD_PCT = 120;
+
+  private static final Logger LOG = LoggerFactory.getLogger(StickyMulticastStrategyFactory.class.getName());
 
   @Override
   public AssignmentStrategy createStrategy(Properties assignmentStrategyProperties) {
@@ -28,6 +42,21 @@ public class StickyMulticastStrategyFactory implements AssignmentStrategyFactory
     int cfgMaxTasks = props.getInt(CFG_MAX_TASKS, Integer.MIN_VALUE);
     Optional<Integer> maxTasks = cfgMaxTasks > 0 ? Optional.of(cfgMaxTasks) : Optional.empty();
     int cfgImbalanceThreshold = props.getInt(CFG_IMBALANCE_THRESHOLD, DEFAULT_IMBALANCE_THRESHOLD);
-    return new StickyMulticastStrategy(maxTasks, cfgImbalanceThreshold);
+
+    WeightedTaskPlacement weightedTaskPlacement = null;
+    if (props.getBoolean(CFG_ENABLE_WEIGHTED_TASK_PLACEMENT, false)) {
+      String cluster = props.getString(CFG_CLUSTER_NAME, null);
+      String zkAddress = props.getString(CFG_ZK_ADDRESS, null);
+      if (StringUtils.isBlank(cluster) || StringUtils.isBlank(zkAddress)) {
+        LOG.warn("Disabling weighted task placement as the cluster name or the ZkAddress is not provided");
+      } else {
+        ZkClient zkClient = new ZkClient(zkAddress,
+            props.getInt(CFG_ZK_SESSION_TIMEOUT, ZkClient.DEFAULT_SESSION_TIMEOUT),
+            props.getInt(CFG_ZK_CONNECTION_TIMEOUT, ZkClient.DEFAULT_CONNECTION_TIMEOUT));
+        weightedTaskPlacement = new WeightedTaskPlacement(zkClient, cluster, props.getIntInRange(
+            CFG_WEIGHTED_IMBALANCE_THRESHOLD_PCT, DEFAULT_WEIGHTED_IMBALANCE_THRESHOLD_PCT, 100, Integer.MAX_VALUE));
+      }
+    }
+    return new StickyMulticastStrategy(maxTasks, cfgImbalanceThreshold, weightedTaskPlacement);
   }
 }
@@ -6,6 +6,7 @@
 package com.linkedin.datastream.server.assignment;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -120,7 +121,37 @@ public class StickyPartitionAssignmentStrategy extends StickyMulticastStrategy i
   public StickyPartitionAssignmentStrategy(Optional<Integer> maxTasks, int imbalanceThreshold,
       int maxPartitionPerTask, boolean enableElasticTaskAssignment, int partitionsPerTask,
       int partitionFullnessFactorPct, ZkClient zkClient, String clusterName) {
-    super(maxTasks, imbalanceThreshold);
+    this(maxTasks, imbalanceThreshold, maxPartitionPerTask, enableElasticTaskAssignment, partitionsPerTask,
+        partitionFullnessFactorPct, zkClient, clusterName, null);
+  }
+
+  /**
+   * Constructor for StickyPartitionAssignmentStrategy which places the tasks by their estimated load
+   * @param maxTasks Maximum number of {@link DatastreamTask}s to create out
+   *                 of any {@link com.linkedin.datastream.common.Datastream}
+   *                 if no value is specified for the "maxTasks" config property
+   *                 at an individual datastream level.
+   * @param imbalanceThreshold The maximum allowable difference in the number of tasks assigned
+   *                           between any two {@link com.linkedin.datastream.server.Coordinator}
+   *                           instances, before triggering a rebalance. The default is
+   *                           {@value DEFAULT_IMBALANCE_THRESHOLD}.
+   * @param maxPartitionPerTask The maximum number of partitions allowed per task. By default it's Integer.MAX (no limit)
+   *                            If partitions count in task is larger than this number, Brooklin will throw an exception
+   * @param enableElasticTaskAssignment A boolean indicating whether elastic task assignment is enabled or not.
+   * @param partitionsPerTask If elastic task assignment is enabled, this is used to determine the number of partitions
+   *                          allowed in each task when determining the number of tasks for the first time.
+   * @param partitionFullnessFactorPct If elastic task assignment is enabled, this is used to determine how full to
+   *                                   the tasks when fitting partitions into them for the first time.
+   * @param zkClient The ZkClient to use for interaction with ZooKeeper.
+   * @param clusterName The name of the Brooklin cluster
+   * @param weightedTaskPlacement The placement of the tasks by their estimated load, or null to place the tasks by
+   *                              their count.
+   */
+  public StickyPartitionAssignmentStrategy(Optional<Integer> maxTasks, int imbalanceThreshold,
+      int maxPartitionPerTask, boolean enableElasticTaskAssignment, int partitionsPerTask,
+      int partitionFullnessFactorPct, ZkClient zkClient, String clusterName,
+      WeightedTaskPlacement weightedTaskPlacement) {
+    super(maxTasks, imbalanceThreshold, weightedTaskPlacement);
     Validate.isTrue(!enableElasticTaskAssignment || !StringUtils.isBlank(clusterName),
         "Cluster name should not be null/blank if elastic task assignment is enabled");
     Validate.isTrue(!enableElasticTaskAssignment || (zkClient != null),
@@ -235,8 +266,9 @@ public class StickyPartitionAssignmentStrategy extends StickyMulticastStrategy i
       updateOrRegisterElasticTaskAssignmentMetrics(datastreamPartitions, totalTaskCount);
     }
 
-    List<String> unassignedPartitions = new ArrayList<>(datastreamPartitions.getPartitions());
-    unassignedPartitions.removeAll(assignedPartitions);
+    PartitionIndex partitionIndex = new PartitionIndex(datastreamPartitions.getPartitions());
+    int[] unassignedPartitions = PartitionIndex.toShuffledIds(partitionIndex.toComplementBitSet(assignedPartitions));
+    AtomicInteger numUnassignedPartitions = new AtomicInteger(unassignedPartitions.length);
 
     int maxPartitionPerTask = datastreamPartitions.getPartitions().size() / totalTaskCount;
 
@@ -249,8 +281,6 @@ public class StickyPartitionAssignmentStrategy extends StickyMulticastStrategy i
     final AtomicInteger remainder = new AtomicInteger(datastreamPartitions.getPartitions().size() % totalTaskCount);
     LOG.debug("maxPartitionPerTask {}, task count {}", maxPartitionPerTask, totalTaskCount);
 
-    Collections.shuffle(unassignedPartitions);
-
     Map<String, Set<DatastreamTask>> newAssignment = new HashMap<>();
 
     // Step 2: generate new assignment. Assign unassigned partitions to tasks and create new task if there is
@@ -261,16 +291,17 @@ public class StickyPartitionAssignmentStrategy extends StickyMulticastStrategy i
         if (!dgName.equals(task.getTaskPrefix())) {
           return task;
         } else {
-          Set<String> newPartitions = new HashSet<>(task.getPartitionsV2());
-          newPartitions.retainAll(datastreamPartitions.getPartitions());
+          BitSet newPartitions = partitionIndex.toBitSet(task.getPartitionsV2());
+          int numPartitions = newPartitions.cardinality();
 
           //We need to create new task if the partition is changed
-          boolean partitionChanged = newPartitions.size() != task.getPartitionsV2().size();
+          boolean partitionChanged = numPartitions != task.getPartitionsV2().size();
 
           int allowedPartitions = remainder.get() > 0 ? maxPartitionPerTask + 1 : maxPartitionPerTask;
 
-          while (newPartitions.size() < allowedPartitions && unassignedPartitions.size() > 0) {
-            newPartitions.add(unassignedPartitions.remove(unassignedPartitions.size() - 1));
+          while (numPartitions < allowedPartitions && numUnassignedPartitions.get() > 0) {
+            newPartitions.set(unassignedPartitions[numUnassignedPartitions.decrementAndGet()]);
+            numPartitions++;
             partitionChanged = true;
           }
 
@@ -278,14 +309,14 @@ public class StickyPartitionAssignmentStrategy extends StickyMulticastStrategy i
             remainder.decrementAndGet();
           }
 
-          if (newPartitions.size() > _maxPartitionPerTask) {
+          if (numPartitions > _maxPartitionPerTask) {
             String errorMessage = String.format("Partition count %s is larger than %s for datastream %s, "
-                + "please increase the maxTask", newPartitions.size(), _maxPartitionPerTask, dgName);
+                + "please increase the maxTask", numPartitions, _maxPartitionPerTask, dgName);
             throw new DatastreamRuntimeException(errorMessage);
           }
           if (partitionChanged) {
             try {
-              return new DatastreamTaskImpl((DatastreamTaskImpl) task, newPartitions);
+              return new DatastreamTaskImpl((DatastreamTaskImpl) task, partitionIndex.toPartitions(newPartitions));
             } catch (Exception e) {
               LOG.error("Hit exception while creating a new task from existing task: {} assigned to instance: {}",
                   task.getDatastreamTaskName(), instance, e);
@@ -301,7 +332,7 @@ public class StickyPartitionAssignmentStrategy extends StickyMulticastStrategy i
     LOG.info("new assignment info, assignment: {}", newAssignment);
     LOG.info("all datastream partitions: {}", datastreamPartitions);
 
-    partitionSanityChecks(newAssignment, datastreamPartitions);
+    partitionSanityChecks(newAssignment, datastreamPartitions, partitionIndex);
     return newAssignment;
   }
 
@@ -660,18 +691,30 @@ public class StickyPartitionAssignmentStrategy extends StickyMulticastStrategy i
    */
   protected void partitionSanityChecks(Map<String, Set<DatastreamTask>> assignedTasks,
       DatastreamGroupPartitionsMetadata allPartitions) {
+    partitionSanityChecks(assignedTasks, allPartitions, new PartitionIndex(allPartitions.getPartitions()));
+  }
+
+  private void partitionSanityChecks(Map<String, Set<DatastreamTask>> assignedTasks,
+      DatastreamGroupPartitionsMetadata allPartitions, PartitionIndex partitionIndex) {
     int total = 0;
 
-    List<String> unassignedPartitions = new ArrayList<>(allPartitions.getPartitions());
+    BitSet unassignedPartitionIds = new BitSet(partitionIndex.size());
+    unassignedPartitionIds.set(0, partitionIndex.size());
     String datastreamGroupName = allPartitions.getDatastreamGroup().getName();
     for (Set<DatastreamTask> tasksSet : assignedTasks.values()) {
       for (DatastreamTask task : tasksSet) {
         if (datastreamGroupName.equals(task.getTaskPrefix())) {
           total += task.getPartitionsV2().size();
-          unassignedPartitions.removeAll(task.getPartitionsV2());
+          for (String partition : task.getPartitionsV2()) {
+            int id = partitionIndex.getId(partition);
+            if (id >= 0) {
+              unassignedPartitionIds.clear(id);
+            }
+          }
         }
       }
     }
+    List<String> unassignedPartitions = partitionIndex.toPartitions(unassignedPartitionIds);
     if (total != allPartitions.getPartitions().size()) {
       String errorMsg = String.format("Validation failed after assignment, assigned partitions "
           + "size: %s is not equal to all partitions size: %s", total, allPartitions.getPartitions().size());
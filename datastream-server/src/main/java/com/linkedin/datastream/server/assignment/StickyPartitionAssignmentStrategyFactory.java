@@ -39,11 +39,25 @@ public class StickyPartitionAssignmentStrategyFactory implements AssignmentStrat
 
     return new StickyPartitionAssignmentStrategy(_config.getMaxTasks(), _config.getImbalanceThreshold(),
         _config.getMaxPartitions(), enableElasticTaskAssignment, _config.getPartitionsPerTask(),
-        _config.getPartitionFullnessThresholdPct(), zkClient, _config.getCluster());
+        _config.getPartitionFullnessThresholdPct(), zkClient, _config.getCluster(),
+        constructWeightedTaskPlacement(zkClient));
+  }
+
+  protected WeightedTaskPlacement constructWeightedTaskPlacement(ZkClient zkClient) {
+    if (!_config.isWeightedTaskPlacementEnabled()) {
+      return null;
+    }
+
+    if (zkClient == null || StringUtils.isBlank(_config.getCluster())) {
+      LOG.warn("Disabling weighted task placement as zkClient initialization failed or the cluster name is empty");
+      return null;
+    }
+
+    return new WeightedTaskPlacement(zkClient, _config.getCluster(), _config.getWeightedImbalanceThresholdPct());
   }
 
   protected ZkClient constructZooKeeperClient() {
-    if (!_config.isElasticTaskAssignmentEnabled()) {
+    if (!_config.isElasticTaskAssignmentEnabled() && !_config.isWeightedTaskPlacementEnabled()) {
       return null;
     }
 
@@ -0,0 +1,257 @@
+/**
+ *  Copyright 2021 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.server.assignment;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.linkedin.datastream.common.DatastreamRuntimeException;
+import com.linkedin.datastream.common.zk.ZkClient;
+import com.linkedin.datastream.server.DatastreamTask;
+import com.linkedin.datastream.server.DatastreamTaskImpl;
+import com.linkedin.datastream.server.zk.KeyBuilder;
+
+import static com.linkedin.datastream.server.assignment.LoadBasedPartitionAssigner.PartitionAssignmentStatPerTask;
+
+
+/**
+ * Places the datastream tasks on the instances of a cluster by their estimated load, relative to the capacity of the
+ * instances, rather than by their count.
+ *
+ * The load of a task is the throughput (in KB/sec) the {@link LoadBasedPartitionAssigner} estimated for its partitions
+ * when it created the task, which is saved in the stats of the task. The tasks without stats, such as the tasks which
+ * are about to be created, are assumed to carry the mean load of the tasks with stats. The capacity of an instance is
+ * the value it advertises in ZooKeeper (see {@link KeyBuilder#instanceCapacity(String, String)}), and the instances
+ * which advertise none are assumed to have the mean capacity of the instances which do. Only the ratios between the
+ * capacities matter.
+ *
+ * The tasks of the current assignment stay where they are, unless the utilization (load over capacity) of the most
+ * utilized instance exceeds the utilization of the cluster by more than the imbalance threshold. Only as many tasks
+ * as needed to bring it back under the threshold are moved then.
+ *
+ * This class is not thread-safe.
+ */
+public class WeightedTaskPlacement {
+  private static final Logger LOG = LoggerFactory.getLogger(WeightedTaskPlacement.class.getName());
+
+  // every task weighs something, so that the idle tasks are spread rather than piled up
+  private static final long MIN_TASK_LOAD = 1;
+  private static final long UNKNOWN_TASK_LOAD = -1;
+
+  private final ZkClient _zkClient;
+  private final String _cluster;
+  private final int _imbalanceThresholdPct;
+
+  // The loads of the tasks, keyed by task name. The stats of a task are saved when it is created and never change.
+  private final Map<String, Long> _taskLoads = new HashMap<>();
+
+  /**
+   * Creates an instance of {@link WeightedTaskPlacement}
+   * @param zkClient ZooKeeper client
+   * @param cluster Brooklin cluster name
+   * @param imbalanceThresholdPct Maximum utilization of an instance, as a percentage of the utilization of the
+   *                              cluster, above which the tasks of the current assignment are moved
+   */
+  public WeightedTaskPlacement(ZkClient zkClient, String cluster, int imbalanceThresholdPct) {
+    Validate.notNull(zkClient, "null ZooKeeper client");
+    Validate.notEmpty(cluster, "empty cluster name");
+    Validate.isTrue(imbalanceThresholdPct >= 100, "imbalance threshold lower than 100%");
+    _zkClient = zkClient;
+    _cluster = cluster;
+    _imbalanceThresholdPct = imbalanceThresholdPct;
+  }
+
+  /**
+   * Place the pending tasks on the instances of an assignment, then move the tasks from the most utilized instances to
+   * the least utilized ones, for as long as the imbalance threshold is exceeded
+   * @param assignment Assignment to update, which maps every live instance to its tasks
+   * @param pendingTasks Tasks to place
+   * @return Number of tasks of the assignment which are moved
+   */
+  public int placeTasks(Map<String, Set<DatastreamTask>> assignment, List<DatastreamTask> pendingTasks) {
+    List<String> instances = new ArrayList<>(assignment.keySet());
+    int numInstances = instances.size();
+    if (numInstances == 0) {
+      return 0;
+    }
+    double[] capacities = getInstanceCapacities(instances);
+    Map<DatastreamTask, Long> taskLoads = getTaskLoads(assignment, pendingTasks);
+    long[] instanceLoads = new long[numInstances];
+    for (int i = 0; i < numInstances; i++) {
+      instanceLoads[i] = assignment.get(instances.get(i)).stream().mapToLong(taskLoads::get).sum();
+    }
+
+    // place the heaviest tasks first, each on the instance it leaves the least utilized
+    List<DatastreamTask> sortedPendingTasks = new ArrayList<>(pendingTasks);
+    sortedPendingTasks.sort(Comparator.comparingLong((DatastreamTask task) -> taskLoads.get(task)).reversed());
+    for (DatastreamTask task : sortedPendingTasks) {
+      long load = taskLoads.get(task);
+      int bestInstance = 0;
+      double bestUtilization = (instanceLoads[0] + load) / capacities[0];
+      for (int i = 1; i < numInstances; i++) {
+        double utilization = (instanceLoads[i] + load) / capacities[i];
+        if (utilization < bestUtilization || (utilization == bestUtilization
+            && assignment.get(instances.get(i)).size() < assignment.get(instances.get(bestInstance)).size())) {
+          bestInstance = i;
+          bestUtilization = utilization;
+        }
+      }
+      assignment.get(instances.get(bestInstance)).add(task);
+      instanceLoads[bestInstance] += load;
+    }
+
+    return rebalance(assignment, instances, capacities, taskLoads, instanceLoads);
+  }
+
+  private int rebalance(Map<String, Set<DatastreamTask>> assignment, List<String> instances, double[] capacities,
+      Map<DatastreamTask, Long> taskLoads, long[] instanceLoads) {
+    int numInstances = instances.size();
+    double totalCapacity = 0;
+    long totalLoad = 0;
+    for (int i = 0; i < numInstances; i++) {
+      totalCapacity += capacities[i];
+      totalLoad += instanceLoads[i];
+    }
+    int numTasks = taskLoads.size();
+
+    int numMovedTasks = 0;
+    double maxUtilization = 0;
+    // every move lowers the utilization of the most utilized instance, but the number of moves is bounded anyway
+    while (numMovedTasks < numTasks) {
+      int mostUtilizedInstance = 0;
+      int leastUtilizedInstance = 0;
+      for (int i = 1; i < numInstances; i++) {
+        double utilization = instanceLoads[i] / capacities[i];
+        if (utilization > instanceLoads[mostUtilizedInstance] / capacities[mostUtilizedInstance]) {
+          mostUtilizedInstance = i;
+        }
+        if (utilization < instanceLoads[leastUtilizedInstance] / capacities[leastUtilizedInstance]) {
+          leastUtilizedInstance = i;
+        }
+      }
+      maxUtilization = instanceLoads[mostUtilizedInstance] / capacities[mostUtilizedInstance];
+      if (maxUtilization * totalCapacity * 100 <= totalLoad * _imbalanceThresholdPct) {
+        break;
+      }
+
+      // move the task which lowers the higher utilization of the two instances the most
+      DatastreamTask taskToMove = null;
+      double bestUtilization = maxUtilization;
+      for (DatastreamTask task : assignment.get(instances.get(mostUtilizedInstance))) {
+        long load = taskLoads.get(task);
+        double utilization = Math.max((instanceLoads[mostUtilizedInstance] - load) / capacities[mostUtilizedInstance],
+            (instanceLoads[leastUtilizedInstance] + load) / capacities[leastUtilizedInstance]);
+        if (utilization < bestUtilization) {
+          taskToMove = task;
+          bestUtilization = utilization;
+        }
+      }
+      if (taskToMove == null) {
+        break;
+      }
+
+      long load = taskLoads.get(taskToMove);
+      assignment.get(instances.get(mostUtilizedInstance)).remove(taskToMove);
+      assignment.get(instances.get(leastUtilizedInstance)).add(taskToMove);
+      instanceLoads[mostUtilizedInstance] -= load;
+      instanceLoads[leastUtilizedInstance] += load;
+      numMovedTasks++;
+    }
+
+    LOG.info("Weighted task placement moved {} tasks, the most utilized instance is at {}% of the cluster utilization",
+        numMovedTasks, totalLoad > 0 ? Math.round(maxUtilization * totalCapacity * 100 / totalLoad) : 0);
+    return numMovedTasks;
+  }
+
+  /**
+   * Get the capacities of the instances, in the order of the instances
+   */
+  private double[] getInstanceCapacities(List<String> instances) {
+    double[] capacities = new double[instances.size()];
+    double totalCapacity = 0;
+    int numAdvertisedCapacities = 0;
+    for (int i = 0; i < instances.size(); i++) {
+      String capacity = _zkClient.readData(KeyBuilder.instanceCapacity(_cluster, instances.get(i)), true);
+      if (capacity == null) {
+        continue;
+      }
+      try {
+        capacities[i] = Math.max(Double.parseDouble(capacity), 0);
+      } catch (NumberFormatException e) {
+        LOG.warn("Ignoring the malformed capacity {} of instance {}", capacity, instances.get(i));
+      }
+      if (capacities[i] > 0) {
+        totalCapacity += capacities[i];
+        numAdvertisedCapacities++;
+      }
+    }
+
+    double defaultCapacity = numAdvertisedCapacities > 0 ? totalCapacity / numAdvertisedCapacities : 1;
+    for (int i = 0; i < capacities.length; i++) {
+      if (capacities[i] <= 0) {
+        capacities[i] = defaultCapacity;
+      }
+    }
+    return capacities;
+  }
+
+  /**
+   * Get the loads of all the tasks of the assignment, and of the pending tasks
+   */
+  private Map<DatastreamTask, Long> getTaskLoads(Map<String, Set<DatastreamTask>> assignment,
+      List<DatastreamTask> pendingTasks) {
+    List<DatastreamTask> tasks = new ArrayList<>(pendingTasks);
+    assignment.values().forEach(tasks::addAll);
+
+    Map<DatastreamTask, Long> taskLoads = new HashMap<>(tasks.size() * 4 / 3 + 1);
+    Set<String> taskNames = new HashSet<>();
+    long totalKnownLoad = 0;
+    int numKnownLoads = 0;
+    for (DatastreamTask task : tasks) {
+      taskNames.add(task.getDatastreamTaskName());
+      long load = _taskLoads.computeIfAbsent(task.getDatastreamTaskName(), k -> readTaskLoad(task));
+      taskLoads.put(task, load);
+      if (load != UNKNOWN_TASK_LOAD) {
+        totalKnownLoad += load;
+        numKnownLoads++;
+      }
+    }
+    // forget the tasks which are gone
+    _taskLoads.keySet().retainAll(taskNames);
+
+    long defaultLoad = numKnownLoads > 0 ? Math.max(totalKnownLoad / numKnownLoads, MIN_TASK_LOAD) : MIN_TASK_LOAD;
+    taskLoads.replaceAll((task, load) -> load == UNKNOWN_TASK_LOAD ? defaultLoad : load);
+    return taskLoads;
+  }
+
+  private long readTaskLoad(DatastreamTask task) {
+    String stats = task instanceof DatastreamTaskImpl ? ((DatastreamTaskImpl) task).getStats() : null;
+    if (StringUtils.isEmpty(stats)) {
+      stats = _zkClient.readData(KeyBuilder.datastreamTaskStateKey(_cluster, task.getConnectorType(),
+          task.getDatastreamTaskName(), DatastreamTaskImpl.STATS_KEY), true);
+    }
+    if (StringUtils.isEmpty(stats)) {
+      return UNKNOWN_TASK_LOAD;
+    }
+
+    try {
+      return Math.max(PartitionAssignmentStatPerTask.fromJson(stats).getThroughputRateInKBps(), MIN_TASK_LOAD);
+    } catch (DatastreamRuntimeException e) {
+      LOG.warn("Ignoring the malformed stats of task {}", task.getDatastreamTaskName(), e);
+      return UNKNOWN_TASK_LOAD;
+    }
+  }
+}
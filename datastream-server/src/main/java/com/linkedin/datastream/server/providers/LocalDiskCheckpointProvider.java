@@ -0,0 +1,600 @@
+/**
+ *  Copyright 2019 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.server.providers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import com.linkedin.datastream.common.DatastreamRuntimeException;
+import com.linkedin.datastream.common.JsonUtils;
+import com.linkedin.datastream.metrics.BrooklinHistogramInfo;
+import com.linkedin.datastream.metrics.BrooklinMeterInfo;
+import com.linkedin.datastream.metrics.BrooklinMetricInfo;
+import com.linkedin.datastream.metrics.DynamicMetricsManager;
+import com.linkedin.datastream.server.DatastreamTask;
+import com.linkedin.datastream.server.zk.ZkAdapter;
+
+
+/**
+ * {@link CheckpointProvider} that stores the checkpoints in a memory-mapped, append-only log on the local disk, so that
+ * every checkpoint update is made durable without accessing ZooKeeper. This allows checkpointing much more frequently
+ * than {@link ZookeeperCheckpointProvider} does.
+ *
+ * Each checkpoint update appends a record to the log, which is forced to the disk periodically and on {@link #flush()}.
+ * When the log is full, it is compacted: the latest checkpoints are written to a new log which atomically replaces the
+ * current one. The log is replayed when the provider is created, and the records following a torn write are ignored.
+ *
+ * Since the log is local to the instance, the latest checkpoints can also be replicated to ZooKeeper periodically (in
+ * the format of {@link ZookeeperCheckpointProvider}), so that the instance a task moves to resumes from them. With
+ * the replication enabled, the checkpoints of an unassigned task are replicated right away and dropped from the log;
+ * otherwise (or if the replication fails) they are kept in the log in case the task is assigned to the instance again,
+ * until the task is removed from the cluster. On its first use, a task resumes from its checkpoints in the log if any,
+ * or from ZooKeeper. With the replication enabled though, the checkpoints in ZooKeeper take precedence if there are
+ * any, as the task may have run on another instance since its checkpoints were logged (e.g. before a restart).
+ */
+public class LocalDiskCheckpointProvider implements CheckpointProvider, Closeable {
+  public static final String LOG_FILE_NAME = "checkpoints.log";
+
+  private static final Logger LOG = LoggerFactory.getLogger(LocalDiskCheckpointProvider.class.getName());
+  private static final String MODULE = LocalDiskCheckpointProvider.class.getSimpleName();
+  private static final String NUM_LOG_COMPACTIONS = "numLogCompactions";
+  private static final String NUM_CHECKPOINT_REPLICATIONS = "numCheckpointReplications";
+  private static final String CHECKPOINT_REPLICATION_LATENCY_MS = "checkpointReplicationLatencyMs";
+  private static final long RETAINED_CHECKPOINTS_PRUNE_INTERVAL_MS = Duration.ofMinutes(5).toMillis();
+
+  private static final String COMPACTED_LOG_FILE_NAME = LOG_FILE_NAME + ".compacted";
+  // Length and CRC of the payload
+  private static final int RECORD_HEADER_SIZE = 8;
+  // Types of the records: the checkpoint of a partition, or the removal of all the checkpoints of a task
+  private static final byte CHECKPOINT_RECORD = 0;
+  private static final byte TOMBSTONE_RECORD = 1;
+
+  private final ZkAdapter _zkAdapter;
+  private final Path _logFile;
+  private final Path _compactedLogFile;
+  private final int _minLogSizeBytes;
+  private final long _zkReplicationIntervalMs;
+  private final ScheduledExecutorService _executor;
+  private final DynamicMetricsManager _dynamicMetricsManager;
+
+  private final TypeReference<HashMap<Integer, String>> _hashMapTypeReference =
+      new TypeReference<HashMap<Integer, String>>() {
+      };
+
+  // The checkpoints of the tasks in use. The checkpoint maps are guarded by _logLock.
+  private final ConcurrentHashMap<DatastreamTask, TaskCheckpoints> _taskCheckpoints = new ConcurrentHashMap<>();
+
+  // Guards the log and all the checkpoints
+  private final Object _logLock = new Object();
+  // The checkpoints in the log of the tasks which are not in use, by task key. They are pruned once their tasks are
+  // removed from the cluster.
+  private final Map<String, Map<Integer, String>> _retainedCheckpoints = new HashMap<>();
+  private FileChannel _channel;
+  private MappedByteBuffer _log;
+
+  /**
+   * Construct an instance of LocalDiskCheckpointProvider, replaying the log of the directory if any
+   * @param zkAdapter ZooKeeper client adapter to read and replicate the checkpoints with
+   * @param directory directory of the log, which is created if needed
+   * @param minLogSizeBytes size of the log file, which is increased if the latest checkpoints do not fit in half of it
+   * @param forceIntervalMs interval at which the log is forced to the disk, 0 to only force it on {@link #flush()}
+   * @param zkReplicationIntervalMs interval at which the latest checkpoints are replicated to ZooKeeper, 0 to disable
+   *                                the replication
+   * @throws IOException if the log cannot be opened
+   */
+  public LocalDiskCheckpointProvider(ZkAdapter zkAdapter, Path directory, int minLogSizeBytes, long forceIntervalMs,
+      long zkReplicationIntervalMs) throws IOException {
+    Validate.notNull(zkAdapter, "zkAdapter cannot be null");
+    Validate.notNull(directory, "directory cannot be null");
+    Validate.isTrue(minLogSizeBytes > RECORD_HEADER_SIZE, "minLogSizeBytes is too small: " + minLogSizeBytes);
+    Validate.isTrue(forceIntervalMs >= 0, "forceIntervalMs must not be negative");
+    Validate.isTrue(zkReplicationIntervalMs >= 0, "zkReplicationIntervalMs must not be negative");
+
+    _zkAdapter = zkAdapter;
+    _logFile = directory.resolve(LOG_FILE_NAME);
+    _compactedLogFile = directory.resolve(COMPACTED_LOG_FILE_NAME);
+    _minLogSizeBytes = minLogSizeBytes;
+    _zkReplicationIntervalMs = zkReplicationIntervalMs;
+    _dynamicMetricsManager = DynamicMetricsManager.getInstance();
+
+    Files.createDirectories(directory);
+    synchronized (_logLock) {
+      openLog();
+    }
+
+    _executor = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setDaemon(true).setNameFormat("LocalDiskCheckpointProvider-%d").build());
+    if (forceIntervalMs > 0) {
+      _executor.scheduleWithFixedDelay(this::forceLog, forceIntervalMs, forceIntervalMs, TimeUnit.MILLISECONDS);
+    }
+    if (zkReplicationIntervalMs > 0) {
+      _executor.scheduleWithFixedDelay(this::replicateCheckpoints, zkReplicationIntervalMs, zkReplicationIntervalMs,
+          TimeUnit.MILLISECONDS);
+    }
+    _executor.scheduleWithFixedDelay(this::pruneRetainedCheckpoints, 0, RETAINED_CHECKPOINTS_PRUNE_INTERVAL_MS,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Replicate the checkpoints of the task if the replication is enabled, then drop them from the log if they are
+   * replicated, or retain them otherwise. Once this returns, the checkpoints of the task are not replicated anymore.
+   */
+  @Override
+  public void unassignDatastreamTask(DatastreamTask task) {
+    TaskCheckpoints taskCheckpoints = _taskCheckpoints.get(task);
+    if (taskCheckpoints == null) {
+      return;
+    }
+
+    // Wait for the replication in progress, if any. The task is only removed once its checkpoints are replicated, so
+    // that a compaction of the log in the meantime keeps them.
+    synchronized (taskCheckpoints._replicationLock) {
+      if (_zkReplicationIntervalMs > 0) {
+        replicateCheckpoints(task, taskCheckpoints);
+      }
+      synchronized (_logLock) {
+        if (!_taskCheckpoints.remove(task, taskCheckpoints)) {
+          return;
+        }
+        taskCheckpoints._unassigned = true;
+        // The checkpoints may have been updated since they were replicated
+        if (_zkReplicationIntervalMs > 0 && taskCheckpoints.isReplicated()) {
+          append(encodeRecord(TOMBSTONE_RECORD, getTaskKey(task), 0, ""));
+        } else {
+          _retainedCheckpoints.put(getTaskKey(task), taskCheckpoints._checkpoints);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void updateCheckpoint(DatastreamTask task, int partition, String checkpoint) {
+    TaskCheckpoints taskCheckpoints = getOrLoadTaskCheckpoints(task);
+    synchronized (_logLock) {
+      append(encodeRecord(CHECKPOINT_RECORD, getTaskKey(task), partition, checkpoint));
+      taskCheckpoints._checkpoints.put(partition, checkpoint);
+      taskCheckpoints._version++;
+    }
+  }
+
+  /**
+   * Force the log to the disk
+   */
+  @Override
+  public void flush() {
+    forceLog();
+  }
+
+  /**
+   * Get the safe checkpoints that the task has produced to, which are the checkpoints in the log
+   */
+  @Override
+  public Map<Integer, String> getSafeCheckpoints(DatastreamTask task) {
+    TaskCheckpoints taskCheckpoints = getOrLoadTaskCheckpoints(task);
+    synchronized (_logLock) {
+      return new HashMap<>(taskCheckpoints._checkpoints);
+    }
+  }
+
+  /**
+   * Read the checkpoints from the log for the task, or from ZooKeeper if the log has none
+   * @param datastreamTask datastream task whose checkpoints need to be read
+   * @return Map of the checkpoints associated with {@code datastreamTask}
+   */
+  @Override
+  public Map<Integer, String> getCommitted(DatastreamTask datastreamTask) {
+    Validate.notNull(datastreamTask, "datastreamTask should not be null");
+    Map<Integer, String> checkpoints = getSafeCheckpoints(datastreamTask);
+    LOG.info("GetCommitted returning the last committed checkpoints " + checkpoints.toString());
+    return checkpoints;
+  }
+
+  @Override
+  public List<BrooklinMetricInfo> getMetricInfos() {
+    List<BrooklinMetricInfo> metrics = new ArrayList<>();
+
+    metrics.add(new BrooklinMeterInfo(buildMetricName(NUM_LOG_COMPACTIONS)));
+    metrics.add(new BrooklinMeterInfo(buildMetricName(NUM_CHECKPOINT_REPLICATIONS)));
+    metrics.add(new BrooklinHistogramInfo(buildMetricName(CHECKPOINT_REPLICATION_LATENCY_MS)));
+
+    return Collections.unmodifiableList(metrics);
+  }
+
+  /**
+   * Replicate the checkpoints to ZooKeeper if enabled, and close the log
+   */
+  @Override
+  public void close() throws IOException {
+    _executor.shutdownNow();
+    if (_zkReplicationIntervalMs > 0) {
+      replicateCheckpoints();
+    }
+    synchronized (_logLock) {
+      _log.force();
+      _channel.close();
+    }
+  }
+
+  private TaskCheckpoints getOrLoadTaskCheckpoints(DatastreamTask task) {
+    TaskCheckpoints taskCheckpoints = _taskCheckpoints.get(task);
+    if (taskCheckpoints != null) {
+      return taskCheckpoints;
+    }
+
+    String taskKey = getTaskKey(task);
+    if (_zkReplicationIntervalMs == 0) {
+      // Without the replication, the checkpoints in the log are the latest ones of the instance
+      synchronized (_logLock) {
+        Map<Integer, String> retainedCheckpoints = _retainedCheckpoints.remove(taskKey);
+        if (retainedCheckpoints != null) {
+          return _taskCheckpoints.computeIfAbsent(task, k -> new TaskCheckpoints(retainedCheckpoints));
+        }
+      }
+    }
+
+    // The log has no checkpoints for the task (e.g. it was moved from another instance), or the task may have run on
+    // another instance since they were logged, so the checkpoints in ZK are preferred
+    Map<Integer, String> zkCheckpoints = getZkCheckpoints(task);
+    synchronized (_logLock) {
+      taskCheckpoints = _taskCheckpoints.get(task);
+      if (taskCheckpoints != null) {
+        return taskCheckpoints;
+      }
+
+      Map<Integer, String> retainedCheckpoints = _retainedCheckpoints.remove(taskKey);
+      if (retainedCheckpoints != null && zkCheckpoints.isEmpty()) {
+        taskCheckpoints = new TaskCheckpoints(retainedCheckpoints);
+        _taskCheckpoints.put(task, taskCheckpoints);
+        return taskCheckpoints;
+      }
+
+      taskCheckpoints = new TaskCheckpoints(zkCheckpoints);
+      // Already replicated
+      taskCheckpoints._replicatedVersion = taskCheckpoints._version;
+      // The task is added before its checkpoints are logged, so that a compaction of the log in the meantime keeps
+      // them. They are logged so that they are not lost if the task is not updated before a restart, in place of the
+      // retained ones, if any.
+      _taskCheckpoints.put(task, taskCheckpoints);
+      if (retainedCheckpoints != null) {
+        append(encodeRecord(TOMBSTONE_RECORD, taskKey, 0, ""));
+      }
+      zkCheckpoints.forEach(
+          (partition, checkpoint) -> append(encodeRecord(CHECKPOINT_RECORD, taskKey, partition, checkpoint)));
+      return taskCheckpoints;
+    }
+  }
+
+  private Map<Integer, String> getZkCheckpoints(DatastreamTask task) {
+    String checkpoint =
+        _zkAdapter.getDatastreamTaskStateForKey(task, ZookeeperCheckpointProvider.CHECKPOINT_KEY_NAME);
+    if (StringUtils.isNotBlank(checkpoint)) {
+      return JsonUtils.fromJson(checkpoint, _hashMapTypeReference);
+    }
+    return new HashMap<>();
+  }
+
+  /**
+   * Replicate the checkpoints of all the tasks updated since their last replication
+   */
+  private void replicateCheckpoints() {
+    _taskCheckpoints.forEach(this::replicateCheckpoints);
+  }
+
+  /**
+   * Replicate the checkpoints of a task to ZooKeeper, unless they are already replicated
+   * @return true if the checkpoints are replicated
+   */
+  private boolean replicateCheckpoints(DatastreamTask task, TaskCheckpoints taskCheckpoints) {
+    synchronized (taskCheckpoints._replicationLock) {
+      if (taskCheckpoints._unassigned) {
+        return false;
+      }
+
+      String checkpoints;
+      long version;
+      synchronized (_logLock) {
+        if (taskCheckpoints.isReplicated()) {
+          return true;
+        }
+        checkpoints = JsonUtils.toJson(taskCheckpoints._checkpoints);
+        version = taskCheckpoints._version;
+      }
+
+      long startTime = System.currentTimeMillis();
+      try {
+        _zkAdapter.setDatastreamTaskStateForKey(task, ZookeeperCheckpointProvider.CHECKPOINT_KEY_NAME, checkpoints);
+      } catch (RuntimeException e) {
+        LOG.error("Failed to replicate the checkpoints of DatastreamTask " + task + " to ZooKeeper", e);
+        return false;
+      }
+      synchronized (_logLock) {
+        // The checkpoints may have been updated during the write
+        taskCheckpoints._replicatedVersion = version;
+      }
+      _dynamicMetricsManager.createOrUpdateMeter(MODULE, NUM_CHECKPOINT_REPLICATIONS, 1);
+      _dynamicMetricsManager.createOrUpdateHistogram(MODULE, CHECKPOINT_REPLICATION_LATENCY_MS,
+          System.currentTimeMillis() - startTime);
+      return true;
+    }
+  }
+
+  /**
+   * Drop the retained checkpoints of the tasks which are removed from the cluster, as they are never used again
+   */
+  @VisibleForTesting
+  void pruneRetainedCheckpoints() {
+    List<String> taskKeys;
+    synchronized (_logLock) {
+      taskKeys = new ArrayList<>(_retainedCheckpoints.keySet());
+    }
+
+    List<String> removedTaskKeys = new ArrayList<>();
+    try {
+      for (String taskKey : taskKeys) {
+        // The task names cannot contain a "/", as they are znode names
+        int index = taskKey.lastIndexOf('/');
+        if (!_zkAdapter.checkIsTaskPresent(taskKey.substring(0, index), taskKey.substring(index + 1))) {
+          removedTaskKeys.add(taskKey);
+        }
+      }
+    } catch (RuntimeException e) {
+      LOG.error("Failed to check which tasks of the retained checkpoints are removed from the cluster", e);
+    }
+
+    synchronized (_logLock) {
+      for (String taskKey : removedTaskKeys) {
+        // The task may have been assigned to the instance in the meantime
+        if (_retainedCheckpoints.remove(taskKey) != null) {
+          append(encodeRecord(TOMBSTONE_RECORD, taskKey, 0, ""));
+        }
+      }
+    }
+    if (!removedTaskKeys.isEmpty()) {
+      LOG.info("Pruned the retained checkpoints of {} removed tasks", removedTaskKeys.size());
+    }
+  }
+
+  private void forceLog() {
+    synchronized (_logLock) {
+      _log.force();
+    }
+  }
+
+  /**
+   * Append a record to the log, compacting the log first if it is full. Must be called with {@link #_logLock} held.
+   */
+  private void append(byte[] record) {
+    if (_log.remaining() < record.length) {
+      compactLog(record.length);
+    }
+    _log.put(record);
+  }
+
+  /**
+   * Replace the log with a log holding only the latest checkpoints, growing it if they do not fit in half of it along
+   * with the record to append. Must be called with {@link #_logLock} held.
+   */
+  private void compactLog(int appendedBytes) {
+    List<byte[]> records = new ArrayList<>();
+    long size = appendedBytes;
+    for (Map.Entry<DatastreamTask, TaskCheckpoints> entry : _taskCheckpoints.entrySet()) {
+      size += encodeRecords(getTaskKey(entry.getKey()), entry.getValue()._checkpoints, records);
+    }
+    for (Map.Entry<String, Map<Integer, String>> entry : _retainedCheckpoints.entrySet()) {
+      size += encodeRecords(entry.getKey(), entry.getValue(), records);
+    }
+
+    long logSize = Math.max(_minLogSizeBytes, _log.capacity());
+    while (logSize < 2 * size) {
+      logSize *= 2;
+    }
+    Validate.isTrue(logSize <= Integer.MAX_VALUE, "The checkpoints do not fit in a log: " + size + " bytes");
+    LOG.info("Compacting the checkpoint log {}: {} bytes of checkpoints in a log of {} bytes", _logFile, size, logSize);
+
+    try {
+      Files.deleteIfExists(_compactedLogFile);
+      try (FileChannel channel = FileChannel.open(_compactedLogFile, StandardOpenOption.CREATE_NEW,
+          StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+        MappedByteBuffer log = channel.map(FileChannel.MapMode.READ_WRITE, 0, logSize);
+        records.forEach(log::put);
+        log.force();
+      }
+      Files.move(_compactedLogFile, _logFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      _channel.close();
+      openLog();
+    } catch (IOException e) {
+      throw new DatastreamRuntimeException("Failed to compact the checkpoint log " + _logFile, e);
+    }
+    _dynamicMetricsManager.createOrUpdateMeter(MODULE, NUM_LOG_COMPACTIONS, 1);
+  }
+
+  /**
+   * Map the log file and replay it. Must be called with {@link #_logLock} held.
+   */
+  private void openLog() throws IOException {
+    _channel = FileChannel.open(_logFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    _log = _channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(_minLogSizeBytes, _channel.size()));
+    if (!_taskCheckpoints.isEmpty() || !_retainedCheckpoints.isEmpty()) {
+      // Reopened after a compaction, the log holds the checkpoints in memory
+      _log.position(getValidLength(_log, null));
+      return;
+    }
+
+    Map<String, Map<Integer, String>> checkpoints = new HashMap<>();
+    int validLength = getValidLength(_log, checkpoints);
+    // Clear what follows the valid records: since the pages of the log may not have been written back in order before
+    // a crash, older records could follow a torn one, and be replayed after the records appended from now on.
+    while (_log.hasRemaining()) {
+      _log.put((byte) 0);
+    }
+    _log.position(validLength);
+    _retainedCheckpoints.putAll(checkpoints);
+    LOG.info("Replayed the checkpoint log {}: checkpoints of {} tasks", _logFile, checkpoints.size());
+  }
+
+  /**
+   * Get the length of the valid records at the beginning of the log, which ends at the first empty, truncated or
+   * corrupted record
+   * @param log the log, whose position is left at the end of the valid records
+   * @param checkpoints map to replay the valid records into, by task key, if not null
+   */
+  private static int getValidLength(MappedByteBuffer log, Map<String, Map<Integer, String>> checkpoints) {
+    log.position(0);
+    CRC32 crc = new CRC32();
+    while (log.remaining() >= RECORD_HEADER_SIZE) {
+      int start = log.position();
+      int length = log.getInt();
+      int checksum = log.getInt();
+      if (length <= 0 || length > log.remaining()) {
+        log.position(start);
+        break;
+      }
+
+      byte[] payload = new byte[length];
+      log.get(payload);
+      crc.reset();
+      crc.update(payload);
+      if ((int) crc.getValue() != checksum) {
+        LOG.warn("Ignoring the corrupted checkpoint log from offset {}", start);
+        log.position(start);
+        break;
+      }
+
+      if (checkpoints != null) {
+        replayRecord(payload, checkpoints);
+      }
+    }
+    return log.position();
+  }
+
+  private static void replayRecord(byte[] payload, Map<String, Map<Integer, String>> checkpoints) {
+    ByteBuffer buffer = ByteBuffer.wrap(payload);
+    try {
+      byte type = buffer.get();
+      String taskKey = readString(buffer);
+      int partition = buffer.getInt();
+      String checkpoint = readString(buffer);
+      if (type == TOMBSTONE_RECORD) {
+        checkpoints.remove(taskKey);
+      } else {
+        checkpoints.computeIfAbsent(taskKey, k -> new HashMap<>()).put(partition, checkpoint);
+      }
+    } catch (BufferUnderflowException e) {
+      // Cannot happen for a record whose checksum matches, unless the format is not the expected one
+      throw new DatastreamRuntimeException("Invalid record in the checkpoint log", e);
+    }
+  }
+
+  private static long encodeRecords(String taskKey, Map<Integer, String> checkpoints, List<byte[]> records) {
+    long size = 0;
+    for (Map.Entry<Integer, String> checkpoint : checkpoints.entrySet()) {
+      byte[] record = encodeRecord(CHECKPOINT_RECORD, taskKey, checkpoint.getKey(), checkpoint.getValue());
+      records.add(record);
+      size += record.length;
+    }
+    return size;
+  }
+
+  private static byte[] encodeRecord(byte type, String taskKey, int partition, String checkpoint) {
+    try {
+      ByteArrayOutputStream payload = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(payload);
+      out.writeByte(type);
+      writeString(out, taskKey);
+      out.writeInt(partition);
+      writeString(out, checkpoint);
+      out.flush();
+
+      CRC32 crc = new CRC32();
+      crc.update(payload.toByteArray());
+      ByteArrayOutputStream record = new ByteArrayOutputStream(RECORD_HEADER_SIZE + payload.size());
+      DataOutputStream recordOut = new DataOutputStream(record);
+      recordOut.writeInt(payload.size());
+      recordOut.writeInt((int) crc.getValue());
+      payload.writeTo(recordOut);
+      recordOut.flush();
+      return record.toByteArray();
+    } catch (IOException e) {
+      // Cannot happen with byte array streams
+      throw new DatastreamRuntimeException("Failed to encode checkpoint record", e);
+    }
+  }
+
+  private static void writeString(DataOutputStream out, String string) throws IOException {
+    byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Get the key of a task in the log, which identifies it in the cluster like its ZooKeeper path does
+   */
+  private static String getTaskKey(DatastreamTask task) {
+    return task.getConnectorType() + "/" + task.getDatastreamTaskName();
+  }
+
+  /**
+   * The checkpoints of a task in use. The fields are guarded by {@link #_logLock}, except {@link #_unassigned} which
+   * is guarded by {@link #_replicationLock}.
+   */
+  private static class TaskCheckpoints {
+    private final Map<Integer, String> _checkpoints;
+    // Held while the checkpoints are replicated to ZooKeeper
+    private final Object _replicationLock = new Object();
+    // Incremented on each update of the checkpoints
+    private long _version;
+    // The version of the checkpoints last replicated to ZooKeeper, -1 if none
+    private long _replicatedVersion = -1;
+    // Whether the task is unassigned, after which its checkpoints are not replicated anymore
+    private boolean _unassigned;
+
+    TaskCheckpoints(Map<Integer, String> checkpoints) {
+      _checkpoints = checkpoints;
+    }
+
+    boolean isReplicated() {
+      return _replicatedVersion == _version;
+    }
+  }
+}
@@ -12,15 +12,24 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.Validate;
+import org.apache.helix.zookeeper.zkclient.exception.ZkBadVersionException;
+import org.apache.zookeeper.data.Stat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
+import com.linkedin.datastream.common.DatastreamRuntimeException;
 import com.linkedin.datastream.common.JsonUtils;
 import com.linkedin.datastream.metrics.BrooklinHistogramInfo;
 import com.linkedin.datastream.metrics.BrooklinMeterInfo;
@@ -32,6 +41,13 @@ import com.linkedin.datastream.server.zk.ZkAdapter;
  /**
   * ZooKeeper-backed {@link CheckpointProvider} that maintains {@link DatastreamTask}
   * processing state information, e.g. offsets/checkpoints, errors.
+  *
+  * The checkpoints are written to ZooKeeper by a background flusher, so that {@link #updateCheckpoint} never waits for
+  * ZooKeeper. The checkpoints updated since the last write of a task are tracked in memory, and all the updates made
+  * while a write is queued are coalesced into it. The checkpoints last committed for each task are cached along with
+  * the version of their znode, so that each write merges them without reading ZooKeeper first; the write fails if the
+  * znode was changed in the meantime (e.g. by the previous owner of the task), in which case the cache is reloaded.
+  * {@link #flush()} is a barrier: it returns once all the checkpoints updated before it are written.
   */
 public class ZookeeperCheckpointProvider implements CheckpointProvider {
 
@@ -41,7 +57,9 @@ public class ZookeeperCheckpointProvider implements CheckpointProvider {
   private static final String MODULE = ZookeeperCheckpointProvider.class.getSimpleName();
   private static final String NUM_CHECKPOINT_COMMITS = "numCheckpointCommits";
   private static final String CHECKPOINT_COMMIT_LATENCY_MS = "checkpointCommitLatencyMs";
+  private static final String NUM_CHECKPOINT_COMMIT_CONFLICTS = "numCheckpointCommitConflicts";
   private static final Duration CHECKPOINT_INTERVAL = Duration.ofMinutes(1);
+  private static final int MAX_COMMIT_ATTEMPTS = 3;
 
   private final ZkAdapter _zkAdapter;
   private final DynamicMetricsManager _dynamicMetricsManager;
@@ -51,8 +69,10 @@ public class ZookeeperCheckpointProvider implements CheckpointProvider {
       new TypeReference<ConcurrentHashMap<Integer, String>>() {
       };
 
-  private final ConcurrentHashMap<DatastreamTask, Map<Integer, String>> _checkpointsToCommit = new ConcurrentHashMap<>();
-  private final ConcurrentHashMap<DatastreamTask, Instant> _lastCommitTime = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<DatastreamTask, TaskCheckpoints> _taskCheckpoints = new ConcurrentHashMap<>();
+  // Tasks whose write is queued in the flusher
+  private final Set<DatastreamTask> _dirtyTasks = ConcurrentHashMap.newKeySet();
+  private final ExecutorService _flusher;
 
    /**
     * Construct an instance of ZookeeperCheckpointProvider
@@ -62,75 +82,166 @@ public class ZookeeperCheckpointProvider implements CheckpointProvider {
     _zkAdapter = zkAdapter;
     // Initialize metrics
     _dynamicMetricsManager = DynamicMetricsManager.getInstance();
+    _flusher = Executors.newSingleThreadExecutor(
+        new ThreadFactoryBuilder().setDaemon(true).setNameFormat("ZookeeperCheckpointFlusher-%d").build());
   }
 
+  /**
+   * Drop the checkpoints of the task which are not written yet. Once this returns, no checkpoint of the task is
+   * written anymore.
+   */
   @Override
   public void unassignDatastreamTask(DatastreamTask task) {
-    _checkpointsToCommit.remove(task);
-    _lastCommitTime.remove(task);
+    TaskCheckpoints taskCheckpoints = _taskCheckpoints.remove(task);
+    if (taskCheckpoints != null) {
+      // Wait for the write in progress, if any
+      synchronized (taskCheckpoints._writeLock) {
+        taskCheckpoints._unassigned = true;
+      }
+    }
   }
 
   /**
-   * Commit the checkpoints to the checkpoint store.
+   * Update the checkpoint in memory, and queue a write of the checkpoints of the task if none was done within the
+   * checkpoint interval.
    */
   @Override
   public void updateCheckpoint(DatastreamTask task, int partition, String checkpoint) {
-    Map<Integer, String> taskMap = getOrAddCheckpointMap(task);
-    synchronized (taskMap) {
-      taskMap.put(partition, checkpoint);
+    TaskCheckpoints taskCheckpoints = getOrAddTaskCheckpoints(task);
+    boolean shouldCommit;
+    synchronized (taskCheckpoints) {
+      taskCheckpoints._pending.put(partition, checkpoint);
+      shouldCommit = taskCheckpoints._lastCommitTime == null
+          || Instant.now().isAfter(taskCheckpoints._lastCommitTime.plus(CHECKPOINT_INTERVAL));
+    }
 
-      if (!_lastCommitTime.containsKey(task) || Instant.now()
-          .isAfter(_lastCommitTime.get(task).plus(CHECKPOINT_INTERVAL))) {
-        writeCheckpointsToStore(task);
-      }
+    if (shouldCommit && _dirtyTasks.add(task)) {
+      _flusher.execute(() -> {
+        _dirtyTasks.remove(task);
+        try {
+          writeCheckpointsToStore(task);
+        } catch (RuntimeException e) {
+          // The checkpoints are kept in memory and written again by the next commit
+          LOG.error("Failed to write the checkpoints of DatastreamTask " + task, e);
+        }
+      });
     }
   }
 
-  private Map<Integer, String> getOrAddCheckpointMap(DatastreamTask task) {
-    return _checkpointsToCommit.computeIfAbsent(task, k -> new HashMap<>());
+  private TaskCheckpoints getOrAddTaskCheckpoints(DatastreamTask task) {
+    return _taskCheckpoints.computeIfAbsent(task, k -> new TaskCheckpoints());
   }
 
+  /**
+   * Write the pending checkpoints of the task, merged with its committed ones. Only called by the flusher.
+   */
   private void writeCheckpointsToStore(DatastreamTask task) {
-    Map<Integer, String> taskMap = getOrAddCheckpointMap(task);
-    synchronized (taskMap) {
-      long startTime = System.currentTimeMillis();
-      Map<Integer, String> checkpoints = mergeAndGetSafeCheckpoints(task, taskMap);
-
-      _zkAdapter.setDatastreamTaskStateForKey(task, CHECKPOINT_KEY_NAME, JsonUtils.toJson(checkpoints));
-      _dynamicMetricsManager.createOrUpdateMeter(MODULE, NUM_CHECKPOINT_COMMITS, 1);
-      _dynamicMetricsManager.createOrUpdateHistogram(MODULE, CHECKPOINT_COMMIT_LATENCY_MS,
-          System.currentTimeMillis() - startTime);
-
-      Map<Integer, String> committedCheckpoints = _checkpointsToCommit.get(task);
-      // This check is necessary since task may have been unassigned/removed by a concurrent call to unassignDatastreamTask().
-      if (committedCheckpoints != null) {
-        // Clear the checkpoints to commit.
-        committedCheckpoints.clear();
+    TaskCheckpoints taskCheckpoints = _taskCheckpoints.get(task);
+    if (taskCheckpoints == null) {
+      return;
+    }
+
+    synchronized (taskCheckpoints._writeLock) {
+      for (int attempt = 1; !taskCheckpoints._unassigned; attempt++) {
+        loadCommittedCheckpoints(task, taskCheckpoints);
+
+        Map<Integer, String> written;
+        Map<Integer, String> checkpoints;
+        int version;
+        synchronized (taskCheckpoints) {
+          if (taskCheckpoints._pending.isEmpty()) {
+            return;
+          }
+          written = new HashMap<>(taskCheckpoints._pending);
+          // It is possible that the pending checkpoints contain only a subset of partitions, so they are merged with
+          // the committed checkpoints.
+          checkpoints = new HashMap<>(taskCheckpoints._committed);
+          checkpoints.putAll(written);
+          version = taskCheckpoints._version;
+        }
+
+        long startTime = System.currentTimeMillis();
+        int newVersion;
+        try {
+          newVersion = _zkAdapter.setDatastreamTaskStateForKey(task, CHECKPOINT_KEY_NAME, JsonUtils.toJson(checkpoints),
+              version);
+        } catch (ZkBadVersionException e) {
+          _dynamicMetricsManager.createOrUpdateMeter(MODULE, NUM_CHECKPOINT_COMMIT_CONFLICTS, 1);
+          if (attempt == MAX_COMMIT_ATTEMPTS) {
+            throw e;
+          }
+          LOG.warn("Checkpoints of DatastreamTask {} were updated concurrently, reloading them", task);
+          synchronized (taskCheckpoints) {
+            taskCheckpoints._committed = null;
+          }
+          continue;
+        }
+        _dynamicMetricsManager.createOrUpdateMeter(MODULE, NUM_CHECKPOINT_COMMITS, 1);
+        _dynamicMetricsManager.createOrUpdateHistogram(MODULE, CHECKPOINT_COMMIT_LATENCY_MS,
+            System.currentTimeMillis() - startTime);
+
+        synchronized (taskCheckpoints) {
+          // The checkpoints are reloaded by the next write if the task did not exist
+          taskCheckpoints._committed = newVersion < 0 ? null : checkpoints;
+          taskCheckpoints._version = newVersion;
+          // Keep the checkpoints updated during the write
+          written.forEach(taskCheckpoints._pending::remove);
+          taskCheckpoints._lastCommitTime = Instant.now();
+        }
+        return;
       }
-      _lastCommitTime.put(task, Instant.now());
     }
   }
 
+  /**
+   * Write the checkpoints updated so far, and wait for them to be written
+   */
   @Override
   public void flush() {
-    LOG.info("Flushing checkpoints for {} datatstream tasks to ZooKeeper", _checkpointsToCommit.size());
-    _checkpointsToCommit.keySet().forEach(this::writeCheckpointsToStore);
+    LOG.info("Flushing checkpoints for {} datatstream tasks to ZooKeeper", _taskCheckpoints.size());
+    List<Future<?>> writes = new ArrayList<>();
+    for (DatastreamTask task : _taskCheckpoints.keySet()) {
+      writes.add(_flusher.submit(() -> writeCheckpointsToStore(task)));
+    }
+
+    RuntimeException failure = null;
+    for (Future<?> write : writes) {
+      try {
+        write.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new DatastreamRuntimeException("Interrupted while flushing checkpoints to ZooKeeper", e);
+      } catch (ExecutionException e) {
+        if (failure == null) {
+          failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+              : new DatastreamRuntimeException("Failed to flush checkpoints to ZooKeeper", e.getCause());
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
     LOG.info("Flushing checkpoints to ZooKeeper completed successfully");
   }
 
-  private Map<Integer, String> mergeAndGetSafeCheckpoints(DatastreamTask task, Map<Integer, String> safeCheckpoints) {
-
-    // It is possible that the safe checkpoints contains only subset of partitions.
-    // So it is safe to merge them with the existing checkpoints in ZooKeeper.
-    Map<Integer, String> checkpoints = getCheckpoint(task);
-
-    if (safeCheckpoints != null && !safeCheckpoints.isEmpty()) {
-      for (Map.Entry<Integer, String> safeCheckpoint : safeCheckpoints.entrySet()) {
-        checkpoints.put(safeCheckpoint.getKey(), safeCheckpoint.getValue());
+  /**
+   * Load the committed checkpoints of the task, unless they are already cached
+   */
+  private void loadCommittedCheckpoints(DatastreamTask task, TaskCheckpoints taskCheckpoints) {
+    synchronized (taskCheckpoints) {
+      if (taskCheckpoints._committed != null) {
+        return;
       }
     }
 
-    return checkpoints;
+    Stat stat = new Stat();
+    Map<Integer, String> checkpoints = getCheckpoint(task, stat);
+    synchronized (taskCheckpoints) {
+      if (taskCheckpoints._committed == null) {
+        taskCheckpoints._committed = checkpoints;
+        taskCheckpoints._version = stat.getVersion();
+      }
+    }
   }
 
   /**
@@ -140,14 +251,18 @@ public class ZookeeperCheckpointProvider implements CheckpointProvider {
    */
   @Override
   public Map<Integer, String> getSafeCheckpoints(DatastreamTask task) {
-    Map<Integer, String> taskMap = getOrAddCheckpointMap(task);
-    synchronized (taskMap) {
-      return mergeAndGetSafeCheckpoints(task, taskMap);
+    TaskCheckpoints taskCheckpoints = getOrAddTaskCheckpoints(task);
+    loadCommittedCheckpoints(task, taskCheckpoints);
+    synchronized (taskCheckpoints) {
+      Map<Integer, String> checkpoints =
+          taskCheckpoints._committed == null ? new HashMap<>() : new HashMap<>(taskCheckpoints._committed);
+      checkpoints.putAll(taskCheckpoints._pending);
+      return checkpoints;
     }
   }
 
-  private Map<Integer, String> getCheckpoint(DatastreamTask task) {
-    String checkpoint = _zkAdapter.getDatastreamTaskStateForKey(task, CHECKPOINT_KEY_NAME);
+  private Map<Integer, String> getCheckpoint(DatastreamTask task, Stat stat) {
+    String checkpoint = _zkAdapter.getDatastreamTaskStateForKey(task, CHECKPOINT_KEY_NAME, stat);
     if (StringUtils.isNotBlank(checkpoint)) {
       return JsonUtils.fromJson(checkpoint, _hashMapTypeReference);
     } else {
@@ -164,7 +279,7 @@ public class ZookeeperCheckpointProvider implements CheckpointProvider {
   @Override
   public Map<Integer, String> getCommitted(DatastreamTask datastreamTask) {
     Validate.notNull(datastreamTask, "datastreamTask should not be null");
-    Map<Integer, String> checkpoints = getCheckpoint(datastreamTask);
+    Map<Integer, String> checkpoints = getCheckpoint(datastreamTask, new Stat());
     LOG.info("GetCommitted returning the last committed checkpoints " + checkpoints.toString());
     return checkpoints;
   }
@@ -175,7 +290,24 @@ public class ZookeeperCheckpointProvider implements CheckpointProvider {
 
     metrics.add(new BrooklinMeterInfo(buildMetricName(NUM_CHECKPOINT_COMMITS)));
     metrics.add(new BrooklinHistogramInfo(buildMetricName(CHECKPOINT_COMMIT_LATENCY_MS)));
+    metrics.add(new BrooklinMeterInfo(buildMetricName(NUM_CHECKPOINT_COMMIT_CONFLICTS)));
 
     return Collections.unmodifiableList(metrics);
   }
+
+  /**
+   * The checkpoints of a task. The fields are guarded by the instance, which is never held while accessing ZooKeeper.
+   */
+  private static class TaskCheckpoints {
+    // Held while writing the checkpoints of the task
+    private final Object _writeLock = new Object();
+    // The checkpoints updated since the last write
+    private final Map<Integer, String> _pending = new HashMap<>();
+    // The checkpoints last written or read, null if they need to be (re)loaded
+    private Map<Integer, String> _committed;
+    private int _version;
+    private Instant _lastCommitTime;
+    // Guarded by _writeLock
+    private boolean _unassigned;
+  }
 }
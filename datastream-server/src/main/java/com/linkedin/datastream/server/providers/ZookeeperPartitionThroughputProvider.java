@@ -0,0 +1,238 @@
+/**
+ *  Copyright 2021 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.server.providers;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.linkedin.datastream.common.DatastreamRuntimeException;
+import com.linkedin.datastream.common.JsonUtils;
+import com.linkedin.datastream.common.zk.ZkClient;
+import com.linkedin.datastream.server.ClusterThroughputInfo;
+import com.linkedin.datastream.server.DatastreamGroup;
+import com.linkedin.datastream.server.PartitionThroughputInfo;
+import com.linkedin.datastream.server.TaskThroughputStats;
+import com.linkedin.datastream.server.zk.KeyBuilder;
+
+
+/**
+ * An implementation of {@link PartitionThroughputProvider} which reads the throughput of the partitions of a
+ * datastream group from the {@link TaskThroughputStats} its tasks publish into their ZooKeeper state, wherever the
+ * tasks run in the cluster.
+ *
+ * The rates each task measures over its publish interval are noisy, so the provider keeps an exponentially decayed
+ * moving average of the rates of each partition: a sample which is one half-life newer than the average weighs as
+ * much as the average. The samples are applied in the order of their timestamps, and a sample which is not newer
+ * than the average (e.g. the stale state of a task the partition has moved from) is ignored.
+ *
+ * Reading the states of all the tasks of a group from ZooKeeper is not cheap, so the throughput info of each group is
+ * cached as a snapshot, which is refreshed when it is older than the snapshot TTL. The throughput info is named after
+ * the datastream group, so the lookups by name look the snapshots of the datastream groups up rather than those of
+ * source clusters.
+ */
+public class ZookeeperPartitionThroughputProvider implements PartitionThroughputProvider {
+  private static final Logger LOG = LoggerFactory.getLogger(ZookeeperPartitionThroughputProvider.class.getName());
+
+  // The averages of the partitions which got no sample for this many half-lives are dropped
+  private static final int NUM_HALF_LIVES_TO_EXPIRY = 10;
+
+  private final ZkClient _zkClient;
+  private final String _cluster;
+  private final long _snapshotTtlMs;
+  private final long _halfLifeMs;
+
+  // Keyed by the task prefix of the datastream groups. Guarded by this.
+  private final Map<String, GroupThroughput> _groupThroughputs = new HashMap<>();
+
+  /**
+   * Creates an instance of {@link ZookeeperPartitionThroughputProvider}
+   * @param zkClient ZooKeeper client
+   * @param cluster Brooklin cluster name
+   * @param snapshotTtlMs Time (in milliseconds) for which the throughput info of a datastream group is cached
+   * @param halfLifeMs Half-life (in milliseconds) of the decayed moving average of the partition rates
+   */
+  public ZookeeperPartitionThroughputProvider(ZkClient zkClient, String cluster, long snapshotTtlMs, long halfLifeMs) {
+    Validate.notNull(zkClient, "null ZooKeeper client");
+    Validate.notEmpty(cluster, "empty cluster name");
+    Validate.isTrue(snapshotTtlMs >= 0, "negative snapshot TTL");
+    Validate.isTrue(halfLifeMs > 0, "non-positive half-life");
+    _zkClient = zkClient;
+    _cluster = cluster;
+    _snapshotTtlMs = snapshotTtlMs;
+    _halfLifeMs = halfLifeMs;
+  }
+
+  /**
+   * Retrieves per-partition throughput information for the datastream group of the given name, as the throughput is
+   * tracked per datastream group rather than per source cluster. Only the datastream groups the provider has been
+   * asked for (see {@link #getThroughputInfo(DatastreamGroup)}) and has not forgotten yet are known.
+   * @param datastreamGroupName Name of the datastream group
+   * @return Throughput information for the datastream group, or null if the datastream group is not known
+   */
+  @Override
+  public synchronized ClusterThroughputInfo getThroughputInfo(String datastreamGroupName) {
+    expireGroupThroughputs(System.currentTimeMillis());
+    for (GroupThroughput throughput : new ArrayList<>(_groupThroughputs.values())) {
+      if (throughput._datastreamGroup.getName().equals(datastreamGroupName)) {
+        return getThroughputInfo(throughput._datastreamGroup);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized ClusterThroughputInfo getThroughputInfo(DatastreamGroup datastreamGroup) {
+    long now = System.currentTimeMillis();
+    expireGroupThroughputs(now);
+
+    GroupThroughput throughput =
+        _groupThroughputs.computeIfAbsent(datastreamGroup.getTaskPrefix(), k -> new GroupThroughput());
+    throughput._datastreamGroup = datastreamGroup;
+    if (throughput._snapshot == null || now - throughput._snapshotTimeMs >= _snapshotTtlMs) {
+      throughput.update(readTaskThroughputStats(datastreamGroup));
+      throughput._snapshot = throughput.toClusterThroughputInfo(datastreamGroup.getName());
+      throughput._snapshotTimeMs = now;
+    }
+    return throughput._snapshot;
+  }
+
+  /**
+   * Retrieves per-partition throughput information for all the datastream groups the provider knows of (see
+   * {@link #getThroughputInfo(String)})
+   * @return A map, where keys are datastream group names and values are throughput information for the group
+   */
+  @Override
+  public synchronized Map<String, ClusterThroughputInfo> getThroughputInfo() {
+    expireGroupThroughputs(System.currentTimeMillis());
+    Map<String, ClusterThroughputInfo> throughputInfos = new HashMap<>();
+    for (GroupThroughput throughput : new ArrayList<>(_groupThroughputs.values())) {
+      ClusterThroughputInfo throughputInfo = getThroughputInfo(throughput._datastreamGroup);
+      throughputInfos.put(throughputInfo.getClusterName(), throughputInfo);
+    }
+    return throughputInfos;
+  }
+
+  /**
+   * Forget the datastream groups which have not been asked for in a while, e.g. because they were deleted
+   */
+  private void expireGroupThroughputs(long now) {
+    _groupThroughputs.values().removeIf(throughput -> now - throughput._snapshotTimeMs > getExpiryMs());
+  }
+
+  private long getExpiryMs() {
+    return Math.max(_snapshotTtlMs, NUM_HALF_LIVES_TO_EXPIRY * _halfLifeMs);
+  }
+
+  /**
+   * Read the throughput stats published by the tasks of a datastream group, including the tasks which are not
+   * assigned anymore but whose znodes have not been cleaned up yet
+   */
+  private List<TaskThroughputStats> readTaskThroughputStats(DatastreamGroup datastreamGroup) {
+    List<TaskThroughputStats> taskThroughputStats = new ArrayList<>();
+    String connectorType = datastreamGroup.getConnectorName();
+    String connectorPath = KeyBuilder.connector(_cluster, connectorType);
+    if (!_zkClient.exists(connectorPath)) {
+      return taskThroughputStats;
+    }
+
+    for (String taskName : _zkClient.getChildren(connectorPath)) {
+      // the task names are the task prefix followed by "_" and a UUID
+      int index = taskName.lastIndexOf('_');
+      if (index < 0 || !taskName.substring(0, index).equals(datastreamGroup.getTaskPrefix())) {
+        continue;
+      }
+      String json = _zkClient.readData(
+          KeyBuilder.datastreamTaskStateKey(_cluster, connectorType, taskName, TaskThroughputStats.STATE_KEY), true);
+      if (json == null) {
+        continue;
+      }
+      TaskThroughputStats stats = null;
+      try {
+        stats = JsonUtils.fromJson(json, TaskThroughputStats.class);
+      } catch (DatastreamRuntimeException e) {
+        LOG.warn("Ignoring the malformed throughput stats of task {}", taskName, e);
+      }
+      if (stats != null && stats.getBytesInKBRates() != null && stats.getMessagesInRates() != null) {
+        taskThroughputStats.add(stats);
+      }
+    }
+    return taskThroughputStats;
+  }
+
+  /**
+   * The decayed moving average of the rates of a partition
+   */
+  private static class PartitionThroughput {
+    private double _bytesInKBRate;
+    private double _messagesInRate;
+    private long _timestampMs;
+  }
+
+  /**
+   * The decayed moving averages of the rates of the partitions of a datastream group, and its cached snapshot
+   */
+  private class GroupThroughput {
+    private final Map<String, PartitionThroughput> _partitionThroughputs = new HashMap<>();
+    // the latest instance of the datastream group asked for, to refresh the snapshot with
+    private DatastreamGroup _datastreamGroup;
+    private ClusterThroughputInfo _snapshot;
+    private long _snapshotTimeMs;
+
+    void update(List<TaskThroughputStats> taskThroughputStats) {
+      taskThroughputStats.sort(Comparator.comparingLong(TaskThroughputStats::getTimestampMs));
+      for (TaskThroughputStats stats : taskThroughputStats) {
+        long timestampMs = stats.getTimestampMs();
+        stats.getBytesInKBRates().forEach((partition, bytesInKBRate) -> {
+          Double messagesInRate = stats.getMessagesInRates().get(partition);
+          if (bytesInKBRate != null && messagesInRate != null) {
+            addSample(partition, bytesInKBRate, messagesInRate, timestampMs);
+          }
+        });
+      }
+
+      if (!taskThroughputStats.isEmpty()) {
+        // expire relative to the task clocks rather than to ours
+        long latestTimestampMs = taskThroughputStats.get(taskThroughputStats.size() - 1).getTimestampMs();
+        long expiryTimestampMs = latestTimestampMs - NUM_HALF_LIVES_TO_EXPIRY * _halfLifeMs;
+        _partitionThroughputs.values().removeIf(throughput -> throughput._timestampMs < expiryTimestampMs);
+      }
+    }
+
+    private void addSample(String partition, double bytesInKBRate, double messagesInRate, long timestampMs) {
+      PartitionThroughput throughput = _partitionThroughputs.get(partition);
+      if (throughput == null) {
+        throughput = new PartitionThroughput();
+        throughput._bytesInKBRate = bytesInKBRate;
+        throughput._messagesInRate = messagesInRate;
+        throughput._timestampMs = timestampMs;
+        _partitionThroughputs.put(partition, throughput);
+      } else if (timestampMs > throughput._timestampMs) {
+        double weight = Math.pow(0.5, (double) (timestampMs - throughput._timestampMs) / _halfLifeMs);
+        throughput._bytesInKBRate = weight * throughput._bytesInKBRate + (1 - weight) * bytesInKBRate;
+        throughput._messagesInRate = weight * throughput._messagesInRate + (1 - weight) * messagesInRate;
+        throughput._timestampMs = timestampMs;
+      }
+    }
+
+    ClusterThroughputInfo toClusterThroughputInfo(String name) {
+      Map<String, PartitionThroughputInfo> partitionInfoMap = new HashMap<>(_partitionThroughputs.size() * 4 / 3 + 1);
+      _partitionThroughputs.forEach((partition, throughput) -> partitionInfoMap.put(partition,
+          new PartitionThroughputInfo((int) Math.round(throughput._bytesInKBRate),
+              (int) Math.round(throughput._messagesInRate), partition)));
+      return new ClusterThroughputInfo(name, partitionInfoMap);
+    }
+  }
+}
@@ -19,6 +19,7 @@ public final class KeyBuilder {
   private static final String INSTANCE = "/%s/instances/%s";
   private static final String INSTANCE_ASSIGNMENTS = "/%s/instances/%s/assignments";
   private static final String INSTANCE_ERRORS = "/%s/instances/%s/errors";
+  private static final String INSTANCE_CAPACITY = "/%s/instances/%s/capacity";
   private static final String INSTANCE_ASSIGNMENT = "/%s/instances/%s/assignments/%s";
   private static final String DATASTREAMS = "/%s/dms";
   private static final String DATASTREAM = "/%s/dms/%s";
@@ -170,6 +171,16 @@ public final class KeyBuilder {
     return String.format(INSTANCE_ERRORS, cluster, instance);
   }
 
+  /**
+   * Get the ephemeral ZooKeeper znode holding the capacity a live Brooklin instance advertises to the assignment
+   * strategies
+   * @param cluster Brooklin cluster name
+   * @param instance Instance name
+   */
+  public static String instanceCapacity(String cluster, String instance) {
+    return String.format(INSTANCE_CAPACITY, cluster, instance);
+  }
+
   /**
    * Get the ZooKeeper znode for a specific datastream task assigned to a Brooklin instance
    *
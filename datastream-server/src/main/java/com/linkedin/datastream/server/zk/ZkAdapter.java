@@ -19,6 +19,7 @@ import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -32,27 +33,40 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.helix.zookeeper.zkclient.IZkChildListener;
 import org.apache.helix.zookeeper.zkclient.IZkDataListener;
 import org.apache.helix.zookeeper.zkclient.IZkStateListener;
+import org.apache.helix.zookeeper.zkclient.callback.ZkAsyncCallbacks.GetDataCallbackHandler;
 import org.apache.helix.zookeeper.zkclient.exception.ZkException;
 import org.apache.helix.zookeeper.zkclient.exception.ZkNoNodeException;
 import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Op;
 import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.ZooDefs;
+import org.apache.zookeeper.data.Stat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import com.linkedin.datastream.common.Datastream;
 import com.linkedin.datastream.common.DatastreamUtils;
 import com.linkedin.datastream.common.ErrorLogger;
 import com.linkedin.datastream.common.zk.ZkClient;
+import com.linkedin.datastream.metrics.BrooklinHistogramInfo;
+import com.linkedin.datastream.metrics.BrooklinMeterInfo;
+import com.linkedin.datastream.metrics.BrooklinMetricInfo;
+import com.linkedin.datastream.metrics.DynamicMetricsManager;
 import com.linkedin.datastream.server.DatastreamTask;
+import com.linkedin.datastream.server.DatastreamTaskEncoding;
 import com.linkedin.datastream.server.DatastreamTaskImpl;
 import com.linkedin.datastream.server.HostTargetAssignment;
 
 import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.mapping;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
 
 
@@ -117,6 +131,21 @@ import static java.util.stream.Collectors.toSet;
  */
 public class ZkAdapter {
   private static final Logger LOG = LoggerFactory.getLogger(ZkAdapter.class);
+  private static final String MODULE = ZkAdapter.class.getSimpleName();
+
+  public static final int DEFAULT_ASSIGNMENT_BATCH_SIZE = 100;
+
+  // Bound on the data written by a single transaction, well below the 1 MB default of the ZooKeeper jute.maxbuffer
+  private static final int MAX_ASSIGNMENT_BATCH_BYTES = 512 * 1024;
+
+  // Metrics of the znode writes of updateAllAssignments
+  private static final String UPDATE_ALL_ASSIGNMENTS_LATENCY_MS = "updateAllAssignmentsLatencyMs";
+  private static final String ADD_TASK_NODES_LATENCY_MS = "addTaskNodesLatencyMs";
+  private static final String REMOVE_TASK_NODES_LATENCY_MS = "removeTaskNodesLatencyMs";
+  private static final String NUM_TASK_NODES_ADDED = "numTaskNodesAdded";
+  private static final String NUM_TASK_NODES_REMOVED = "numTaskNodesRemoved";
+  private static final String NUM_ZK_TRANSACTIONS = "numZkTransactions";
+  private static final String NUM_ZK_TRANSACTION_FAILURES = "numZkTransactionFailures";
 
   private final String _defaultTransportProviderName;
 
@@ -128,6 +157,9 @@ public class ZkAdapter {
   private final int _connectionTimeoutMs;
   private final int _operationRetryTimeoutMs;
   private final long _debounceTimerMs;
+  private final int _assignmentBatchSize;
+  private final DatastreamTaskEncoding _taskEncoding;
+  private final int _instanceCapacity;
 
   private ZkClient _zkclient;
   private String _instanceName;
@@ -151,6 +183,11 @@ public class ZkAdapter {
   // Cache all live DatastreamTasks per instance for assignment strategy
   private Map<String, Set<DatastreamTask>> _liveTaskMap = new HashMap<>();
 
+  // Names of the tasks under the assignments znode of each instance, which the leader diffs the new assignments
+  // against. The leader is the only writer of these znodes, so the index is updated along with them, and any failed
+  // update invalidates it. Instances missing from the index are read from ZooKeeper.
+  private final Map<String, Set<String>> _assignmentIndex = new ConcurrentHashMap<>();
+
   // cleanup orphan lock in separate thread.
   private final ScheduledExecutorService _scheduledExecutorServiceOrphanLockCleanup = Executors.newScheduledThreadPool(1,
       new ThreadFactoryBuilder().setDaemon(true).setNameFormat("OrphanLockCleanupThread-%d").build());
@@ -176,12 +213,87 @@ public class ZkAdapter {
    */
   public ZkAdapter(String zkServers, String cluster, String defaultTransportProviderName, int sessionTimeoutMs,
       int connectionTimeoutMs, int operationRetryTimeoutMs, long debounceTimerMs, ZkAdapterListener listener) {
+    this(zkServers, cluster, defaultTransportProviderName, sessionTimeoutMs, connectionTimeoutMs,
+        operationRetryTimeoutMs, debounceTimerMs, DEFAULT_ASSIGNMENT_BATCH_SIZE, listener);
+  }
+
+  /**
+   * Constructor
+   * @param zkServers ZooKeeper server address to connect to
+   * @param cluster Brooklin cluster this instance belongs to
+   * @param defaultTransportProviderName Default transport provider to use for a newly created task
+   * @param sessionTimeoutMs Session timeout to use for the connection with the ZooKeeper server
+   * @param connectionTimeoutMs Connection timeout to use for the connection with the ZooKeeper server
+   * @param operationRetryTimeoutMs Timeout to use for retrying failed retriable operations. A value lesser than 0 is
+   *                         considered as retry forever until a connection has been reestablished.
+   * @param debounceTimerMs debounce timer to be used to delay the lock clean up.
+   * @param assignmentBatchSize Maximum number of tasks whose znodes are added or removed in a single ZooKeeper
+   *                            transaction when updating the assignments. A value lesser than 1 disables the
+   *                            transactions, and the znodes are then written one at a time.
+   * @param listener ZKAdapterListener implementation to receive callbacks based on various znode changes
+   */
+  public ZkAdapter(String zkServers, String cluster, String defaultTransportProviderName, int sessionTimeoutMs,
+      int connectionTimeoutMs, int operationRetryTimeoutMs, long debounceTimerMs, int assignmentBatchSize,
+      ZkAdapterListener listener) {
+    this(zkServers, cluster, defaultTransportProviderName, sessionTimeoutMs, connectionTimeoutMs,
+        operationRetryTimeoutMs, debounceTimerMs, assignmentBatchSize, DatastreamTaskEncoding.JSON, listener);
+  }
+
+  /**
+   * Constructor
+   * @param zkServers ZooKeeper server address to connect to
+   * @param cluster Brooklin cluster this instance belongs to
+   * @param defaultTransportProviderName Default transport provider to use for a newly created task
+   * @param sessionTimeoutMs Session timeout to use for the connection with the ZooKeeper server
+   * @param connectionTimeoutMs Connection timeout to use for the connection with the ZooKeeper server
+   * @param operationRetryTimeoutMs Timeout to use for retrying failed retriable operations. A value lesser than 0 is
+   *                         considered as retry forever until a connection has been reestablished.
+   * @param debounceTimerMs debounce timer to be used to delay the lock clean up.
+   * @param assignmentBatchSize Maximum number of tasks whose znodes are added or removed in a single ZooKeeper
+   *                            transaction when updating the assignments. A value lesser than 1 disables the
+   *                            transactions, and the znodes are then written one at a time.
+   * @param taskEncoding Encoding of the tasks written to the znodes of the assignments. The tasks of any encoding
+   *                     are read.
+   * @param listener ZKAdapterListener implementation to receive callbacks based on various znode changes
+   */
+  public ZkAdapter(String zkServers, String cluster, String defaultTransportProviderName, int sessionTimeoutMs,
+      int connectionTimeoutMs, int operationRetryTimeoutMs, long debounceTimerMs, int assignmentBatchSize,
+      DatastreamTaskEncoding taskEncoding, ZkAdapterListener listener) {
+    this(zkServers, cluster, defaultTransportProviderName, sessionTimeoutMs, connectionTimeoutMs,
+        operationRetryTimeoutMs, debounceTimerMs, assignmentBatchSize, taskEncoding, 0, listener);
+  }
+
+  /**
+   * Constructor
+   * @param zkServers ZooKeeper server address to connect to
+   * @param cluster Brooklin cluster this instance belongs to
+   * @param defaultTransportProviderName Default transport provider to use for a newly created task
+   * @param sessionTimeoutMs Session timeout to use for the connection with the ZooKeeper server
+   * @param connectionTimeoutMs Connection timeout to use for the connection with the ZooKeeper server
+   * @param operationRetryTimeoutMs Timeout to use for retrying failed retriable operations. A value lesser than 0 is
+   *                         considered as retry forever until a connection has been reestablished.
+   * @param debounceTimerMs debounce timer to be used to delay the lock clean up.
+   * @param assignmentBatchSize Maximum number of tasks whose znodes are added or removed in a single ZooKeeper
+   *                            transaction when updating the assignments. A value lesser than 1 disables the
+   *                            transactions, and the znodes are then written one at a time.
+   * @param taskEncoding Encoding of the tasks written to the znodes of the assignments. The tasks of any encoding
+   *                     are read.
+   * @param instanceCapacity Capacity of this instance, relative to the other instances of the cluster, which is
+   *                         advertised to the assignment strategies. A value lesser than 1 is not advertised.
+   * @param listener ZKAdapterListener implementation to receive callbacks based on various znode changes
+   */
+  public ZkAdapter(String zkServers, String cluster, String defaultTransportProviderName, int sessionTimeoutMs,
+      int connectionTimeoutMs, int operationRetryTimeoutMs, long debounceTimerMs, int assignmentBatchSize,
+      DatastreamTaskEncoding taskEncoding, int instanceCapacity, ZkAdapterListener listener) {
     _zkServers = zkServers;
     _cluster = cluster;
     _sessionTimeoutMs = sessionTimeoutMs;
     _connectionTimeoutMs = connectionTimeoutMs;
     _operationRetryTimeoutMs = operationRetryTimeoutMs;
     _debounceTimerMs = debounceTimerMs;
+    _assignmentBatchSize = assignmentBatchSize;
+    _taskEncoding = taskEncoding;
+    _instanceCapacity = instanceCapacity;
     _listener = listener;
     _defaultTransportProviderName = defaultTransportProviderName;
   }
@@ -320,6 +432,7 @@ public class ZkAdapter {
 
     closeZkListeners(false);
     _isLeader = false;
+    _assignmentIndex.clear();
   }
 
   private void closeZkListeners(boolean isDisconnect) {
@@ -575,24 +688,29 @@ public class ZkAdapter {
 
   /**
    * When the previous leader dies, we lose all the cached tasks.
-   * As the current leader, we should try to load tasks from ZK.
-   * This is very likely to be one time operation, so it should be
-   * okay to hit ZK.
+   * As the current leader, we should try to load tasks from ZK, along with the assignment index.
+   * This only happens on leadership change, and the tasks of all the instances are read
+   * asynchronously so that it does not take one ZK round-trip per task.
    */
   private void loadAllDatastreamTasks() {
-    if (_liveTaskMap.size() != 0) {
-      return;
-    }
-
-    List<String> allInstances = getAllInstances();
-    for (String instance : allInstances) {
-      Set<DatastreamTask> taskMap = new HashSet<>();
-      _liveTaskMap.put(instance, taskMap);
+    long startTime = System.currentTimeMillis();
+    Map<String, Set<String>> assignmentIndex = new HashMap<>();
+    Map<String, Map<String, GetDataCallbackHandler>> callbacks = new HashMap<>();
+    for (String instance : getAllInstances()) {
       List<String> assignment = getInstanceAssignment(instance);
-      for (String taskName : assignment) {
-        taskMap.add(getAssignedDatastreamTask(instance, taskName));
-      }
+      assignmentIndex.put(instance, new HashSet<>(assignment));
+      callbacks.put(instance, readAssignedDatastreamTasksAsync(instance, assignment));
     }
+
+    Map<String, Set<DatastreamTask>> liveTaskMap = new HashMap<>();
+    callbacks.forEach((instance, instanceCallbacks) -> liveTaskMap.put(instance,
+        new HashSet<>(getAssignedDatastreamTasks(instance, instanceCallbacks).values())));
+
+    _liveTaskMap = liveTaskMap;
+    _assignmentIndex.clear();
+    _assignmentIndex.putAll(assignmentIndex);
+    LOG.info("Loaded {} tasks of {} instances in {} ms", liveTaskMap.values().stream().mapToInt(Set::size).sum(),
+        liveTaskMap.size(), System.currentTimeMillis() - startTime);
   }
 
   /**
@@ -612,24 +730,15 @@ public class ZkAdapter {
 
   /**
    * Given an instance name and a datastream task name assigned to this instance, return
-   * a desrialized DatastreamTask object from its JSON serialized definition in ZooKeeper.
+   * a desrialized DatastreamTask object from its serialized definition in ZooKeeper
+   * (see {@link DatastreamTaskEncoding}).
    * @return DatastreamTask instance for the specified task name OR null if task node
    *         does not exist or is inaccessible
    */
   public DatastreamTaskImpl getAssignedDatastreamTask(String instance, String taskName) {
     try {
       String content = _zkclient.ensureReadData(KeyBuilder.instanceAssignment(_cluster, instance, taskName));
-      DatastreamTaskImpl task = DatastreamTaskImpl.fromJson(content);
-      if (Strings.isNullOrEmpty(task.getTaskPrefix())) {
-        task.setTaskPrefix(parseTaskPrefix(task.getDatastreamTaskName()));
-      }
-
-      if (Strings.isNullOrEmpty(task.getTransportProviderName())) {
-        task.setTransportProviderName(_defaultTransportProviderName);
-      }
-
-      task.setZkAdapter(this);
-      return task;
+      return parseAssignedDatastreamTask(content);
     } catch (ZkNoNodeException e) {
       // This can occur if there is another task assignment change in the middle of
       // handleAssignmentChange and some tasks are unassigned to the current
@@ -641,6 +750,68 @@ public class ZkAdapter {
     }
   }
 
+  /**
+   * Bulk version of {@link #getAssignedDatastreamTask(String, String)}, which issues asynchronous reads for all the
+   * task znodes at once and deserializes the tasks in parallel, instead of doing one ZooKeeper round-trip per task.
+   * @return the datastream tasks by name, without the tasks whose znode does not exist
+   */
+  public Map<String, DatastreamTaskImpl> getAssignedDatastreamTasks(String instance, Collection<String> taskNames) {
+    return getAssignedDatastreamTasks(instance, readAssignedDatastreamTasksAsync(instance, taskNames));
+  }
+
+  private Map<String, GetDataCallbackHandler> readAssignedDatastreamTasksAsync(String instance,
+      Collection<String> taskNames) {
+    Map<String, GetDataCallbackHandler> callbacks = new HashMap<>();
+    for (String taskName : taskNames) {
+      GetDataCallbackHandler callback = new GetDataCallbackHandler();
+      _zkclient.asyncGetData(KeyBuilder.instanceAssignment(_cluster, instance, taskName), callback);
+      callbacks.put(taskName, callback);
+    }
+    return callbacks;
+  }
+
+  private Map<String, DatastreamTaskImpl> getAssignedDatastreamTasks(String instance,
+      Map<String, GetDataCallbackHandler> callbacks) {
+    // Wait for all the reads first, so that the tasks are then deserialized in parallel
+    callbacks.values().forEach(GetDataCallbackHandler::waitForSuccess);
+
+    Map<String, DatastreamTaskImpl> tasks = new ConcurrentHashMap<>();
+    callbacks.entrySet().parallelStream().forEach(entry -> {
+      String taskName = entry.getKey();
+      GetDataCallbackHandler callback = entry.getValue();
+      DatastreamTaskImpl task;
+      if (callback.getRc() == KeeperException.Code.OK.intValue()) {
+        task = parseAssignedDatastreamTask(_zkclient.deserialize(callback._data));
+      } else if (callback.getRc() == KeeperException.Code.NONODE.intValue()) {
+        // See getAssignedDatastreamTask()
+        LOG.warn("ZNode does not exist for instance={}, task={}, ignoring the task.", instance, taskName);
+        task = null;
+      } else {
+        // Fall back to the synchronous read, which retries until the znode can be read
+        task = getAssignedDatastreamTask(instance, taskName);
+      }
+
+      if (task != null) {
+        tasks.put(taskName, task);
+      }
+    });
+    return tasks;
+  }
+
+  private DatastreamTaskImpl parseAssignedDatastreamTask(String content) {
+    DatastreamTaskImpl task = DatastreamTaskEncoding.decode(content);
+    if (Strings.isNullOrEmpty(task.getTaskPrefix())) {
+      task.setTaskPrefix(parseTaskPrefix(task.getDatastreamTaskName()));
+    }
+
+    if (Strings.isNullOrEmpty(task.getTransportProviderName())) {
+      task.setTransportProviderName(_defaultTransportProviderName);
+    }
+
+    task.setZkAdapter(this);
+    return task;
+  }
+
   private String parseTaskPrefix(String datastreamTaskName) {
     return datastreamTaskName.substring(0, datastreamTaskName.lastIndexOf("_"));
   }
@@ -680,23 +851,16 @@ public class ZkAdapter {
 
     // save the task stats.
     if (!StringUtils.isEmpty(task.getStats())) {
-      task.saveState("stats", task.getStats());
+      task.saveState(DatastreamTaskImpl.STATS_KEY, task.getStats());
     }
 
     String instancePath = KeyBuilder.instanceAssignment(_cluster, instance, name);
-    String json = "";
-    try {
-      json = task.toJson();
-    } catch (IOException e) {
-      // This should never happen
-      String errorMessage = "Failed to serialize task into JSON.";
-      ErrorLogger.logAndThrowDatastreamRuntimeException(LOG, errorMessage, e);
-    }
+    String encodedTask = encodeTask(task);
 
     // Ensure that the instance and instance/Assignment paths are ready before writing the task
     _zkclient.ensurePath(KeyBuilder.instance(_cluster, instance));
     _zkclient.ensurePath(KeyBuilder.instanceAssignments(_cluster, instance));
-    String created = _zkclient.create(instancePath, json, CreateMode.PERSISTENT);
+    String created = _zkclient.create(instancePath, encodedTask, CreateMode.PERSISTENT);
 
     if (created != null && !created.isEmpty()) {
       LOG.info("create zookeeper node: " + instancePath);
@@ -707,6 +871,113 @@ public class ZkAdapter {
     }
   }
 
+  /**
+   * Add the znodes of the tasks newly assigned to an instance (see {@link #addTaskNodes(String, DatastreamTaskImpl)}).
+   * Unless the transactions are disabled, the znodes of up to {@code _assignmentBatchSize} tasks are created in a
+   * single ZooKeeper transaction, and the tasks of a failed transaction are then added one at a time.
+   * @param connectorTasks names of the tasks which have a connector task znode, by connector type. The tasks added
+   *                       are added to it.
+   */
+  private void addTaskNodes(String instance, List<DatastreamTaskImpl> tasks, Map<String, Set<String>> connectorTasks) {
+    if (_assignmentBatchSize < 1) {
+      tasks.forEach(task -> addTaskNodes(instance, task));
+      return;
+    }
+
+    // The parents shared by all the instance assignment znodes only need to be ensured once
+    _zkclient.ensurePath(KeyBuilder.instance(_cluster, instance));
+    _zkclient.ensurePath(KeyBuilder.instanceAssignments(_cluster, instance));
+
+    List<DatastreamTaskImpl> batch = new ArrayList<>();
+    List<Op> ops = new ArrayList<>();
+    int batchBytes = 0;
+    for (DatastreamTaskImpl task : tasks) {
+      Set<String> existingTasks = connectorTasks.computeIfAbsent(task.getConnectorType(), this::ensureConnectorTasks);
+      List<Op> taskOps = new ArrayList<>();
+      int taskBytes = addTaskNodeOps(instance, task, existingTasks.contains(task.getDatastreamTaskName()), taskOps);
+      if (!batch.isEmpty()
+          && (batch.size() >= _assignmentBatchSize || batchBytes + taskBytes > MAX_ASSIGNMENT_BATCH_BYTES)) {
+        commitTaskNodes(instance, batch, ops);
+        batch.clear();
+        ops.clear();
+        batchBytes = 0;
+      }
+      batch.add(task);
+      ops.addAll(taskOps);
+      batchBytes += taskBytes;
+      existingTasks.add(task.getDatastreamTaskName());
+    }
+
+    if (!batch.isEmpty()) {
+      commitTaskNodes(instance, batch, ops);
+    }
+  }
+
+  /**
+   * Append the ops writing the same znodes as {@link #addTaskNodes(String, DatastreamTaskImpl)} for a task to the
+   * given list, parents first.
+   * @return the number of bytes of data written by the ops
+   */
+  private int addTaskNodeOps(String instance, DatastreamTaskImpl task, boolean hasConnectorTaskNode, List<Op> ops) {
+    String connectorType = task.getConnectorType();
+    String name = task.getDatastreamTaskName();
+    byte[] instanceData = _zkclient.serialize(instance);
+    byte[] taskData = _zkclient.serialize(encodeTask(task));
+    int bytes = instanceData.length + taskData.length;
+
+    String taskPath = KeyBuilder.connectorTask(_cluster, connectorType, name);
+    if (hasConnectorTaskNode) {
+      // The config and state znodes of a task that is moved are not ensured again: nothing reads the config
+      // znode, and the state znodes are ensured whenever a state is saved, like the stats below.
+      ops.add(Op.setData(taskPath, instanceData, -1));
+      if (!StringUtils.isEmpty(task.getStats())) {
+        task.saveState(DatastreamTaskImpl.STATS_KEY, task.getStats());
+      }
+    } else {
+      ops.add(createPersistentOp(taskPath, instanceData));
+      ops.add(createPersistentOp(KeyBuilder.datastreamTaskConfig(_cluster, connectorType, name), null));
+      ops.add(createPersistentOp(KeyBuilder.datastreamTaskState(_cluster, connectorType, name), null));
+      if (!StringUtils.isEmpty(task.getStats())) {
+        byte[] statsData = _zkclient.serialize(task.getStats());
+        ops.add(createPersistentOp(
+            KeyBuilder.datastreamTaskStateKey(_cluster, connectorType, name, DatastreamTaskImpl.STATS_KEY), statsData));
+        bytes += statsData.length;
+      }
+    }
+
+    ops.add(createPersistentOp(KeyBuilder.instanceAssignment(_cluster, instance, name), taskData));
+    return bytes;
+  }
+
+  private static Op createPersistentOp(String path, byte[] data) {
+    return Op.create(path, data, ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT);
+  }
+
+  private void commitTaskNodes(String instance, List<DatastreamTaskImpl> tasks, List<Op> ops) {
+    if (multi(ops)) {
+      LOG.info("Created the znodes of {} tasks of instance {} in a single transaction", tasks.size(), instance);
+    } else {
+      tasks.forEach(task -> addTaskNodes(instance, task));
+    }
+  }
+
+  private Set<String> ensureConnectorTasks(String connectorType) {
+    _zkclient.ensurePath(KeyBuilder.connector(_cluster, connectorType));
+    return getConnectorTasks(connectorType);
+  }
+
+  private String encodeTask(DatastreamTaskImpl task) {
+    String encodedTask = "";
+    try {
+      encodedTask = _taskEncoding.encode(task);
+    } catch (IOException e) {
+      // This should never happen
+      String errorMessage = "Failed to serialize task into " + _taskEncoding + ".";
+      ErrorLogger.logAndThrowDatastreamRuntimeException(LOG, errorMessage, e);
+    }
+    return encodedTask;
+  }
+
   /**
    * Two nodes need to be removed for a removed task:
    * <ol>
@@ -728,6 +999,45 @@ public class ZkAdapter {
     _zkclient.deleteRecursive(instancePath);
   }
 
+  /**
+   * Remove the instance assignment znodes of tasks (see {@link #removeTaskNode(String, String)}). Unless the
+   * transactions are disabled, up to {@code _assignmentBatchSize} znodes are deleted in a single ZooKeeper
+   * transaction, and the znodes of a failed transaction are then removed one at a time.
+   */
+  private void removeTaskNodes(String instance, Collection<String> names) {
+    if (_assignmentBatchSize < 1) {
+      names.forEach(name -> removeTaskNode(instance, name));
+      return;
+    }
+
+    for (List<String> batch : Lists.partition(new ArrayList<>(names), _assignmentBatchSize)) {
+      List<Op> ops = batch.stream()
+          .map(name -> Op.delete(KeyBuilder.instanceAssignment(_cluster, instance, name), -1))
+          .collect(toList());
+      if (multi(ops)) {
+        LOG.info("Removed the znodes of {} tasks of instance {} in a single transaction", batch.size(), instance);
+      } else {
+        batch.forEach(name -> removeTaskNode(instance, name));
+      }
+    }
+  }
+
+  /**
+   * Run ops in a single ZooKeeper transaction
+   * @return true if the transaction succeeded, false if it failed and none of the ops was applied
+   */
+  private boolean multi(List<Op> ops) {
+    updateMeter(NUM_ZK_TRANSACTIONS, 1);
+    try {
+      _zkclient.multi(ops);
+      return true;
+    } catch (ZkException e) {
+      LOG.warn("ZooKeeper transaction of {} ops failed", ops.size(), e);
+      updateMeter(NUM_ZK_TRANSACTION_FAILURES, 1);
+      return false;
+    }
+  }
+
   /**
    * Update the task assignment of a given instance
    *
@@ -741,8 +1051,13 @@ public class ZkAdapter {
    *  <li>{@code /<cluster>/instances/<instance>/<task1>,<task2>...}</li>
    *  <li>{@code /<cluster>/connectors/<connectorType>/<task-name1>,<task-name2>...}</li>
    * </ol>
+   *
+   * The znodes of each instance are written in batched ZooKeeper transactions (see the {@code assignmentBatchSize}
+   * constructor argument), and all the new assignments are added before any old assignment is removed.
    */
   public void updateAllAssignments(Map<String, List<DatastreamTask>> assignmentsByInstance) {
+    long startTime = System.currentTimeMillis();
+
     // map of task name to DatastreamTask for future reference
     Map<String, DatastreamTask> assignmentsMap = assignmentsByInstance.values()
         .stream()
@@ -754,35 +1069,63 @@ public class ZkAdapter {
     Map<String, Set<String>> nodesToAdd = new HashMap<>();
     diffAssignmentNodes(assignmentsByInstance, nodesToRemove, nodesToAdd);
 
+    try {
+      updateAssignmentNodes(assignmentsMap, nodesToRemove, nodesToAdd, startTime);
+    } catch (RuntimeException e) {
+      // The znodes are partially updated, so the next update needs to read them from ZooKeeper
+      _assignmentIndex.clear();
+      throw e;
+    }
+
+    // Finally, Save the new assignments in the cache and in the index.
+    _liveTaskMap = new HashMap<>();
+    for (String instance : nodesToAdd.keySet()) {
+      List<DatastreamTask> assignment = assignmentsByInstance.get(instance);
+      _liveTaskMap.put(instance, new HashSet<>(assignment));
+      _assignmentIndex.put(instance, assignment.stream().map(DatastreamTask::getDatastreamTaskName).collect(toSet()));
+    }
+  }
+
+  private void updateAssignmentNodes(Map<String, DatastreamTask> assignmentsMap, Map<String, Set<String>> nodesToRemove,
+      Map<String, Set<String>> nodesToAdd, long startTime) {
     // Add the new tasks znodes.
     // We need to add the nodes BEFORE removing the old ones, to avoid tasks loss in case of server crash.
     // In case of crash, the new leader will remove duplicate tasks when updating the assignments.
+    long addStartTime = System.currentTimeMillis();
+    int numAdded = 0;
+    // names of the tasks which have a connector task znode, only read for the connector types of the tasks added
+    Map<String, Set<String>> connectorTasks = new HashMap<>();
     for (String instance : nodesToAdd.keySet()) {
       Set<String> added = nodesToAdd.get(instance);
       if (added.size() > 0) {
         LOG.info("Instance: {}, adding assignments: {}", instance, added);
-        for (String name : added) {
-          addTaskNodes(instance, (DatastreamTaskImpl) assignmentsMap.get(name));
-        }
+        List<DatastreamTaskImpl> tasks =
+            added.stream().map(name -> (DatastreamTaskImpl) assignmentsMap.get(name)).collect(toList());
+        addTaskNodes(instance, tasks, connectorTasks);
+        numAdded += added.size();
       }
     }
 
     // Second remove the old tasks znodes.
+    long removeStartTime = System.currentTimeMillis();
+    int numRemoved = 0;
     for (String instance : nodesToRemove.keySet()) {
       Set<String> removed = nodesToRemove.get(instance);
       if (removed.size() > 0) {
         LOG.info("Instance: {}, removing assignments: {}", instance, removed);
-        for (String name : removed) {
-          removeTaskNode(instance, name);
-        }
+        removeTaskNodes(instance, removed);
+        numRemoved += removed.size();
       }
     }
 
-    // Finally, Save the new assignments in the cache.
-    _liveTaskMap = new HashMap<>();
-    for (String instance : nodesToAdd.keySet()) {
-      _liveTaskMap.put(instance, new HashSet<>(assignmentsByInstance.get(instance)));
-    }
+    long endTime = System.currentTimeMillis();
+    updateHistogram(ADD_TASK_NODES_LATENCY_MS, removeStartTime - addStartTime);
+    updateHistogram(REMOVE_TASK_NODES_LATENCY_MS, endTime - removeStartTime);
+    updateHistogram(UPDATE_ALL_ASSIGNMENTS_LATENCY_MS, endTime - startTime);
+    updateMeter(NUM_TASK_NODES_ADDED, numAdded);
+    updateMeter(NUM_TASK_NODES_REMOVED, numRemoved);
+    LOG.info("Updated all assignments in {} ms: added {} tasks in {} ms, removed {} tasks in {} ms",
+        endTime - startTime, numAdded, removeStartTime - addStartTime, numRemoved, endTime - removeStartTime);
   }
 
   /**
@@ -791,10 +1134,43 @@ public class ZkAdapter {
    */
   public void removeTaskNodes(Map<String, List<DatastreamTask>> tasksByInstance) {
     for (String instance : tasksByInstance.keySet()) {
-      tasksByInstance.get(instance).forEach(task -> removeTaskNode(instance, task.getDatastreamTaskName()));
+      List<String> names =
+          tasksByInstance.get(instance).stream().map(DatastreamTask::getDatastreamTaskName).collect(toList());
+      // The index of the instance is only valid again once the znodes are removed
+      Set<String> indexedNames = _assignmentIndex.remove(instance);
+      removeTaskNodes(instance, names);
+      if (indexedNames != null) {
+        indexedNames.removeAll(names);
+        _assignmentIndex.put(instance, indexedNames);
+      }
     }
   }
 
+  /**
+   * Get the list of metrics maintained by the ZooKeeper adapter
+   */
+  public static List<BrooklinMetricInfo> getMetricInfos() {
+    List<BrooklinMetricInfo> metrics = new ArrayList<>();
+
+    metrics.add(new BrooklinHistogramInfo(MetricRegistry.name(MODULE, UPDATE_ALL_ASSIGNMENTS_LATENCY_MS)));
+    metrics.add(new BrooklinHistogramInfo(MetricRegistry.name(MODULE, ADD_TASK_NODES_LATENCY_MS)));
+    metrics.add(new BrooklinHistogramInfo(MetricRegistry.name(MODULE, REMOVE_TASK_NODES_LATENCY_MS)));
+    metrics.add(new BrooklinMeterInfo(MetricRegistry.name(MODULE, NUM_TASK_NODES_ADDED)));
+    metrics.add(new BrooklinMeterInfo(MetricRegistry.name(MODULE, NUM_TASK_NODES_REMOVED)));
+    metrics.add(new BrooklinMeterInfo(MetricRegistry.name(MODULE, NUM_ZK_TRANSACTIONS)));
+    metrics.add(new BrooklinMeterInfo(MetricRegistry.name(MODULE, NUM_ZK_TRANSACTION_FAILURES)));
+
+    return Collections.unmodifiableList(metrics);
+  }
+
+  private static void updateHistogram(String metricName, long value) {
+    DynamicMetricsManager.getInstance().createOrUpdateHistogram(MODULE, metricName, value);
+  }
+
+  private static void updateMeter(String metricName, long value) {
+    DynamicMetricsManager.getInstance().createOrUpdateMeter(MODULE, metricName, value);
+  }
+
   /**
    * Compare the current assignment with the new assignment, and update the list of nodes
    * to add and remove per instance.
@@ -808,8 +1184,10 @@ public class ZkAdapter {
           .map(DatastreamTask::getDatastreamTaskName)
           .collect(Collectors.toSet());
 
-      // get the old assignment from ZooKeeper
-      List<String> oldAssignmentNames = getInstanceAssignment(instance);
+      // get the old assignment from the index of the leader, or from ZooKeeper
+      Set<String> oldAssignmentNames = _isLeader
+          ? _assignmentIndex.computeIfAbsent(instance, i -> new HashSet<>(getInstanceAssignment(i)))
+          : new HashSet<>(getInstanceAssignment(instance));
 
       //
       // find assignments removed
@@ -862,6 +1240,13 @@ public class ZkAdapter {
     _zkclient.ensurePath(KeyBuilder.instanceAssignments(_cluster, instanceName));
     _zkclient.ensurePath(KeyBuilder.instanceErrors(_cluster, instanceName));
 
+    // The live instance znode holds the hostname, and ephemeral znodes can't have children, so the capacity is
+    // advertised in an ephemeral znode under the instance znode, which goes away with the live instance znode
+    if (_instanceCapacity > 0) {
+      _zkclient.create(KeyBuilder.instanceCapacity(_cluster, instanceName), String.valueOf(_instanceCapacity),
+          CreateMode.EPHEMERAL);
+    }
+
     return formatZkInstance(_hostname, _liveInstanceName);
   }
 
@@ -954,6 +1339,42 @@ public class ZkAdapter {
     }
   }
 
+  /**
+   * For a given datastream task, return a specific category of state information persisted in ZooKeeper, along with
+   * the stat of its znode
+   * @param  datastreamTask Datastream task name
+   * @param  key Specific category of state information to fetch
+   * @param  stat Stat to fill with the stat of the znode, which is left untouched if the znode does not exist
+   */
+  public String getDatastreamTaskStateForKey(DatastreamTask datastreamTask, String key, Stat stat) {
+    String path = KeyBuilder.datastreamTaskStateKey(_cluster, datastreamTask.getConnectorType(),
+        datastreamTask.getDatastreamTaskName(), key);
+    return _zkclient.readDataAndStat(path, stat, true);
+  }
+
+  /**
+   * Persist a specific category of state information for a datastream task in ZooKeeper, if the version of its znode
+   * is the expected one (a ZkBadVersionException is thrown otherwise). A znode which does not exist yet is created
+   * with version 0.
+   * @param datastreamTask Datastream task name
+   * @param key Name for the category of state information to persist
+   * @param value Serialized state information to persist
+   * @param expectedVersion Expected version of the znode
+   * @return the new version of the znode, or -1 if the datastream task does not exist
+   */
+  public int setDatastreamTaskStateForKey(DatastreamTask datastreamTask, String key, String value,
+      int expectedVersion) {
+    String path = KeyBuilder.datastreamTaskStateKey(_cluster, datastreamTask.getConnectorType(),
+        datastreamTask.getDatastreamTaskName(), key);
+    String taskPath = KeyBuilder.connectorTask(_cluster, datastreamTask.getConnectorType(),
+        datastreamTask.getDatastreamTaskName());
+    if (_zkclient.exists(taskPath)) {
+      _zkclient.ensurePath(path);
+      return _zkclient.writeDataGetStat(path, value, expectedVersion).getVersion();
+    }
+    return -1;
+  }
+
   /**
    * Remove instance assignment nodes whose instances are dead. This also
    * removes the unused node from under /cluster/<connectorType>/connector/.
@@ -1023,6 +1444,7 @@ public class ZkAdapter {
         }
 
         _liveTaskMap.remove(instance);
+        _assignmentIndex.remove(instance);
       }
     }
     LOG.debug("unusedTasks remaining after dead instances cleanup: {}", unusedTasks.stream()
@@ -1322,6 +1744,13 @@ public class ZkAdapter {
     return (_zkclient.exists(lockPath));
   }
 
+  /**
+   * Check if the task is still present in the cluster, i.e. if its znode is not removed yet
+   */
+  public boolean checkIsTaskPresent(String connectorType, String taskName) {
+    return _zkclient.exists(KeyBuilder.connectorTask(_cluster, connectorType, taskName));
+  }
+
   /**
    * Wait for all dependencies to be cleared. It's a blocking call
    * @param task Datastream task whose dependencies need to be checked
@@ -49,4 +49,34 @@ public class TestCoordinatorConfig {
     CoordinatorConfig config = createCoordinatorConfig(props);
     Assert.assertEquals(CoordinatorConfig.DEFAULT_MAX_ASSIGNMENT_RETRY_COUNT, config.getMaxAssignmentRetryCount());
   }
+
+  @Test
+  public void testCoordinatorAssignmentParallelismFromConfig() throws Exception {
+    Properties props = new Properties();
+    props.put(CoordinatorConfig.CONFIG_ASSIGNMENT_PARALLELISM, "1");
+    CoordinatorConfig config = createCoordinatorConfig(props);
+    Assert.assertEquals(1, config.getAssignmentParallelism());
+  }
+
+  @Test
+  public void testCoordinatorAssignmentParallelismDefault() throws Exception {
+    Properties props = new Properties();
+    CoordinatorConfig config = createCoordinatorConfig(props);
+    Assert.assertEquals(CoordinatorConfig.DEFAULT_ASSIGNMENT_PARALLELISM, config.getAssignmentParallelism());
+  }
+
+  @Test
+  public void testCoordinatorZkTaskEncodingFromConfig() throws Exception {
+    Properties props = new Properties();
+    props.put(CoordinatorConfig.CONFIG_ZK_TASK_ENCODING, "compact");
+    CoordinatorConfig config = createCoordinatorConfig(props);
+    Assert.assertEquals(DatastreamTaskEncoding.COMPACT, config.getZkTaskEncoding());
+  }
+
+  @Test
+  public void testCoordinatorZkTaskEncodingDefault() throws Exception {
+    Properties props = new Properties();
+    CoordinatorConfig config = createCoordinatorConfig(props);
+    Assert.assertEquals(DatastreamTaskEncoding.JSON, config.getZkTaskEncoding());
+  }
 }
@@ -5,9 +5,18 @@
  */
 package com.linkedin.datastream.server;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import com.codahale.metrics.MetricRegistry;
+
+import com.linkedin.datastream.metrics.DynamicMetricsManager;
+
 /**
  * Tests for {@link CoordinatorEventBlockingQueue}
  */
@@ -26,11 +35,67 @@ public class TestCoordinatorEventBlockingQueue {
     eventBlockingQueue.put(CoordinatorEvent.HANDLE_ASSIGNMENT_CHANGE_EVENT);
     eventBlockingQueue.put(CoordinatorEvent.HANDLE_ASSIGNMENT_CHANGE_EVENT);
     eventBlockingQueue.put(CoordinatorEvent.HANDLE_ASSIGNMENT_CHANGE_EVENT);
-    Assert.assertEquals(eventBlockingQueue.size(), 5);
-    Assert.assertEquals(eventBlockingQueue.take(), CoordinatorEvent.createLeaderDoAssignmentEvent(false));
+    Assert.assertEquals(eventBlockingQueue.size(), 4);
+    // the leader assignment events are coalesced into the first one, which cleans up the orphan nodes
     Assert.assertEquals(eventBlockingQueue.take(), CoordinatorEvent.createLeaderDoAssignmentEvent(true));
     Assert.assertEquals(eventBlockingQueue.take(), CoordinatorEvent.createLeaderPartitionAssignmentEvent("test1"));
     Assert.assertEquals(eventBlockingQueue.take(), CoordinatorEvent.createLeaderPartitionAssignmentEvent("test2"));
     Assert.assertEquals(eventBlockingQueue.take(), CoordinatorEvent.HANDLE_ASSIGNMENT_CHANGE_EVENT);
+    Assert.assertTrue(eventBlockingQueue.isEmpty());
+  }
+
+  @Test
+  public void testLeaderDoAssignmentEventsAreCoalescedUntilTaken() throws Exception {
+    CoordinatorEventBlockingQueue eventBlockingQueue = new CoordinatorEventBlockingQueue();
+    eventBlockingQueue.put(CoordinatorEvent.createLeaderDoAssignmentEvent(false));
+    eventBlockingQueue.put(CoordinatorEvent.createLeaderDoAssignmentEvent(false));
+    Assert.assertEquals(eventBlockingQueue.size(), 1);
+    Assert.assertEquals(eventBlockingQueue.take(), CoordinatorEvent.createLeaderDoAssignmentEvent(false));
+
+    // an event queued once the previous one is taken is not coalesced with it
+    eventBlockingQueue.put(CoordinatorEvent.createLeaderDoAssignmentEvent(false));
+    Assert.assertEquals(eventBlockingQueue.size(), 1);
+    Assert.assertEquals(eventBlockingQueue.take(), CoordinatorEvent.createLeaderDoAssignmentEvent(false));
+    Assert.assertTrue(eventBlockingQueue.isEmpty());
+  }
+
+  @Test
+  public void testHeartbeatEventsArePrioritized() throws Exception {
+    CoordinatorEventBlockingQueue eventBlockingQueue = new CoordinatorEventBlockingQueue();
+    eventBlockingQueue.put(CoordinatorEvent.createLeaderDoAssignmentEvent(false));
+    eventBlockingQueue.put(CoordinatorEvent.HANDLE_ASSIGNMENT_CHANGE_EVENT);
+    eventBlockingQueue.put(CoordinatorEvent.HEARTBEAT_EVENT);
+    eventBlockingQueue.put(CoordinatorEvent.HEARTBEAT_EVENT);
+    Assert.assertEquals(eventBlockingQueue.size(), 3);
+    Assert.assertEquals(eventBlockingQueue.peek(), CoordinatorEvent.HEARTBEAT_EVENT);
+    Assert.assertEquals(eventBlockingQueue.take(), CoordinatorEvent.HEARTBEAT_EVENT);
+    Assert.assertEquals(eventBlockingQueue.take(), CoordinatorEvent.createLeaderDoAssignmentEvent(false));
+    Assert.assertEquals(eventBlockingQueue.take(), CoordinatorEvent.HANDLE_ASSIGNMENT_CHANGE_EVENT);
+  }
+
+  @Test
+  public void testLeaderDoAssignmentDebounce() throws Exception {
+    long debounceMs = 500;
+    DynamicMetricsManager.createInstance(new MetricRegistry(), "testLeaderDoAssignmentDebounce");
+    CoordinatorEventBlockingQueue eventBlockingQueue =
+        new CoordinatorEventBlockingQueue(debounceMs, DynamicMetricsManager.getInstance());
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      long startTimeMs = System.currentTimeMillis();
+      eventBlockingQueue.put(CoordinatorEvent.createLeaderDoAssignmentEvent(false));
+      Future<CoordinatorEvent> event = executor.submit(eventBlockingQueue::take);
+
+      // the heartbeats are not held by the debounced event
+      eventBlockingQueue.put(CoordinatorEvent.HEARTBEAT_EVENT);
+      Assert.assertEquals(event.get(debounceMs / 2, TimeUnit.MILLISECONDS), CoordinatorEvent.HEARTBEAT_EVENT);
+
+      event = executor.submit(eventBlockingQueue::take);
+      eventBlockingQueue.put(CoordinatorEvent.createLeaderDoAssignmentEvent(true));
+      Assert.assertEquals(event.get(), CoordinatorEvent.createLeaderDoAssignmentEvent(true));
+      Assert.assertTrue(System.currentTimeMillis() - startTimeMs >= debounceMs);
+      Assert.assertTrue(eventBlockingQueue.isEmpty());
+    } finally {
+      executor.shutdownNow();
+    }
   }
 }
@@ -10,6 +10,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -117,6 +118,50 @@ public class TestDatastreamTask {
     Assert.assertEquals(task2.getConnectorType(), stream.getConnectorName());
   }
 
+  @Test
+  public void testDatastreamTaskCompactEncoding() throws Exception {
+    Datastream stream = DatastreamTestUtils.createDatastream("dummy", "dummy", "dummy");
+    stream.getMetadata().put(DatastreamMetadataConstants.TASK_PREFIX, DatastreamTaskImpl.getTaskPrefix(stream));
+
+    DatastreamTaskImpl task =
+        new DatastreamTaskImpl(Collections.singletonList(stream), "dummyId", Arrays.asList(0, 1, 2, 5, 4));
+    List<String> partitionsV2 = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      for (int partition = 0; partition < 16; partition++) {
+        partitionsV2.add("topic" + i + "-" + partition);
+      }
+    }
+    partitionsV2.addAll(Arrays.asList("other.topic-3", "other.topic-1", "other.topic-2"));
+    partitionsV2.addAll(Arrays.asList("7", "-3", "topic-", "topic-007", "topic", "", "topic-1234567890"));
+    task.setPartitionsV2(partitionsV2);
+    task.getDependencies().add("dummy_previousId");
+
+    String encodedTask = DatastreamTaskEncoding.COMPACT.encode(task);
+    Assert.assertTrue(encodedTask.length() < task.toJson().length() / 10);
+
+    DatastreamTaskImpl task2 = DatastreamTaskEncoding.decode(encodedTask);
+    Assert.assertEquals(task2, task);
+    Assert.assertEquals(task2.getDatastreamTaskName(), task.getDatastreamTaskName());
+    Assert.assertEquals(task2.getTransportProviderName(), task.getTransportProviderName());
+    Assert.assertEquals(task2.getPartitions(), task.getPartitions());
+    Assert.assertEquals(task2.getPartitionsV2(), task.getPartitionsV2());
+    Assert.assertEquals(task2.getDependencies(), task.getDependencies());
+  }
+
+  @Test
+  public void testDatastreamTaskDecodeJson() throws Exception {
+    Datastream stream = DatastreamTestUtils.createDatastream("dummy", "dummy", "dummy");
+    stream.getMetadata().put(DatastreamMetadataConstants.TASK_PREFIX, DatastreamTaskImpl.getTaskPrefix(stream));
+
+    DatastreamTaskImpl task = new DatastreamTaskImpl(Collections.singletonList(stream));
+    task.setPartitionsV2(Arrays.asList("topic-0", "topic-1"));
+
+    // The tasks written in JSON are still decoded
+    DatastreamTaskImpl task2 = DatastreamTaskEncoding.decode(DatastreamTaskEncoding.JSON.encode(task));
+    Assert.assertEquals(task2, task);
+    Assert.assertEquals(task2.getPartitionsV2(), task.getPartitionsV2());
+  }
+
   @Test
   public void testTaskStatusJsonIO() {
     String json = JsonUtils.toJson(DatastreamTaskStatus.error("test msg"));
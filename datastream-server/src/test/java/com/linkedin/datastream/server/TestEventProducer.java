@@ -6,8 +6,11 @@
 package com.linkedin.datastream.server;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Properties;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -24,11 +27,13 @@ import com.linkedin.datastream.connectors.DummyConnector;
 import com.linkedin.datastream.metrics.DynamicMetricsManager;
 import com.linkedin.datastream.serde.SerDe;
 import com.linkedin.datastream.serde.SerDeSet;
+import com.linkedin.datastream.server.api.transport.BatchSendCallback;
 import com.linkedin.datastream.server.api.transport.DatastreamRecordMetadata;
 import com.linkedin.datastream.server.api.transport.SendCallback;
 import com.linkedin.datastream.server.api.transport.TransportProvider;
 import com.linkedin.datastream.server.providers.NoOpCheckpointProvider;
 import com.linkedin.datastream.testutil.DatastreamTestUtils;
+import com.linkedin.datastream.testutil.InMemoryCheckpointProvider;
 
 
 /**
@@ -89,6 +94,61 @@ public class TestEventProducer {
 
 
 
+  @Test
+  public void testSendBatch() {
+    Datastream datastream = DatastreamTestUtils.createDatastreams(DummyConnector.CONNECTOR_TYPE, "test-ds")[0];
+    DatastreamTaskImpl task = new DatastreamTaskImpl(Collections.singletonList(datastream));
+
+    String someTopicName = "someTopicName";
+    List<String> batchDestinations = new ArrayList<>();
+    TransportProvider transport = new NoOpTransportProviderAdminFactory.NoOpTransportProvider() {
+      @Override
+      public void sendBatch(String destination, List<DatastreamProducerRecord> records,
+          BatchSendCallback onComplete) {
+        batchDestinations.add(destination);
+        for (int i = 0; i < records.size(); i++) {
+          DatastreamProducerRecord record = records.get(i);
+          DatastreamRecordMetadata metadata =
+              new DatastreamRecordMetadata(record.getCheckpoint(), someTopicName, record.getPartition().orElse(0));
+          onComplete.onCompletion(i, metadata, null);
+        }
+      }
+    };
+
+    EventProducer eventProducer = new EventProducer(task, transport,
+        new NoOpCheckpointProvider(), new Properties(), false);
+
+    // consecutive records with the same destination are handed to the transport provider together
+    List<DatastreamProducerRecord> records = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      records.add(createDatastreamProducerRecord(0, String.valueOf(i), 1));
+    }
+    DatastreamProducerRecordBuilder builder = new DatastreamProducerRecordBuilder();
+    builder.setPartition(0);
+    builder.setSourceCheckpoint("5");
+    builder.setDestination("otherDestination");
+    builder.setEventsSourceTimestamp(System.currentTimeMillis());
+    builder.addEvent(new BrooklinEnvelope(new byte[0], new byte[0], null, new HashMap<>()));
+    records.add(builder.build());
+
+    List<Integer> ackedIndices = new ArrayList<>();
+    List<String> ackedCheckpoints = new ArrayList<>();
+    eventProducer.sendBatch(records, (i, m, e) -> {
+      ackedIndices.add(i);
+      ackedCheckpoints.add(m.getCheckpoint());
+    });
+
+    Assert.assertEquals(batchDestinations,
+        Arrays.asList(task.getDatastreamDestination().getConnectionString(), "otherDestination"));
+    Assert.assertEquals(ackedIndices, Arrays.asList(0, 1, 2, 3, 4, 5));
+    Assert.assertEquals(ackedCheckpoints, Arrays.asList("0", "1", "2", "3", "4", "5"));
+    records.forEach(record -> Assert.assertTrue(record.getEventsSendTimestamp().isPresent()));
+
+    DynamicMetricsManager metrics = DynamicMetricsManager.getInstance();
+    Assert.assertNotNull(
+        metrics.getMetric("EventProducer." + someTopicName + "." + EventProducer.EVENTS_LATENCY_MS_STRING));
+  }
+
   @Test
   public void testSendWithSerdeErrors() {
     Datastream datastream = DatastreamTestUtils.createDatastreams(DummyConnector.CONNECTOR_TYPE, "test-ds")[0];
@@ -155,6 +215,55 @@ public class TestEventProducer {
         metrics.getMetric("EventProducer." + datastreamName + "." + EventProducer.EVENTS_SEND_LATENCY_MS_STRING));
   }
 
+  @Test
+  public void testCheckpointIsOnlyRenderedWhenCommittedOrRead() {
+    Datastream datastream = DatastreamTestUtils.createDatastreams(DummyConnector.CONNECTOR_TYPE, "test-ds")[0];
+    DatastreamTaskImpl task = new DatastreamTaskImpl(Collections.singletonList(datastream));
+
+    TransportProvider transport = new NoOpTransportProviderAdminFactory.NoOpTransportProvider() {
+      @Override
+      public void send(String destination, DatastreamProducerRecord record, SendCallback onComplete) {
+        int partition = record.getPartition().orElse(0);
+        onComplete.onCompletion(new DatastreamRecordMetadata(record, "someTopicName", partition, 0, partition), null);
+      }
+    };
+
+    // with custom checkpointing, the checkpoints are not committed, and they are only rendered when the in-memory
+    // checkpoints of the task are read
+    InMemoryCheckpointProvider checkpointProvider = new InMemoryCheckpointProvider();
+    EventProducer eventProducer = new EventProducer(task, transport, checkpointProvider, new Properties(), true);
+    CountingCheckpoint checkpoint = new CountingCheckpoint(1);
+    eventProducer.send(createTypedCheckpointRecord(checkpoint), (m, e) -> Assert.assertNull(e));
+    Assert.assertEquals(checkpoint.getNumRenderings(), 0);
+    Assert.assertTrue(checkpointProvider.getCommitted(task).isEmpty());
+    Assert.assertEquals(task.getCheckpoints().get(0), "1");
+    Assert.assertEquals(checkpoint.getNumRenderings(), 1);
+    Assert.assertEquals(task.getCheckpoints().get(0), "1");
+    Assert.assertEquals(checkpoint.getNumRenderings(), 1);
+
+    // so are the checkpoint strings of the records without a typed checkpoint
+    eventProducer.send(createDatastreamProducerRecord(0, "5", 1), (m, e) -> Assert.assertNull(e));
+    Assert.assertEquals(task.getCheckpoints().get(0), "5");
+    Assert.assertTrue(checkpointProvider.getCommitted(task).isEmpty());
+
+    // with a checkpoint provider, they are rendered once and committed
+    eventProducer = new EventProducer(task, transport, checkpointProvider, new Properties(), false);
+    checkpoint = new CountingCheckpoint(2);
+    eventProducer.send(createTypedCheckpointRecord(checkpoint), (m, e) -> Assert.assertNull(e));
+    Assert.assertEquals(checkpoint.getNumRenderings(), 1);
+    Assert.assertEquals(checkpointProvider.getCommitted(task).get(0), "2");
+    Assert.assertEquals(task.getCheckpoints().get(0), "2");
+  }
+
+  private DatastreamProducerRecord createTypedCheckpointRecord(Comparable<?> checkpoint) {
+    DatastreamProducerRecordBuilder builder = new DatastreamProducerRecordBuilder();
+    builder.setPartition(0);
+    builder.setTypedSourceCheckpoint(checkpoint);
+    builder.setEventsSourceTimestamp(System.currentTimeMillis());
+    builder.addEvent(new BrooklinEnvelope(new byte[0], new byte[0], null, new HashMap<>()));
+    return builder.build();
+  }
+
   private DatastreamProducerRecord createDatastreamProducerRecord() {
     return createDatastreamProducerRecord(0, "0", 1);
   }
@@ -169,4 +278,31 @@ public class TestEventProducer {
     }
     return builder.build();
   }
+
+  /**
+   * A typed checkpoint which counts how many times its string representation is rendered
+   */
+  private static class CountingCheckpoint implements Comparable<CountingCheckpoint> {
+    private final long _offset;
+    private int _numRenderings;
+
+    CountingCheckpoint(long offset) {
+      _offset = offset;
+    }
+
+    int getNumRenderings() {
+      return _numRenderings;
+    }
+
+    @Override
+    public int compareTo(CountingCheckpoint other) {
+      return Long.compare(_offset, other._offset);
+    }
+
+    @Override
+    public String toString() {
+      _numRenderings++;
+      return String.valueOf(_offset);
+    }
+  }
 }
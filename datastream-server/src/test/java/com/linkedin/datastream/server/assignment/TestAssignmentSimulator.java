@@ -0,0 +1,144 @@
+/**
+ *  Copyright 2021 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.server.assignment;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.codahale.metrics.MetricRegistry;
+
+import com.linkedin.datastream.common.zk.ZkClient;
+import com.linkedin.datastream.metrics.DynamicMetricsManager;
+import com.linkedin.datastream.server.ClusterThroughputInfo;
+import com.linkedin.datastream.server.DatastreamGroup;
+import com.linkedin.datastream.testutil.EmbeddedZookeeper;
+import com.linkedin.datastream.testutil.assignment.AssignmentSimulator;
+import com.linkedin.datastream.testutil.assignment.SimulatedCluster;
+import com.linkedin.datastream.testutil.assignment.SimulatedEvent;
+import com.linkedin.datastream.testutil.assignment.SimulatedStrategy;
+import com.linkedin.datastream.testutil.assignment.SimulationReport;
+import com.linkedin.datastream.testutil.assignment.ThroughputDistribution;
+
+
+/**
+ * Tests for {@link AssignmentSimulator}, which replays scenarios through the assignment strategies
+ */
+public class TestAssignmentSimulator {
+  private static final int NUM_INSTANCES = 10;
+  private static final int NUM_DATASTREAM_GROUPS = 4;
+  private static final int NUM_PARTITIONS_PER_GROUP = 200;
+  private static final int MEAN_PARTITION_THROUGHPUT_KBPS = 100;
+  private static final long SEED = 1;
+
+  private EmbeddedZookeeper _zookeeper;
+  private ZkClient _zkClient;
+
+  @BeforeMethod
+  public void setup() throws IOException {
+    DynamicMetricsManager.createInstance(new MetricRegistry(), "TestAssignmentSimulator");
+    _zookeeper = new EmbeddedZookeeper();
+    _zookeeper.startup();
+    _zkClient = new ZkClient(_zookeeper.getConnection());
+  }
+
+  @AfterMethod
+  public void cleanup() {
+    _zkClient.close();
+    _zookeeper.shutdown();
+  }
+
+  /**
+   * Provides all the simulated strategies
+   */
+  @DataProvider(name = "strategies")
+  public Object[][] strategies() {
+    return Arrays.stream(SimulatedStrategy.values()).map(strategy -> new Object[]{strategy}).toArray(Object[][]::new);
+  }
+
+  @Test(dataProvider = "strategies")
+  public void testScenarioIsReplayed(SimulatedStrategy strategy) {
+    SimulatedCluster cluster = createCluster(strategy);
+    AssignmentSimulator simulator = new AssignmentSimulator(cluster, strategy, _zkClient);
+    List<SimulationReport> reports = simulator.replay(Arrays.asList(SimulatedEvent.ASSIGNMENT,
+        SimulatedEvent.INSTANCE_DEATH, SimulatedEvent.SCALE_OUT, SimulatedEvent.PARTITION_GROWTH,
+        SimulatedEvent.PARTITION_REBALANCE, SimulatedEvent.ASSIGNMENT));
+    Assert.assertEquals(reports.size(), 6);
+
+    SimulationReport initialAssignment = reports.get(0);
+    Assert.assertEquals(initialAssignment.getNumInstances(), NUM_INSTANCES);
+    Assert.assertEquals(initialAssignment.getNumMovedTasks(), 0);
+    Assert.assertEquals(initialAssignment.getNumMovedPartitions(), 0);
+    Assert.assertTrue(initialAssignment.getWallTimeNanos() > 0);
+    Assert.assertTrue(initialAssignment.getAllocatedBytes() != 0);
+
+    Assert.assertEquals(reports.get(1).getNumInstances(), NUM_INSTANCES - 1);
+    Assert.assertEquals(reports.get(2).getNumInstances(), NUM_INSTANCES);
+    if (strategy.isPartitionManaged()) {
+      // every partition is assigned, including the new ones
+      Assert.assertEquals(initialAssignment.getNumPartitions(), NUM_DATASTREAM_GROUPS * NUM_PARTITIONS_PER_GROUP);
+      Assert.assertTrue(reports.get(1).getNumMovedPartitions() > 0);
+      Assert.assertEquals(reports.get(3).getNumPartitions(),
+          NUM_DATASTREAM_GROUPS * NUM_PARTITIONS_PER_GROUP * 11 / 10);
+    } else {
+      Assert.assertEquals(initialAssignment.getNumPartitions(), 0);
+    }
+
+    // the dead instance is not assigned anything, and the new instance is
+    Assert.assertEquals(simulator.getAssignment().keySet().size(), NUM_INSTANCES);
+    Assert.assertTrue(cluster.getInstances().containsAll(simulator.getAssignment().keySet()));
+    simulator.getAssignment().values().forEach(tasks -> Assert.assertFalse(tasks.isEmpty()));
+
+    // the strategies are sticky
+    Assert.assertEquals(reports.get(5).getNumMovedTasks(), 0);
+    Assert.assertEquals(reports.get(5).getNumMovedPartitions(), 0);
+  }
+
+  @Test
+  public void testLoadBasedStrategyBalancesThroughput() {
+    SimulationReport stickyReport = new AssignmentSimulator(
+        createCluster(SimulatedStrategy.STICKY_PARTITION),
+        SimulatedStrategy.STICKY_PARTITION, _zkClient).apply(SimulatedEvent.ASSIGNMENT);
+    SimulationReport loadBasedReport = new AssignmentSimulator(
+        createCluster(SimulatedStrategy.LOAD_BASED),
+        SimulatedStrategy.LOAD_BASED, _zkClient).apply(SimulatedEvent.ASSIGNMENT);
+    Assert.assertTrue(loadBasedReport.getMaxThroughputPerTaskPct() < stickyReport.getMaxThroughputPerTaskPct(),
+        loadBasedReport + " vs " + stickyReport);
+  }
+
+  @Test
+  public void testClusterProvidesThroughputByDatastreamGroupName() {
+    SimulatedCluster cluster = createCluster(SimulatedStrategy.LOAD_BASED);
+    Map<String, ClusterThroughputInfo> throughputInfos = cluster.getThroughputInfo();
+    Assert.assertEquals(throughputInfos.size(), NUM_DATASTREAM_GROUPS);
+    for (DatastreamGroup datastreamGroup : cluster.getDatastreamGroups()) {
+      ClusterThroughputInfo throughputInfo = cluster.getThroughputInfo(datastreamGroup.getName());
+      Assert.assertEquals(throughputInfo.getClusterName(), datastreamGroup.getName());
+      Assert.assertEquals(throughputInfo.getPartitionInfoMap().size(), NUM_PARTITIONS_PER_GROUP);
+      Assert.assertEquals(throughputInfo.getPartitionInfoMap(),
+          cluster.getThroughputInfo(datastreamGroup).getPartitionInfoMap());
+      Assert.assertEquals(throughputInfos.get(datastreamGroup.getName()).getPartitionInfoMap(),
+          throughputInfo.getPartitionInfoMap());
+    }
+    Assert.assertNull(cluster.getThroughputInfo("unknown"));
+  }
+
+  /**
+   * Create a cluster of its own for each strategy, as the partition strategies keep the number of tasks of the
+   * datastream groups of the cluster in ZooKeeper
+   */
+  private SimulatedCluster createCluster(SimulatedStrategy strategy) {
+    return new SimulatedCluster(strategy.name().toLowerCase(), NUM_INSTANCES, NUM_DATASTREAM_GROUPS,
+        NUM_PARTITIONS_PER_GROUP, ThroughputDistribution.PARETO, MEAN_PARTITION_THROUGHPUT_KBPS, SEED);
+  }
+}
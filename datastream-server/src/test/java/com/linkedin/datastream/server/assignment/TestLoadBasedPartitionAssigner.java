@@ -353,33 +353,127 @@ public class TestLoadBasedPartitionAssigner {
   public void findTaskWithRoomForAPartitionTests() {
     LoadBasedPartitionAssigner assigner = new LoadBasedPartitionAssigner(5, 10);
     List<String> tasks = Arrays.asList("T1", "T2");
-    Map<String, Set<String>> partitionsMap = new HashMap<>();
-    partitionsMap.put("T1", new HashSet<>(Collections.emptySet()));
-    partitionsMap.put("T2", new HashSet<>(Collections.emptySet()));
-    int index = assigner.findTaskWithRoomForAPartition(tasks, partitionsMap, 0, 1);
+    Map<String, Integer> numPartitionsPerTask = new HashMap<>();
+    numPartitionsPerTask.put("T1", 0);
+    numPartitionsPerTask.put("T2", 0);
+    int index = assigner.findTaskWithRoomForAPartition(tasks, numPartitionsPerTask, 0, 1);
     Assert.assertEquals(index, 0);
-    partitionsMap.get("T1").add("P1");
-    index = assigner.findTaskWithRoomForAPartition(tasks, partitionsMap, 0, 1);
+    numPartitionsPerTask.put("T1", 1);
+    index = assigner.findTaskWithRoomForAPartition(tasks, numPartitionsPerTask, 0, 1);
     // no more room in T1, expecting 1 as index
     Assert.assertEquals(index, 1);
-    partitionsMap.get("T2").add("P2");
+    numPartitionsPerTask.put("T2", 1);
     Assert.assertThrows(DatastreamRuntimeException.class, () ->
-        assigner.findTaskWithRoomForAPartition(tasks, partitionsMap, 0, 1));
+        assigner.findTaskWithRoomForAPartition(tasks, numPartitionsPerTask, 0, 1));
 
     List<String> tasks2 = Arrays.asList("T1", "T2", "T3");
-    Map<String, Set<String>> partitionsMap2 = new HashMap<>();
-    partitionsMap2.put("T1", new HashSet<>(Collections.emptySet()));
-    partitionsMap2.put("T2", new HashSet<>(Collections.singletonList("P1")));
-    partitionsMap2.put("T3", new HashSet<>(Collections.emptySet()));
-    int index2 = assigner.findTaskWithRoomForAPartition(tasks2, partitionsMap2, 1, 1);
+    Map<String, Integer> numPartitionsPerTask2 = new HashMap<>();
+    numPartitionsPerTask2.put("T1", 0);
+    numPartitionsPerTask2.put("T2", 1);
+    numPartitionsPerTask2.put("T3", 0);
+    int index2 = assigner.findTaskWithRoomForAPartition(tasks2, numPartitionsPerTask2, 1, 1);
     Assert.assertEquals(index2, 2);
-    partitionsMap2.get("T3").add("P2");
-    index2 = assigner.findTaskWithRoomForAPartition(tasks2, partitionsMap2, 1, 1);
+    numPartitionsPerTask2.put("T3", 1);
+    index2 = assigner.findTaskWithRoomForAPartition(tasks2, numPartitionsPerTask2, 1, 1);
     Assert.assertEquals(index2, 0);
 
     MetricsTestUtils.verifyMetrics(assigner, DynamicMetricsManager.getInstance());
   }
 
+  @Test
+  public void rebalanceMovesBoundedNumberOfPartitionsTest() {
+    Map<String, PartitionThroughputInfo> throughputInfoMap = new HashMap<>();
+    for (String partition : Arrays.asList("P1", "P2", "P3", "P4")) {
+      throughputInfoMap.put(partition, new PartitionThroughputInfo(10, 5, partition));
+    }
+    ClusterThroughputInfo throughputInfo = new ClusterThroughputInfo("dummy", throughputInfoMap);
+
+    Datastream ds1 = DatastreamTestUtils.createDatastreams(DummyConnector.CONNECTOR_TYPE, "ds1")[0];
+    ds1.getSource().setPartitions(0);
+    ds1.getMetadata().put(DatastreamMetadataConstants.TASK_PREFIX, DatastreamTaskImpl.getTaskPrefix(ds1));
+    Map<String, Set<DatastreamTask>> currentAssignment = new HashMap<>();
+    DatastreamTask task1 = createTaskForDatastream(ds1, Arrays.asList("P1", "P2", "P3", "P4"));
+    DatastreamTask task2 = createTaskForDatastream(ds1);
+    currentAssignment.put("instance1", new HashSet<>(Collections.singletonList(task1)));
+    currentAssignment.put("instance2", new HashSet<>(Collections.singletonList(task2)));
+
+    DatastreamGroupPartitionsMetadata metadata = new DatastreamGroupPartitionsMetadata(new DatastreamGroup(
+        Collections.singletonList(ds1)), Arrays.asList("P1", "P2", "P3", "P4"));
+
+    LoadBasedPartitionAssigner assigner = new LoadBasedPartitionAssigner(5, 10);
+    Map<String, Set<DatastreamTask>> newAssignment = assigner.rebalancePartitions(throughputInfo, currentAssignment,
+        metadata, Integer.MAX_VALUE, 1, 100);
+
+    // only one partition is moved, although moving two would balance the tasks
+    DatastreamTask task3 = (DatastreamTask) newAssignment.get("instance1").toArray()[0];
+    DatastreamTask task4 = (DatastreamTask) newAssignment.get("instance2").toArray()[0];
+    Assert.assertEquals(task3.getPartitionsV2().size(), 3);
+    Assert.assertEquals(task4.getPartitionsV2().size(), 1);
+    Assert.assertFalse(task3.getPartitionsV2().contains(task4.getPartitionsV2().get(0)));
+    // both new tasks depend on the task the partition is moved from
+    List<String> dependencies = Collections.singletonList(task1.getDatastreamTaskName());
+    Assert.assertEquals(((DatastreamTaskImpl) task3).getDependencies(), dependencies);
+    Assert.assertEquals(((DatastreamTaskImpl) task4).getDependencies(), dependencies);
+
+    assertMetricEquals("LoadBasedPartitionAssigner.ds1.partitionsMovedByRebalance", 1);
+    assertMetricEquals("LoadBasedPartitionAssigner.ds1.throughputImbalancePct", 150);
+
+    // the next rebalance balances the tasks, and the one after it has nothing left to move
+    newAssignment = assigner.rebalancePartitions(throughputInfo, newAssignment, metadata, Integer.MAX_VALUE, 10, 100);
+    Assert.assertEquals(((DatastreamTask) newAssignment.get("instance1").toArray()[0]).getPartitionsV2().size(), 2);
+    Assert.assertEquals(((DatastreamTask) newAssignment.get("instance2").toArray()[0]).getPartitionsV2().size(), 2);
+    assertMetricEquals("LoadBasedPartitionAssigner.ds1.partitionsMovedByRebalance", 1);
+    assertMetricEquals("LoadBasedPartitionAssigner.ds1.throughputImbalancePct", 100);
+
+    Assert.assertSame(assigner.rebalancePartitions(throughputInfo, newAssignment, metadata, Integer.MAX_VALUE, 10, 100),
+        newAssignment);
+    assertMetricEquals("LoadBasedPartitionAssigner.ds1.partitionsMovedByRebalance", 0);
+
+    MetricsTestUtils.verifyMetrics(assigner, DynamicMetricsManager.getInstance());
+  }
+
+  @Test
+  public void rebalanceStopsBelowImbalanceThresholdTest() {
+    Map<String, PartitionThroughputInfo> throughputInfoMap = new HashMap<>();
+    throughputInfoMap.put("P1", new PartitionThroughputInfo(30, 5, "P1"));
+    throughputInfoMap.put("P2", new PartitionThroughputInfo(10, 5, "P2"));
+    throughputInfoMap.put("P3", new PartitionThroughputInfo(20, 5, "P3"));
+    ClusterThroughputInfo throughputInfo = new ClusterThroughputInfo("dummy", throughputInfoMap);
+
+    Datastream ds1 = DatastreamTestUtils.createDatastreams(DummyConnector.CONNECTOR_TYPE, "ds2")[0];
+    ds1.getSource().setPartitions(0);
+    ds1.getMetadata().put(DatastreamMetadataConstants.TASK_PREFIX, DatastreamTaskImpl.getTaskPrefix(ds1));
+    Map<String, Set<DatastreamTask>> currentAssignment = new HashMap<>();
+    DatastreamTask task1 = createTaskForDatastream(ds1, Arrays.asList("P1", "P2"));
+    DatastreamTask task2 = createTaskForDatastream(ds1, Collections.singletonList("P3"));
+    currentAssignment.put("instance1", new HashSet<>(Collections.singletonList(task1)));
+    currentAssignment.put("instance2", new HashSet<>(Collections.singletonList(task2)));
+
+    DatastreamGroupPartitionsMetadata metadata = new DatastreamGroupPartitionsMetadata(new DatastreamGroup(
+        Collections.singletonList(ds1)), Arrays.asList("P1", "P2", "P3"));
+
+    // the heaviest task is at 133% of the mean
+    LoadBasedPartitionAssigner assigner = new LoadBasedPartitionAssigner(5, 10);
+    Assert.assertSame(assigner.rebalancePartitions(throughputInfo, currentAssignment, metadata, Integer.MAX_VALUE, 10,
+        150), currentAssignment);
+    assertMetricEquals("LoadBasedPartitionAssigner.ds2.throughputImbalancePct", 133);
+
+    // the task which is full does not get the partition
+    Assert.assertSame(assigner.rebalancePartitions(throughputInfo, currentAssignment, metadata, 1, 10, 125),
+        currentAssignment);
+
+    Map<String, Set<DatastreamTask>> newAssignment = assigner.rebalancePartitions(throughputInfo, currentAssignment,
+        metadata, Integer.MAX_VALUE, 10, 125);
+    DatastreamTask task3 = (DatastreamTask) newAssignment.get("instance1").toArray()[0];
+    DatastreamTask task4 = (DatastreamTask) newAssignment.get("instance2").toArray()[0];
+    Assert.assertEquals(task3.getPartitionsV2(), Collections.singletonList("P1"));
+    Assert.assertEquals(new HashSet<>(task4.getPartitionsV2()), new HashSet<>(Arrays.asList("P2", "P3")));
+    assertMetricEquals("LoadBasedPartitionAssigner.ds2.partitionsMovedByRebalance", 1);
+    assertMetricEquals("LoadBasedPartitionAssigner.ds2.throughputImbalancePct", 100);
+
+    MetricsTestUtils.verifyMetrics(assigner, DynamicMetricsManager.getInstance());
+  }
+
   private DatastreamTask createTaskForDatastream(Datastream datastream) {
     return createTaskForDatastream(datastream, Collections.emptyList());
   }
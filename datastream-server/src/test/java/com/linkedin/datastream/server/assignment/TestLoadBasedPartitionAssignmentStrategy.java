@@ -360,6 +360,49 @@ public class TestLoadBasedPartitionAssignmentStrategy {
     MetricsTestUtils.verifyMetrics(strategy, DynamicMetricsManager.getInstance());
   }
 
+  @Test
+  public void rebalancePartitionsTest() {
+    PartitionThroughputProvider mockProvider = mock(PartitionThroughputProvider.class);
+    Map<String, PartitionThroughputInfo> partitionThroughputMap = new HashMap<>();
+    partitionThroughputMap.put("P1", new PartitionThroughputInfo(30, 0, "P1"));
+    partitionThroughputMap.put("P2", new PartitionThroughputInfo(10, 0, "P2"));
+    partitionThroughputMap.put("P3", new PartitionThroughputInfo(20, 0, "P3"));
+    ClusterThroughputInfo clusterThroughputInfo = new ClusterThroughputInfo(StringUtils.EMPTY, partitionThroughputMap);
+    Mockito.when(mockProvider.getThroughputInfo(any(DatastreamGroup.class))).thenReturn(clusterThroughputInfo);
+
+    Datastream ds1 = DatastreamTestUtils.createDatastreams(DummyConnector.CONNECTOR_TYPE, "ds1")[0];
+    ds1.getMetadata().put(StickyPartitionAssignmentStrategy.CFG_MIN_TASKS, String.valueOf(2));
+    ds1.getMetadata().put(DatastreamMetadataConstants.TASK_PREFIX, DatastreamTaskImpl.getTaskPrefix(ds1));
+    ds1.getSource().setPartitions(0);
+    Map<String, Set<DatastreamTask>> currentAssignment = new HashMap<>();
+    currentAssignment.put("instance1",
+        new HashSet<>(Collections.singletonList(createTaskForDatastream(ds1, Arrays.asList("P1", "P2")))));
+    currentAssignment.put("instance2",
+        new HashSet<>(Collections.singletonList(createTaskForDatastream(ds1, Collections.singletonList("P3")))));
+    DatastreamGroupPartitionsMetadata metadata =
+        new DatastreamGroupPartitionsMetadata(new DatastreamGroup(Collections.singletonList(ds1)),
+            Arrays.asList("P1", "P2", "P3"));
+
+    // rebalancing is disabled by default
+    LoadBasedPartitionAssignmentStrategy strategy = new LoadBasedPartitionAssignmentStrategy(mockProvider,
+        Optional.of(100), 50, 100, true, 50, 80, 5, 90, 1000, 200, _zkClient, _clusterName, true, true, 10, 20);
+    Assert.assertSame(strategy.rebalancePartitions(currentAssignment, metadata), currentAssignment);
+    Mockito.verify(mockProvider, never()).getThroughputInfo(any(DatastreamGroup.class));
+
+    strategy = new LoadBasedPartitionAssignmentStrategy(mockProvider, Optional.of(100), 50, 100, true, 50, 80, 5, 90,
+        1000, 200, _zkClient, _clusterName, true, true, 10, 20, 10, 125, null);
+    Map<String, Set<DatastreamTask>> newAssignment = strategy.rebalancePartitions(currentAssignment, metadata);
+    Mockito.verify(mockProvider, times(1)).getThroughputInfo(any(DatastreamGroup.class));
+    Assert.assertEquals(((DatastreamTask) newAssignment.get("instance1").toArray()[0]).getPartitionsV2(),
+        Collections.singletonList("P1"));
+    Assert.assertEquals(((DatastreamTask) newAssignment.get("instance2").toArray()[0]).getPartitionsV2().size(), 2);
+
+    // the rebalance is skipped when the throughput is unknown
+    Mockito.when(mockProvider.getThroughputInfo(any(DatastreamGroup.class)))
+        .thenReturn(new ClusterThroughputInfo(StringUtils.EMPTY, Collections.emptyMap()));
+    Assert.assertSame(strategy.rebalancePartitions(currentAssignment, metadata), currentAssignment);
+  }
+
   private DatastreamTask createTaskForDatastream(Datastream datastream) {
     return createTaskForDatastream(datastream, Collections.emptyList());
   }
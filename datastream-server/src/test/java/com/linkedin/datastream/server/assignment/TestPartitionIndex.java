@@ -0,0 +1,66 @@
+/**
+ *  Copyright 2019 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.server.assignment;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+/**
+ * Tests for {@link PartitionIndex}
+ */
+public class TestPartitionIndex {
+
+  @Test
+  public void testPartitionsAndTopicsAreIndexed() {
+    PartitionIndex partitionIndex = new PartitionIndex(Arrays.asList("t1-0", "t1-1", "t-2-0", "t1-0", "t3"));
+    Assert.assertEquals(partitionIndex.size(), 4);
+    Assert.assertEquals(partitionIndex.getId("t1-1"), 1);
+    Assert.assertEquals(partitionIndex.getId("t3"), 3);
+    Assert.assertEquals(partitionIndex.getId("t1-2"), -1);
+    Assert.assertEquals(partitionIndex.getPartition(2), "t-2-0");
+
+    Assert.assertEquals(partitionIndex.getNumTopics(), 3);
+    Assert.assertEquals(partitionIndex.getTopicId(0), partitionIndex.getTopicId(1));
+    Assert.assertEquals(partitionIndex.getTopic(partitionIndex.getTopicId(2)), "t-2");
+    Assert.assertEquals(partitionIndex.getTopic(partitionIndex.getTopicId(3)), "t3");
+
+    Assert.assertEquals(partitionIndex.add("t1-1"), 1);
+    Assert.assertEquals(partitionIndex.add("t3-1"), 4);
+    Assert.assertEquals(partitionIndex.size(), 5);
+    Assert.assertEquals(partitionIndex.getTopicId(4), partitionIndex.getTopicId(3));
+  }
+
+  @Test
+  public void testIndexGrows() {
+    PartitionIndex partitionIndex = new PartitionIndex(Collections.emptyList());
+    for (int i = 0; i < 1000; i++) {
+      Assert.assertEquals(partitionIndex.add("topic" + (i % 10) + "-" + i), i);
+    }
+    Assert.assertEquals(partitionIndex.size(), 1000);
+    Assert.assertEquals(partitionIndex.getNumTopics(), 10);
+    Assert.assertEquals(partitionIndex.getTopic(partitionIndex.getTopicId(999)), "topic9");
+  }
+
+  @Test
+  public void testBitSetConversions() {
+    PartitionIndex partitionIndex = new PartitionIndex(Arrays.asList("t-0", "t-1", "t-2", "t-3"));
+
+    BitSet ids = partitionIndex.toBitSet(Arrays.asList("t-3", "t-1", "unknown-0"));
+    Assert.assertEquals(ids.cardinality(), 2);
+    Assert.assertEquals(partitionIndex.toPartitions(ids), Arrays.asList("t-1", "t-3"));
+    Assert.assertEquals(partitionIndex.toPartitions(partitionIndex.toComplementBitSet(Arrays.asList("t-3", "t-1"))),
+        Arrays.asList("t-0", "t-2"));
+
+    int[] shuffledIds = PartitionIndex.toShuffledIds(partitionIndex.toComplementBitSet(Collections.emptyList()));
+    Arrays.sort(shuffledIds);
+    Assert.assertEquals(shuffledIds, new int[]{0, 1, 2, 3});
+  }
+}
@@ -0,0 +1,160 @@
+/**
+ *  Copyright 2021 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.server.assignment;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.codahale.metrics.MetricRegistry;
+
+import com.linkedin.datastream.common.Datastream;
+import com.linkedin.datastream.common.DatastreamMetadataConstants;
+import com.linkedin.datastream.common.zk.ZkClient;
+import com.linkedin.datastream.connectors.DummyConnector;
+import com.linkedin.datastream.metrics.DynamicMetricsManager;
+import com.linkedin.datastream.server.DatastreamGroup;
+import com.linkedin.datastream.server.DatastreamTask;
+import com.linkedin.datastream.server.DatastreamTaskImpl;
+import com.linkedin.datastream.server.zk.KeyBuilder;
+import com.linkedin.datastream.testutil.DatastreamTestUtils;
+import com.linkedin.datastream.testutil.EmbeddedZookeeper;
+
+import static com.linkedin.datastream.server.assignment.BroadcastStrategyFactory.CFG_MAX_TASKS;
+import static com.linkedin.datastream.server.assignment.LoadBasedPartitionAssigner.PartitionAssignmentStatPerTask;
+
+
+/**
+ * Tests for {@link WeightedTaskPlacement}, through the {@link StickyMulticastStrategy}
+ */
+public class TestWeightedTaskPlacement {
+  private static final String CLUSTER = "testcluster";
+
+  private EmbeddedZookeeper _zookeeper;
+  private ZkClient _zkClient;
+
+  @BeforeMethod
+  public void setup() throws IOException {
+    DynamicMetricsManager.createInstance(new MetricRegistry(), "TestWeightedTaskPlacement");
+    _zookeeper = new EmbeddedZookeeper();
+    _zookeeper.startup();
+    _zkClient = new ZkClient(_zookeeper.getConnection());
+  }
+
+  @AfterMethod
+  public void cleanup() {
+    _zkClient.close();
+    _zookeeper.shutdown();
+  }
+
+  @Test
+  public void testTasksArePlacedByInstanceCapacity() {
+    advertiseCapacity("instance1", 3);
+    advertiseCapacity("instance2", 1);
+    List<String> instances = Arrays.asList("instance1", "instance2", "instance3");
+    DatastreamGroup datastreamGroup = createDatastreamGroup("ds1", 10);
+
+    // instance3 advertises no capacity, so it is assumed to have the mean capacity of the others
+    StickyMulticastStrategy strategy = createStrategy();
+    Map<String, Set<DatastreamTask>> assignment =
+        strategy.assign(Collections.singletonList(datastreamGroup), instances, new HashMap<>());
+    Assert.assertEquals(assignment.get("instance1").size(), 5);
+    Assert.assertEquals(assignment.get("instance2").size(), 2);
+    Assert.assertEquals(assignment.get("instance3").size(), 3);
+
+    // the tasks of a dead instance go to the instances with the most room for them
+    Map<String, Set<DatastreamTask>> newAssignment = strategy.assign(Collections.singletonList(datastreamGroup),
+        Arrays.asList("instance1", "instance2"), assignment);
+    Assert.assertEquals(newAssignment.get("instance1").size(), 8);
+    Assert.assertEquals(newAssignment.get("instance2").size(), 2);
+    Assert.assertTrue(newAssignment.get("instance1").containsAll(assignment.get("instance1")));
+    Assert.assertTrue(newAssignment.get("instance2").containsAll(assignment.get("instance2")));
+  }
+
+  @Test
+  public void testTasksAreMovedByLoad() throws IOException {
+    DatastreamGroup datastreamGroup = createDatastreamGroup("ds1", 3);
+    DatastreamTask task1 = createTask(datastreamGroup, 100);
+    DatastreamTask task2 = createTask(datastreamGroup, 100);
+    // the stats of the tasks which are not cached are read from ZooKeeper
+    DatastreamTask task3 = createTask(datastreamGroup, 0);
+    String statsPath = KeyBuilder.datastreamTaskStateKey(CLUSTER, task3.getConnectorType(),
+        task3.getDatastreamTaskName(), DatastreamTaskImpl.STATS_KEY);
+    _zkClient.ensurePath(statsPath);
+    _zkClient.writeData(statsPath, createStats(10));
+
+    Map<String, Set<DatastreamTask>> currentAssignment = new HashMap<>();
+    currentAssignment.put("instance1", new HashSet<>(Arrays.asList(task1, task2)));
+    currentAssignment.put("instance2", new HashSet<>(Collections.singletonList(task3)));
+
+    // a single move brings the most utilized instance under the threshold
+    Map<String, Set<DatastreamTask>> assignment = createStrategy().assign(
+        Collections.singletonList(datastreamGroup), Arrays.asList("instance1", "instance2"), currentAssignment);
+    Assert.assertEquals(assignment.get("instance1").size(), 1);
+    Assert.assertEquals(assignment.get("instance2").size(), 2);
+    Assert.assertTrue(assignment.get("instance2").contains(task3));
+  }
+
+  @Test
+  public void testNewTasksArePlacedByLoad() throws IOException {
+    DatastreamGroup datastreamGroup1 = createDatastreamGroup("ds1", 2);
+    DatastreamTask task1 = createTask(datastreamGroup1, 100);
+    DatastreamTask task2 = createTask(datastreamGroup1, 20);
+    Map<String, Set<DatastreamTask>> currentAssignment = new HashMap<>();
+    currentAssignment.put("instance1", new HashSet<>(Collections.singletonList(task1)));
+    currentAssignment.put("instance2", new HashSet<>(Collections.singletonList(task2)));
+
+    // the new tasks are assumed to carry the mean load, and don't fit on instance1
+    DatastreamGroup datastreamGroup2 = createDatastreamGroup("ds2", 2);
+    Map<String, Set<DatastreamTask>> assignment = createStrategy().assign(
+        Arrays.asList(datastreamGroup1, datastreamGroup2), Arrays.asList("instance1", "instance2"), currentAssignment);
+    Assert.assertEquals(assignment.get("instance1"), Collections.singleton(task1));
+    Assert.assertEquals(assignment.get("instance2").size(), 3);
+  }
+
+  private StickyMulticastStrategy createStrategy() {
+    return new StickyMulticastStrategy(Optional.empty(), 1, new WeightedTaskPlacement(_zkClient, CLUSTER, 120));
+  }
+
+  private void advertiseCapacity(String instance, int capacity) {
+    String path = KeyBuilder.instanceCapacity(CLUSTER, instance);
+    _zkClient.ensurePath(path);
+    _zkClient.writeData(path, String.valueOf(capacity));
+  }
+
+  private DatastreamGroup createDatastreamGroup(String name, int numTasks) {
+    Datastream datastream = DatastreamTestUtils.createDatastream(DummyConnector.CONNECTOR_TYPE, name, "DummySource");
+    datastream.getMetadata().put(DatastreamMetadataConstants.TASK_PREFIX, DatastreamTaskImpl.getTaskPrefix(datastream));
+    datastream.getMetadata().put(CFG_MAX_TASKS, String.valueOf(numTasks));
+    return new DatastreamGroup(Collections.singletonList(datastream));
+  }
+
+  private DatastreamTask createTask(DatastreamGroup datastreamGroup, int throughputRateInKBps) throws IOException {
+    DatastreamTaskImpl task = new DatastreamTaskImpl(datastreamGroup.getDatastreams());
+    if (throughputRateInKBps > 0) {
+      task.setStats(createStats(throughputRateInKBps));
+    }
+    return task;
+  }
+
+  private String createStats(int throughputRateInKBps) throws IOException {
+    PartitionAssignmentStatPerTask stat = new PartitionAssignmentStatPerTask();
+    stat.setThroughputRateInKBps(throughputRateInKBps);
+    stat.setIsThroughputRateLatest(true);
+    return stat.toJson();
+  }
+}
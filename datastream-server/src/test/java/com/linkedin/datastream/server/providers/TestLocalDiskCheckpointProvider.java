@@ -0,0 +1,340 @@
+/**
+ *  Copyright 2019 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.server.providers;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.codahale.metrics.MetricRegistry;
+
+import com.linkedin.datastream.common.DatastreamRuntimeException;
+import com.linkedin.datastream.common.JsonUtils;
+import com.linkedin.datastream.common.PollUtils;
+import com.linkedin.datastream.common.zk.ZkClient;
+import com.linkedin.datastream.metrics.DynamicMetricsManager;
+import com.linkedin.datastream.server.DatastreamTaskImpl;
+import com.linkedin.datastream.server.zk.KeyBuilder;
+import com.linkedin.datastream.server.zk.ZkAdapter;
+import com.linkedin.datastream.testutil.EmbeddedZookeeper;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+
+/**
+ * Tests for {@link LocalDiskCheckpointProvider}
+ */
+public class TestLocalDiskCheckpointProvider {
+  private static final String CLUSTER = "testcluster";
+  private static final long DEBOUNCE_TIMER_MS = 1000;
+  private static final int LOG_SIZE_BYTES = 4096;
+
+  private EmbeddedZookeeper _zookeeper;
+  private ZkClient _zkClient;
+  private ZkAdapter _zkAdapter;
+  private Path _directory;
+
+  @BeforeMethod
+  public void setup(Method method) throws IOException {
+    DynamicMetricsManager.createInstance(new MetricRegistry(), method.getName());
+    _zookeeper = new EmbeddedZookeeper();
+    _zookeeper.startup();
+    _zkClient = new ZkClient(_zookeeper.getConnection());
+    _zkAdapter = new ZkAdapter(_zookeeper.getConnection(), CLUSTER, "test", ZkClient.DEFAULT_SESSION_TIMEOUT,
+        ZkClient.DEFAULT_CONNECTION_TIMEOUT, DEBOUNCE_TIMER_MS, null);
+    _zkAdapter.connect();
+    _directory = Files.createTempDirectory(method.getName());
+  }
+
+  @AfterMethod
+  public void cleanup() throws IOException {
+    _zkAdapter.disconnect();
+    _zkClient.close();
+    _zookeeper.shutdown();
+    try (Stream<Path> paths = Files.walk(_directory)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  @Test
+  public void testCheckpointsAreReplayed() throws IOException {
+    DatastreamTaskImpl task1 = createTask(1);
+    DatastreamTaskImpl task2 = createTask(2);
+
+    LocalDiskCheckpointProvider checkpointProvider = createCheckpointProvider(0);
+    checkpointProvider.updateCheckpoint(task1, 0, "checkpoint10");
+    checkpointProvider.updateCheckpoint(task1, 1, "checkpoint11");
+    checkpointProvider.updateCheckpoint(task1, 0, "checkpoint12");
+    checkpointProvider.updateCheckpoint(task2, 0, "checkpoint20");
+    Assert.assertEquals(checkpointProvider.getSafeCheckpoints(task1).get(0), "checkpoint12");
+    checkpointProvider.flush();
+    checkpointProvider.close();
+
+    // The checkpoints are read from the log rather than ZooKeeper
+    checkpointProvider = createCheckpointProvider(0);
+    Map<Integer, String> checkpoints1 = checkpointProvider.getCommitted(task1);
+    Assert.assertEquals(checkpoints1.size(), 2);
+    Assert.assertEquals(checkpoints1.get(0), "checkpoint12");
+    Assert.assertEquals(checkpoints1.get(1), "checkpoint11");
+    Assert.assertEquals(checkpointProvider.getCommitted(task2), Collections.singletonMap(0, "checkpoint20"));
+    Assert.assertNull(_zkAdapter.getDatastreamTaskStateForKey(task1, ZookeeperCheckpointProvider.CHECKPOINT_KEY_NAME));
+    checkpointProvider.close();
+  }
+
+  @Test
+  public void testLogIsCompacted() throws IOException {
+    DatastreamTaskImpl task = createTask(1);
+
+    // Each record takes tens of bytes, so the log is compacted several times
+    LocalDiskCheckpointProvider checkpointProvider = createCheckpointProvider(0);
+    Map<Integer, String> expectedCheckpoints = new HashMap<>();
+    for (int i = 0; i < 1000; i++) {
+      checkpointProvider.updateCheckpoint(task, i % 10, "checkpoint" + i);
+      expectedCheckpoints.put(i % 10, "checkpoint" + i);
+    }
+    Assert.assertEquals(checkpointProvider.getSafeCheckpoints(task), expectedCheckpoints);
+    checkpointProvider.close();
+    Assert.assertEquals(Files.size(_directory.resolve(LocalDiskCheckpointProvider.LOG_FILE_NAME)), LOG_SIZE_BYTES);
+
+    checkpointProvider = createCheckpointProvider(0);
+    Assert.assertEquals(checkpointProvider.getCommitted(task), expectedCheckpoints);
+    checkpointProvider.close();
+  }
+
+  @Test
+  public void testTornRecordIsIgnored() throws IOException {
+    DatastreamTaskImpl task = createTask(1);
+
+    LocalDiskCheckpointProvider checkpointProvider = createCheckpointProvider(0);
+    checkpointProvider.updateCheckpoint(task, 0, "checkpoint0");
+    checkpointProvider.updateCheckpoint(task, 1, "checkpoint1");
+    checkpointProvider.close();
+
+    // Corrupt the last byte of the second record
+    Path logFile = _directory.resolve(LocalDiskCheckpointProvider.LOG_FILE_NAME);
+    byte[] log = Files.readAllBytes(logFile);
+    int end = log.length;
+    while (log[end - 1] == 0) {
+      end--;
+    }
+    try (RandomAccessFile file = new RandomAccessFile(logFile.toFile(), "rw")) {
+      file.seek(end - 1);
+      file.write(log[end - 1] + 1);
+    }
+
+    checkpointProvider = createCheckpointProvider(0);
+    Assert.assertEquals(checkpointProvider.getCommitted(task), Collections.singletonMap(0, "checkpoint0"));
+    checkpointProvider.updateCheckpoint(task, 2, "checkpoint2");
+    checkpointProvider.close();
+
+    checkpointProvider = createCheckpointProvider(0);
+    Map<Integer, String> checkpoints = checkpointProvider.getCommitted(task);
+    Assert.assertEquals(checkpoints.size(), 2);
+    Assert.assertEquals(checkpoints.get(2), "checkpoint2");
+    checkpointProvider.close();
+  }
+
+  @Test
+  public void testCheckpointsAreReplicatedToZooKeeper() throws Exception {
+    DatastreamTaskImpl task = createTask(1);
+    ZookeeperCheckpointProvider zkCheckpointProvider = new ZookeeperCheckpointProvider(_zkAdapter);
+
+    LocalDiskCheckpointProvider checkpointProvider = createCheckpointProvider(100);
+    checkpointProvider.updateCheckpoint(task, 0, "checkpoint0");
+    Assert.assertTrue(PollUtils.poll(
+        () -> zkCheckpointProvider.getCommitted(task).equals(Collections.singletonMap(0, "checkpoint0")), 100, 10000));
+
+    // The checkpoints of an unassigned task are replicated right away, and dropped from the log
+    checkpointProvider.updateCheckpoint(task, 0, "checkpoint1");
+    checkpointProvider.unassignDatastreamTask(task);
+    Assert.assertEquals(zkCheckpointProvider.getCommitted(task), Collections.singletonMap(0, "checkpoint1"));
+    checkpointProvider.close();
+
+    // The checkpoints which are not in the log are read from ZooKeeper
+    _zkAdapter.setDatastreamTaskStateForKey(task, ZookeeperCheckpointProvider.CHECKPOINT_KEY_NAME, "{\"0\":\"other\"}");
+    checkpointProvider = createCheckpointProvider(100);
+    Assert.assertEquals(checkpointProvider.getCommitted(task), Collections.singletonMap(0, "other"));
+    checkpointProvider.close();
+  }
+
+  @Test
+  public void testLogIsCompactedDuringUnassign() throws IOException {
+    DatastreamTaskImpl task1 = createTask(1);
+    DatastreamTaskImpl task2 = createTask(2);
+
+    // The periodic replication never runs during the test
+    ZkAdapter zkAdapter = spy(_zkAdapter);
+    LocalDiskCheckpointProvider unassigningCheckpointProvider =
+        new LocalDiskCheckpointProvider(zkAdapter, _directory, LOG_SIZE_BYTES, 0, Long.MAX_VALUE);
+    unassigningCheckpointProvider.updateCheckpoint(task1, 0, "checkpoint10");
+
+    // The log is compacted by the updates of another task while the checkpoints of the unassigned task are
+    // replicated, which then fails
+    doAnswer(invocation -> {
+      Thread thread = new Thread(() -> {
+        for (int i = 0; i < 1000; i++) {
+          unassigningCheckpointProvider.updateCheckpoint(task2, 0, "checkpoint" + i);
+        }
+      });
+      thread.start();
+      thread.join();
+      throw new DatastreamRuntimeException("Replication failure");
+    }).when(zkAdapter).setDatastreamTaskStateForKey(eq(task1), anyString(), anyString());
+    unassigningCheckpointProvider.unassignDatastreamTask(task1);
+    unassigningCheckpointProvider.close();
+
+    // The checkpoints of the unassigned task are kept in the log
+    LocalDiskCheckpointProvider checkpointProvider = createCheckpointProvider(0);
+    Assert.assertEquals(checkpointProvider.getCommitted(task1), Collections.singletonMap(0, "checkpoint10"));
+    Assert.assertEquals(checkpointProvider.getCommitted(task2), Collections.singletonMap(0, "checkpoint999"));
+    checkpointProvider.close();
+  }
+
+  @Test
+  public void testLogIsCompactedWhileCheckpointsAreReadFromZooKeeper() throws IOException {
+    DatastreamTaskImpl task = createTask(1);
+
+    // The checkpoints take several times the size of the log, so it is compacted while they are logged
+    Map<Integer, String> expectedCheckpoints = new HashMap<>();
+    for (int i = 0; i < 200; i++) {
+      expectedCheckpoints.put(i, "checkpoint" + i);
+    }
+    _zkAdapter.setDatastreamTaskStateForKey(task, ZookeeperCheckpointProvider.CHECKPOINT_KEY_NAME,
+        JsonUtils.toJson(expectedCheckpoints));
+    LocalDiskCheckpointProvider checkpointProvider = createCheckpointProvider(0);
+    Assert.assertEquals(checkpointProvider.getCommitted(task), expectedCheckpoints);
+    checkpointProvider.close();
+
+    // All the checkpoints are read from the log rather than ZooKeeper
+    _zkAdapter.setDatastreamTaskStateForKey(task, ZookeeperCheckpointProvider.CHECKPOINT_KEY_NAME, "{}");
+    checkpointProvider = createCheckpointProvider(0);
+    Assert.assertEquals(checkpointProvider.getCommitted(task), expectedCheckpoints);
+    checkpointProvider.close();
+  }
+
+  @Test
+  public void testUnassignWaitsForReplicationInProgress() throws Exception {
+    DatastreamTaskImpl task = createTask(1);
+
+    // The first replication of the task is blocked until it is released, then fails
+    ZkAdapter zkAdapter = spy(_zkAdapter);
+    CountDownLatch replicationStarted = new CountDownLatch(1);
+    CountDownLatch replicationReleased = new CountDownLatch(1);
+    AtomicInteger numReplications = new AtomicInteger();
+    doAnswer(invocation -> {
+      if (numReplications.getAndIncrement() > 0) {
+        return invocation.callRealMethod();
+      }
+      replicationStarted.countDown();
+      replicationReleased.await();
+      throw new DatastreamRuntimeException("Replication failure");
+    }).when(zkAdapter).setDatastreamTaskStateForKey(eq(task), anyString(), anyString());
+
+    LocalDiskCheckpointProvider checkpointProvider =
+        new LocalDiskCheckpointProvider(zkAdapter, _directory, LOG_SIZE_BYTES, 0, 100);
+    checkpointProvider.updateCheckpoint(task, 0, "checkpoint0");
+    Assert.assertTrue(replicationStarted.await(10, TimeUnit.SECONDS));
+
+    // The task is unassigned while the background replication is in progress
+    checkpointProvider.updateCheckpoint(task, 0, "checkpoint1");
+    Thread unassignThread = new Thread(() -> checkpointProvider.unassignDatastreamTask(task));
+    unassignThread.start();
+    unassignThread.join(500);
+    Assert.assertTrue(unassignThread.isAlive());
+
+    // Once it fails, the latest checkpoints are replicated by the unassignment, and dropped from the log
+    replicationReleased.countDown();
+    unassignThread.join(10000);
+    Assert.assertFalse(unassignThread.isAlive());
+    Assert.assertEquals(_zkAdapter.getDatastreamTaskStateForKey(task, ZookeeperCheckpointProvider.CHECKPOINT_KEY_NAME),
+        "{\"0\":\"checkpoint1\"}");
+    checkpointProvider.close();
+
+    _zkAdapter.setDatastreamTaskStateForKey(task, ZookeeperCheckpointProvider.CHECKPOINT_KEY_NAME, "{\"0\":\"other\"}");
+    LocalDiskCheckpointProvider restartedCheckpointProvider = createCheckpointProvider(0);
+    Assert.assertEquals(restartedCheckpointProvider.getCommitted(task), Collections.singletonMap(0, "other"));
+    restartedCheckpointProvider.close();
+  }
+
+  @Test
+  public void testRetainedCheckpointsOfRemovedTasksArePruned() throws IOException {
+    DatastreamTaskImpl task1 = createTask(1);
+    DatastreamTaskImpl task2 = createTask(2);
+
+    LocalDiskCheckpointProvider checkpointProvider = createCheckpointProvider(0);
+    checkpointProvider.updateCheckpoint(task1, 0, "checkpoint10");
+    checkpointProvider.updateCheckpoint(task2, 0, "checkpoint20");
+    checkpointProvider.unassignDatastreamTask(task1);
+    checkpointProvider.unassignDatastreamTask(task2);
+
+    // Only the checkpoints of the task removed from the cluster are dropped, from the log too
+    _zkClient.deleteRecursive(KeyBuilder.connectorTask(CLUSTER, task1.getConnectorType(),
+        task1.getDatastreamTaskName()));
+    checkpointProvider.pruneRetainedCheckpoints();
+    checkpointProvider.close();
+
+    checkpointProvider = createCheckpointProvider(0);
+    Assert.assertTrue(checkpointProvider.getCommitted(task1).isEmpty());
+    Assert.assertEquals(checkpointProvider.getCommitted(task2), Collections.singletonMap(0, "checkpoint20"));
+    checkpointProvider.close();
+  }
+
+  @Test
+  public void testReplayedCheckpointsYieldToZooKeeper() throws IOException {
+    DatastreamTaskImpl task1 = createTask(1);
+    DatastreamTaskImpl task2 = createTask(2);
+
+    LocalDiskCheckpointProvider checkpointProvider = createCheckpointProvider(0);
+    checkpointProvider.updateCheckpoint(task1, 0, "checkpoint10");
+    checkpointProvider.updateCheckpoint(task2, 0, "checkpoint20");
+    checkpointProvider.close();
+
+    // With the replication enabled, the checkpoints in the log are only used if ZooKeeper has none, as the task may
+    // have run on another instance in the meantime
+    _zkAdapter.setDatastreamTaskStateForKey(task1, ZookeeperCheckpointProvider.CHECKPOINT_KEY_NAME,
+        "{\"0\":\"other\"}");
+    checkpointProvider = createCheckpointProvider(Long.MAX_VALUE);
+    Assert.assertEquals(checkpointProvider.getCommitted(task1), Collections.singletonMap(0, "other"));
+    Assert.assertEquals(checkpointProvider.getCommitted(task2), Collections.singletonMap(0, "checkpoint20"));
+    checkpointProvider.close();
+
+    // The checkpoints read from ZooKeeper replace the ones in the log
+    _zkAdapter.setDatastreamTaskStateForKey(task1, ZookeeperCheckpointProvider.CHECKPOINT_KEY_NAME, "{}");
+    checkpointProvider = createCheckpointProvider(0);
+    Assert.assertEquals(checkpointProvider.getCommitted(task1), Collections.singletonMap(0, "other"));
+    checkpointProvider.close();
+  }
+
+  private LocalDiskCheckpointProvider createCheckpointProvider(long zkReplicationIntervalMs) throws IOException {
+    return new LocalDiskCheckpointProvider(_zkAdapter, _directory, LOG_SIZE_BYTES, 0, zkReplicationIntervalMs);
+  }
+
+  private DatastreamTaskImpl createTask(int seed) {
+    DatastreamTaskImpl task = new DatastreamTaskImpl(
+        Collections.singletonList(TestZookeeperCheckpointProvider.generateDatastream(seed)));
+    task.setId("dt" + seed);
+    _zkClient.ensurePath(KeyBuilder.connectorTask(CLUSTER, task.getConnectorType(), task.getDatastreamTaskName()));
+    return task;
+  }
+}
@@ -78,6 +78,8 @@ public class TestZookeeperCheckpointProvider {
 
     checkpointProvider.updateCheckpoint(datastreamTask1, 0, "checkpoint1");
     checkpointProvider.updateCheckpoint(datastreamTask2, 0, "checkpoint2");
+    // The checkpoints are written asynchronously
+    checkpointProvider.flush();
 
     adapter.setDatastreamTaskStateForKey(datastreamTask1, ZookeeperCheckpointProvider.CHECKPOINT_KEY_NAME, "");
     checkpointProvider.unassignDatastreamTask(datastreamTask1);
@@ -115,6 +117,40 @@ public class TestZookeeperCheckpointProvider {
     Assert.assertEquals(committedCheckpoints2.get(0), "checkpoint2");
   }
 
+  @Test
+  public void testFlushWritesCoalescedCheckpoints() {
+    ZkAdapter adapter = new ZkAdapter(_zookeeper.getConnection(), "testcluster", defaultTransportProviderName, ZkClient.DEFAULT_SESSION_TIMEOUT,
+        ZkClient.DEFAULT_CONNECTION_TIMEOUT, DEBOUNCE_TIMER_MS, null);
+    adapter.connect();
+    ZookeeperCheckpointProvider checkpointProvider = new ZookeeperCheckpointProvider(adapter);
+    DatastreamTaskImpl datastreamTask = new DatastreamTaskImpl(Collections.singletonList(generateDatastream(1)));
+    datastreamTask.setId("dt1");
+    _zkClient.ensurePath(KeyBuilder.connectorTask("testcluster", datastreamTask.getConnectorType(), datastreamTask.getDatastreamTaskName()));
+
+    // Only the first update is written before the checkpoint interval elapses, until the checkpoints are flushed
+    for (int i = 0; i < 100; i++) {
+      checkpointProvider.updateCheckpoint(datastreamTask, i % 10, "checkpoint" + i);
+    }
+    checkpointProvider.flush();
+    Map<Integer, String> committedCheckpoints = checkpointProvider.getCommitted(datastreamTask);
+    Assert.assertEquals(committedCheckpoints.size(), 10);
+    for (int i = 0; i < 10; i++) {
+      Assert.assertEquals(committedCheckpoints.get(i), "checkpoint" + (90 + i));
+    }
+    Assert.assertEquals(checkpointProvider.getSafeCheckpoints(datastreamTask), committedCheckpoints);
+
+    // The checkpoints written concurrently by another instance are merged rather than overwritten
+    adapter.setDatastreamTaskStateForKey(datastreamTask, ZookeeperCheckpointProvider.CHECKPOINT_KEY_NAME,
+        "{\"0\":\"other0\",\"10\":\"other10\"}");
+    checkpointProvider.updateCheckpoint(datastreamTask, 1, "checkpoint100");
+    checkpointProvider.flush();
+    committedCheckpoints = checkpointProvider.getCommitted(datastreamTask);
+    Assert.assertEquals(committedCheckpoints.size(), 3);
+    Assert.assertEquals(committedCheckpoints.get(0), "other0");
+    Assert.assertEquals(committedCheckpoints.get(1), "checkpoint100");
+    Assert.assertEquals(committedCheckpoints.get(10), "other10");
+  }
+
   /**
    * Generate a datastream
    */
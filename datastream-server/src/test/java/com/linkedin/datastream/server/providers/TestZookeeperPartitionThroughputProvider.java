@@ -0,0 +1,175 @@
+/**
+ *  Copyright 2021 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.server.providers;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.linkedin.datastream.common.Datastream;
+import com.linkedin.datastream.common.DatastreamMetadataConstants;
+import com.linkedin.datastream.common.JsonUtils;
+import com.linkedin.datastream.common.zk.ZkClient;
+import com.linkedin.datastream.connectors.DummyConnector;
+import com.linkedin.datastream.server.ClusterThroughputInfo;
+import com.linkedin.datastream.server.DatastreamGroup;
+import com.linkedin.datastream.server.PartitionThroughputInfo;
+import com.linkedin.datastream.server.TaskThroughputStats;
+import com.linkedin.datastream.server.zk.KeyBuilder;
+import com.linkedin.datastream.testutil.EmbeddedZookeeper;
+
+
+/**
+ * Tests for {@link ZookeeperPartitionThroughputProvider}
+ */
+public class TestZookeeperPartitionThroughputProvider {
+  private static final String CLUSTER = "testcluster";
+  private static final long HALF_LIFE_MS = 1000;
+
+  private EmbeddedZookeeper _zookeeper;
+  private ZkClient _zkClient;
+
+  @BeforeMethod
+  public void setup() throws IOException {
+    _zookeeper = new EmbeddedZookeeper();
+    _zookeeper.startup();
+    _zkClient = new ZkClient(_zookeeper.getConnection());
+  }
+
+  @AfterMethod
+  public void cleanup() {
+    _zkClient.close();
+    _zookeeper.shutdown();
+  }
+
+  @Test
+  public void testRatesAreAggregatedAcrossTasks() {
+    publishStats("name_1_task1", 1000, "topic-0", 10, "topic-1", 20);
+    publishStats("name_1_task2", 1000, "topic-2", 30);
+    publishStats("name_2_task3", 1000, "topic-3", 40);
+
+    ZookeeperPartitionThroughputProvider provider = new ZookeeperPartitionThroughputProvider(_zkClient, CLUSTER, 0,
+        HALF_LIFE_MS);
+    ClusterThroughputInfo throughputInfo = provider.getThroughputInfo(createDatastreamGroup(1));
+    Map<String, PartitionThroughputInfo> partitionInfoMap = throughputInfo.getPartitionInfoMap();
+    Assert.assertEquals(partitionInfoMap.size(), 3);
+    Assert.assertEquals(partitionInfoMap.get("topic-0").getBytesInKBRate(), 10);
+    Assert.assertEquals(partitionInfoMap.get("topic-0").getMessagesInRate(), 1);
+    Assert.assertEquals(partitionInfoMap.get("topic-1").getBytesInKBRate(), 20);
+    Assert.assertEquals(partitionInfoMap.get("topic-2").getBytesInKBRate(), 30);
+
+    // A datastream group without any published stats has no throughput info
+    Assert.assertTrue(provider.getThroughputInfo(createDatastreamGroup(3)).getPartitionInfoMap().isEmpty());
+  }
+
+  @Test
+  public void testRatesAreDecayed() {
+    ZookeeperPartitionThroughputProvider provider = new ZookeeperPartitionThroughputProvider(_zkClient, CLUSTER, 0,
+        HALF_LIFE_MS);
+    DatastreamGroup datastreamGroup = createDatastreamGroup(1);
+
+    publishStats("name_1_task1", 1000, "topic-0", 100);
+    Assert.assertEquals(getBytesInKBRate(provider, datastreamGroup, "topic-0"), 100);
+
+    // A sample one half-life newer than the average weighs as much as the average
+    publishStats("name_1_task1", 1000 + HALF_LIFE_MS, "topic-0", 0);
+    Assert.assertEquals(getBytesInKBRate(provider, datastreamGroup, "topic-0"), 50);
+
+    // The stale stats of a task the partition has moved from are ignored
+    publishStats("name_1_task2", 1000 + HALF_LIFE_MS / 2, "topic-0", 1000);
+    Assert.assertEquals(getBytesInKBRate(provider, datastreamGroup, "topic-0"), 50);
+
+    // A sample two half-lives newer than the average weighs three times as much as the average
+    publishStats("name_1_task2", 1000 + 3 * HALF_LIFE_MS, "topic-0", 250);
+    Assert.assertEquals(getBytesInKBRate(provider, datastreamGroup, "topic-0"), 200);
+  }
+
+  @Test
+  public void testSnapshotsAreCached() {
+    DatastreamGroup datastreamGroup = createDatastreamGroup(1);
+    publishStats("name_1_task1", 1000, "topic-0", 10);
+
+    ZookeeperPartitionThroughputProvider provider = new ZookeeperPartitionThroughputProvider(_zkClient, CLUSTER,
+        Duration.ofHours(1).toMillis(), HALF_LIFE_MS);
+    ClusterThroughputInfo throughputInfo = provider.getThroughputInfo(datastreamGroup);
+    Assert.assertEquals(throughputInfo.getPartitionInfoMap().get("topic-0").getBytesInKBRate(), 10);
+
+    publishStats("name_1_task1", 1000 + 10 * HALF_LIFE_MS, "topic-0", 20);
+    Assert.assertSame(provider.getThroughputInfo(datastreamGroup), throughputInfo);
+
+    ZookeeperPartitionThroughputProvider uncachedProvider = new ZookeeperPartitionThroughputProvider(_zkClient,
+        CLUSTER, 0, HALF_LIFE_MS);
+    Assert.assertEquals(getBytesInKBRate(uncachedProvider, datastreamGroup, "topic-0"), 20);
+  }
+
+  @Test
+  public void testSnapshotsAreLookedUpByDatastreamGroupName() {
+    publishStats("name_1_task1", 1000, "topic-0", 10);
+    publishStats("name_2_task2", 1000, "topic-1", 20);
+
+    ZookeeperPartitionThroughputProvider provider = new ZookeeperPartitionThroughputProvider(_zkClient, CLUSTER, 0,
+        HALF_LIFE_MS);
+    DatastreamGroup datastreamGroup1 = createDatastreamGroup(1);
+    DatastreamGroup datastreamGroup2 = createDatastreamGroup(2);
+    // the datastream groups are only known once they have been asked for
+    Assert.assertNull(provider.getThroughputInfo(datastreamGroup1.getName()));
+    Assert.assertTrue(provider.getThroughputInfo().isEmpty());
+    provider.getThroughputInfo(datastreamGroup1);
+    provider.getThroughputInfo(datastreamGroup2);
+
+    // the snapshots are refreshed when they are looked up by name too
+    publishStats("name_1_task1", 1000 + HALF_LIFE_MS, "topic-0", 30);
+    ClusterThroughputInfo throughputInfo = provider.getThroughputInfo(datastreamGroup1.getName());
+    Assert.assertEquals(throughputInfo.getClusterName(), datastreamGroup1.getName());
+    Assert.assertEquals(throughputInfo.getPartitionInfoMap().get("topic-0").getBytesInKBRate(), 20);
+
+    Map<String, ClusterThroughputInfo> throughputInfos = provider.getThroughputInfo();
+    Assert.assertEquals(throughputInfos.keySet(),
+        new HashSet<>(Arrays.asList(datastreamGroup1.getName(), datastreamGroup2.getName())));
+    Assert.assertEquals(throughputInfos.get(datastreamGroup1.getName()).getPartitionInfoMap().get("topic-0")
+        .getBytesInKBRate(), 20);
+    Assert.assertEquals(throughputInfos.get(datastreamGroup2.getName()).getPartitionInfoMap().get("topic-1")
+        .getBytesInKBRate(), 20);
+  }
+
+  private int getBytesInKBRate(ZookeeperPartitionThroughputProvider provider, DatastreamGroup datastreamGroup,
+      String partition) {
+    return provider.getThroughputInfo(datastreamGroup).getPartitionInfoMap().get(partition).getBytesInKBRate();
+  }
+
+  /**
+   * Publish the stats of a task, with the given bytes in rates and messages in rates of a tenth of them
+   */
+  private void publishStats(String taskName, long timestampMs, Object... partitionsAndBytesInKBRates) {
+    Map<String, Double> bytesInKBRates = new HashMap<>();
+    Map<String, Double> messagesInRates = new HashMap<>();
+    for (int i = 0; i < partitionsAndBytesInKBRates.length; i += 2) {
+      String partition = (String) partitionsAndBytesInKBRates[i];
+      int bytesInKBRate = (Integer) partitionsAndBytesInKBRates[i + 1];
+      bytesInKBRates.put(partition, (double) bytesInKBRate);
+      messagesInRates.put(partition, bytesInKBRate / 10.0);
+    }
+    String path = KeyBuilder.datastreamTaskStateKey(CLUSTER, DummyConnector.CONNECTOR_TYPE, taskName,
+        TaskThroughputStats.STATE_KEY);
+    _zkClient.ensurePath(path);
+    _zkClient.writeData(path, JsonUtils.toJson(new TaskThroughputStats(timestampMs, bytesInKBRates, messagesInRates)));
+  }
+
+  private DatastreamGroup createDatastreamGroup(int seed) {
+    Datastream datastream = TestZookeeperCheckpointProvider.generateDatastream(seed);
+    datastream.getMetadata().put(DatastreamMetadataConstants.TASK_PREFIX, datastream.getName());
+    return new DatastreamGroup(Collections.singletonList(datastream));
+  }
+}
@@ -16,7 +16,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
+import org.apache.helix.zookeeper.zkclient.exception.ZkException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testng.Assert;
@@ -24,14 +26,18 @@ import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 
 import com.linkedin.datastream.common.Datastream;
 import com.linkedin.datastream.common.PollUtils;
 import com.linkedin.datastream.common.zk.ZkClient;
+import com.linkedin.datastream.metrics.DynamicMetricsManager;
 import com.linkedin.datastream.server.DatastreamGroup;
 import com.linkedin.datastream.server.DatastreamTask;
+import com.linkedin.datastream.server.DatastreamTaskEncoding;
 import com.linkedin.datastream.server.DatastreamTaskImpl;
 import com.linkedin.datastream.server.DatastreamTaskStatus;
 import com.linkedin.datastream.server.HostTargetAssignment;
@@ -41,6 +47,7 @@ import com.linkedin.datastream.testutil.EmbeddedZookeeper;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
@@ -66,6 +73,7 @@ public class TestZkAdapter {
     _embeddedZookeeper = new EmbeddedZookeeper();
     _zkConnectionString = _embeddedZookeeper.getConnection();
     _embeddedZookeeper.startup();
+    DynamicMetricsManager.createInstance(new MetricRegistry(), getClass().getSimpleName());
   }
 
   @AfterMethod
@@ -130,6 +138,31 @@ public class TestZkAdapter {
     client.close();
   }
 
+  @Test
+  public void testInstanceCapacityIsAdvertised() {
+    String testCluster = "testInstanceCapacityIsAdvertised";
+
+    ZkAdapter adapter1 = new ZkAdapter(_zkConnectionString, testCluster, defaultTransportProviderName,
+        ZkClient.DEFAULT_SESSION_TIMEOUT, ZkClient.DEFAULT_CONNECTION_TIMEOUT, -1, ZK_DEBOUNCE_TIMER_MS,
+        ZkAdapter.DEFAULT_ASSIGNMENT_BATCH_SIZE, DatastreamTaskEncoding.JSON, 4, null);
+    adapter1.connect();
+    ZkAdapter adapter2 = createZkAdapter(testCluster);
+    adapter2.connect();
+
+    ZkClient client = new ZkClient(_zkConnectionString);
+    String capacityPath = KeyBuilder.instanceCapacity(testCluster, adapter1.getInstanceName());
+    Assert.assertEquals(client.readData(capacityPath), "4");
+    // the instances which are not configured with a capacity don't advertise any
+    Assert.assertFalse(client.exists(KeyBuilder.instanceCapacity(testCluster, adapter2.getInstanceName())));
+
+    // the capacity goes away with the live instance
+    adapter1.disconnect();
+    Assert.assertTrue(PollUtils.poll(() -> !client.exists(capacityPath), 100, ZK_WAIT_IN_MS));
+
+    adapter2.disconnect();
+    client.close();
+  }
+
   @Test
   public void testLeaderElection() {
     String testCluster = "test_adapter_leader";
@@ -1152,6 +1185,255 @@ public class TestZkAdapter {
     validateConnectorTask(testCluster, connectorType, task4.getDatastreamTaskName(), adapter1.getInstanceName(), zkClient);
   }
 
+  @Test
+  public void testUpdateAllAssignmentsInTransactions() {
+    testUpdateAllAssignments("testUpdateAllAssignmentsInTransactions", 2, false);
+  }
+
+  @Test
+  public void testUpdateAllAssignmentsWithoutTransactions() {
+    testUpdateAllAssignments("testUpdateAllAssignmentsWithoutTransactions", 0, false);
+  }
+
+  @Test
+  public void testUpdateAllAssignmentsWithFailedTransactions() {
+    testUpdateAllAssignments("testUpdateAllAssignmentsWithFailedTransactions", 2, true);
+  }
+
+  private void testUpdateAllAssignments(String testCluster, int assignmentBatchSize, boolean failTransactions) {
+    String connectorType = "connectorType";
+    ZkClient zkClient = new ZkClient(_zkConnectionString);
+    ZkAdapter adapter1 = createZkAdapter(testCluster, assignmentBatchSize, failTransactions);
+    ZkAdapter adapter2 = createZkAdapter(testCluster, assignmentBatchSize, failTransactions);
+    adapter1.connect();
+    adapter2.connect();
+
+    List<DatastreamTaskImpl> tasks = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      DatastreamTaskImpl task = new DatastreamTaskImpl();
+      task.setTaskPrefix("task" + i);
+      task.setConnectorType(connectorType);
+      task.setZkAdapter(adapter1);
+      if (i % 2 == 0) {
+        task.setStats("stats" + i);
+      }
+      tasks.add(task);
+    }
+
+    //
+    // simulate assigning:
+    //   to instance1: [task0, task1, task2]
+    //   to instance2: [task3]
+    //
+    Map<String, List<DatastreamTask>> assignmentsByInstance = new HashMap<>();
+    assignmentsByInstance.put(adapter1.getInstanceName(), Arrays.asList(tasks.get(0), tasks.get(1), tasks.get(2)));
+    assignmentsByInstance.put(adapter2.getInstanceName(), Collections.singletonList(tasks.get(3)));
+    adapter1.updateAllAssignments(assignmentsByInstance);
+    validateAssignments(testCluster, connectorType, assignmentsByInstance, zkClient);
+
+    //
+    // simulate reassigning:
+    //   to instance1: [task3, task4]
+    //   to instance2: [task0, task1]
+    //
+    Map<String, List<DatastreamTask>> reassignmentsByInstance = new HashMap<>();
+    reassignmentsByInstance.put(adapter1.getInstanceName(), Arrays.asList(tasks.get(3), tasks.get(4)));
+    reassignmentsByInstance.put(adapter2.getInstanceName(), Arrays.asList(tasks.get(0), tasks.get(1)));
+    adapter1.updateAllAssignments(reassignmentsByInstance);
+    validateAssignments(testCluster, connectorType, reassignmentsByInstance, zkClient);
+
+    Meter numTransactions =
+        DynamicMetricsManager.getInstance().getMetric(MetricRegistry.name("ZkAdapter", "numZkTransactions"));
+    Meter numTransactionFailures =
+        DynamicMetricsManager.getInstance().getMetric(MetricRegistry.name("ZkAdapter", "numZkTransactionFailures"));
+    if (assignmentBatchSize < 1) {
+      Assert.assertNull(numTransactions);
+    } else {
+      // 3 transactions to add the tasks of both instances, then 2 to add and 3 to remove the tasks reassigned
+      Assert.assertEquals(numTransactions.getCount(), 8);
+      Assert.assertEquals(numTransactionFailures == null ? 0 : numTransactionFailures.getCount(),
+          failTransactions ? 8 : 0);
+    }
+
+    adapter1.disconnect();
+    adapter2.disconnect();
+    zkClient.close();
+  }
+
+  @Test
+  public void testAssignmentsWithCompactTaskEncoding() {
+    String testCluster = "testAssignmentsWithCompactTaskEncoding";
+    String connectorType = "connectorType";
+    ZkClient zkClient = new ZkClient(_zkConnectionString);
+    ZkAdapter adapter1 = new ZkAdapter(_zkConnectionString, testCluster, defaultTransportProviderName,
+        ZkClient.DEFAULT_SESSION_TIMEOUT, ZkClient.DEFAULT_CONNECTION_TIMEOUT, ZkClient.DEFAULT_OPERATION_RETRY_TIMEOUT,
+        ZK_DEBOUNCE_TIMER_MS, ZkAdapter.DEFAULT_ASSIGNMENT_BATCH_SIZE, DatastreamTaskEncoding.COMPACT, null);
+    // the second adapter writes JSON, and reads the tasks of both encodings
+    ZkAdapter adapter2 = createZkAdapter(testCluster);
+    adapter1.connect();
+    adapter2.connect();
+
+    List<DatastreamTask> tasks = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      DatastreamTaskImpl task = new DatastreamTaskImpl();
+      task.setTaskPrefix("task" + i);
+      task.setConnectorType(connectorType);
+      task.setPartitionsV2(Arrays.asList("topic-" + i, "topic-" + (i + 1)));
+      task.setZkAdapter(adapter1);
+      tasks.add(task);
+    }
+
+    String instance = adapter2.getInstanceName();
+    updateInstanceAssignment(adapter1, instance, tasks);
+    for (DatastreamTask task : tasks) {
+      String content = zkClient.readData(KeyBuilder.instanceAssignment(testCluster, instance,
+          task.getDatastreamTaskName()));
+      Assert.assertFalse(content.startsWith("{"));
+    }
+
+    List<String> taskNames = tasks.stream().map(DatastreamTask::getDatastreamTaskName).collect(Collectors.toList());
+    Map<String, DatastreamTaskImpl> readTasks = adapter2.getAssignedDatastreamTasks(instance, taskNames);
+    Assert.assertEquals(new HashSet<>(readTasks.values()), new HashSet<>(tasks));
+    Assert.assertEquals(adapter2.getAssignedDatastreamTask(instance, taskNames.get(0)), tasks.get(0));
+    Assert.assertEquals(readTasks.get(taskNames.get(0)).getPartitionsV2(), tasks.get(0).getPartitionsV2());
+    Assert.assertEquals(readTasks.get(taskNames.get(0)).getTransportProviderName(), defaultTransportProviderName);
+
+    adapter1.disconnect();
+    adapter2.disconnect();
+    zkClient.close();
+  }
+
+  @Test
+  public void testLeaderDiffsAssignmentsInMemory() {
+    String testCluster = "testLeaderDiffsAssignmentsInMemory";
+    String connectorType = "connectorType";
+    ZkClient zkClient = new ZkClient(_zkConnectionString);
+    ZkAdapter adapter = spy(createZkAdapter(testCluster));
+    adapter.connect();
+    Assert.assertTrue(adapter.isLeader());
+    String instance = adapter.getInstanceName();
+
+    List<DatastreamTask> tasks = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      DatastreamTaskImpl task = new DatastreamTaskImpl();
+      task.setTaskPrefix("task" + i);
+      task.setConnectorType(connectorType);
+      tasks.add(task);
+      updateInstanceAssignment(adapter, instance, tasks);
+    }
+    tasks.remove(0);
+    updateInstanceAssignment(adapter, instance, tasks);
+
+    Assert.assertEquals(new HashSet<>(zkClient.getChildren(KeyBuilder.instanceAssignments(testCluster, instance))),
+        ImmutableSet.of("task1", "task2"));
+    // The assignment is only read from ZooKeeper once, when loading all the tasks on becoming leader
+    verify(adapter, times(1)).getInstanceAssignment(instance);
+
+    adapter.disconnect();
+    zkClient.close();
+  }
+
+  @Test
+  public void testNewLeaderLoadsAllAssignments() {
+    String testCluster = "testNewLeaderLoadsAllAssignments";
+    String connectorType = "connectorType";
+    ZkAdapter adapter1 = createZkAdapter(testCluster);
+    adapter1.connect();
+    ZkAdapter adapter2 = createZkAdapter(testCluster);
+    adapter2.connect();
+
+    Map<String, List<DatastreamTask>> assignmentsByInstance = new HashMap<>();
+    List<DatastreamTask> tasks = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      DatastreamTaskImpl task = new DatastreamTaskImpl();
+      task.setTaskPrefix("task" + i);
+      task.setConnectorType(connectorType);
+      tasks.add(task);
+    }
+    assignmentsByInstance.put(adapter1.getInstanceName(), tasks.subList(0, 10));
+    assignmentsByInstance.put(adapter2.getInstanceName(), tasks.subList(10, 20));
+    adapter1.updateAllAssignments(assignmentsByInstance);
+
+    adapter1.disconnect();
+    Assert.assertTrue(PollUtils.poll(adapter2::isLeader, 100, ZK_WAIT_IN_MS * 10));
+
+    Map<String, Set<DatastreamTask>> loadedAssignments = adapter2.getAllAssignedDatastreamTasks();
+    Assert.assertEquals(loadedAssignments.keySet(), assignmentsByInstance.keySet());
+    assignmentsByInstance.forEach((instance, instanceTasks) ->
+        Assert.assertEquals(loadedAssignments.get(instance), new HashSet<>(instanceTasks)));
+
+    // The new leader can move the tasks of the dead instance
+    Map<String, List<DatastreamTask>> reassignmentsByInstance = new HashMap<>();
+    reassignmentsByInstance.put(adapter2.getInstanceName(), tasks);
+    adapter2.updateAllAssignments(reassignmentsByInstance);
+    Assert.assertEquals(adapter2.getInstanceAssignment(adapter2.getInstanceName()).size(), tasks.size());
+
+    adapter2.disconnect();
+  }
+
+  @Test
+  public void testGetAssignedDatastreamTasks() {
+    String testCluster = "testGetAssignedDatastreamTasks";
+    String connectorType = "connectorType";
+    ZkAdapter adapter = createZkAdapter(testCluster);
+    adapter.connect();
+    String instance = adapter.getInstanceName();
+
+    List<DatastreamTask> tasks = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      DatastreamTaskImpl task = new DatastreamTaskImpl();
+      task.setTaskPrefix("task" + i);
+      task.setConnectorType(connectorType);
+      tasks.add(task);
+    }
+    updateInstanceAssignment(adapter, instance, tasks);
+
+    List<String> taskNames = tasks.stream().map(DatastreamTask::getDatastreamTaskName).collect(Collectors.toList());
+    List<String> requestedTaskNames = new ArrayList<>(taskNames);
+    requestedTaskNames.add("unassignedTask");
+    Map<String, DatastreamTaskImpl> fetchedTasks = adapter.getAssignedDatastreamTasks(instance, requestedTaskNames);
+
+    // The task without a znode is skipped
+    Assert.assertEquals(fetchedTasks.keySet(), new HashSet<>(taskNames));
+    for (String taskName : taskNames) {
+      Assert.assertEquals(fetchedTasks.get(taskName), adapter.getAssignedDatastreamTask(instance, taskName));
+      Assert.assertEquals(fetchedTasks.get(taskName).getTransportProviderName(), defaultTransportProviderName);
+    }
+
+    adapter.disconnect();
+  }
+
+  private ZkAdapter createZkAdapter(String testCluster, int assignmentBatchSize, boolean failTransactions) {
+    return new ZkAdapter(_zkConnectionString, testCluster, defaultTransportProviderName,
+        ZkClient.DEFAULT_SESSION_TIMEOUT, ZkClient.DEFAULT_CONNECTION_TIMEOUT, ZkClient.DEFAULT_OPERATION_RETRY_TIMEOUT,
+        ZK_DEBOUNCE_TIMER_MS, assignmentBatchSize, null) {
+      @Override
+      ZkClient createZkClient() {
+        ZkClient zkClient = spy(super.createZkClient());
+        if (failTransactions) {
+          doThrow(new ZkException("Injected failure")).when(zkClient).multi(any());
+        }
+        return zkClient;
+      }
+    };
+  }
+
+  private void validateAssignments(String cluster, String connectorType,
+      Map<String, List<DatastreamTask>> assignmentsByInstance, ZkClient zkClient) {
+    assignmentsByInstance.forEach((instance, tasks) -> {
+      Set<String> taskNames = tasks.stream().map(DatastreamTask::getDatastreamTaskName).collect(Collectors.toSet());
+      Assert.assertEquals(new HashSet<>(zkClient.getChildren(KeyBuilder.instanceAssignments(cluster, instance))),
+          taskNames);
+      for (DatastreamTask task : tasks) {
+        String name = task.getDatastreamTaskName();
+        validateConnectorTask(cluster, connectorType, name, instance, zkClient);
+        String stats = ((DatastreamTaskImpl) task).getStats();
+        Assert.assertEquals(zkClient.readData(KeyBuilder.datastreamTaskStateKey(cluster, connectorType, name, "stats"),
+            true), stats.isEmpty() ? null : stats);
+      }
+    });
+  }
+
   /**
    * Update all datastream task assignments of a particular Brooklin instance
    * @param adapter ZooKeeper adapter to use
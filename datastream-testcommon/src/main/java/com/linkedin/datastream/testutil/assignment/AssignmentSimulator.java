@@ -0,0 +1,273 @@
+/**
+ *  Copyright 2021 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.testutil.assignment;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.management.ThreadMXBean;
+
+import com.linkedin.datastream.common.DatastreamRuntimeException;
+import com.linkedin.datastream.common.zk.ZkClient;
+import com.linkedin.datastream.server.DatastreamGroup;
+import com.linkedin.datastream.server.DatastreamTask;
+import com.linkedin.datastream.server.DatastreamTaskImpl;
+import com.linkedin.datastream.server.api.strategy.AssignmentStrategy;
+import com.linkedin.datastream.server.zk.KeyBuilder;
+import com.linkedin.datastream.server.zk.ZkAdapter;
+
+
+/**
+ * Replays {@link SimulatedEvent}s on a {@link SimulatedCluster} through one of the {@link SimulatedStrategy}s, the
+ * way the leader Coordinator would: the datastreams are reassigned to the live instances after each event, then, for
+ * the partition strategies, the partitions of each datastream group are assigned to its tasks. Each event is reported
+ * with the time and the memory the strategy took, the number of tasks and partitions it moved, and the balance of the
+ * resulting assignment (see {@link SimulationReport}).
+ *
+ * The simulation is offline: the tasks are never started, and they are assumed to be picked up by their instances
+ * between two events. The partition strategies keep the number of tasks of each datastream group in ZooKeeper though.
+ *
+ * The strategies register their metrics with the {@link com.linkedin.datastream.metrics.DynamicMetricsManager}, which
+ * must be created first. Their logging is part of the measured time, so it should be turned down.
+ *
+ * This class is not thread-safe.
+ */
+public class AssignmentSimulator {
+  private static final Logger LOG = LoggerFactory.getLogger(AssignmentSimulator.class.getName());
+
+  // The partition strategies ask for more tasks by failing the partition assignment of the datastream groups which
+  // need them, which the Coordinator follows with a reassignment of the datastreams
+  private static final int MAX_ASSIGNMENT_ATTEMPTS = 3;
+  private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean() instanceof ThreadMXBean
+      ? (ThreadMXBean) ManagementFactory.getThreadMXBean() : null;
+
+  private final SimulatedCluster _cluster;
+  private final SimulatedStrategy _simulatedStrategy;
+  private final AssignmentStrategy _strategy;
+  private final ZkAdapter _zkAdapter;
+  private Map<String, Set<DatastreamTask>> _assignment = new HashMap<>();
+
+  /**
+   * Creates an instance of {@link AssignmentSimulator}
+   * @param cluster the cluster to replay the events on
+   * @param simulatedStrategy the strategy to assign the datastreams of the cluster with
+   * @param zkClient the ZooKeeper client of the partition strategies, which may be null for the other strategies
+   */
+  public AssignmentSimulator(SimulatedCluster cluster, SimulatedStrategy simulatedStrategy, ZkClient zkClient) {
+    Validate.notNull(cluster, "null cluster");
+    Validate.notNull(simulatedStrategy, "null strategy");
+    _cluster = cluster;
+    _simulatedStrategy = simulatedStrategy;
+    _strategy = simulatedStrategy.createStrategy(cluster, zkClient);
+    _zkAdapter = new LockedTaskZkAdapter(cluster.getName());
+    if (zkClient != null) {
+      // the partition strategies keep the number of tasks under the znodes the DMS creates for the datastreams
+      cluster.getDatastreamGroups().forEach(datastreamGroup ->
+          zkClient.ensurePath(KeyBuilder.datastream(cluster.getName(), datastreamGroup.getTaskPrefix())));
+    }
+  }
+
+  /**
+   * Get the current assignment, which maps the instances to their tasks
+   */
+  public Map<String, Set<DatastreamTask>> getAssignment() {
+    return Collections.unmodifiableMap(_assignment);
+  }
+
+  /**
+   * Replay a scenario
+   * @param events the events of the scenario, in order
+   * @return the reports of the events, in order
+   */
+  public List<SimulationReport> replay(List<SimulatedEvent> events) {
+    return events.stream().map(this::apply).collect(Collectors.toList());
+  }
+
+  /**
+   * Apply an event to the cluster, and reassign its datastreams
+   * @param event the event to apply
+   * @return the report of the event
+   */
+  public SimulationReport apply(SimulatedEvent event) {
+    Map<String, String> previousTaskInstances = new HashMap<>();
+    Map<String, String> previousPartitionInstances = new HashMap<>();
+    _assignment.forEach((instance, tasks) -> tasks.forEach(task -> {
+      previousTaskInstances.put(task.getDatastreamTaskName(), instance);
+      task.getPartitionsV2().forEach(partition -> previousPartitionInstances.put(partition, instance));
+    }));
+    event.apply(_cluster);
+
+    long allocatedBytes = getAllocatedBytes();
+    long startTimeNanos = System.nanoTime();
+    if (event == SimulatedEvent.PARTITION_REBALANCE) {
+      rebalancePartitions();
+    } else {
+      assign();
+    }
+    long wallTimeNanos = System.nanoTime() - startTimeNanos;
+    if (allocatedBytes >= 0) {
+      allocatedBytes = getAllocatedBytes() - allocatedBytes;
+    }
+
+    SimulationReport report =
+        createReport(event, wallTimeNanos, allocatedBytes, previousTaskInstances, previousPartitionInstances);
+    LOG.info("{} {}", _simulatedStrategy, report);
+    return report;
+  }
+
+  private void assign() {
+    List<DatastreamGroup> datastreamGroups = _cluster.getDatastreamGroups();
+    DatastreamRuntimeException lastException = null;
+    for (int attempt = 0; attempt < MAX_ASSIGNMENT_ATTEMPTS; attempt++) {
+      _assignment = _strategy.assign(datastreamGroups, new ArrayList<>(_cluster.getInstances()), _assignment);
+      initializeTasks();
+      if (!_simulatedStrategy.isPartitionManaged()) {
+        return;
+      }
+
+      lastException = null;
+      for (DatastreamGroup datastreamGroup : datastreamGroups) {
+        try {
+          _assignment = _strategy.assignPartitions(_assignment, _cluster.getPartitionsMetadata(datastreamGroup));
+          initializeTasks();
+        } catch (DatastreamRuntimeException e) {
+          lastException = e;
+        }
+      }
+      if (lastException == null) {
+        return;
+      }
+    }
+    throw lastException;
+  }
+
+  private void rebalancePartitions() {
+    if (!_simulatedStrategy.isPartitionManaged()) {
+      return;
+    }
+    for (DatastreamGroup datastreamGroup : _cluster.getDatastreamGroups()) {
+      _assignment = _strategy.rebalancePartitions(_assignment, _cluster.getPartitionsMetadata(datastreamGroup));
+      initializeTasks();
+    }
+  }
+
+  /**
+   * Give the new tasks the ZooKeeper adapter the partition strategies check the locks of the tasks with
+   */
+  private void initializeTasks() {
+    _assignment.values().forEach(tasks -> tasks.forEach(task -> ((DatastreamTaskImpl) task).setZkAdapter(_zkAdapter)));
+  }
+
+  private SimulationReport createReport(SimulatedEvent event, long wallTimeNanos, long allocatedBytes,
+      Map<String, String> previousTaskInstances, Map<String, String> previousPartitionInstances) {
+    Map<String, Integer> numTasksPerGroup = new HashMap<>();
+    _assignment.values().forEach(tasks ->
+        tasks.forEach(task -> numTasksPerGroup.merge(task.getTaskPrefix(), 1, Integer::sum)));
+
+    List<String> instances = _cluster.getInstances();
+    long[] tasksPerInstance = new long[instances.size()];
+    long[] partitionsPerInstance = new long[instances.size()];
+    long[] throughputPerInstance = new long[instances.size()];
+    List<Long> throughputPerTask = new ArrayList<>();
+    int numMovedTasks = 0;
+    int numMovedPartitions = 0;
+    for (int i = 0; i < instances.size(); i++) {
+      String instance = instances.get(i);
+      for (DatastreamTask task : _assignment.getOrDefault(instance, Collections.emptySet())) {
+        if (isMoved(previousTaskInstances.get(task.getDatastreamTaskName()), instance)) {
+          numMovedTasks++;
+        }
+
+        long throughput = 0;
+        if (_simulatedStrategy.isPartitionManaged()) {
+          for (String partition : task.getPartitionsV2()) {
+            throughput += _cluster.getPartitionThroughputKBps(task.getTaskPrefix(), partition);
+            if (isMoved(previousPartitionInstances.get(partition), instance)) {
+              numMovedPartitions++;
+            }
+          }
+          partitionsPerInstance[i] += task.getPartitionsV2().size();
+        } else {
+          // the tasks of the other strategies split the partitions of their datastream group through their consumer
+          // group
+          throughput = _cluster.getDatastreamGroupThroughputKBps(task.getTaskPrefix())
+              / numTasksPerGroup.get(task.getTaskPrefix());
+        }
+        tasksPerInstance[i]++;
+        throughputPerInstance[i] += throughput;
+        throughputPerTask.add(throughput);
+      }
+    }
+
+    return new SimulationReport(event, instances.size(), (int) sum(tasksPerInstance), (int) sum(partitionsPerInstance),
+        wallTimeNanos, allocatedBytes, numMovedTasks, numMovedPartitions, getMaxToMeanPct(tasksPerInstance),
+        getMaxToMeanPct(partitionsPerInstance), getMaxToMeanPct(throughputPerInstance),
+        getMaxToMeanPct(throughputPerTask.stream().mapToLong(Long::longValue).toArray()));
+  }
+
+  private static boolean isMoved(String previousInstance, String instance) {
+    return previousInstance != null && !previousInstance.equals(instance);
+  }
+
+  private static long sum(long[] values) {
+    long sum = 0;
+    for (long value : values) {
+      sum += value;
+    }
+    return sum;
+  }
+
+  /**
+   * Get the maximum of the values as a percentage of their mean, or 100 if they are all zero
+   */
+  private static int getMaxToMeanPct(long[] values) {
+    long sum = sum(values);
+    if (sum == 0) {
+      return 100;
+    }
+    long max = 0;
+    for (long value : values) {
+      max = Math.max(max, value);
+    }
+    return (int) Math.round(max * values.length * 100.0 / sum);
+  }
+
+  /**
+   * Get the memory allocated by the current thread so far, or -1 if the JVM does not track it
+   */
+  private static long getAllocatedBytes() {
+    if (THREAD_MX_BEAN == null || !THREAD_MX_BEAN.isThreadAllocatedMemorySupported()
+        || !THREAD_MX_BEAN.isThreadAllocatedMemoryEnabled()) {
+      return -1;
+    }
+    return THREAD_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  /**
+   * A {@link ZkAdapter} which never connects, and which reports the tasks as locked, as they are once their instances
+   * have picked them up
+   */
+  private static class LockedTaskZkAdapter extends ZkAdapter {
+    LockedTaskZkAdapter(String cluster) {
+      super(null, cluster, null, 0, 0, 0, null);
+    }
+
+    @Override
+    public boolean checkIsTaskLocked(String connectorType, String taskPrefix, String taskName) {
+      return true;
+    }
+  }
+}
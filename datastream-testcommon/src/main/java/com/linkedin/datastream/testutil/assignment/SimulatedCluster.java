@@ -0,0 +1,194 @@
+/**
+ *  Copyright 2021 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.testutil.assignment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.commons.lang.Validate;
+
+import com.linkedin.datastream.common.Datastream;
+import com.linkedin.datastream.common.DatastreamMetadataConstants;
+import com.linkedin.datastream.server.ClusterThroughputInfo;
+import com.linkedin.datastream.server.DatastreamGroup;
+import com.linkedin.datastream.server.DatastreamGroupPartitionsMetadata;
+import com.linkedin.datastream.server.PartitionThroughputInfo;
+import com.linkedin.datastream.server.providers.PartitionThroughputProvider;
+import com.linkedin.datastream.testutil.DatastreamTestUtils;
+
+import static com.linkedin.datastream.server.assignment.StickyPartitionAssignmentStrategy.CFG_MIN_TASKS;
+
+
+/**
+ * A synthetic Brooklin cluster to replay assignment scenarios against: a set of live instances, and a set of
+ * datastream groups of one datastream each, whose source partitions have a throughput drawn from a
+ * {@link ThroughputDistribution}. The cluster is the {@link PartitionThroughputProvider} of the load-based strategies.
+ *
+ * The cluster is generated from a seed, so that the scenarios are reproducible.
+ */
+public class SimulatedCluster implements PartitionThroughputProvider {
+  public static final String CONNECTOR_TYPE = "simulated";
+
+  // enables elastic task assignment for the strategies which support it
+  private static final String MIN_TASKS = "1";
+
+  private final String _name;
+  private final Random _random;
+  private final ThroughputDistribution _throughputDistribution;
+  private final int _meanPartitionThroughputKBps;
+  private final List<String> _instances = new ArrayList<>();
+  private final List<DatastreamGroup> _datastreamGroups = new ArrayList<>();
+  // The throughput of the partitions of each datastream group, keyed by group name then by partition, in the
+  // order the partitions were added
+  private final Map<String, Map<String, PartitionThroughputInfo>> _partitionThroughputs = new LinkedHashMap<>();
+  private int _nextInstanceId;
+  private int _numPartitionsPerGroup;
+
+  /**
+   * Creates an instance of {@link SimulatedCluster}
+   * @param name Brooklin cluster name
+   * @param numInstances Number of live instances
+   * @param numDatastreamGroups Number of datastream groups
+   * @param numPartitionsPerGroup Number of source partitions of each datastream group
+   * @param throughputDistribution Distribution of the throughput of the partitions
+   * @param meanPartitionThroughputKBps Mean throughput (in KB/sec) of the partitions
+   * @param seed Seed of the random generation of the cluster and of its changes
+   */
+  public SimulatedCluster(String name, int numInstances, int numDatastreamGroups, int numPartitionsPerGroup,
+      ThroughputDistribution throughputDistribution, int meanPartitionThroughputKBps, long seed) {
+    Validate.notEmpty(name, "empty cluster name");
+    Validate.isTrue(numInstances > 0, "no instance");
+    Validate.isTrue(numDatastreamGroups > 0, "no datastream group");
+    Validate.isTrue(numPartitionsPerGroup > 0, "no partition");
+    Validate.notNull(throughputDistribution, "null throughput distribution");
+    Validate.isTrue(meanPartitionThroughputKBps >= 0, "negative mean partition throughput");
+    _name = name;
+    _random = new Random(seed);
+    _throughputDistribution = throughputDistribution;
+    _meanPartitionThroughputKBps = meanPartitionThroughputKBps;
+
+    addInstances(numInstances);
+    for (int i = 0; i < numDatastreamGroups; i++) {
+      String datastreamName = "datastream" + i;
+      Datastream datastream = DatastreamTestUtils.createDatastream(CONNECTOR_TYPE, datastreamName, "source" + i);
+      datastream.getMetadata().put(DatastreamMetadataConstants.TASK_PREFIX, datastreamName);
+      datastream.getMetadata().put(CFG_MIN_TASKS, MIN_TASKS);
+      _datastreamGroups.add(new DatastreamGroup(Collections.singletonList(datastream)));
+      _partitionThroughputs.put(datastreamName, new LinkedHashMap<>());
+    }
+    addPartitions(numPartitionsPerGroup);
+  }
+
+  public String getName() {
+    return _name;
+  }
+
+  public List<String> getInstances() {
+    return Collections.unmodifiableList(_instances);
+  }
+
+  public List<DatastreamGroup> getDatastreamGroups() {
+    return Collections.unmodifiableList(_datastreamGroups);
+  }
+
+  public int getNumPartitionsPerGroup() {
+    return _numPartitionsPerGroup;
+  }
+
+  /**
+   * Get the source partitions of a datastream group, as its connector would report them
+   */
+  public DatastreamGroupPartitionsMetadata getPartitionsMetadata(DatastreamGroup datastreamGroup) {
+    return new DatastreamGroupPartitionsMetadata(datastreamGroup,
+        new ArrayList<>(_partitionThroughputs.get(datastreamGroup.getName()).keySet()));
+  }
+
+  /**
+   * Get the throughput (in KB/sec) of a partition of a datastream group
+   */
+  public int getPartitionThroughputKBps(String datastreamGroupName, String partition) {
+    PartitionThroughputInfo throughputInfo = _partitionThroughputs.get(datastreamGroupName).get(partition);
+    return throughputInfo != null ? throughputInfo.getBytesInKBRate() : 0;
+  }
+
+  /**
+   * Get the total throughput (in KB/sec) of the partitions of a datastream group
+   */
+  public long getDatastreamGroupThroughputKBps(String datastreamGroupName) {
+    return _partitionThroughputs.get(datastreamGroupName).values().stream()
+        .mapToLong(PartitionThroughputInfo::getBytesInKBRate).sum();
+  }
+
+  /**
+   * Add live instances to the cluster
+   */
+  public void addInstances(int numInstances) {
+    for (int i = 0; i < numInstances; i++) {
+      _instances.add("instance" + _nextInstanceId++);
+    }
+  }
+
+  /**
+   * Remove a random live instance from the cluster, as if it died
+   * @return the name of the removed instance
+   */
+  public String removeRandomInstance() {
+    Validate.isTrue(_instances.size() > 1, "cannot remove the last instance");
+    return _instances.remove(_random.nextInt(_instances.size()));
+  }
+
+  /**
+   * Add source partitions to every datastream group, each with a throughput drawn from the throughput distribution
+   */
+  public void addPartitions(int numPartitionsPerGroup) {
+    for (Map.Entry<String, Map<String, PartitionThroughputInfo>> entry : _partitionThroughputs.entrySet()) {
+      for (int i = _numPartitionsPerGroup; i < _numPartitionsPerGroup + numPartitionsPerGroup; i++) {
+        String partition = entry.getKey() + "-" + i;
+        // assume messages of 1KB
+        int throughputKBps = _throughputDistribution.sample(_random, _meanPartitionThroughputKBps);
+        entry.getValue().put(partition, new PartitionThroughputInfo(throughputKBps, throughputKBps, partition));
+      }
+    }
+    _numPartitionsPerGroup += numPartitionsPerGroup;
+  }
+
+  /**
+   * Retrieves per-partition throughput information for the datastream group of the given name, as the throughput is
+   * simulated per datastream group rather than per source cluster
+   * @param datastreamGroupName Name of the datastream group
+   * @return Throughput information for the datastream group, or null if the cluster has no such datastream group
+   */
+  @Override
+  public ClusterThroughputInfo getThroughputInfo(String datastreamGroupName) {
+    Map<String, PartitionThroughputInfo> partitionThroughputs = _partitionThroughputs.get(datastreamGroupName);
+    return partitionThroughputs == null ? null
+        : new ClusterThroughputInfo(datastreamGroupName, new HashMap<>(partitionThroughputs));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public ClusterThroughputInfo getThroughputInfo(DatastreamGroup datastreamGroup) {
+    return getThroughputInfo(datastreamGroup.getName());
+  }
+
+  /**
+   * Retrieves per-partition throughput information for all the datastream groups of the cluster
+   * @return A map, where keys are datastream group names and values are throughput information for the group
+   */
+  @Override
+  public Map<String, ClusterThroughputInfo> getThroughputInfo() {
+    Map<String, ClusterThroughputInfo> throughputInfos = new HashMap<>();
+    _partitionThroughputs.keySet().forEach(name -> throughputInfos.put(name, getThroughputInfo(name)));
+    return throughputInfos;
+  }
+}
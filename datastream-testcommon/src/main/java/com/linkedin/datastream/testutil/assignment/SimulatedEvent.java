@@ -0,0 +1,63 @@
+/**
+ *  Copyright 2021 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.testutil.assignment;
+
+/**
+ * The events an {@link AssignmentSimulator} replays: each changes the {@link SimulatedCluster}, then the leader
+ * reassigns the datastreams, as the Coordinator does.
+ */
+public enum SimulatedEvent {
+  /**
+   * Nothing changes, as on the first assignment or on a datastream update
+   */
+  ASSIGNMENT {
+    @Override
+    void apply(SimulatedCluster cluster) {
+    }
+  },
+
+  /**
+   * A random instance dies
+   */
+  INSTANCE_DEATH {
+    @Override
+    void apply(SimulatedCluster cluster) {
+      cluster.removeRandomInstance();
+    }
+  },
+
+  /**
+   * The cluster grows by a tenth of its instances, and at least one
+   */
+  SCALE_OUT {
+    @Override
+    void apply(SimulatedCluster cluster) {
+      cluster.addInstances(Math.max(cluster.getInstances().size() / 10, 1));
+    }
+  },
+
+  /**
+   * Every datastream group grows by a tenth of its partitions, and at least one
+   */
+  PARTITION_GROWTH {
+    @Override
+    void apply(SimulatedCluster cluster) {
+      cluster.addPartitions(Math.max(cluster.getNumPartitionsPerGroup() / 10, 1));
+    }
+  },
+
+  /**
+   * Nothing changes, but the leader rebalances the partitions of the datastream groups between their tasks, rather
+   * than reassigning the datastreams
+   */
+  PARTITION_REBALANCE {
+    @Override
+    void apply(SimulatedCluster cluster) {
+    }
+  };
+
+  abstract void apply(SimulatedCluster cluster);
+}
@@ -0,0 +1,95 @@
+/**
+ *  Copyright 2021 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.testutil.assignment;
+
+import java.util.Optional;
+
+import org.apache.commons.lang.Validate;
+
+import com.linkedin.datastream.common.zk.ZkClient;
+import com.linkedin.datastream.server.api.strategy.AssignmentStrategy;
+import com.linkedin.datastream.server.assignment.BroadcastStrategy;
+import com.linkedin.datastream.server.assignment.LoadBasedPartitionAssignmentStrategy;
+import com.linkedin.datastream.server.assignment.StickyMulticastStrategy;
+import com.linkedin.datastream.server.assignment.StickyPartitionAssignmentStrategy;
+
+import static com.linkedin.datastream.server.assignment.StickyMulticastStrategyFactory.DEFAULT_IMBALANCE_THRESHOLD;
+
+
+/**
+ * The {@link AssignmentStrategy} implementations an {@link AssignmentSimulator} replays scenarios through, configured
+ * with the defaults of their factories, except that the partition strategies have elastic task assignment enabled, so
+ * that the number of tasks follows the number (and for {@link #LOAD_BASED}, the throughput) of the partitions.
+ */
+public enum SimulatedStrategy {
+  STICKY_PARTITION(true) {
+    @Override
+    AssignmentStrategy create(SimulatedCluster cluster, ZkClient zkClient) {
+      return new StickyPartitionAssignmentStrategy(Optional.empty(), DEFAULT_IMBALANCE_THRESHOLD, Integer.MAX_VALUE,
+          true, PARTITIONS_PER_TASK, PARTITION_FULLNESS_FACTOR_PCT, zkClient, cluster.getName());
+    }
+  },
+
+  LOAD_BASED(true) {
+    @Override
+    AssignmentStrategy create(SimulatedCluster cluster, ZkClient zkClient) {
+      return new LoadBasedPartitionAssignmentStrategy(cluster, Optional.empty(), DEFAULT_IMBALANCE_THRESHOLD,
+          Integer.MAX_VALUE, true, PARTITIONS_PER_TASK, PARTITION_FULLNESS_FACTOR_PCT, TASK_CAPACITY_MBPS,
+          TASK_CAPACITY_UTILIZATION_PCT, THROUGHPUT_INFO_FETCH_TIMEOUT_MS, THROUGHPUT_INFO_FETCH_TIMEOUT_MS, zkClient,
+          cluster.getName(), true, true, DEFAULT_PARTITION_RATE, DEFAULT_PARTITION_RATE,
+          MAX_PARTITION_MOVES_PER_REBALANCE, REBALANCE_IMBALANCE_THRESHOLD_PCT, null);
+    }
+  },
+
+  STICKY_MULTICAST(false) {
+    @Override
+    AssignmentStrategy create(SimulatedCluster cluster, ZkClient zkClient) {
+      return new StickyMulticastStrategy(Optional.empty(), DEFAULT_IMBALANCE_THRESHOLD);
+    }
+  },
+
+  BROADCAST(false) {
+    @Override
+    AssignmentStrategy create(SimulatedCluster cluster, ZkClient zkClient) {
+      return new BroadcastStrategy(Optional.empty());
+    }
+  };
+
+  private static final int PARTITIONS_PER_TASK = 50;
+  private static final int PARTITION_FULLNESS_FACTOR_PCT = 75;
+  private static final int TASK_CAPACITY_MBPS = 4;
+  private static final int TASK_CAPACITY_UTILIZATION_PCT = 90;
+  private static final int THROUGHPUT_INFO_FETCH_TIMEOUT_MS = 1000;
+  private static final int DEFAULT_PARTITION_RATE = 5;
+  private static final int MAX_PARTITION_MOVES_PER_REBALANCE = 10;
+  private static final int REBALANCE_IMBALANCE_THRESHOLD_PCT = 125;
+
+  private final boolean _partitionManaged;
+
+  SimulatedStrategy(boolean partitionManaged) {
+    _partitionManaged = partitionManaged;
+  }
+
+  /**
+   * Whether the strategy assigns the partitions of the datastream groups to their tasks
+   */
+  public boolean isPartitionManaged() {
+    return _partitionManaged;
+  }
+
+  /**
+   * Create the strategy
+   * @param cluster the cluster the strategy assigns the datastreams of, which also provides the partition throughput
+   * @param zkClient the ZooKeeper client the partition strategies keep the number of tasks of each datastream group
+   *                 with, which may be null for the other strategies
+   */
+  public AssignmentStrategy createStrategy(SimulatedCluster cluster, ZkClient zkClient) {
+    Validate.isTrue(!_partitionManaged || zkClient != null, "null ZooKeeper client for a partition strategy");
+    return create(cluster, zkClient);
+  }
+
+  abstract AssignmentStrategy create(SimulatedCluster cluster, ZkClient zkClient);
+}
@@ -0,0 +1,116 @@
+/**
+ *  Copyright 2021 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.testutil.assignment;
+
+/**
+ * The cost and the outcome of the reassignment which followed a {@link SimulatedEvent}.
+ *
+ * The balance of the assignment is reported as the percentage of the mean the most loaded instance (or task) carries,
+ * so that 100 is a perfect balance.
+ */
+public class SimulationReport {
+  private final SimulatedEvent _event;
+  private final int _numInstances;
+  private final int _numTasks;
+  private final int _numPartitions;
+  private final long _wallTimeNanos;
+  private final long _allocatedBytes;
+  private final int _numMovedTasks;
+  private final int _numMovedPartitions;
+  private final int _maxTasksPerInstancePct;
+  private final int _maxPartitionsPerInstancePct;
+  private final int _maxThroughputPerInstancePct;
+  private final int _maxThroughputPerTaskPct;
+
+  /**
+   * Creates an instance of {@link SimulationReport}
+   * @param event the event which was replayed
+   * @param numInstances the number of live instances
+   * @param numTasks the number of tasks of the new assignment
+   * @param numPartitions the number of partitions of the new assignment
+   * @param wallTimeNanos the time (in nanoseconds) the strategy took to compute the new assignment
+   * @param allocatedBytes the memory the strategy allocated to compute the new assignment, or -1 if unknown
+   * @param numMovedTasks the number of tasks moved to another instance
+   * @param numMovedPartitions the number of partitions moved to another instance
+   * @param maxTasksPerInstancePct the tasks of the most loaded instance, as a percentage of the mean
+   * @param maxPartitionsPerInstancePct the partitions of the most loaded instance, as a percentage of the mean
+   * @param maxThroughputPerInstancePct the throughput of the most loaded instance, as a percentage of the mean
+   * @param maxThroughputPerTaskPct the throughput of the most loaded task, as a percentage of the mean
+   */
+  public SimulationReport(SimulatedEvent event, int numInstances, int numTasks, int numPartitions, long wallTimeNanos,
+      long allocatedBytes, int numMovedTasks, int numMovedPartitions, int maxTasksPerInstancePct,
+      int maxPartitionsPerInstancePct, int maxThroughputPerInstancePct, int maxThroughputPerTaskPct) {
+    _event = event;
+    _numInstances = numInstances;
+    _numTasks = numTasks;
+    _numPartitions = numPartitions;
+    _wallTimeNanos = wallTimeNanos;
+    _allocatedBytes = allocatedBytes;
+    _numMovedTasks = numMovedTasks;
+    _numMovedPartitions = numMovedPartitions;
+    _maxTasksPerInstancePct = maxTasksPerInstancePct;
+    _maxPartitionsPerInstancePct = maxPartitionsPerInstancePct;
+    _maxThroughputPerInstancePct = maxThroughputPerInstancePct;
+    _maxThroughputPerTaskPct = maxThroughputPerTaskPct;
+  }
+
+  public SimulatedEvent getEvent() {
+    return _event;
+  }
+
+  public int getNumInstances() {
+    return _numInstances;
+  }
+
+  public int getNumTasks() {
+    return _numTasks;
+  }
+
+  public int getNumPartitions() {
+    return _numPartitions;
+  }
+
+  public long getWallTimeNanos() {
+    return _wallTimeNanos;
+  }
+
+  public long getAllocatedBytes() {
+    return _allocatedBytes;
+  }
+
+  public int getNumMovedTasks() {
+    return _numMovedTasks;
+  }
+
+  public int getNumMovedPartitions() {
+    return _numMovedPartitions;
+  }
+
+  public int getMaxTasksPerInstancePct() {
+    return _maxTasksPerInstancePct;
+  }
+
+  public int getMaxPartitionsPerInstancePct() {
+    return _maxPartitionsPerInstancePct;
+  }
+
+  public int getMaxThroughputPerInstancePct() {
+    return _maxThroughputPerInstancePct;
+  }
+
+  public int getMaxThroughputPerTaskPct() {
+    return _maxThroughputPerTaskPct;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s: %d instances, %d tasks, %d partitions, took %.3f ms, allocated %d KB, moved %d tasks "
+            + "and %d partitions, max per instance: %d%% tasks, %d%% partitions, %d%% throughput, "
+            + "max per task: %d%% throughput", _event, _numInstances, _numTasks, _numPartitions,
+        _wallTimeNanos / 1e6, _allocatedBytes / 1024, _numMovedTasks, _numMovedPartitions, _maxTasksPerInstancePct,
+        _maxPartitionsPerInstancePct, _maxThroughputPerInstancePct, _maxThroughputPerTaskPct);
+  }
+}
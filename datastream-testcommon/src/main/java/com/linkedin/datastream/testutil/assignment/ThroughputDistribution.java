@@ -0,0 +1,58 @@
+/**
+ *  Copyright 2021 LinkedIn Corporation. All rights reserved.
+ *  Licensed under the BSD 2-Clause License. See the LICENSE file in the project root for license information.
+ *  See the NOTICE file in the project root for additional information regarding copyright ownership.
+ */
+package com.linkedin.datastream.testutil.assignment;
+
+import java.util.Random;
+
+
+/**
+ * The distributions the throughput of the partitions of a {@link SimulatedCluster} are drawn from
+ */
+public enum ThroughputDistribution {
+  /**
+   * Every partition has the mean throughput
+   */
+  CONSTANT {
+    @Override
+    int sample(Random random, int meanKBps) {
+      return meanKBps;
+    }
+  },
+
+  /**
+   * The throughput is uniformly distributed between zero and twice the mean
+   */
+  UNIFORM {
+    @Override
+    int sample(Random random, int meanKBps) {
+      return random.nextInt(2 * meanKBps + 1);
+    }
+  },
+
+  /**
+   * The throughput follows a Pareto distribution, so that a few hot partitions carry most of the traffic, as the
+   * partitions of the topics keyed by a skewed key do
+   */
+  PARETO {
+    private static final double SHAPE = 1.5;
+    // bounds the throughput of the hottest partitions, which the distribution does not
+    private static final int MAX_MULTIPLE_OF_MEAN = 1000;
+
+    @Override
+    int sample(Random random, int meanKBps) {
+      double scale = meanKBps * (SHAPE - 1) / SHAPE;
+      double sample = scale / Math.pow(1 - random.nextDouble(), 1 / SHAPE);
+      return (int) Math.min(Math.round(sample), (long) meanKBps * MAX_MULTIPLE_OF_MEAN);
+    }
+  };
+
+  /**
+   * Draw the throughput of a partition
+   * @param random the source of randomness
+   * @param meanKBps the mean throughput (in KB/sec) of the partitions
+   */
+  abstract int sample(Random random, int meanKBps);
+}